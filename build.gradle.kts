@@ -6,6 +6,7 @@ plugins {
     kotlin("jvm") version "1.5.21"
     id("org.jetbrains.compose") version "1.0.0-alpha2"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 group = "com.github.HuixingWong"
@@ -23,6 +24,7 @@ dependencies {
     api(compose.foundation)
     api(compose.material)
     api("org.json:json:20210307")
+    testImplementation("junit:junit:4.13.2")
 }
 
 java {
@@ -35,6 +37,34 @@ tasks.withType<KotlinCompile>() {
     kotlinOptions.jvmTarget = "11"
 }
 
+// Benchmarks of the core library, in src/jmh. Run with ./gradlew jmh
+// (e.g. -PjmhIncludes=MeasureBenchmark to only run some of them).
+jmh {
+    jmhVersion.set("1.33")
+    // the benchmarks use the generated hierarchies of the tests
+    includeTests.set(true)
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf(project.property("jmhIncludes").toString()))
+    }
+    resultFormat.set("JSON")
+    resultsFile.set(project.file("${project.buildDir}/reports/jmh/results.json"))
+}
+
+// The Kotlin benchmarks call internal functions of the library, such as parseJSON
+kotlin.target.compilations.getByName("jmh")
+    .associateWith(kotlin.target.compilations.getByName("main"))
+
+// Converts JSON5 ConstraintSets and MotionScenes to the binary form read by CLBinary.decode,
+// e.g. ./gradlew compileMotionScenes -PmotionScenes=scenes -PmotionScenesOutput=build/scenes
+tasks.register<JavaExec>("compileMotionScenes") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("androidx.constraintlayout.core.parser.CLBinary")
+    args(
+        project.findProperty("motionScenes")?.toString() ?: "scenes",
+        project.findProperty("motionScenesOutput")?.toString() ?: "$buildDir/scenes"
+    )
+}
+
 afterEvaluate {
     publishing {
         publications {
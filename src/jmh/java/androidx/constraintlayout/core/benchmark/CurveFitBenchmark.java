@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.motion.utils.ArcCurveFit;
+import androidx.constraintlayout.core.motion.utils.CurveFit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CurveFit} lookups on curves with many key frames, either sweeping forward as an
+ * animation would or at random positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveFitBenchmark {
+    static final int STEPS = 1000;
+
+    @Param({"SPLINE", "LINEAR", "ARC"})
+    public String type;
+
+    @Param({"4", "64", "256"})
+    public int keyFrames;
+
+    private CurveFit mCurveFit;
+    private final double[] mPos = new double[2];
+    private final float[] mFloatPos = new float[2];
+    private double[] mRandom;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        double[] time = new double[keyFrames];
+        double[][] values = new double[keyFrames][2];
+        int[] modes = new int[keyFrames];
+        for (int i = 0; i < keyFrames; i++) {
+            time[i] = i / (double) (keyFrames - 1);
+            values[i][0] = random.nextDouble() * 1000;
+            values[i][1] = random.nextDouble() * 1000;
+            modes[i] = ArcCurveFit.ARC_START_FLIP;
+        }
+        switch (type) {
+            case "ARC":
+                mCurveFit = CurveFit.getArc(modes, time, values);
+                break;
+            case "LINEAR":
+                mCurveFit = CurveFit.get(CurveFit.LINEAR, time, values);
+                break;
+            default:
+                mCurveFit = CurveFit.get(CurveFit.SPLINE, time, values);
+        }
+        mRandom = new double[STEPS];
+        for (int i = 0; i < STEPS; i++) {
+            mRandom[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double sweep() {
+        double sum = 0;
+        for (int step = 0; step <= STEPS; step++) {
+            double t = step / (double) STEPS;
+            mCurveFit.getPos(t, mPos);
+            sum += mPos[0] + mCurveFit.getSlope(t, 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sweepPerDimension() {
+        double sum = 0;
+        for (int step = 0; step <= STEPS; step++) {
+            double t = step / (double) STEPS;
+            sum += mCurveFit.getPos(t, 0) + mCurveFit.getPos(t, 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sweepFloat() {
+        double sum = 0;
+        for (int step = 0; step <= STEPS; step++) {
+            mCurveFit.getPos(step / (double) STEPS, mFloatPos);
+            sum += mFloatPos[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double random() {
+        double sum = 0;
+        for (int i = 0; i < STEPS; i++) {
+            mCurveFit.getPos(mRandom[i], mPos);
+            sum += mPos[0];
+        }
+        return sum;
+    }
+}
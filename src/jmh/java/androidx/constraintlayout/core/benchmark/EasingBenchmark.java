@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.motion.utils.Easing;
+import androidx.constraintlayout.core.state.Interpolator;
+import androidx.constraintlayout.core.state.Transition;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Easing.CubicEasing} with the binary search and with the lookup table of
+ * {@link Easing.CubicEasing#setUseLookupTable}, over a sweep of {@link #STEPS} progress
+ * values as an animation would do, and the cost of getting a {@link Transition} interpolator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EasingBenchmark {
+    static final int STEPS = 1000;
+
+    @Param({"standard", "decelerate", "overshoot"})
+    public String easing;
+
+    @Param({"BISECTION", "LOOKUP_TABLE"})
+    public String mode;
+
+    private Easing mEasing;
+    private Interpolator mInterpolator;
+
+    @Setup
+    public void setup() {
+        boolean useLookupTable = "LOOKUP_TABLE".equals(mode);
+        mEasing = Easing.getInterpolator(easing);
+        ((Easing.CubicEasing) mEasing).setUseLookupTable(useLookupTable);
+        mInterpolator = Transition.getInterpolator(-1, easing, useLookupTable);
+    }
+
+    @Benchmark
+    public double get() {
+        double sum = 0;
+        for (int i = 0; i <= STEPS; i++) {
+            sum += mEasing.get(i / (double) STEPS);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double getDiff() {
+        double sum = 0;
+        for (int i = 0; i <= STEPS; i++) {
+            sum += mEasing.getDiff(i / (double) STEPS);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float interpolator() {
+        float sum = 0;
+        for (int i = 0; i <= STEPS; i++) {
+            sum += mInterpolator.getInterpolation(i / (float) STEPS);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Interpolator getInterpolator() {
+        return Transition.getInterpolator(-1, easing, "LOOKUP_TABLE".equals(mode));
+    }
+}
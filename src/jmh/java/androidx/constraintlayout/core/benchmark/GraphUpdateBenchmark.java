@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.SolverConfig;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures of a static hierarchy through the dependency graph, after
+ * {@link ConstraintWidgetContainer#updateHierarchy()} as a layout pass does, with the graph
+ * built again each time or updated with {@link SolverConfig#incrementalGraph}.
+ *
+ * {@link #measure()} only updates the hierarchy, {@link #toggleVisibility()} also switches one
+ * widget between visible and gone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphUpdateBenchmark {
+
+    @Param({"CARDS", "CHAINS", "DEEP_TREE"})
+    public Hierarchies.Shape shape;
+
+    @Param({"100", "1000"})
+    public int count;
+
+    @Param({"FULL", "INCREMENTAL"})
+    public String graph;
+
+    private ConstraintWidgetContainer mRoot;
+    private ConstraintWidget mToggled;
+    private int mOptimizationLevel;
+
+    @Setup
+    public void setup() {
+        mRoot = Hierarchies.create(shape, count, 42);
+        mRoot.getSolverConfig().incrementalGraph = "INCREMENTAL".equals(graph);
+        mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH;
+        mRoot.setOptimizationLevel(mOptimizationLevel);
+        mRoot.updateHierarchy();
+        mToggled = mRoot.getChildren().get(mRoot.getChildren().size() / 2);
+    }
+
+    private int layout() {
+        mRoot.updateHierarchy();
+        mRoot.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        mRoot.setWidth(Hierarchies.WIDTH);
+        mRoot.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        mRoot.setHeight(Hierarchies.HEIGHT);
+        mRoot.measure(mOptimizationLevel, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                BasicMeasure.EXACTLY, Hierarchies.HEIGHT, 0, 0, 0, 0);
+        return mRoot.getHeight();
+    }
+
+    @Benchmark
+    public int measure() {
+        return layout();
+    }
+
+    @Benchmark
+    public int toggleVisibility() {
+        mToggled.setVisibility(mToggled.getVisibility() == ConstraintWidget.GONE
+                ? ConstraintWidget.VISIBLE : ConstraintWidget.GONE);
+        return layout();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConstraintWidgetContainer#measure} on generated hierarchies.
+ *
+ * The width alternates between two values so that every measure does a full layout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeasureBenchmark {
+
+    @Param({"CHAINS", "BARRIERS", "FLOWS", "RATIOS", "DEEP_TREE"})
+    public Hierarchies.Shape shape;
+
+    @Param({"10", "100", "1000", "2000"})
+    public int count;
+
+    @Param({"STANDARD", "NONE"})
+    public String optimization;
+
+    private ConstraintWidgetContainer mRoot;
+    private int mOptimizationLevel;
+    private boolean mToggle;
+
+    @Setup
+    public void setup() {
+        mRoot = Hierarchies.create(shape, count, 42);
+        mOptimizationLevel = "NONE".equals(optimization)
+                ? Optimizer.OPTIMIZATION_NONE : Optimizer.OPTIMIZATION_STANDARD;
+        mRoot.setOptimizationLevel(mOptimizationLevel);
+        mRoot.updateHierarchy();
+    }
+
+    private int measure(boolean wrapHeight) {
+        mToggle = !mToggle;
+        mRoot.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        mRoot.setWidth(mToggle ? Hierarchies.WIDTH : Hierarchies.WIDTH - 40);
+        if (wrapHeight) {
+            mRoot.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        } else {
+            mRoot.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            mRoot.setHeight(Hierarchies.HEIGHT);
+        }
+        mRoot.measure(mOptimizationLevel, BasicMeasure.EXACTLY, mRoot.getWidth(),
+                wrapHeight ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                wrapHeight ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+        return mRoot.getHeight();
+    }
+
+    @Benchmark
+    public int measureExactly() {
+        return measure(false);
+    }
+
+    @Benchmark
+    public int measureWrapContent() {
+        return measure(true);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.motion.Motion;
+import androidx.constraintlayout.core.motion.MotionWidget;
+import androidx.constraintlayout.core.motion.key.MotionKeyAttributes;
+import androidx.constraintlayout.core.motion.key.MotionKeyCycle;
+import androidx.constraintlayout.core.motion.key.MotionKeyPosition;
+import androidx.constraintlayout.core.motion.utils.KeyCache;
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+import androidx.constraintlayout.core.state.WidgetFrame;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Motion#interpolate} sweeps: each invocation interpolates every widget at
+ * {@link #STEPS} positions from start to end, as an animation would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotionBenchmark {
+    static final int STEPS = 60;
+
+    @Param({"1", "10", "100"})
+    public int count;
+
+    @Param({"NONE", "POSITION", "ATTRIBUTES", "CYCLES"})
+    public String keyFrames;
+
+    private Motion[] mMotions;
+    private MotionWidget[] mInterpolated;
+    private KeyCache mKeyCache;
+
+    @Setup
+    public void setup() {
+        mMotions = new Motion[count];
+        mInterpolated = new MotionWidget[count];
+        mKeyCache = new KeyCache();
+        for (int i = 0; i < count; i++) {
+            WidgetFrame start = new WidgetFrame();
+            WidgetFrame end = new WidgetFrame();
+            start.left = 10 + i;
+            start.top = 10 + i * 2;
+            start.right = start.left + 100;
+            start.bottom = start.top + 50;
+            end.left = 600 - i;
+            end.top = 1200 - i * 2;
+            end.right = end.left + 200;
+            end.bottom = end.top + 150;
+            start.rotationZ = 0;
+            end.rotationZ = 90;
+            start.alpha = 1;
+            end.alpha = 0.5f;
+            MotionWidget startWidget = new MotionWidget(start);
+            Motion motion = new Motion(startWidget);
+            motion.setStart(startWidget);
+            motion.setEnd(new MotionWidget(end));
+            addKeys(motion);
+            motion.setup(Hierarchies.WIDTH, Hierarchies.HEIGHT, 1, 0);
+            mMotions[i] = motion;
+            mInterpolated[i] = new MotionWidget(new WidgetFrame());
+        }
+    }
+
+    private void addKeys(Motion motion) {
+        for (int frame = 25; frame < 100; frame += 25) {
+            switch (keyFrames) {
+                case "POSITION": {
+                    MotionKeyPosition key = new MotionKeyPosition();
+                    key.setFramePosition(frame);
+                    key.setValue(TypedValues.Position.TYPE_PERCENT_X, frame / 100f);
+                    key.setValue(TypedValues.Position.TYPE_PERCENT_Y, 1 - frame / 100f);
+                    motion.addKey(key);
+                    break;
+                }
+                case "ATTRIBUTES": {
+                    MotionKeyAttributes key = new MotionKeyAttributes();
+                    key.setFramePosition(frame);
+                    key.setValue(TypedValues.Attributes.TYPE_ROTATION_Z, frame * 2f);
+                    key.setValue(TypedValues.Attributes.TYPE_ALPHA, frame / 100f);
+                    motion.addKey(key);
+                    break;
+                }
+                case "CYCLES": {
+                    MotionKeyCycle key = new MotionKeyCycle();
+                    key.setFramePosition(frame);
+                    key.setValue(TypedValues.Cycle.TYPE_TRANSLATION_Y, 20f);
+                    key.setValue(TypedValues.Cycle.TYPE_WAVE_PERIOD, 2f);
+                    motion.addKey(key);
+                    break;
+                }
+                default:
+                    return;
+            }
+        }
+    }
+
+    @Benchmark
+    public int sweep() {
+        int sum = 0;
+        for (int step = 0; step <= STEPS; step++) {
+            float progress = step / (float) STEPS;
+            for (int i = 0; i < count; i++) {
+                mMotions[i].interpolate(mInterpolated[i], progress, step, mKeyCache);
+                sum += mInterpolated[i].getLeft();
+            }
+        }
+        return sum;
+    }
+}
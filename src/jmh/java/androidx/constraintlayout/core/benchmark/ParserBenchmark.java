@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.parser.CLBinary;
+import androidx.constraintlayout.core.parser.CLContainer;
+import androidx.constraintlayout.core.parser.CLElement;
+import androidx.constraintlayout.core.parser.CLEventHandler;
+import androidx.constraintlayout.core.parser.CLKey;
+import androidx.constraintlayout.core.parser.CLNumber;
+import androidx.constraintlayout.core.parser.CLObject;
+import androidx.constraintlayout.core.parser.CLParser;
+import androidx.constraintlayout.core.parser.CLParsingException;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CLParser#parse(String)} on generated JSON5 motion scenes, up to a few megabytes,
+ * {@link CLParser#parse(String, CLEventHandler)} on the same scenes, and
+ * {@link CLBinary#decode(ByteBuffer)} of their binary form.
+ *
+ * {@link Throughput} reports the parsed characters per microsecond; run with
+ * {@code -prof gc} to compare the allocations of the tree and of the events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int count;
+
+    private String mContent;
+    private ByteBuffer mCompiled;
+    private final SumHandler mHandler = new SumHandler();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long chars;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            chars = 0;
+        }
+    }
+
+    /**
+     * Sums the numbers and counts the keys, as a stand-in for a consumer of the events
+     */
+    static class SumHandler implements CLEventHandler {
+        float sum;
+        int keys;
+
+        @Override
+        public void startObject() {
+        }
+
+        @Override
+        public void endObject() {
+        }
+
+        @Override
+        public void startArray() {
+        }
+
+        @Override
+        public void endArray() {
+        }
+
+        @Override
+        public void onKey(char[] content, int start, int length) {
+            keys++;
+        }
+
+        @Override
+        public void onString(char[] content, int start, int length) {
+        }
+
+        @Override
+        public void onNumber(float value) {
+            sum += value;
+        }
+
+        @Override
+        public void onBoolean(boolean value) {
+        }
+
+        @Override
+        public void onNull() {
+        }
+    }
+
+    @Setup
+    public void setup() throws CLParsingException {
+        mContent = createScene(count);
+        mCompiled = ByteBuffer.wrap(CLBinary.encode(CLParser.parse(mContent)));
+    }
+
+    /**
+     * A scene with a start and an end constraint set of count widgets, and a transition
+     * with keyframes on every widget. Uses unquoted keys, single quotes and comments.
+     */
+    static String createScene(int count) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n  // generated scene\n  ConstraintSets: {\n");
+        for (String set : new String[]{"start", "end"}) {
+            builder.append("    ").append(set).append(": {\n");
+            for (int i = 0; i < count; i++) {
+                String previous = i == 0 ? "parent" : "w" + (i - 1);
+                builder.append("      w").append(i).append(": {\n")
+                        .append("        width: ").append(40 + i % 100).append(",\n")
+                        .append("        height: 'wrap',\n")
+                        .append("        start: ['").append(previous).append("', 'start', ")
+                        .append(i % 16).append("],\n")
+                        .append("        top: ['").append(previous).append("', ")
+                        .append(i == 0 ? "'top'" : "'bottom'").append(", 4],\n")
+                        .append("        rotationZ: ").append(set.equals("end") ? 45.5 : 0)
+                        .append(",\n")
+                        .append("        alpha: ").append(set.equals("end") ? 0.25 : 1.0)
+                        .append(",\n")
+                        .append("        custom: { background: '#FF").append(i % 10)
+                        .append("0000', textSize: 12.5 }\n")
+                        .append("      },\n");
+            }
+            builder.append("    },\n");
+        }
+        builder.append("  },\n  Transitions: {\n    default: {\n      from: 'start',\n")
+                .append("      to: 'end',\n      KeyFrames: {\n        KeyPositions: [\n");
+        for (int i = 0; i < count; i++) {
+            builder.append("          { target: ['w").append(i)
+                    .append("'], frames: [25, 50, 75], percentX: [0.1, 0.5, 0.9], ")
+                    .append("percentY: [0.2, 0.4, 0.6] },\n");
+        }
+        builder.append("        ]\n      }\n    }\n  }\n}\n");
+        return builder.toString();
+    }
+
+    private static float sum(CLElement element) throws CLParsingException {
+        if (element instanceof CLNumber) {
+            return element.getFloat();
+        }
+        if (element instanceof CLKey) {
+            return sum(((CLKey) element).getValue());
+        }
+        float sum = 0;
+        if (element instanceof CLContainer) {
+            CLContainer container = (CLContainer) element;
+            for (int i = 0; i < container.size(); i++) {
+                sum += sum(container.get(i));
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public CLObject parse(Throughput throughput) throws CLParsingException {
+        throughput.chars += mContent.length();
+        return CLParser.parse(mContent);
+    }
+
+    @Benchmark
+    public float parseAndReadNumbers(Throughput throughput) throws CLParsingException {
+        throughput.chars += mContent.length();
+        return sum(CLParser.parse(mContent));
+    }
+
+    @Benchmark
+    public CLObject decodeCompiled(Throughput throughput) throws CLParsingException {
+        throughput.chars += mContent.length();
+        return CLBinary.decode(mCompiled);
+    }
+
+    @Benchmark
+    public float parseEvents(Throughput throughput) throws CLParsingException {
+        throughput.chars += mContent.length();
+        mHandler.sum = 0;
+        CLParser.parse(mContent, mHandler);
+        return mHandler.sum;
+    }
+}
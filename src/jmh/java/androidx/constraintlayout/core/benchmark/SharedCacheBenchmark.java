@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.Cache;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layouts of the items of a scrolling list, each item being its own container.
+ *
+ * {@link #scroll} measures the items in turn, {@link #bindNewItem} measures a new container
+ * each time. With a shared {@link Cache} the new containers take their rows and variables
+ * from the pools filled by the others; {@link Pools} reports the rows and variables that
+ * had to be created, which is zero in the steady state once the pools are large enough.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedCacheBenchmark {
+    private static final int ITEMS = 16;
+
+    @Param({"CHAINS", "BARRIERS", "RATIOS"})
+    public Hierarchies.Shape shape;
+
+    @Param({"10", "50"})
+    public int count;
+
+    @Param({"SHARED", "OWN"})
+    public String cache;
+
+    private final Cache mSharedCache = new Cache();
+    private final ConstraintWidgetContainer[] mItems = new ConstraintWidgetContainer[ITEMS];
+    private final Cache.PoolStatistics mStatistics = new Cache.PoolStatistics();
+    private int mNext;
+    private int mSeed;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Pools {
+        public long rowMisses;
+        public long variableMisses;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            rowMisses = 0;
+            variableMisses = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < ITEMS; i++) {
+            mItems[i] = createItem(i);
+        }
+    }
+
+    private ConstraintWidgetContainer createItem(int seed) {
+        ConstraintWidgetContainer item = Hierarchies.create(shape, count, seed);
+        item.setOptimizationLevel(Optimizer.OPTIMIZATION_NONE);
+        if ("SHARED".equals(cache)) {
+            item.setSolverCache(mSharedCache);
+        }
+        item.updateHierarchy();
+        return item;
+    }
+
+    private int measure(ConstraintWidgetContainer item, Pools pools) {
+        Cache itemCache = item.getSystem().getCache();
+        itemCache.resetPoolStatistics();
+        item.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        item.setWidth(Hierarchies.WIDTH);
+        item.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        item.measure(item.getOptimizationLevel(), BasicMeasure.EXACTLY, item.getWidth(),
+                BasicMeasure.UNSPECIFIED, 0, 0, 0, 0, 0);
+        itemCache.getRowPoolStatistics(mStatistics);
+        pools.rowMisses += mStatistics.misses;
+        itemCache.getVariablePoolStatistics(mStatistics);
+        pools.variableMisses += mStatistics.misses;
+        return item.getHeight();
+    }
+
+    @Benchmark
+    public int scroll(Pools pools) {
+        mNext = (mNext + 1) % ITEMS;
+        return measure(mItems[mNext], pools);
+    }
+
+    @Benchmark
+    public int bindNewItem(Pools pools) {
+        mSeed = (mSeed + 1) % ITEMS;
+        return measure(createItem(mSeed), pools);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.SolverVariable;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LinearSystem#minimize()} on synthetic tableaus, without the widgets layer.
+ *
+ * Each item has a start and an end variable separated by its size, and is placed after a
+ * random previous item, centered between two of them or pulled towards the origin with a
+ * weak constraint, so that the goal has errors to minimize. {@link #build()} only adds the
+ * constraints: the cost of minimize is the difference between the two benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int count;
+
+    @Param({"LINKED", "VALUES", "COMPACT"})
+    public String engine;
+
+    private final LinearSystem mSystem = new LinearSystem();
+    private ConstraintAnchor[] mStarts;
+    private ConstraintAnchor[] mEnds;
+    private int[] mSizes;
+    private int[] mKinds;
+    private int[] mTargets;
+
+    @Setup
+    public void setup() {
+        switch (engine) {
+            case "VALUES":
+                mSystem.setEngine(LinearSystem.ENGINE_VALUES);
+                break;
+            case "COMPACT":
+                mSystem.setEngine(LinearSystem.ENGINE_COMPACT);
+                break;
+            default:
+                mSystem.setEngine(LinearSystem.ENGINE_LINKED);
+                break;
+        }
+        Random random = new Random(42);
+        mStarts = new ConstraintAnchor[count + 1];
+        mEnds = new ConstraintAnchor[count + 1];
+        mSizes = new int[count + 1];
+        mKinds = new int[count + 1];
+        mTargets = new int[(count + 1) * 2];
+        for (int i = 0; i <= count; i++) {
+            ConstraintWidget widget = new ConstraintWidget();
+            mStarts[i] = widget.getAnchor(ConstraintAnchor.Type.LEFT);
+            mEnds[i] = widget.getAnchor(ConstraintAnchor.Type.RIGHT);
+            mSizes[i] = 10 + random.nextInt(100);
+            mKinds[i] = random.nextInt(3);
+            mTargets[i * 2] = i == 0 ? 0 : random.nextInt(i);
+            mTargets[i * 2 + 1] = i == 0 ? 0 : random.nextInt(i);
+        }
+    }
+
+    private void addConstraints() {
+        LinearSystem system = mSystem;
+        system.reset();
+        // item 0 is the parent
+        SolverVariable parentStart = system.createObjectVariable(mStarts[0]);
+        SolverVariable parentEnd = system.createObjectVariable(mEnds[0]);
+        system.addEquality(parentStart, 0);
+        system.addEquality(parentEnd, 1000 + count * 10);
+        for (int i = 1; i <= count; i++) {
+            SolverVariable start = system.createObjectVariable(mStarts[i]);
+            SolverVariable end = system.createObjectVariable(mEnds[i]);
+            system.addEquality(end, start, mSizes[i], SolverVariable.STRENGTH_FIXED);
+            system.addGreaterThan(start, parentStart, 0, SolverVariable.STRENGTH_FIXED);
+            system.addLowerThan(end, parentEnd, 0, SolverVariable.STRENGTH_FIXED);
+            SolverVariable targetA = system.createObjectVariable(mEnds[mTargets[i * 2]]);
+            SolverVariable targetB = system.createObjectVariable(mStarts[mTargets[i * 2 + 1]]);
+            switch (mKinds[i]) {
+                case 0:
+                    system.addGreaterThan(start, targetA, 8, SolverVariable.STRENGTH_FIXED);
+                    system.addEquality(start, targetA, 8, SolverVariable.STRENGTH_HIGHEST);
+                    break;
+                case 1:
+                    system.addCentering(start, targetB, 0, 0.3f, targetA, end, 0,
+                            SolverVariable.STRENGTH_CENTERING);
+                    break;
+                default:
+                    system.addEquality(start, parentStart, 16, SolverVariable.STRENGTH_LOW);
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public LinearSystem build() {
+        addConstraints();
+        return mSystem;
+    }
+
+    @Benchmark
+    public int buildAndMinimize() throws Exception {
+        addConstraints();
+        mSystem.minimize();
+        return mSystem.getObjectVariableValue(mEnds[count]);
+    }
+}
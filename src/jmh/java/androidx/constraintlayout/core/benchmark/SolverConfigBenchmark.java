@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.benchmark;
+
+import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.SolverConfig;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full layouts of a corpus of generated hierarchies (one of each shape) with different
+ * {@link SolverConfig}, without the graph optimizations so that everything goes through
+ * the solver.
+ *
+ * Besides the time of a pass over the corpus, {@link Memory} reports the largest size of
+ * the rows of a solved system (see {@link LinearSystem#getMemoryUsed()}); run with
+ * {@code -prof gc} to compare the allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverConfigBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int count;
+
+    @Param({"LINKED", "VALUES", "COMPACT", "NO_SYNONYMS", "NO_SKIP_COLUMNS", "DEPENDENCY_ORDERING"})
+    public String config;
+
+    private ConstraintWidgetContainer[] mCorpus;
+    private boolean mToggle;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+        public long rowBytes;
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            rowBytes = 0;
+            rows = 0;
+        }
+    }
+
+    static SolverConfig createConfig(String name) {
+        SolverConfig config = new SolverConfig();
+        config.engine = LinearSystem.ENGINE_LINKED;
+        switch (name) {
+            case "VALUES":
+                config.engine = LinearSystem.ENGINE_VALUES;
+                break;
+            case "COMPACT":
+                config.engine = LinearSystem.ENGINE_COMPACT;
+                break;
+            case "NO_SYNONYMS":
+                config.useBasicSynonyms = false;
+                config.simplifySynonyms = false;
+                break;
+            case "NO_SKIP_COLUMNS":
+                config.skipColumns = false;
+                break;
+            case "DEPENDENCY_ORDERING":
+            case "LINKED":
+                break;
+            default:
+                throw new IllegalArgumentException("unknown config " + name);
+        }
+        return config;
+    }
+
+    @Setup
+    public void setup() {
+        SolverConfig solverConfig = createConfig(config);
+        int level = Optimizer.OPTIMIZATION_NONE;
+        if ("DEPENDENCY_ORDERING".equals(config)) {
+            level |= Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING;
+        }
+        Hierarchies.Shape[] shapes = Hierarchies.Shape.values();
+        mCorpus = new ConstraintWidgetContainer[shapes.length];
+        for (int i = 0; i < shapes.length; i++) {
+            ConstraintWidgetContainer root = Hierarchies.create(shapes[i], count, 42);
+            root.setOptimizationLevel(level);
+            root.setSolverConfig(solverConfig);
+            root.updateHierarchy();
+            mCorpus[i] = root;
+        }
+    }
+
+    @Benchmark
+    public int measureCorpus(Memory memory) {
+        mToggle = !mToggle;
+        int height = 0;
+        for (ConstraintWidgetContainer root : mCorpus) {
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(mToggle ? Hierarchies.WIDTH : Hierarchies.WIDTH - 40);
+            root.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+            root.measure(root.getOptimizationLevel(), BasicMeasure.EXACTLY, root.getWidth(),
+                    BasicMeasure.UNSPECIFIED, 0, 0, 0, 0, 0);
+            LinearSystem system = root.getSystem();
+            memory.rowBytes = Math.max(memory.rowBytes, system.getMemoryUsed());
+            memory.rows = Math.max(memory.rows, system.getNumEquations());
+            height += root.getHeight();
+        }
+        return height;
+    }
+}
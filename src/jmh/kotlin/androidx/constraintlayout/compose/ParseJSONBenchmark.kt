@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.compose
+
+import androidx.compose.ui.unit.Density
+import androidx.compose.ui.unit.LayoutDirection
+import androidx.constraintlayout.core.parser.CLObject
+import androidx.constraintlayout.core.parser.CLParser
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State as JmhState
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+
+/**
+ * [parseJSON] of a generated ConstraintSet of [count] widgets into a [State], from the JSON5
+ * content and from the already parsed tree. Every widget is read through the key lookups of
+ * the parser tree (names, get, getArrayOrNull...), which is what the key index of CLContainer
+ * and the element content cache of CLElement speed up.
+ *
+ * To compare with the linear lookups and whole document copies of earlier versions, run the
+ * benchmark on both revisions, e.g. ./gradlew jmh -PjmhIncludes=ParseJSONBenchmark
+ */
+@JmhState(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ParseJSONBenchmark {
+
+    @Param("10", "100", "1000")
+    var count: Int = 0
+
+    private lateinit var content: String
+    private lateinit var parsed: CLObject
+    private val state = State(Density(1f))
+    private val layoutVariables = LayoutVariables()
+
+    @Setup
+    fun setup() {
+        state.layoutDirection = LayoutDirection.Ltr
+        content = createConstraintSet(count)
+        parsed = CLParser.parse(content)
+    }
+
+    @Benchmark
+    fun parseContent(): State {
+        state.reset()
+        parseJSON(content, state, layoutVariables)
+        return state
+    }
+
+    @Benchmark
+    fun applyParsed(): State {
+        state.reset()
+        parseJSON(parsed, state, layoutVariables)
+        return state
+    }
+
+    companion object {
+        /**
+         * A ConstraintSet of [count] widgets, each placed relative to the previous one, with
+         * a few variables, a chain and a guideline.
+         */
+        fun createConstraintSet(count: Int): String {
+            val builder = StringBuilder()
+            builder.append("{\n  // generated constraint set\n")
+                .append("  Variables: { margin: 8, size: 48 },\n")
+                .append("  Helpers: [\n    ['hChain', ['w0', 'w1', 'w2'], { style: 'spread' }],\n")
+                .append("    ['vGuideline', { id: 'g0', start: 24 }]\n  ],\n")
+            for (i in 0 until count) {
+                val previous = if (i == 0) "parent" else "w${i - 1}"
+                val side = if (i == 0) "top" else "bottom"
+                builder.append("  w$i: {\n")
+                    .append("    width: ${40 + i % 100},\n")
+                    .append("    height: 'wrap',\n")
+                    .append("    start: ['$previous', 'start', ${i % 16}],\n")
+                    .append("    top: ['$previous', '$side', 'margin'],\n")
+                    .append("    alpha: ${if (i % 2 == 0) 1.0 else 0.5},\n")
+                    .append("    rotationZ: ${i % 90},\n")
+                    .append("    custom: { background: '#FF${i % 10}00000', textSize: 12.5 }\n")
+                    .append("  },\n")
+            }
+            builder.append("}\n")
+            return builder.toString()
+        }
+    }
+}
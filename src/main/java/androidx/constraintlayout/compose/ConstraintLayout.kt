@@ -44,6 +44,7 @@ import androidx.compose.ui.text.TextStyle
 import androidx.compose.ui.unit.*
 //import androidx.compose.ui.util.fastForEach
 //import androidx.compose.ui.util.fastForEachIndexed
+import androidx.constraintlayout.core.parser.CLBinary
 import androidx.constraintlayout.core.parser.CLKey
 import androidx.constraintlayout.core.parser.CLObject
 import androidx.constraintlayout.core.parser.CLParser
@@ -65,6 +66,7 @@ import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.launch
 import org.intellij.lang.annotations.Language
 import java.lang.StringBuilder
+import java.nio.ByteBuffer
 import java.util.*
 import kotlin.collections.ArrayList
 import kotlin.collections.HashMap
@@ -1581,6 +1583,7 @@ open class EditableJSONLayout(@Language("json5") content: String) :
                         debugName = debug.getStringOrNull("exportAs")
                     }
                 }
+                onNewParsedContent(json)
                 if (!firstTime) {
                     signalUpdate()
                 }
@@ -1592,6 +1595,14 @@ open class EditableJSONLayout(@Language("json5") content: String) :
         }
     }
 
+    /**
+     * Called with the parsed form of the new content, before signaling the update, so that
+     * subclasses don't have to parse the content again.
+     */
+    protected open fun onNewParsedContent(json: CLObject) {
+        // nothing for ConstraintSet
+    }
+
     protected open fun onNewProgress(progress: Float) {
         // nothing for ConstraintSet
     }
@@ -1629,6 +1640,11 @@ class JSONConstraintSet(@Language("json5") content: String,
     private val overridedVariables = HashMap<String, Float>()
     private val overrideVariables = overrideVariables
 
+    // Parsed form of the current content, only re-parsed when the content string changes
+    private var parsedContent: CLObject? = null
+    private var parsedContentSource: String? = null
+    private var parsedOverrideVariables: CLObject? = null
+
     init {
         initialization()
     }
@@ -1644,7 +1660,27 @@ class JSONConstraintSet(@Language("json5") content: String,
     override fun applyTo(transition: Transition, type: Int) {
         val layoutVariables = LayoutVariables()
         applyLayoutVariables(layoutVariables)
-        parseJSON(getCurrentContent(), transition, type)
+        try {
+            parseJSON(getParsedContent(), transition, type)
+        } catch (e: CLParsingException) {
+            System.err.println("Error parsing JSON $e")
+        }
+    }
+
+    /**
+     * Returns the parsed content of this ConstraintSet, parsing it again only if
+     * the content has been updated since the last call (e.g. through live edit).
+     */
+    internal fun getParsedContent(): CLObject {
+        val content = getCurrentContent()
+        val parsed = parsedContent
+        if (parsed != null && content == parsedContentSource) {
+            return parsed
+        }
+        val json = CLParser.parse(content)
+        parsedContent = json
+        parsedContentSource = content
+        return json
     }
 
     fun emitDesignElements(designElements: ArrayList<DesignElement>) {
@@ -1671,7 +1707,7 @@ class JSONConstraintSet(@Language("json5") content: String,
         applyLayoutVariables(layoutVariables)
         // TODO: Need to better handle half parsed JSON and/or incorrect states.
         try {
-            parseJSON(getCurrentContent(), state, layoutVariables)
+            parseJSON(getParsedContent(), state, layoutVariables)
         } catch (e : Exception) {
             // nothing (content might be invalid, sent by live edit)
         }
@@ -1685,7 +1721,11 @@ class JSONConstraintSet(@Language("json5") content: String,
     private fun applyLayoutVariables(layoutVariables: LayoutVariables) {
         if (overrideVariables != null) {
             try {
-                val variables = CLParser.parse(overrideVariables)
+                var variables = parsedOverrideVariables
+                if (variables == null) {
+                    variables = CLParser.parse(overrideVariables)
+                    parsedOverrideVariables = variables
+                }
                 for (i in 0..variables.size() - 1) {
                     val key = variables[i] as CLKey
                     val variable = key.value.float
@@ -1703,6 +1743,64 @@ class JSONConstraintSet(@Language("json5") content: String,
 
 }
 
+/**
+ * A [ConstraintSet] on an already parsed [json] tree, as kept by a [JSONMotionScene].
+ *
+ * The tree is shared with the scene and never modified. Two instances are equal if they
+ * are on the same tree, as the scene replaces its trees when its content changes.
+ */
+@PublishedApi
+internal class ParsedConstraintSet(private val json: CLObject) : ConstraintSet {
+    private val overridedVariables = HashMap<String, Float>()
+
+    override fun equals(other: Any?): Boolean {
+        if (other is ParsedConstraintSet) {
+            return json === other.json
+        }
+        return false
+    }
+
+    override fun hashCode(): Int {
+        return System.identityHashCode(json)
+    }
+
+    override fun applyTo(transition: Transition, type: Int) {
+        parseJSON(json, transition, type)
+    }
+
+    override fun applyTo(state: State, measurables: List<Measurable>) {
+        measurables.forEach { measurable ->
+            val layoutId =
+                measurable.layoutId ?: measurable.constraintLayoutId ?: createId()
+            state.map(layoutId, measurable)
+            val tag = measurable.constraintLayoutTag
+            if (tag != null && tag is String && layoutId is String) {
+                state.setTag(layoutId, tag)
+            }
+        }
+        val layoutVariables = LayoutVariables()
+        for (name in overridedVariables.keys) {
+            layoutVariables.putOverride(name, overridedVariables[name]!!)
+        }
+        try {
+            parseJSON(json, state, layoutVariables)
+        } catch (e : Exception) {
+            // nothing (content might be invalid, sent by live edit)
+        }
+    }
+
+    override fun override(name: String, value: Float): ConstraintSet {
+        overridedVariables[name] = value
+        return this
+    }
+}
+
+/**
+ * Creates a [ConstraintSet] from its binary form (see [CLBinary]), without parsing JSON.
+ */
+fun ConstraintSet(compiled: ByteBuffer): ConstraintSet =
+    ParsedConstraintSet(CLBinary.decode(compiled))
+
 /**
  * Creates a [ConstraintSet].
  */
@@ -1785,6 +1883,8 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
     protected var layoutInformationReceiver: LayoutInformationReceiver? = null
     protected val root = ConstraintWidgetContainer(0, 0).also { it.measurer = this }
     protected val placeables = mutableMapOf<Measurable, Placeable>()
+    private val measureCache = mutableMapOf<Measurable, CachedMeasure>()
+    private var measureGeneration = 0
     private val lastMeasures = mutableMapOf<Measurable, Array<Int>>()
     protected val frameCache = mutableMapOf<Measurable, WidgetFrame>()
 
@@ -1799,6 +1899,25 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
     var layoutCurrentWidth: Int = 0
     var layoutCurrentHeight: Int = 0
 
+    /**
+     * Number of child measures requested by the solver since the last
+     * [resetMeasureCacheCounters], and how many of them reused the [Placeable] of a previous
+     * measure with the same [Constraints] in the same pass (see
+     * [Optimizer.OPTIMIZATION_CACHE_MEASURES]).
+     */
+    var measureRequests: Long = 0
+        private set
+    var measureCacheHits: Long = 0
+        private set
+
+    val measureCacheHitRate: Float
+        get() = if (measureRequests == 0L) 0f else measureCacheHits / measureRequests.toFloat()
+
+    fun resetMeasureCacheCounters() {
+        measureRequests = 0
+        measureCacheHits = 0
+    }
+
     /**
      * Method called by Compose tooling. Returns a JSON string that represents the Constraints
      * defined for this ConstraintLayout Composable.
@@ -1860,7 +1979,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
             if (DEBUG) {
 //                Log.d("CCL", "Measuring ${measurable.layoutId} with $constraints")
             }
-            val placeable = measurable.measure(constraints).also { placeables[measurable] = it }
+            val placeable = measureChild(measurable, constraints)
             constraintWidget.isMeasureRequested = false
             if (DEBUG) {
 //                Log.d(
@@ -1901,7 +2020,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
                 if (DEBUG) {
 //                    Log.d("CCL", "Remeasuring coerced ${measurable.layoutId} with $constraints")
                 }
-                measurable.measure(constraints).also { placeables[measurable] = it }
+                measureChild(measurable, constraints)
                 constraintWidget.isMeasureRequested = false
             }
         }
@@ -2030,6 +2149,61 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
         }
     }
 
+    /**
+     * The last measure of a child: its [Constraints] and the measure pass it was made in (see
+     * [startMeasurePass]).
+     */
+    private class CachedMeasure(
+        var constraints: Constraints,
+        var generation: Int,
+        var placeable: Placeable
+    )
+
+    /**
+     * Measures the child, unless it was already measured with the same [Constraints] in this
+     * measure pass. Compose returns the same [Placeable] for every measure of a child, so only
+     * its last measure is kept.
+     */
+    protected fun measureChild(measurable: Measurable, constraints: Constraints): Placeable {
+        measureRequests++
+        val cached = measureCache[measurable]
+        if (cached != null
+            && Optimizer.enabled(root.optimizationLevel, Optimizer.OPTIMIZATION_CACHE_MEASURES)
+            && cached.generation == measureGeneration
+            && cached.constraints == constraints
+        ) {
+            measureCacheHits++
+            placeables[measurable] = cached.placeable
+            return cached.placeable
+        }
+        return measurable.measure(constraints).also {
+            placeables[measurable] = it
+            if (cached == null) {
+                measureCache[measurable] = CachedMeasure(constraints, measureGeneration, it)
+            } else {
+                cached.constraints = constraints
+                cached.generation = measureGeneration
+                cached.placeable = it
+            }
+        }
+    }
+
+    /**
+     * Cached measures are only reused within a measure pass. The content of a child may have
+     * changed between two passes whatever the incoming constraints are, and Compose already
+     * skips the measure of a clean child measured again with the same constraints.
+     */
+    protected fun startMeasurePass() {
+        // forget the children that were not measured in the last pass, e.g. removed ones
+        val iterator = measureCache.values.iterator()
+        while (iterator.hasNext()) {
+            if (iterator.next().generation != measureGeneration) {
+                iterator.remove()
+            }
+        }
+        measureGeneration++
+    }
+
     private fun Array<Int>.copyFrom(measure: BasicMeasure.Measure) {
         this[0] = measure.measuredWidth
         this[1] = measure.measuredHeight
@@ -2065,6 +2239,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
         state.rootIncomingConstraints = constraints
         state.layoutDirection = layoutDirection
         resetMeasureState()
+        startMeasurePass()
         if (constraintSet.isDirty(measurables)) {
             state.reset()
             constraintSet.applyTo(state, measurables)
@@ -2107,8 +2282,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
 //                            "to confirm size ${child.width} ${child.height}"
 //                    )
                 }
-                measurable.measure(Constraints.fixed(child.width, child.height))
-                    .also { placeables[measurable] = it }
+                measureChild(measurable, Constraints.fixed(child.width, child.height))
             }
         }
         if (DEBUG) {
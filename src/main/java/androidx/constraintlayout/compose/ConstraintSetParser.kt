@@ -440,7 +440,20 @@ internal fun parseJSON(
     state: Int
 ) {
     try {
-        val json = CLParser.parse(content)
+        parseJSON(CLParser.parse(content), transition, state)
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+    }
+}
+
+/**
+ * Applies the custom properties of an already parsed ConstraintSet [json] to the [transition].
+ */
+internal fun parseJSON(
+    json: CLObject, transition: Transition,
+    state: Int
+) {
+    try {
         val elements = json.names() ?: return
         (0 until elements.size).forEach { i ->
             val elementName = elements[i]
@@ -475,7 +488,18 @@ internal fun parseJSON(
 
 internal fun parseMotionSceneJSON(scene: MotionScene, content: String) {
     try {
-        val json = CLParser.parse(content)
+        parseMotionSceneJSON(scene, CLParser.parse(content))
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+    }
+}
+
+/**
+ * Stores the ConstraintSets and Transitions of an already parsed motion scene [json] into the
+ * [scene], as parsed trees.
+ */
+internal fun parseMotionSceneJSON(scene: MotionScene, json: CLObject) {
+    try {
         val elements = json.names() ?: return
         (0 until elements.size).forEach { i ->
             val elementName = elements[i]
@@ -493,39 +517,65 @@ internal fun parseMotionSceneJSON(scene: MotionScene, content: String) {
 
 /**
  * For the given [json] parses all ConstraintSets into the [scene].
+ *
+ * A ConstraintSet that `Extends` another one is stored with the inheritance resolved: a copy of
+ * the resolved base, with the widgets of the ConstraintSet applied on top. The base can be
+ * declared before or after it; if it isn't in [json], the one already in the [scene] is used.
  */
 fun parseConstraintSets(scene: MotionScene, json: Any) {
     if (json !is CLObject) {
         return
     }
     val constraintSetNames = json.names() ?: return
+    val resolved = HashMap<String, CLObject>()
+    val resolving = HashSet<String>()
     (0 until constraintSetNames.size).forEach { i ->
         val csName = constraintSetNames[i]
-        val constraintSet = json.getObject(csName)
-        var added = false
-        val extends = constraintSet.getStringOrNull("Extends")
-        if (extends != null && extends.isNotEmpty()) {
-            val base = scene.getConstraintSet(extends)
-            if (base != null) {
-                val baseJson = CLParser.parse(base)
-                val widgetsOverride = constraintSet.names()
-                if (widgetsOverride != null) {
-                    (0 until widgetsOverride.size).forEach { j ->
-                        val widgetOverrideName = widgetsOverride[j]
-                        val value = constraintSet[widgetOverrideName]
-                        if (value is CLObject) {
-                            override(baseJson, widgetOverrideName, value)
-                        }
-                    }
-                    scene.setConstraintSetContent(csName, baseJson.toJSON())
-                    added = true
+        scene.setConstraintSetContent(
+            csName,
+            resolveConstraintSet(scene, json, csName, resolved, resolving)
+        )
+    }
+}
+
+/**
+ * Returns the ConstraintSet [csName] of [json] with its `Extends` chain resolved, memoized in
+ * [resolved]; [resolving] holds the ConstraintSets being resolved, to stop on cycles.
+ */
+private fun resolveConstraintSet(
+    scene: MotionScene,
+    json: CLObject,
+    csName: String,
+    resolved: HashMap<String, CLObject>,
+    resolving: HashSet<String>
+): CLObject {
+    resolved[csName]?.let { return it }
+    val constraintSet = json.getObject(csName)
+    var result = constraintSet
+    val extends = constraintSet.getStringOrNull("Extends")
+    if (extends != null && extends.isNotEmpty() && resolving.add(csName)) {
+        val base = if (json.getObjectOrNull(extends) != null) {
+            resolveConstraintSet(scene, json, extends, resolved, resolving)
+        } else {
+            scene.getConstraintSetObject(extends)
+        }
+        resolving.remove(csName)
+        val widgetsOverride = constraintSet.names()
+        if (base != null && widgetsOverride != null) {
+            // the base is shared, only its copy is modified
+            val baseJson = base.clone()
+            (0 until widgetsOverride.size).forEach { j ->
+                val widgetOverrideName = widgetsOverride[j]
+                val value = constraintSet[widgetOverrideName]
+                if (value is CLObject) {
+                    override(baseJson, widgetOverrideName, value)
                 }
             }
-        }
-        if (!added) {
-            scene.setConstraintSetContent(csName, constraintSet.toJSON())
+            result = baseJson
         }
     }
+    resolved[csName] = result
+    return result
 }
 
 fun override(baseJson: CLObject, name: String, overrideValue: CLObject) {
@@ -587,7 +637,7 @@ fun parseTransitions(scene: MotionScene, json: Any) {
     (0 until elements.size).forEach { i ->
         val elementName = elements[i]
         val element = json.getObject(elementName)
-        scene.setTransitionContent(elementName, element.toJSON())
+        scene.setTransitionContent(elementName, element)
     }
 }
 
@@ -603,7 +653,18 @@ fun parseHeader(scene: MotionScene, json: Any) {
 
 internal fun parseJSON(content: String, state: State, layoutVariables: LayoutVariables) {
     try {
-        val json = CLParser.parse(content)
+        parseJSON(CLParser.parse(content), state, layoutVariables)
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+    }
+}
+
+/**
+ * Applies an already parsed ConstraintSet [json] to the [state]. The tree is only read, so the
+ * same [json] can be applied on every measure without parsing the content again.
+ */
+internal fun parseJSON(json: CLObject, state: State, layoutVariables: LayoutVariables) {
+    try {
         val elements = json.names() ?: return
         (0 until elements.size).forEach { i ->
             val elementName = elements[i]
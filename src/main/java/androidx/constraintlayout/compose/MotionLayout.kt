@@ -41,6 +41,8 @@ import androidx.compose.ui.layout.*
 import androidx.compose.ui.semantics.semantics
 import androidx.compose.ui.unit.*
 import androidx.constraintlayout.core.motion.Motion
+import androidx.constraintlayout.core.parser.CLBinary
+import androidx.constraintlayout.core.parser.CLObject
 import androidx.constraintlayout.core.parser.CLParser
 import androidx.constraintlayout.core.parser.CLParsingException
 import androidx.constraintlayout.core.state.Dimension
@@ -49,6 +51,7 @@ import androidx.constraintlayout.core.state.WidgetFrame
 import androidx.constraintlayout.core.widgets.Optimizer
 import kotlinx.coroutines.channels.Channel
 import org.intellij.lang.annotations.Language
+import java.nio.ByteBuffer
 import java.util.*
 
 /**
@@ -114,33 +117,33 @@ inline fun MotionLayout(
     }
 
     val transitionContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getTransition("default")
+        motionScene.getTransitionObject("default")
     }
 
     val transition: androidx.constraintlayout.compose.Transition? =
-        transitionContent?.let { Transition(it) }
+        remember(transitionContent) { transitionContent?.let { ParsedTransition(it) } }
 
     val startId = transition?.getStartConstraintSetId() ?: "start"
     val endId = transition?.getEndConstraintSetId() ?: "end"
 
     val startContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getConstraintSet(startId) ?: motionScene.getConstraintSet(0)
+        motionScene.getConstraintSetObject(startId) ?: motionScene.getConstraintSetObject(0)
     }
     val endContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getConstraintSet(endId) ?: motionScene.getConstraintSet(1)
+        motionScene.getConstraintSetObject(endId) ?: motionScene.getConstraintSetObject(1)
     }
 
     val targetEndContent = remember(motionScene, constraintSetName) {
-        constraintSetName?.let { motionScene.getConstraintSet(constraintSetName) }
+        constraintSetName?.let { motionScene.getConstraintSetObject(constraintSetName) }
     }
 
     if (startContent == null || endContent == null) {
         return
     }
 
-    var start: ConstraintSet by remember(motionScene) { mutableStateOf(JSONConstraintSet(content = startContent)) }
-    var end: ConstraintSet by remember(motionScene) { mutableStateOf(JSONConstraintSet(content = endContent)) }
-    val targetConstraintSet = targetEndContent?.let { JSONConstraintSet(targetEndContent) }
+    var start: ConstraintSet by remember(motionScene) { mutableStateOf(ParsedConstraintSet(startContent)) }
+    var end: ConstraintSet by remember(motionScene) { mutableStateOf(ParsedConstraintSet(endContent)) }
+    val targetConstraintSet = targetEndContent?.let { ParsedConstraintSet(targetEndContent) }
 
     val progress = remember { Animatable(0f) }
 
@@ -280,28 +283,28 @@ inline fun MotionLayout(
     }
 
     val transitionContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getTransition("default")
+        motionScene.getTransitionObject("default")
     }
 
     val transition: androidx.constraintlayout.compose.Transition? =
-        transitionContent?.let { Transition(it) }
+        remember(transitionContent) { transitionContent?.let { ParsedTransition(it) } }
 
     val startId = transition?.getStartConstraintSetId() ?: "start"
     val endId = transition?.getEndConstraintSetId() ?: "end"
 
     val startContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getConstraintSet(startId) ?: motionScene.getConstraintSet(0)
+        motionScene.getConstraintSetObject(startId) ?: motionScene.getConstraintSetObject(0)
     }
     val endContent = remember(motionScene, needsUpdate.value) {
-        motionScene.getConstraintSet(endId) ?: motionScene.getConstraintSet(1)
+        motionScene.getConstraintSetObject(endId) ?: motionScene.getConstraintSetObject(1)
     }
 
     if (startContent == null || endContent == null) {
         return
     }
 
-    val start = ConstraintSet(startContent)
-    val end = ConstraintSet(endContent)
+    val start = remember(startContent) { ParsedConstraintSet(startContent) }
+    val end = remember(endContent) { ParsedConstraintSet(endContent) }
 
     var lastOutsideProgress by remember {
         mutableStateOf(0f)
@@ -372,6 +375,32 @@ interface MotionScene {
     fun getConstraintSet(name: String): String?
     fun getConstraintSet(index: Int): String?
     fun getTransition(name: String): String?
+
+    /**
+     * Parsed variants of the accessors above. The returned trees can be shared by the scene
+     * and must not be modified; by default they are parsed from (and to) the strings, each
+     * string being parsed once.
+     */
+    fun setConstraintSetContent(name: String, content: CLObject) {
+        setConstraintSetContent(name, content.toJSON())
+    }
+
+    fun setTransitionContent(name: String, content: CLObject) {
+        setTransitionContent(name, content.toJSON())
+    }
+
+    fun getConstraintSetObject(name: String): CLObject? {
+        return getConstraintSet(name)?.let { parseCached(it) }
+    }
+
+    fun getConstraintSetObject(index: Int): CLObject? {
+        return getConstraintSet(index)?.let { parseCached(it) }
+    }
+
+    fun getTransitionObject(name: String): CLObject? {
+        return getTransition(name)?.let { parseCached(it) }
+    }
+
     fun setUpdateFlag(needsUpdate: MutableState<Long>)
     fun setDebugName(name: String?)
     fun getForcedProgress(): Float
@@ -379,11 +408,81 @@ interface MotionScene {
     fun getForcedDrawDebug(): MotionLayoutDebugFlags
 }
 
+private fun parseOrNull(content: String): CLObject? {
+    return try {
+        CLParser.parse(content)
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+        null
+    }
+}
+
+/**
+ * The trees parsed from the strings of the [MotionScene] implementations that only provide the
+ * String accessors. An entry goes away with its string.
+ */
+private val parsedStrings = WeakHashMap<String, CLObject>()
+
+/**
+ * Parses [content] once for as long as the string is kept, so that the default parsed
+ * accessors of [MotionScene] return the same tree for the same content.
+ */
+private fun parseCached(content: String): CLObject? {
+    synchronized(parsedStrings) {
+        parsedStrings[content]?.let { return it }
+    }
+    val json = parseOrNull(content) ?: return null
+    synchronized(parsedStrings) {
+        return parsedStrings.getOrPut(content) { json }
+    }
+}
+
+/**
+ * The parsed ConstraintSets and Transitions of a [MotionScene], shared by its implementations.
+ */
+internal class MotionSceneContent {
+    private val constraintSets = HashMap<String, CLObject>()
+    private val transitions = HashMap<String, CLObject>()
+
+    /**
+     * Content that isn't valid JSON is reported and ignored, the previous content is kept
+     */
+    fun setConstraintSet(name: String, content: String) {
+        parseOrNull(content)?.let { constraintSets[name] = it }
+    }
+
+    /**
+     * Content that isn't valid JSON is reported and ignored, the previous content is kept
+     */
+    fun setTransition(name: String, content: String) {
+        parseOrNull(content)?.let { transitions[name] = it }
+    }
+
+    fun setConstraintSet(name: String, content: CLObject) {
+        constraintSets[name] = content
+    }
+
+    fun setTransition(name: String, content: CLObject) {
+        transitions[name] = content
+    }
+
+    fun getConstraintSet(name: String): CLObject? {
+        return constraintSets[name]
+    }
+
+    fun getConstraintSet(index: Int): CLObject? {
+        return constraintSets.values.elementAtOrNull(index)
+    }
+
+    fun getTransition(name: String): CLObject? {
+        return transitions[name]
+    }
+}
+
 class JSONMotionScene(@Language("json5") content: String) : EditableJSONLayout(content),
     MotionScene {
 
-    private val constraintSetsContent = HashMap<String, String>()
-    private val transitionsContent = HashMap<String, String>()
+    private val sceneContent = MotionSceneContent()
     private var forcedProgress: Float = Float.NaN
 
     init {
@@ -395,24 +494,74 @@ class JSONMotionScene(@Language("json5") content: String) : EditableJSONLayout(c
     // Accessors
     ///////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Content that isn't valid JSON is ignored and the previous content of the ConstraintSet
+     * is kept; use [setConstraintSetContentOrThrow] to be told about it.
+     */
     override fun setConstraintSetContent(name: String, content: String) {
-        constraintSetsContent[name] = content
+        sceneContent.setConstraintSet(name, content)
     }
 
+    /**
+     * Content that isn't valid JSON is ignored and the previous content of the Transition is
+     * kept; use [setTransitionContentOrThrow] to be told about it.
+     */
     override fun setTransitionContent(name: String, content: String) {
-        transitionsContent[name] = content
+        sceneContent.setTransition(name, content)
+    }
+
+    /**
+     * Sets the content of the ConstraintSet [name], validating it first.
+     *
+     * @throws CLParsingException if [content] isn't valid JSON, the previous content of the
+     * ConstraintSet is kept
+     */
+    @Throws(CLParsingException::class)
+    fun setConstraintSetContentOrThrow(name: String, content: String) {
+        sceneContent.setConstraintSet(name, CLParser.parse(content))
+    }
+
+    /**
+     * Sets the content of the Transition [name], validating it first.
+     *
+     * @throws CLParsingException if [content] isn't valid JSON, the previous content of the
+     * Transition is kept
+     */
+    @Throws(CLParsingException::class)
+    fun setTransitionContentOrThrow(name: String, content: String) {
+        sceneContent.setTransition(name, CLParser.parse(content))
+    }
+
+    override fun setConstraintSetContent(name: String, content: CLObject) {
+        sceneContent.setConstraintSet(name, content)
+    }
+
+    override fun setTransitionContent(name: String, content: CLObject) {
+        sceneContent.setTransition(name, content)
     }
 
     override fun getConstraintSet(name: String): String? {
-        return constraintSetsContent[name]
+        return sceneContent.getConstraintSet(name)?.toJSON()
     }
 
     override fun getConstraintSet(index: Int): String? {
-        return constraintSetsContent.values.elementAtOrNull(index)
+        return sceneContent.getConstraintSet(index)?.toJSON()
     }
 
     override fun getTransition(name: String): String? {
-        return transitionsContent[name]
+        return sceneContent.getTransition(name)?.toJSON()
+    }
+
+    override fun getConstraintSetObject(name: String): CLObject? {
+        return sceneContent.getConstraintSet(name)
+    }
+
+    override fun getConstraintSetObject(index: Int): CLObject? {
+        return sceneContent.getConstraintSet(index)
+    }
+
+    override fun getTransitionObject(name: String): CLObject? {
+        return sceneContent.getTransition(name)
     }
 
     override fun getForcedProgress(): Float {
@@ -427,10 +576,9 @@ class JSONMotionScene(@Language("json5") content: String) : EditableJSONLayout(c
     // on update methods
     ///////////////////////////////////////////////////////////////////////////
 
-    override fun onNewContent(content: String) {
-        super.onNewContent(content)
+    override fun onNewParsedContent(json: CLObject) {
         try {
-            parseMotionSceneJSON(this, content);
+            parseMotionSceneJSON(this, json)
         } catch (e: Exception) {
             // nothing (content might be invalid, sent by live edit)
         }
@@ -451,6 +599,88 @@ fun MotionScene(@Language("json5") content: String): MotionScene {
     }
 }
 
+/**
+ * Creates a [MotionScene] from its binary form (see [CLBinary]), without parsing JSON.
+ */
+@Composable
+fun MotionScene(compiled: ByteBuffer): MotionScene {
+    return remember(compiled) {
+        CompiledMotionScene(CLBinary.decode(compiled))
+    }
+}
+
+/**
+ * A [MotionScene] on a decoded document. It never changes, so there is no live edit.
+ */
+internal class CompiledMotionScene(json: CLObject) : MotionScene {
+
+    private val sceneContent = MotionSceneContent()
+
+    init {
+        parseMotionSceneJSON(this, json)
+    }
+
+    override fun setConstraintSetContent(name: String, content: String) {
+        sceneContent.setConstraintSet(name, content)
+    }
+
+    override fun setTransitionContent(name: String, content: String) {
+        sceneContent.setTransition(name, content)
+    }
+
+    override fun setConstraintSetContent(name: String, content: CLObject) {
+        sceneContent.setConstraintSet(name, content)
+    }
+
+    override fun setTransitionContent(name: String, content: CLObject) {
+        sceneContent.setTransition(name, content)
+    }
+
+    override fun getConstraintSet(name: String): String? {
+        return sceneContent.getConstraintSet(name)?.toJSON()
+    }
+
+    override fun getConstraintSet(index: Int): String? {
+        return sceneContent.getConstraintSet(index)?.toJSON()
+    }
+
+    override fun getTransition(name: String): String? {
+        return sceneContent.getTransition(name)?.toJSON()
+    }
+
+    override fun getConstraintSetObject(name: String): CLObject? {
+        return sceneContent.getConstraintSet(name)
+    }
+
+    override fun getConstraintSetObject(index: Int): CLObject? {
+        return sceneContent.getConstraintSet(index)
+    }
+
+    override fun getTransitionObject(name: String): CLObject? {
+        return sceneContent.getTransition(name)
+    }
+
+    override fun setUpdateFlag(needsUpdate: MutableState<Long>) {
+        // nothing, the scene is never updated
+    }
+
+    override fun setDebugName(name: String?) {
+        // nothing
+    }
+
+    override fun getForcedProgress(): Float {
+        return Float.NaN
+    }
+
+    override fun resetForcedProgress() {
+        // nothing
+    }
+
+    override fun getForcedDrawDebug(): MotionLayoutDebugFlags {
+        return MotionLayoutDebugFlags.UNKNOWN
+    }
+}
+
 @LayoutScopeMarker
 class MotionLayoutScope @PublishedApi internal constructor(measurer: MotionMeasurer) {
     private var myMeasurer = measurer
@@ -542,19 +772,7 @@ fun Transition(@Language("json5") content: String): androidx.constraintlayout.co
         }
         mutableStateOf(
             if (parsed != null) {
-                object : androidx.constraintlayout.compose.Transition {
-                    override fun applyTo(transition: Transition, type: Int) {
-                        parseTransition(parsed, transition)
-                    }
-
-                    override fun getStartConstraintSetId(): String {
-                        return parsed.getStringOrNull("from") ?: "start"
-                    }
-
-                    override fun getEndConstraintSetId(): String {
-                        return parsed.getStringOrNull("to") ?: "end"
-                    }
-                }
+                ParsedTransition(parsed)
             } else {
                 null
             }
@@ -563,6 +781,26 @@ fun Transition(@Language("json5") content: String): androidx.constraintlayout.co
     return transition.value
 }
 
+/**
+ * A [androidx.constraintlayout.compose.Transition] on an already parsed (and not modified)
+ * [parsed] tree.
+ */
+@PublishedApi
+internal class ParsedTransition(private val parsed: CLObject) :
+    androidx.constraintlayout.compose.Transition {
+    override fun applyTo(transition: Transition, type: Int) {
+        parseTransition(parsed, transition)
+    }
+
+    override fun getStartConstraintSetId(): String {
+        return parsed.getStringOrNull("from") ?: "start"
+    }
+
+    override fun getEndConstraintSetId(): String {
+        return parsed.getStringOrNull("to") ?: "end"
+    }
+}
+
 enum class MotionLayoutDebugFlags {
     NONE,
     SHOW_ALL,
@@ -665,6 +903,7 @@ internal class MotionMeasurer : Measurer() {
     ): IntSize {
         this.density = measureScope
         this.measureScope = measureScope
+        startMeasurePass()
         var layoutSizeChanged = false
         if (constraints.hasFixedWidth
             && !state.sameFixedWidth(constraints.maxWidth)
@@ -736,12 +975,10 @@ internal class MotionMeasurer : Measurer() {
                     || currentWidth != interpolatedFrame.width()
                     || currentHeight != interpolatedFrame.height()
                 ) {
-                    measurable.measure(
+                    measureChild(
+                        measurable,
                         Constraints.fixed(interpolatedFrame.width(), interpolatedFrame.height())
                     )
-                        .also {
-                            placeables[measurable] = it
-                        }
                 }
                 frameCache[measurable] = interpolatedFrame
                 index++
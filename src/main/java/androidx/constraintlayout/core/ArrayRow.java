@@ -26,6 +26,11 @@ public class ArrayRow implements LinearSystem.Row {
     SolverVariable variable = null;
     float constantValue = 0;
     boolean used = false;
+
+    // incremental mode: where the constant is tracked (see IncrementalTracker)
+    IncrementalTracker tracker = null;
+    int constantSlot = -1;
+
     private static final boolean FULL_NEW_CHECK = false; // full validation (debug purposes)
 
     ArrayList<SolverVariable> variablesToUpdate = new ArrayList<>();
@@ -129,6 +134,7 @@ public class ArrayRow implements LinearSystem.Row {
         variables.clear();
         constantValue = 0;
         isSimpleDefinition = false;
+        constantSlot = -1;
     }
 
     boolean hasVariable(SolverVariable v) {
@@ -416,6 +422,9 @@ public class ArrayRow implements LinearSystem.Row {
             // If not, simply multiply the equation by -1
             constantValue *= -1;
             variables.invert();
+            if (tracker != null) {
+                tracker.multiply(this, -1);
+            }
         }
     }
 
@@ -547,6 +556,9 @@ public class ArrayRow implements LinearSystem.Row {
         }
         constantValue = constantValue / amount;
         variables.divideByAmount(amount);
+        if (tracker != null) {
+            tracker.divide(this, amount);
+        }
     }
 
     // Row compatibility
@@ -561,10 +573,13 @@ public class ArrayRow implements LinearSystem.Row {
         float value = variables.use(definition, removeFromDefinition);
 
         constantValue += definition.constantValue * value;
+        if (tracker != null) {
+            tracker.add(this, definition, value);
+        }
         if (removeFromDefinition) {
             definition.variable.removeFromRow(this);
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.getConfig().simplifySynonyms
                 && variable != null && variables.getCurrentSize() == 0) {
             isSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -577,11 +592,14 @@ public class ArrayRow implements LinearSystem.Row {
         }
         float value = variables.get(variable);
         constantValue += variable.computedValue * value;
+        if (tracker != null) {
+            tracker.add(this, variable, value);
+        }
         variables.remove(variable, removeFromDefinition);
         if (removeFromDefinition) {
             variable.removeFromRow(this);
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.getConfig().simplifySynonyms
                 && variables.getCurrentSize() == 0) {
             isSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -594,12 +612,15 @@ public class ArrayRow implements LinearSystem.Row {
         }
         float value = variables.get(variable);
         constantValue += variable.synonymDelta * value;
+        if (tracker != null) {
+            tracker.add(this, variable.synonymDelta * value);
+        }
         variables.remove(variable, removeFromDefinition);
         if (removeFromDefinition) {
             variable.removeFromRow(this);
         }
         variables.add(system.mCache.mIndexedVariables[variable.synonym], value, removeFromDefinition);
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.getConfig().simplifySynonyms
                 && variables.getCurrentSize() == 0) {
             isSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -739,7 +760,7 @@ public class ArrayRow implements LinearSystem.Row {
                 done = true;
             }
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.getConfig().simplifySynonyms
             && variable != null && variables.getCurrentSize() == 0) {
             isSimpleDefinition = true;
             system.hasSimpleDefinition = true;
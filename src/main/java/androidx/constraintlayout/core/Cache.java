@@ -17,10 +17,131 @@ package androidx.constraintlayout.core;
 
 /**
  * Cache for common objects
+ *
+ * A cache can be shared by several systems (see {@link LinearSystem#setCache(Cache)}) so
+ * that new containers reuse the rows and variables released by the others. The systems
+ * must then be used from one thread and one at a time, each layout starting with a reset:
+ * the variables of the system that was solved last are only valid until another one is
+ * reset. Incremental solving is not possible with a shared cache.
  */
 public class Cache {
-    Pools.Pool<ArrayRow> optimizedArrayRowPool = new Pools.SimplePool<>(256);
-    Pools.Pool<ArrayRow> arrayRowPool = new Pools.SimplePool<>(256);
-    Pools.Pool<SolverVariable> solverVariablePool = new Pools.SimplePool<>(256);
+    public static final int DEFAULT_POOL_SIZE = 256;
+    public static final int DEFAULT_MAX_POOL_SIZE = 16384;
+
+    final Pools.Pool<ArrayRow> optimizedArrayRowPool;
+    final Pools.Pool<ArrayRow> arrayRowPool;
+    final Pools.Pool<ArrayRow> compactArrayRowPool;
+    final Pools.Pool<SolverVariable> solverVariablePool;
     SolverVariable[] mIndexedVariables = new SolverVariable[32];
+    // storage of the rows of the ENGINE_COMPACT systems
+    final CompactTableau mTableau = new CompactTableau();
+    // number of systems using this cache
+    int mSystemCount = 0;
+
+    /**
+     * Usage of the pools of a cache, see {@link #getRowPoolStatistics(PoolStatistics)}
+     */
+    public static class PoolStatistics {
+        public long hits; // instances taken from a pool
+        public long misses; // instances that had to be created
+        public long drops; // released instances that didn't fit in a pool
+        public long highWater; // largest number of instances held by the pools
+        public long pooled; // instances currently held by the pools
+        public long capacity; // current size of the pools
+
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            drops = 0;
+            highWater = 0;
+            pooled = 0;
+            capacity = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "hits: " + hits + ", misses: " + misses + ", drops: " + drops
+                    + ", high water: " + highWater + ", pooled: " + pooled
+                    + "/" + capacity;
+        }
+    }
+
+    public Cache() {
+        this(DEFAULT_POOL_SIZE, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * @param poolSize    initial size of each pool
+     * @param maxPoolSize size up to which the pools grow when more instances are released
+     */
+    public Cache(int poolSize, int maxPoolSize) {
+        optimizedArrayRowPool = new Pools.SimplePool<>(poolSize, maxPoolSize);
+        arrayRowPool = new Pools.SimplePool<>(poolSize, maxPoolSize);
+        compactArrayRowPool = new Pools.SimplePool<>(poolSize, maxPoolSize);
+        solverVariablePool = new Pools.SimplePool<>(poolSize, maxPoolSize);
+    }
+
+    /**
+     * @return true if more than one system uses this cache
+     */
+    public boolean isShared() {
+        return mSystemCount > 1;
+    }
+
+    /**
+     * Fill the statistics with the usage of the row pools (of all the engines)
+     */
+    public void getRowPoolStatistics(PoolStatistics statistics) {
+        statistics.reset();
+        arrayRowPool.addStatistics(statistics);
+        optimizedArrayRowPool.addStatistics(statistics);
+        compactArrayRowPool.addStatistics(statistics);
+    }
+
+    /**
+     * Fill the statistics with the usage of the variable pool
+     */
+    public void getVariablePoolStatistics(PoolStatistics statistics) {
+        statistics.reset();
+        solverVariablePool.addStatistics(statistics);
+    }
+
+    /**
+     * Reset the counters of the pools, e.g. once the layouts are warmed up
+     */
+    public void resetPoolStatistics() {
+        arrayRowPool.resetStatistics();
+        optimizedArrayRowPool.resetStatistics();
+        compactArrayRowPool.resetStatistics();
+        solverVariablePool.resetStatistics();
+    }
+
+    // Counters used to name variables when debugging, owned by the cache so that
+    // independent systems can be solved on different threads
+    int mUniqueSlackId = 1;
+    int mUniqueErrorId = 1;
+    int mUniqueUnrestrictedId = 1;
+    int mUniqueConstantId = 1;
+    int mUniqueId = 1;
+
+    void increaseErrorId() {
+        mUniqueErrorId++;
+    }
+
+    String getUniqueName(SolverVariable.Type type, String prefix) {
+        if (prefix != null) {
+            return prefix + mUniqueErrorId;
+        }
+        switch (type) {
+            case UNRESTRICTED: return "U" + ++mUniqueUnrestrictedId;
+            case CONSTANT: return "C" + ++mUniqueConstantId;
+            case SLACK: return "S" + ++mUniqueSlackId;
+            case ERROR: {
+                return "e" + ++mUniqueErrorId;
+            }
+            case UNKNOWN:
+                return "V" + ++mUniqueId;
+        }
+        throw new AssertionError(type.name());
+    }
 }
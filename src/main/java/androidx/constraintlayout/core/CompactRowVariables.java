@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+/**
+ * Store the variables of a row as a slice of the arrays of a {@link CompactTableau},
+ * sorted by variable id.
+ *
+ * Variables are kept in the same order and values are computed the same way as in
+ * {@link ArrayLinkedVariables}, so both engines produce the same solutions; lookups are
+ * binary searches, and substituting a definition is a single merge of the two rows.
+ */
+public class CompactRowVariables implements ArrayRow.ArrayRowVariables {
+    private static final int ROW_SIZE = 8; // default slice size
+    private static float epsilon = 0.001f;
+
+    private final ArrayRow mRow; // our owner
+    private final Cache mCache;
+    private final CompactTableau mTableau;
+
+    private int mOffset = 0;
+    private int mCapacity = 0;
+    private int mSize = 0;
+    private int mGeneration = -1;
+
+    CompactRowVariables(ArrayRow row, Cache cache, CompactTableau tableau) {
+        mRow = row;
+        mCache = cache;
+        mTableau = tableau;
+    }
+
+    /**
+     * Make sure our slice belongs to the current generation of the tableau and can hold
+     * the given number of variables, moving it if needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (mGeneration != mTableau.generation) {
+            // the tableau was reset, our previous slice is gone
+            mGeneration = mTableau.generation;
+            mSize = 0;
+            mCapacity = 0;
+        }
+        if (capacity <= mCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(ROW_SIZE, Math.max(capacity, mCapacity * 2));
+        int offset = mTableau.allocate(newCapacity);
+        System.arraycopy(mTableau.columns, mOffset, mTableau.columns, offset, mSize);
+        System.arraycopy(mTableau.values, mOffset, mTableau.values, offset, mSize);
+        mOffset = offset;
+        mCapacity = newCapacity;
+    }
+
+    private int size() {
+        return mGeneration == mTableau.generation ? mSize : 0;
+    }
+
+    // position of the variable id in the slice, or -(insertion point) - 1
+    private int search(int id) {
+        final int[] columns = mTableau.columns;
+        int low = mOffset;
+        int high = mOffset + size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = columns[mid];
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid - mOffset;
+            }
+        }
+        return -(low - mOffset) - 1;
+    }
+
+    private void insert(int position, SolverVariable variable, float value) {
+        ensureCapacity(mSize + 1);
+        final int[] columns = mTableau.columns;
+        final float[] values = mTableau.values;
+        int index = mOffset + position;
+        int count = mSize - position;
+        System.arraycopy(columns, index, columns, index + 1, count);
+        System.arraycopy(values, index, values, index + 1, count);
+        columns[index] = variable.id;
+        values[index] = value;
+        mSize++;
+        variable.usageInRowCount++;
+        variable.addToRow(mRow);
+    }
+
+    private void delete(int position) {
+        final int[] columns = mTableau.columns;
+        final float[] values = mTableau.values;
+        int index = mOffset + position;
+        int count = mSize - position - 1;
+        System.arraycopy(columns, index + 1, columns, index, count);
+        System.arraycopy(values, index + 1, values, index, count);
+        mSize--;
+    }
+
+    @Override
+    public int getCurrentSize() {
+        return size();
+    }
+
+    @Override
+    public SolverVariable getVariable(int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        return mCache.mIndexedVariables[mTableau.columns[mOffset + index]];
+    }
+
+    @Override
+    public float getVariableValue(int index) {
+        if (index < 0 || index >= size()) {
+            return 0;
+        }
+        return mTableau.values[mOffset + index];
+    }
+
+    @Override
+    public float get(SolverVariable variable) {
+        int position = search(variable.id);
+        if (position < 0) {
+            return 0;
+        }
+        return mTableau.values[mOffset + position];
+    }
+
+    @Override
+    public int indexOf(SolverVariable variable) {
+        int position = search(variable.id);
+        return position < 0 ? -1 : position;
+    }
+
+    @Override
+    public boolean contains(SolverVariable variable) {
+        return search(variable.id) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        final int count = size();
+        for (int i = 0; i < count; i++) {
+            SolverVariable variable = mCache.mIndexedVariables[mTableau.columns[mOffset + i]];
+            if (variable != null) {
+                variable.removeFromRow(mRow);
+            }
+        }
+        mSize = 0;
+    }
+
+    @Override
+    public void put(SolverVariable variable, float value) {
+        if (value == 0) {
+            remove(variable, true);
+            return;
+        }
+        int position = search(variable.id);
+        if (position >= 0) {
+            mTableau.values[mOffset + position] = value;
+            return;
+        }
+        insert(-position - 1, variable, value);
+    }
+
+    @Override
+    public void add(SolverVariable variable, float value, boolean removeFromDefinition) {
+        if (value > -epsilon && value < epsilon) {
+            return;
+        }
+        int position = search(variable.id);
+        if (position < 0) {
+            insert(-position - 1, variable, value);
+            return;
+        }
+        int index = mOffset + position;
+        float v = mTableau.values[index] + value;
+        if (v > -epsilon && v < epsilon) {
+            delete(position);
+            if (removeFromDefinition) {
+                variable.removeFromRow(mRow);
+            }
+            variable.usageInRowCount--;
+            return;
+        }
+        mTableau.values[index] = v;
+    }
+
+    @Override
+    public float remove(SolverVariable variable, boolean removeFromDefinition) {
+        int position = search(variable.id);
+        if (position < 0) {
+            return 0;
+        }
+        float value = mTableau.values[mOffset + position];
+        delete(position);
+        if (removeFromDefinition) {
+            variable.removeFromRow(mRow);
+        }
+        variable.usageInRowCount--;
+        return value;
+    }
+
+    @Override
+    public float use(ArrayRow definition, boolean removeFromDefinition) {
+        float value = get(definition.variable);
+        remove(definition.variable, removeFromDefinition);
+        if (!(definition.variables instanceof CompactRowVariables)) {
+            ArrayRow.ArrayRowVariables definitionVariables = definition.variables;
+            int definitionSize = definitionVariables.getCurrentSize();
+            for (int i = 0; i < definitionSize; i++) {
+                SolverVariable definitionVariable = definitionVariables.getVariable(i);
+                float definitionValue = definitionVariables.get(definitionVariable);
+                add(definitionVariable, definitionValue * value, removeFromDefinition);
+            }
+            return value;
+        }
+        CompactRowVariables other = (CompactRowVariables) definition.variables;
+        final int otherSize = other.size();
+        if (otherSize == 0) {
+            return value;
+        }
+        // Merge both sorted rows, doing what add() would do for each variable of the
+        // definition, in the same order.
+        final int size = size();
+        mTableau.ensureMergeCapacity(size + otherSize);
+        final int[] columns = mTableau.columns;
+        final float[] values = mTableau.values;
+        final int[] mergeColumns = mTableau.mergeColumns;
+        final float[] mergeValues = mTableau.mergeValues;
+        final SolverVariable[] indexedVariables = mCache.mIndexedVariables;
+        int i = mOffset;
+        final int end = mOffset + size;
+        int j = other.mOffset;
+        final int otherEnd = other.mOffset + otherSize;
+        int count = 0;
+        while (j < otherEnd) {
+            int otherId = columns[j];
+            float addedValue = values[j] * value;
+            j++;
+            while (i < end && columns[i] < otherId) {
+                mergeColumns[count] = columns[i];
+                mergeValues[count] = values[i];
+                count++;
+                i++;
+            }
+            if (addedValue > -epsilon && addedValue < epsilon) {
+                continue;
+            }
+            SolverVariable variable = indexedVariables[otherId];
+            if (i < end && columns[i] == otherId) {
+                float v = values[i] + addedValue;
+                i++;
+                if (v > -epsilon && v < epsilon) {
+                    if (removeFromDefinition) {
+                        variable.removeFromRow(mRow);
+                    }
+                    variable.usageInRowCount--;
+                    continue;
+                }
+                mergeColumns[count] = otherId;
+                mergeValues[count] = v;
+                count++;
+            } else {
+                mergeColumns[count] = otherId;
+                mergeValues[count] = addedValue;
+                count++;
+                variable.usageInRowCount++;
+                variable.addToRow(mRow);
+            }
+        }
+        while (i < end) {
+            mergeColumns[count] = columns[i];
+            mergeValues[count] = values[i];
+            count++;
+            i++;
+        }
+        // our slice may move, but the merge buffers don't
+        ensureCapacity(count);
+        System.arraycopy(mergeColumns, 0, mTableau.columns, mOffset, count);
+        System.arraycopy(mergeValues, 0, mTableau.values, mOffset, count);
+        mSize = count;
+        return value;
+    }
+
+    @Override
+    public void invert() {
+        final float[] values = mTableau.values;
+        final int end = mOffset + size();
+        for (int i = mOffset; i < end; i++) {
+            values[i] *= -1;
+        }
+    }
+
+    @Override
+    public void divideByAmount(float amount) {
+        final float[] values = mTableau.values;
+        final int end = mOffset + size();
+        for (int i = mOffset; i < end; i++) {
+            values[i] /= amount;
+        }
+    }
+
+    @Override
+    public int sizeInBytes() {
+        return mCapacity * 8 + 4 * 4;
+    }
+
+    @Override
+    public void display() {
+        int count = size();
+        System.out.print("{ ");
+        for (int i = 0; i < count; i++) {
+            SolverVariable v = getVariable(i);
+            if (v == null) {
+                continue;
+            }
+            System.out.print(v + " = " + getVariableValue(i) + " ");
+        }
+        System.out.println(" }");
+    }
+
+    @Override
+    public String toString() {
+        String result = "";
+        int count = size();
+        for (int i = 0; i < count; i++) {
+            result += " -> ";
+            result += getVariableValue(i) + " : ";
+            result += getVariable(i);
+        }
+        return result;
+    }
+}
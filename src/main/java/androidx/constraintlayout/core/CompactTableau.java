@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * Storage of the rows of a {@link LinearSystem} using the
+ * {@link LinearSystem#ENGINE_COMPACT} engine: the column ids and coefficients of all the
+ * rows live in two shared arrays, each row owning a slice of them (see
+ * {@link CompactRowVariables}).
+ *
+ * Slices are allocated at the end of the arrays. A row that outgrows its slice moves to a
+ * new one twice as large, the old one is only reclaimed when the system is reset.
+ */
+final class CompactTableau {
+    int[] columns = new int[1024];
+    float[] values = new float[1024];
+    private int mTop = 0;
+    // incremented on reset, to recognize the slices allocated before
+    int generation = 0;
+
+    // scratch space used when merging rows
+    int[] mergeColumns = new int[64];
+    float[] mergeValues = new float[64];
+
+    /**
+     * Allocate a slice of the given capacity
+     *
+     * @return the offset of the slice
+     */
+    int allocate(int capacity) {
+        int offset = mTop;
+        mTop += capacity;
+        if (mTop > columns.length) {
+            int size = Math.max(mTop, columns.length * 2);
+            columns = Arrays.copyOf(columns, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return offset;
+    }
+
+    void ensureMergeCapacity(int capacity) {
+        if (mergeColumns.length < capacity) {
+            int size = Math.max(capacity, mergeColumns.length * 2);
+            mergeColumns = new int[size];
+            mergeValues = new float[size];
+        }
+    }
+
+    /**
+     * Release all the slices
+     */
+    void reset() {
+        mTop = 0;
+        generation++;
+    }
+
+    int sizeInBytes() {
+        return columns.length * 8 + mergeColumns.length * 8;
+    }
+}
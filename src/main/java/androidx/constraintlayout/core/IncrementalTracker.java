@@ -0,0 +1,751 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * Supports the incremental mode of {@link LinearSystem}.
+ *
+ * While a system is built and solved, we record the calls made to it (their signature:
+ * type, variables, strength...) and how the constants of the rows derive from the
+ * constants given in those calls (a list of simple operations on "slots"). Pivots and
+ * substitutions never depend on the constants, so when the same calls are made again with
+ * different margins or sizes we can replay the operations on the new constants, which gives
+ * us the previous optimal tableau with updated constants. The system then only has to
+ * restore feasibility (dual simplex, see enforceBFS) instead of being rebuilt.
+ */
+final class IncrementalTracker {
+    private static final boolean DEBUG = false;
+
+    // Call types
+    static final int CALL_ROW = 1;
+    static final int CALL_GREATER_THAN = 2;
+    static final int CALL_GREATER_BARRIER = 3;
+    static final int CALL_LOWER_THAN = 4;
+    static final int CALL_LOWER_BARRIER = 5;
+    static final int CALL_CENTERING = 6;
+    static final int CALL_RATIO = 7;
+    static final int CALL_SYNONYM = 8;
+    static final int CALL_EQUALITY = 9;
+    static final int CALL_EQUALITY_VALUE = 10;
+
+    // Operations on slots
+    private static final int OP_ASSIGN = 0; // dst = src * value
+    private static final int OP_ADD = 1; // dst += src * value
+    private static final int OP_DIVIDE = 2; // dst = dst / value
+    private static final int OP_MULTIPLY = 3; // dst = dst * value
+
+    // slot always holding 1, used for constants that are part of the structure
+    static final int SLOT_ONE = 0;
+
+    // The operations recorded while updating are compacted once they outgrow the program
+    // we started from, and we stop updating (and rebuild) if even the compacted program
+    // outgrows the one recorded when the system was built, to keep the replay cheap.
+    private static final int MAX_GROWTH = 2;
+    private static final int MIN_OPS = 256;
+
+    private static final int RECORDING = 0;
+    private static final int SOLVED = 1;
+    private static final int UPDATING = 2;
+    private static final int UPDATED = 3;
+    private static final int MISMATCH = 4;
+    private static final int INVALID = 5;
+
+    private int mState = INVALID;
+
+    private int[] mSignature = new int[256];
+    private int mSignatureCount = 0;
+    private int mSignatureCursor = 0;
+
+    private int[] mConstantSlots = new int[64];
+    private int mConstantCount = 0;
+    private int mConstantCursor = 0;
+    private final int[] mCallConstants = new int[2];
+    private int mCallCount = 0;
+
+    private int[] mOps = new int[256];
+    private double[] mOpValues = new double[128];
+    private int mOpCount = 0;
+    private int mBuildOpCount = 0;
+    private int mBaseOpCount = 0;
+
+    // values are replayed in double precision, as many layouts may go through them
+    private int mSlotCount = 1;
+    private double[] mValues = new double[64];
+
+    // compaction, see compact()
+    private boolean[] mLiveSlots = new boolean[64];
+    private boolean[] mInputSlots = new boolean[64];
+    private int[][] mTermSlots = new int[64][];
+    private double[][] mTermFactors = new double[64][];
+    private int[] mTermCounts = new int[64];
+    private double[] mScratch = new double[64];
+    private int[] mScratchSlots = new int[64];
+    private boolean[] mScratchUsed = new boolean[64];
+
+    private SolverVariable[] mFinalVariables = new SolverVariable[32];
+    private int[] mFinalSlots = new int[32];
+    private int[] mFinalCalls = new int[32];
+    private int mFinalCount = 0;
+    private int mFinalCursor = 0;
+    private int[] mVariableFinalSlots = new int[32];
+
+    /**
+     * Start recording a new system
+     */
+    void reset() {
+        Arrays.fill(mFinalVariables, 0, mFinalCount, null);
+        Arrays.fill(mVariableFinalSlots, -1);
+        mSignatureCount = 0;
+        mConstantCount = 0;
+        mCallCount = 0;
+        mOpCount = 0;
+        mBuildOpCount = 0;
+        mBaseOpCount = 0;
+        mSlotCount = 1;
+        mFinalCount = 0;
+        mState = RECORDING;
+    }
+
+    /**
+     * Stop tracking until the next reset
+     */
+    void invalidate() {
+        if (DEBUG && mState != INVALID) {
+            System.out.println("incremental tracking invalidated");
+        }
+        mState = INVALID;
+    }
+
+    boolean isUpdated() {
+        return mState == UPDATED;
+    }
+
+    /**
+     * Called once the system has been minimized
+     */
+    void solved(LinearSystem system) {
+        if (mState != RECORDING) {
+            return;
+        }
+        for (int i = 0; i < system.mNumRows; i++) {
+            if (system.mRows[i].constantSlot < 0) {
+                // a row we don't know how to update
+                invalidate();
+                return;
+            }
+        }
+        if (mBuildOpCount == 0) {
+            mBuildOpCount = mOpCount;
+            mBaseOpCount = mOpCount;
+        } else if (mOpCount > MAX_GROWTH * mBaseOpCount + MIN_OPS) {
+            compact(system);
+            if (mOpCount > MAX_GROWTH * mBuildOpCount + MIN_OPS) {
+                // the constants depend on too many others, rebuilding is cheaper
+                invalidate();
+                return;
+            }
+            mBaseOpCount = mOpCount;
+        }
+        mState = SOLVED;
+    }
+
+    /**
+     * Start matching the calls against the recorded ones.
+     *
+     * @return false if the system can't be updated and needs to be rebuilt
+     */
+    boolean beginUpdate() {
+        if (mState != SOLVED) {
+            return false;
+        }
+        mState = UPDATING;
+        mSignatureCursor = 0;
+        mConstantCursor = 0;
+        mCallCount = 0;
+        mFinalCursor = 0;
+        // variables only become final as the calls are made, the widgets check this
+        for (int i = 0; i < mFinalCount; i++) {
+            mFinalVariables[i].isFinalValue = false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if all the calls matched the recorded ones
+     */
+    boolean endUpdate() {
+        if (mState != UPDATING
+                || mSignatureCursor != mSignatureCount
+                || mConstantCursor != mConstantCount) {
+            mState = INVALID;
+            return false;
+        }
+        markFinal(Integer.MAX_VALUE);
+        mState = UPDATED;
+        return true;
+    }
+
+    private void markFinal(int call) {
+        while (mFinalCursor < mFinalCount && mFinalCalls[mFinalCursor] <= call) {
+            mFinalVariables[mFinalCursor].isFinalValue = true;
+            mFinalCursor++;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Calls
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * Records (or matches, when updating) a call made to the system.
+     *
+     * @return true if the call should not be executed
+     */
+    boolean call(LinearSystem system, int type, int value, float factor, int constantA, int constantB,
+                 SolverVariable a, SolverVariable b, SolverVariable c, SolverVariable d) {
+        if (mState == RECORDING) {
+            mCallCount++;
+            ensureSignature(9);
+            mSignature[mSignatureCount++] = type;
+            mSignature[mSignatureCount++] = value;
+            mSignature[mSignatureCount++] = Float.floatToIntBits(factor);
+            mSignature[mSignatureCount++] = Integer.signum(constantA);
+            mSignature[mSignatureCount++] = Integer.signum(constantB);
+            mSignature[mSignatureCount++] = idOf(a);
+            mSignature[mSignatureCount++] = idOf(b);
+            mSignature[mSignatureCount++] = idOf(c);
+            mSignature[mSignatureCount++] = idOf(d);
+            mCallConstants[0] = constant(constantA);
+            mCallConstants[1] = constant(constantB);
+            return false;
+        }
+        if (mState == MISMATCH) {
+            return true;
+        }
+        if (mState == UPDATING) {
+            mCallCount++;
+            if (mSignatureCursor + 9 > mSignatureCount
+                    || mSignature[mSignatureCursor] != type
+                    || mSignature[mSignatureCursor + 1] != value
+                    || mSignature[mSignatureCursor + 2] != Float.floatToIntBits(factor)
+                    || mSignature[mSignatureCursor + 3] != Integer.signum(constantA)
+                    || mSignature[mSignatureCursor + 4] != Integer.signum(constantB)
+                    || !matches(system, mSignatureCursor + 5, a)
+                    || !matches(system, mSignatureCursor + 6, b)
+                    || !matches(system, mSignatureCursor + 7, c)
+                    || !matches(system, mSignatureCursor + 8, d)
+                    || mConstantCursor + 2 > mConstantCount) {
+                mismatch();
+                return true;
+            }
+            mSignatureCursor += 9;
+            mValues[mConstantSlots[mConstantCursor++]] = constantA;
+            mValues[mConstantSlots[mConstantCursor++]] = constantB;
+            markFinal(mCallCount);
+            return true;
+        }
+        if (mState == SOLVED || mState == UPDATED) {
+            // the solved system is modified directly
+            invalidate();
+        }
+        return false;
+    }
+
+    /**
+     * Records (or matches, when updating) a row added directly to the system.
+     * The constant of the row is its only parameter.
+     *
+     * @return true if the row should not be added
+     */
+    boolean callRow(LinearSystem system, ArrayRow row) {
+        ArrayRow.ArrayRowVariables variables = row.variables;
+        final int size = variables.getCurrentSize();
+        if (mState == RECORDING) {
+            mCallCount++;
+            ensureSignature(4 + size * 2);
+            mSignature[mSignatureCount++] = CALL_ROW;
+            mSignature[mSignatureCount++] = idOf(row.variable);
+            mSignature[mSignatureCount++] = row.isSimpleDefinition ? 1 : 0;
+            mSignature[mSignatureCount++] = size;
+            for (int i = 0; i < size; i++) {
+                mSignature[mSignatureCount++] = idOf(variables.getVariable(i));
+                mSignature[mSignatureCount++] = Float.floatToIntBits(variables.getVariableValue(i));
+            }
+            initRow(row, constant(row.constantValue), 1);
+            return false;
+        }
+        if (mState == MISMATCH) {
+            return true;
+        }
+        if (mState == UPDATING) {
+            mCallCount++;
+            boolean match = mSignatureCursor + 4 + size * 2 <= mSignatureCount
+                    && mSignature[mSignatureCursor] == CALL_ROW
+                    && matches(system, mSignatureCursor + 1, row.variable)
+                    && mSignature[mSignatureCursor + 2] == (row.isSimpleDefinition ? 1 : 0)
+                    && mSignature[mSignatureCursor + 3] == size
+                    && mConstantCursor < mConstantCount;
+            for (int i = 0; match && i < size; i++) {
+                int index = mSignatureCursor + 4 + i * 2;
+                match = matches(system, index, variables.getVariable(i))
+                        && mSignature[index + 1] == Float.floatToIntBits(variables.getVariableValue(i));
+            }
+            if (!match) {
+                mismatch();
+                return true;
+            }
+            mSignatureCursor += 4 + size * 2;
+            mValues[mConstantSlots[mConstantCursor++]] = row.constantValue;
+            markFinal(mCallCount);
+            return true;
+        }
+        if (mState == SOLVED || mState == UPDATED) {
+            invalidate();
+        }
+        return false;
+    }
+
+    /**
+     * @param index index of the constant in the current call
+     * @return the slot holding it
+     */
+    int callConstant(int index) {
+        return mCallConstants[index];
+    }
+
+    private void mismatch() {
+        if (DEBUG) {
+            System.out.println("incremental update mismatch at call " + mCallCount);
+        }
+        // skip the remaining calls, the system will be rebuilt
+        mState = MISMATCH;
+    }
+
+    private static int idOf(SolverVariable variable) {
+        return variable == null ? -2 : variable.id;
+    }
+
+    private boolean matches(LinearSystem system, int index, SolverVariable variable) {
+        int id = mSignature[index];
+        if (variable == null) {
+            return id == -2;
+        }
+        return id == variable.id && id >= 0 && system.mCache.mIndexedVariables[id] == variable;
+    }
+
+    private int constant(float value) {
+        int slot = newSlot();
+        if (mConstantCount >= mConstantSlots.length) {
+            mConstantSlots = Arrays.copyOf(mConstantSlots, mConstantSlots.length * 2);
+        }
+        mConstantSlots[mConstantCount++] = slot;
+        mValues[slot] = value;
+        return slot;
+    }
+
+    private int newSlot() {
+        if (mSlotCount >= mValues.length) {
+            mValues = Arrays.copyOf(mValues, mValues.length * 2);
+        }
+        return mSlotCount++;
+    }
+
+    private void ensureSignature(int count) {
+        if (mSignatureCount + count > mSignature.length) {
+            mSignature = Arrays.copyOf(mSignature, Math.max(mSignature.length * 2, mSignatureCount + count));
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+    // Operations on constants
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * Initialize the constant of a new row from a slot
+     */
+    void initRow(ArrayRow row, int slot, float factor) {
+        if (mState != RECORDING) {
+            return;
+        }
+        row.constantSlot = newSlot();
+        op(OP_ASSIGN, row.constantSlot, slot, factor);
+    }
+
+    /**
+     * Initialize the constant of a new row from two slots
+     */
+    void initRow(ArrayRow row, int slotA, float factorA, int slotB, float factorB) {
+        if (mState != RECORDING) {
+            return;
+        }
+        row.constantSlot = newSlot();
+        op(OP_ASSIGN, row.constantSlot, slotA, factorA);
+        op(OP_ADD, row.constantSlot, slotB, factorB);
+    }
+
+    /**
+     * The constant of the row is replaced by a slot
+     */
+    void assign(ArrayRow row, int slot) {
+        if (mState != RECORDING) {
+            return;
+        }
+        if (row.constantSlot < 0) {
+            invalidate();
+            return;
+        }
+        op(OP_ASSIGN, row.constantSlot, slot, 1);
+    }
+
+    /**
+     * row += definition * value
+     */
+    void add(ArrayRow row, ArrayRow definition, float value) {
+        if (mState != RECORDING || row.constantSlot < 0) {
+            return;
+        }
+        if (definition.constantSlot < 0) {
+            invalidate();
+            return;
+        }
+        op(OP_ADD, row.constantSlot, definition.constantSlot, value);
+    }
+
+    /**
+     * row += final value of the variable * value
+     */
+    void add(ArrayRow row, SolverVariable variable, float value) {
+        if (mState != RECORDING || row.constantSlot < 0) {
+            return;
+        }
+        int slot = finalSlot(variable);
+        if (slot < 0) {
+            invalidate();
+            return;
+        }
+        op(OP_ADD, row.constantSlot, slot, value);
+    }
+
+    /**
+     * row += value
+     */
+    void add(ArrayRow row, float value) {
+        if (mState != RECORDING || row.constantSlot < 0) {
+            return;
+        }
+        op(OP_ADD, row.constantSlot, SLOT_ONE, value);
+    }
+
+    void divide(ArrayRow row, float value) {
+        if (mState != RECORDING || row.constantSlot < 0) {
+            return;
+        }
+        op(OP_DIVIDE, row.constantSlot, 0, value);
+    }
+
+    void multiply(ArrayRow row, float value) {
+        if (mState != RECORDING || row.constantSlot < 0) {
+            return;
+        }
+        op(OP_MULTIPLY, row.constantSlot, 0, value);
+    }
+
+    /**
+     * The variable is about to get a final value of slot * factor (+ the constant of
+     * another slot, see {@link #addFinal(SolverVariable, int, float)})
+     */
+    void setFinal(SolverVariable variable, int slot, float factor) {
+        if (mState != RECORDING) {
+            return;
+        }
+        if (slot < 0) {
+            invalidate();
+            return;
+        }
+        if (mFinalCount >= mFinalVariables.length) {
+            int size = mFinalVariables.length * 2;
+            mFinalVariables = Arrays.copyOf(mFinalVariables, size);
+            mFinalSlots = Arrays.copyOf(mFinalSlots, size);
+            mFinalCalls = Arrays.copyOf(mFinalCalls, size);
+        }
+        int finalSlot = newSlot();
+        mFinalVariables[mFinalCount] = variable;
+        mFinalSlots[mFinalCount] = finalSlot;
+        mFinalCalls[mFinalCount] = mCallCount;
+        mFinalCount++;
+        if (variable.id >= mVariableFinalSlots.length) {
+            int size = Math.max(mVariableFinalSlots.length * 2, variable.id + 1);
+            int previous = mVariableFinalSlots.length;
+            mVariableFinalSlots = Arrays.copyOf(mVariableFinalSlots, size);
+            Arrays.fill(mVariableFinalSlots, previous, size, -1);
+        }
+        mVariableFinalSlots[variable.id] = finalSlot;
+        op(OP_ASSIGN, finalSlot, slot, factor);
+    }
+
+    void addFinal(SolverVariable variable, int slot, float factor) {
+        if (mState != RECORDING) {
+            return;
+        }
+        int finalSlot = finalSlot(variable);
+        if (finalSlot < 0) {
+            invalidate();
+            return;
+        }
+        op(OP_ADD, finalSlot, slot, factor);
+    }
+
+    /**
+     * @return the slot holding the final value of the variable, or -1
+     */
+    int finalSlot(SolverVariable variable) {
+        if (variable.id < 0 || variable.id >= mVariableFinalSlots.length) {
+            return -1;
+        }
+        return mVariableFinalSlots[variable.id];
+    }
+
+    private void op(int code, int dst, int src, double value) {
+        if (mOpCount * 3 + 3 > mOps.length) {
+            mOps = Arrays.copyOf(mOps, mOps.length * 2);
+        }
+        if (mOpCount >= mOpValues.length) {
+            mOpValues = Arrays.copyOf(mOpValues, mOpValues.length * 2);
+        }
+        int index = mOpCount * 3;
+        mOps[index] = code;
+        mOps[index + 1] = dst;
+        mOps[index + 2] = src;
+        mOpValues[mOpCount] = value;
+        mOpCount++;
+    }
+
+    /**
+     * Replay the operations on the updated constants, and apply the results
+     * to the rows and final variables of the system.
+     */
+    void replay(LinearSystem system) {
+        final double[] values = mValues;
+        values[SLOT_ONE] = 1;
+        final int[] ops = mOps;
+        final double[] opValues = mOpValues;
+        final int count = mOpCount;
+        for (int i = 0; i < count; i++) {
+            int index = i * 3;
+            int dst = ops[index + 1];
+            switch (ops[index]) {
+                case OP_ASSIGN:
+                    values[dst] = values[ops[index + 2]] * opValues[i];
+                    break;
+                case OP_ADD:
+                    values[dst] += values[ops[index + 2]] * opValues[i];
+                    break;
+                case OP_DIVIDE:
+                    values[dst] = values[dst] / opValues[i];
+                    break;
+                case OP_MULTIPLY:
+                    values[dst] *= opValues[i];
+                    break;
+            }
+        }
+        for (int i = 0; i < system.mNumRows; i++) {
+            ArrayRow row = system.mRows[i];
+            row.constantValue = (float) values[row.constantSlot];
+        }
+        for (int i = 0; i < mFinalCount; i++) {
+            mFinalVariables[i].computedValue = (float) values[mFinalSlots[i]];
+        }
+        // keep recording the pivots done from now on
+        mState = RECORDING;
+    }
+
+    /**
+     * Rewrite the operations so that each slot still read (the constants of the rows in the
+     * system and the final values) is computed directly from the constants of the calls.
+     * All the operations are linear, so we evaluate them on the coefficients of the constants
+     * instead of on their values. Pivots done while updating keep adding operations, without
+     * this the program would keep growing with every layout.
+     */
+    private void compact(LinearSystem system) {
+        final int slotCount = mSlotCount;
+        if (mLiveSlots.length < slotCount) {
+            int size = Math.max(mLiveSlots.length * 2, slotCount);
+            mLiveSlots = new boolean[size];
+            mInputSlots = new boolean[size];
+            mTermSlots = new int[size][];
+            mTermFactors = new double[size][];
+            mTermCounts = new int[size];
+            mScratch = new double[size];
+            mScratchSlots = new int[size];
+            mScratchUsed = new boolean[size];
+        }
+        Arrays.fill(mLiveSlots, 0, slotCount, false);
+        Arrays.fill(mInputSlots, 0, slotCount, false);
+        Arrays.fill(mTermCounts, 0, slotCount, 0);
+        for (int i = 0; i < system.mNumRows; i++) {
+            mLiveSlots[system.mRows[i].constantSlot] = true;
+        }
+        for (int i = 0; i < mFinalCount; i++) {
+            mLiveSlots[mFinalSlots[i]] = true;
+        }
+        mInputSlots[SLOT_ONE] = true;
+        for (int i = 0; i < mConstantCount; i++) {
+            mInputSlots[mConstantSlots[i]] = true;
+        }
+
+        for (int i = 0; i < mOpCount; i++) {
+            int index = i * 3;
+            int dst = mOps[index + 1];
+            int src = mOps[index + 2];
+            double value = mOpValues[i];
+            switch (mOps[index]) {
+                case OP_ASSIGN:
+                    if (src == dst) {
+                        scaleTerms(dst, value);
+                    } else {
+                        mTermCounts[dst] = 0;
+                        addTerms(dst, src, value);
+                    }
+                    break;
+                case OP_ADD:
+                    addTerms(dst, src, value);
+                    break;
+                case OP_DIVIDE:
+                    scaleTerms(dst, 1 / value);
+                    break;
+                case OP_MULTIPLY:
+                    scaleTerms(dst, value);
+                    break;
+            }
+        }
+
+        mOpCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!mLiveSlots[slot]) {
+                continue;
+            }
+            int count = mTermCounts[slot];
+            if (count == 0) {
+                op(OP_ASSIGN, slot, SLOT_ONE, 0);
+                continue;
+            }
+            int[] slots = mTermSlots[slot];
+            double[] factors = mTermFactors[slot];
+            op(OP_ASSIGN, slot, slots[0], factors[0]);
+            for (int j = 1; j < count; j++) {
+                op(OP_ADD, slot, slots[j], factors[j]);
+            }
+        }
+        if (DEBUG) {
+            System.out.println("incremental operations compacted to " + mOpCount);
+        }
+    }
+
+    /**
+     * dst += src * value, on the coefficients of the constants
+     */
+    private void addTerms(int dst, int src, double value) {
+        if (value == 0) {
+            return;
+        }
+        if (mInputSlots[src]) {
+            addTerm(dst, src, value);
+            return;
+        }
+        final int count = mTermCounts[src];
+        if (count == 0) {
+            return;
+        }
+        final int[] slots = mTermSlots[src];
+        final double[] factors = mTermFactors[src];
+        if (src == dst) {
+            scaleTerms(dst, 1 + value);
+            return;
+        }
+        // merge the terms of src into the ones of dst
+        int dstCount = mTermCounts[dst];
+        int[] dstSlots = mTermSlots[dst];
+        double[] dstFactors = mTermFactors[dst];
+        for (int i = 0; i < dstCount; i++) {
+            int slot = dstSlots[i];
+            mScratch[slot] = dstFactors[i];
+            mScratchUsed[slot] = true;
+            mScratchSlots[i] = slot;
+        }
+        int used = dstCount;
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (mScratchUsed[slot]) {
+                mScratch[slot] += factors[i] * value;
+            } else {
+                mScratch[slot] = factors[i] * value;
+                mScratchUsed[slot] = true;
+                mScratchSlots[used++] = slot;
+            }
+        }
+        ensureTerms(dst, used);
+        dstSlots = mTermSlots[dst];
+        dstFactors = mTermFactors[dst];
+        int merged = 0;
+        for (int i = 0; i < used; i++) {
+            int slot = mScratchSlots[i];
+            mScratchUsed[slot] = false;
+            if (mScratch[slot] != 0) {
+                dstSlots[merged] = slot;
+                dstFactors[merged] = mScratch[slot];
+                merged++;
+            }
+        }
+        mTermCounts[dst] = merged;
+    }
+
+    private void addTerm(int dst, int slot, double value) {
+        int count = mTermCounts[dst];
+        int[] slots = mTermSlots[dst];
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot) {
+                mTermFactors[dst][i] += value;
+                return;
+            }
+        }
+        ensureTerms(dst, count + 1);
+        mTermSlots[dst][count] = slot;
+        mTermFactors[dst][count] = value;
+        mTermCounts[dst] = count + 1;
+    }
+
+    private void scaleTerms(int dst, double value) {
+        final int count = mTermCounts[dst];
+        final double[] factors = mTermFactors[dst];
+        for (int i = 0; i < count; i++) {
+            factors[i] *= value;
+        }
+    }
+
+    private void ensureTerms(int dst, int count) {
+        if (mTermSlots[dst] == null) {
+            int size = Math.max(4, count);
+            mTermSlots[dst] = new int[size];
+            mTermFactors[dst] = new double[size];
+        } else if (mTermSlots[dst].length < count) {
+            int size = Math.max(mTermSlots[dst].length * 2, count);
+            mTermSlots[dst] = Arrays.copyOf(mTermSlots[dst], size);
+            mTermFactors[dst] = Arrays.copyOf(mTermFactors[dst], size);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LayoutRecorder} aggregating each event in a histogram, to get percentiles of
+ * the layout costs.
+ *
+ * Values below 16 are counted exactly, larger values go in 8 buckets per power of two,
+ * so percentiles are within 12.5% of the recorded values. Recording doesn't allocate.
+ * Not thread safe: use one histogram per layout thread, and {@link #add(LayoutHistogram)}
+ * to merge them.
+ */
+public class LayoutHistogram implements LayoutRecorder {
+    private static final int EXACT = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    static final int BUCKETS = EXACT + (63 - 4) * SUB_BUCKETS;
+
+    private static final String[] NAMES = {
+            "measure", "measuredWidgets", "layout", "directResolution", "graphResolution",
+            "grouping", "minimize", "tableRows", "tableColumns", "pivots", "bfsIterations",
+            "optimizeIterations"
+    };
+
+    private final long[][] mBuckets = new long[EVENT_COUNT][];
+    private final long[] mCount = new long[EVENT_COUNT];
+    private final long[] mSum = new long[EVENT_COUNT];
+    private final long[] mMin = new long[EVENT_COUNT];
+    private final long[] mMax = new long[EVENT_COUNT];
+
+    public LayoutHistogram() {
+        reset();
+    }
+
+    @Override
+    public void record(int event, long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        long[] buckets = mBuckets[event];
+        if (buckets == null) {
+            buckets = new long[BUCKETS];
+            mBuckets[event] = buckets;
+        }
+        buckets[bucket(value)]++;
+        mCount[event]++;
+        mSum[event] += value;
+        mMin[event] = Math.min(mMin[event], value);
+        mMax[event] = Math.max(mMax[event], value);
+    }
+
+    /**
+     * Add the values recorded by another histogram to this one
+     */
+    public void add(LayoutHistogram histogram) {
+        for (int event = 0; event < EVENT_COUNT; event++) {
+            long[] buckets = histogram.mBuckets[event];
+            if (buckets == null || histogram.mCount[event] == 0) {
+                continue;
+            }
+            if (mBuckets[event] == null) {
+                mBuckets[event] = new long[BUCKETS];
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                mBuckets[event][i] += buckets[i];
+            }
+            mCount[event] += histogram.mCount[event];
+            mSum[event] += histogram.mSum[event];
+            mMin[event] = Math.min(mMin[event], histogram.mMin[event]);
+            mMax[event] = Math.max(mMax[event], histogram.mMax[event]);
+        }
+    }
+
+    public void reset() {
+        for (int event = 0; event < EVENT_COUNT; event++) {
+            if (mBuckets[event] != null) {
+                Arrays.fill(mBuckets[event], 0);
+            }
+            mCount[event] = 0;
+            mSum[event] = 0;
+            mMin[event] = Long.MAX_VALUE;
+            mMax[event] = 0;
+        }
+    }
+
+    public long getCount(int event) {
+        return mCount[event];
+    }
+
+    public long getSum(int event) {
+        return mSum[event];
+    }
+
+    public long getMin(int event) {
+        return mCount[event] == 0 ? 0 : mMin[event];
+    }
+
+    public long getMax(int event) {
+        return mMax[event];
+    }
+
+    public double getMean(int event) {
+        return mCount[event] == 0 ? 0 : (double) mSum[event] / mCount[event];
+    }
+
+    /**
+     * Returns the value under which the given percentage of the recorded values are
+     *
+     * @param event      the event
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(int event, double percentile) {
+        long count = mCount[event];
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * count);
+        rank = Math.max(1, Math.min(count, rank));
+        long[] buckets = mBuckets[event];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets[i];
+            if (total >= rank) {
+                return Math.max(getMin(event), Math.min(upperBound(i), mMax[event]));
+            }
+        }
+        return mMax[event];
+    }
+
+    public static String getEventName(int event) {
+        return NAMES[event];
+    }
+
+    static int bucket(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int exponent = (bucket - EXACT) / SUB_BUCKETS + 4;
+        int sub = (bucket - EXACT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int event = 0; event < EVENT_COUNT; event++) {
+            if (mCount[event] == 0) {
+                continue;
+            }
+            builder.append(NAMES[event])
+                    .append(": count ").append(mCount[event])
+                    .append(", mean ").append((long) getMean(event))
+                    .append(", p50 ").append(getPercentile(event, 50))
+                    .append(", p90 ").append(getPercentile(event, 90))
+                    .append(", p99 ").append(getPercentile(event, 99))
+                    .append(", max ").append(mMax[event])
+                    .append("\n");
+        }
+        return builder.toString();
+    }
+}
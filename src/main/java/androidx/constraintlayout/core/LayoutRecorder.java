@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+/**
+ * Receives the events of the layout passes of a container, see
+ * {@link androidx.constraintlayout.core.widgets.ConstraintWidgetContainer#setLayoutRecorder(LayoutRecorder)}.
+ *
+ * Nothing is timed or counted when no recorder is set. The recorder is called from the
+ * layout thread, in the middle of the measure: implementations should only aggregate
+ * (see {@link LayoutHistogram}).
+ */
+public interface LayoutRecorder {
+    /** Duration in nanoseconds of a measure of the container (all its passes) */
+    int MEASURE = 0;
+    /** Widgets measured by a measure of the container */
+    int MEASURED_WIDGETS = 1;
+    /** Duration in nanoseconds of a layout pass of the container */
+    int LAYOUT = 2;
+    /** Duration in nanoseconds of the direct resolution (OPTIMIZATION_DIRECT) */
+    int DIRECT_RESOLUTION = 3;
+    /** Duration in nanoseconds of the dependency graph resolution (OPTIMIZATION_GRAPH) */
+    int GRAPH_RESOLUTION = 4;
+    /** Duration in nanoseconds of the grouping pass (OPTIMIZATION_GROUPING) */
+    int GROUPING = 5;
+    /** Duration in nanoseconds of a minimize of the linear system */
+    int MINIMIZE = 6;
+    /** Rows of the linear system when minimized */
+    int TABLE_ROWS = 7;
+    /** Columns of the linear system when minimized */
+    int TABLE_COLUMNS = 8;
+    /** Pivots done by a minimize */
+    int PIVOTS = 9;
+    /** Iterations done by a minimize to get a feasible solution */
+    int BFS_ITERATIONS = 10;
+    /** Iterations done by a minimize to optimize the goal */
+    int OPTIMIZE_ITERATIONS = 11;
+
+    /** Number of events */
+    int EVENT_COUNT = 12;
+
+    /**
+     * Called for each event
+     *
+     * @param event one of the events above
+     * @param value value of the event (a duration in nanoseconds or a count)
+     */
+    void record(int event, long value);
+}
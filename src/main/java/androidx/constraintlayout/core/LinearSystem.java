@@ -16,6 +16,7 @@
 
 package androidx.constraintlayout.core;
 
+import androidx.constraintlayout.core.motion.utils.Utils;
 import androidx.constraintlayout.core.widgets.Chain;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
@@ -28,12 +29,17 @@ import java.util.HashMap;
  */
 public class LinearSystem {
 
+    private static final String TAG = "LinearSystem";
+
     public static final boolean FULL_DEBUG = false;
     public static final boolean DEBUG = false;
     public static final boolean MEASURE = false;
 
     private static final boolean DEBUG_CONSTRAINTS = FULL_DEBUG;
 
+    /*
+     * Defaults of new SolverConfig instances, each system then uses its own config
+     */
     public static boolean USE_DEPENDENCY_ORDERING = false;
     public static boolean USE_BASIC_SYNONYMS = true;
     public static boolean SIMPLIFY_SYNONYMS = true;
@@ -42,9 +48,12 @@ public class LinearSystem {
     public static boolean OPTIMIZED_ENGINE = false;
 
     /*
-     * Default size for the object pools
+     * Storage engines for the rows, see setEngine()
      */
-    private static int POOL_SIZE = 1000;
+    public static final int ENGINE_LINKED = 0; // ArrayLinkedVariables
+    public static final int ENGINE_VALUES = 1; // SolverVariableValues
+    public static final int ENGINE_COMPACT = 2; // CompactRowVariables
+
     public boolean hasSimpleDefinition = false;
 
     /*
@@ -77,40 +86,240 @@ public class LinearSystem {
     int mNumRows = 0;
     private int mMaxRows = TABLE_SIZE;
 
-    final Cache mCache;
+    Cache mCache;
 
-    private SolverVariable[] mPoolVariables = new SolverVariable[POOL_SIZE];
+    private SolverVariable[] mPoolVariables;
     private int mPoolVariablesCount = 0;
 
+    private Metrics mMetrics;
+
+    /**
+     * The metrics last given to {@link #fillMetrics(Metrics)} by any system. Systems no longer
+     * report into it: setting it has no effect.
+     *
+     * @deprecated each system reports into its own metrics, see {@link #getSystemMetrics()}
+     */
+    @Deprecated
     public static Metrics sMetrics;
     private Row mTempGoal;
 
+    // non null in incremental mode
+    private IncrementalTracker mTracker = null;
+
+    private LayoutRecorder mRecorder = null;
+
+    // validate the pivot rows found through the client equations against all the rows
+    // (debug purposes)
+    boolean mCheckPivotRows = false;
+    int mPivotRowChecks = 0;
+    int mPivotRowMismatches = 0;
+    private int mPivotCount;
+    private int mBfsIterations;
+    private int mOptimizeIterations;
+
+    private final SolverConfig mConfig;
+
     class ValuesRow extends ArrayRow {
         public ValuesRow(Cache cache) {
             variables = new SolverVariableValues(this, cache);
         }
     }
 
+    class CompactRow extends ArrayRow {
+        public CompactRow(Cache cache) {
+            variables = new CompactRowVariables(this, cache, cache.mTableau);
+        }
+    }
+
     public LinearSystem() {
+        this(new SolverConfig());
+    }
+
+    public LinearSystem(SolverConfig config) {
+        this(config, new Cache());
+    }
+
+    /**
+     * @param config the options of the system, copied
+     * @param cache  the cache of the system, which can be shared (see {@link Cache})
+     */
+    public LinearSystem(SolverConfig config, Cache cache) {
+        checkEngine(config.engine);
+        mConfig = new SolverConfig(config);
+        mPoolVariables = new SolverVariable[Math.max(1, mConfig.poolSize)];
         mRows = new ArrayRow[TABLE_SIZE];
         releaseRows();
-        mCache = new Cache();
+        mCache = cache;
+        mCache.mSystemCount++;
+        mGoal = new PriorityGoalRow(mCache);
+        mTempGoal = createTempGoal();
+    }
+
+    /**
+     * Use the given cache, e.g. one shared with other systems. This resets the system.
+     *
+     * @throws IllegalStateException if the system is incremental and the cache is shared
+     */
+    public void setCache(Cache cache) {
+        if (cache == mCache) {
+            return;
+        }
+        if (mTracker != null && cache.mSystemCount > 0) {
+            throw new IllegalStateException("incremental solving needs a cache of its own");
+        }
+        reset();
+        mCache.mSystemCount--;
+        mCache = cache;
+        mCache.mSystemCount++;
+        if (mCache.mIndexedVariables.length < TABLE_SIZE) {
+            mCache.mIndexedVariables = Arrays.copyOf(mCache.mIndexedVariables, TABLE_SIZE);
+        }
         mGoal = new PriorityGoalRow(mCache);
-        if (OPTIMIZED_ENGINE) {
-            mTempGoal = new ValuesRow(mCache);
+        mTempGoal = createTempGoal();
+    }
+
+    private static void checkEngine(int engine) {
+        if (engine < ENGINE_LINKED || engine > ENGINE_COMPACT) {
+            throw new IllegalArgumentException("unknown engine " + engine);
+        }
+    }
+
+    /**
+     * Use the options of the given config (which is copied). This resets the system.
+     */
+    public void setConfig(SolverConfig config) {
+        checkEngine(config.engine);
+        reset();
+        mConfig.copyFrom(config);
+        mTempGoal = createTempGoal();
+    }
+
+    /**
+     * @return the options of this system; use {@link #setConfig(SolverConfig)} to change them
+     */
+    public SolverConfig getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * Set the storage engine used for the rows of this system, one of
+     * {@link #ENGINE_LINKED}, {@link #ENGINE_VALUES} or {@link #ENGINE_COMPACT}.
+     * This resets the system.
+     */
+    public void setEngine(int engine) {
+        checkEngine(engine);
+        reset();
+        mConfig.engine = engine;
+        mTempGoal = createTempGoal();
+    }
+
+    /**
+     * @return the storage engine used for the rows of this system
+     */
+    public int getEngine() {
+        return mConfig.engine;
+    }
+
+    private void resetTempGoal() {
+        int engine = getEngine();
+        boolean reusable;
+        if (mTempGoal instanceof ValuesRow) {
+            reusable = engine == ENGINE_VALUES;
+        } else if (mTempGoal instanceof CompactRow) {
+            reusable = engine == ENGINE_COMPACT;
+        } else {
+            reusable = engine == ENGINE_LINKED;
+        }
+        if (reusable) {
+            ((ArrayRow) mTempGoal).reset();
         } else {
-            mTempGoal = new ArrayRow(mCache);
+            mTempGoal = createTempGoal();
+        }
+    }
+
+    private Row createTempGoal() {
+        switch (getEngine()) {
+            case ENGINE_VALUES:
+                return new ValuesRow(mCache);
+            case ENGINE_COMPACT:
+                return new CompactRow(mCache);
+            default:
+                return new ArrayRow(mCache);
         }
     }
 
     public void fillMetrics(Metrics metrics) {
+        mMetrics = metrics;
         sMetrics = metrics;
     }
 
+    /**
+     * @return the metrics this system reports into, or null
+     */
+    public Metrics getSystemMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * @return the metrics last given to {@link #fillMetrics(Metrics)} by any system
+     * @deprecated each system reports into its own metrics, see {@link #getSystemMetrics()}
+     */
+    @Deprecated
     public static Metrics getMetrics() {
         return sMetrics;
     }
 
+    /**
+     * Set a recorder receiving the cost of each minimize, or null
+     */
+    public void setRecorder(LayoutRecorder recorder) {
+        mRecorder = recorder;
+    }
+
+    /**
+     * In incremental mode, the system keeps its optimal tableau after being minimized. If it is
+     * then rebuilt with the same constraints and only their constants (margins, sizes) change,
+     * see {@link #beginUpdate()}, the tableau is updated instead of being recreated and the
+     * system is re-optimized from the previous solution.
+     *
+     * @param incremental true to enable the incremental mode
+     */
+    public void setIncremental(boolean incremental) {
+        if (incremental == (mTracker != null)) {
+            return;
+        }
+        if (incremental && mCache.isShared()) {
+            throw new IllegalStateException("incremental solving needs a cache of its own");
+        }
+        // tracking starts with the next reset
+        mTracker = incremental ? new IncrementalTracker() : null;
+    }
+
+    public boolean isIncremental() {
+        return mTracker != null;
+    }
+
+    /**
+     * Start updating a solved system. Constraints added until {@link #endUpdate()} are compared
+     * with the ones the system was built with, and only their constants are kept.
+     *
+     * @return false if the system isn't in incremental mode or can't be updated,
+     *         in which case it needs to be reset and built as usual
+     */
+    public boolean beginUpdate() {
+        return mTracker != null && mTracker.beginUpdate();
+    }
+
+    /**
+     * End updating the system.
+     *
+     * @return true if the same constraints were added, in which case the system is ready to be
+     *         minimized. Otherwise the system needs to be reset and built as usual.
+     */
+    public boolean endUpdate() {
+        return mTracker != null && mTracker.endUpdate();
+    }
+
     interface Row {
         SolverVariable getPivotCandidate(LinearSystem system, boolean[] avoid);
         void clear();
@@ -139,14 +348,17 @@ public class LinearSystem {
         }
         TABLE_SIZE *= 2;
         mRows = Arrays.copyOf(mRows, TABLE_SIZE);
-        mCache.mIndexedVariables = Arrays.copyOf(mCache.mIndexedVariables, TABLE_SIZE);
+        if (mCache.mIndexedVariables.length < TABLE_SIZE) {
+            // the cache may be shared with a larger system
+            mCache.mIndexedVariables = Arrays.copyOf(mCache.mIndexedVariables, TABLE_SIZE);
+        }
         mAlreadyTestedCandidates = new boolean[TABLE_SIZE];
         mMaxColumns = TABLE_SIZE;
         mMaxRows = TABLE_SIZE;
-        if (sMetrics != null) {
-            sMetrics.tableSizeIncrease++;
-            sMetrics.maxTableSize = Math.max(sMetrics.maxTableSize, TABLE_SIZE);
-            sMetrics.lastTableSize = sMetrics.maxTableSize;
+        if (mMetrics != null) {
+            mMetrics.tableSizeIncrease++;
+            mMetrics.maxTableSize = Math.max(mMetrics.maxTableSize, TABLE_SIZE);
+            mMetrics.lastTableSize = mMetrics.maxTableSize;
         }
     }
 
@@ -154,22 +366,25 @@ public class LinearSystem {
      * Release ArrayRows back to their pool
      */
     private void releaseRows() {
-        if (OPTIMIZED_ENGINE) {
-            for (int i = 0; i < mNumRows; i++) {
-                ArrayRow row = mRows[i];
-                if (row != null) {
-                    mCache.optimizedArrayRowPool.release(row);
-                }
-                mRows[i] = null;
+        for (int i = 0; i < mNumRows; i++) {
+            ArrayRow row = mRows[i];
+            if (row != null) {
+                releaseRow(row);
             }
+            mRows[i] = null;
+        }
+    }
+
+    /**
+     * Release an ArrayRow back to the pool of its engine
+     */
+    private void releaseRow(ArrayRow row) {
+        if (row instanceof ValuesRow) {
+            mCache.optimizedArrayRowPool.release(row);
+        } else if (row instanceof CompactRow) {
+            mCache.compactArrayRowPool.release(row);
         } else {
-            for (int i = 0; i < mNumRows; i++) {
-                ArrayRow row = mRows[i];
-                if (row != null) {
-                    mCache.arrayRowPool.release(row);
-                }
-                mRows[i] = null;
-            }
+            mCache.arrayRowPool.release(row);
         }
     }
 
@@ -205,10 +420,10 @@ public class LinearSystem {
         }
         releaseRows();
         mNumRows = 0;
-        if (OPTIMIZED_ENGINE) {
-            mTempGoal = new ValuesRow(mCache);
-        } else {
-            mTempGoal = new ArrayRow(mCache);
+        mCache.mTableau.reset();
+        resetTempGoal();
+        if (mTracker != null) {
+            mTracker.reset();
         }
     }
 
@@ -232,7 +447,7 @@ public class LinearSystem {
             }
             if (variable.id == -1
                 || variable.id > mVariablesID
-                || mCache.mIndexedVariables[variable.id] == null) {
+                || mCache.mIndexedVariables[variable.id] != variable) {
                 if (variable.id != -1) {
                     variable.reset();
                 }
@@ -246,16 +461,26 @@ public class LinearSystem {
         return variable;
     }
 
-    public static long ARRAY_ROW_CREATION = 0;
-    public static long OPTIMIZED_ARRAY_ROW_CREATION = 0;
-
     public ArrayRow createRow() {
         ArrayRow row;
-        if (OPTIMIZED_ENGINE) {
+        int engine = getEngine();
+        if (engine == ENGINE_VALUES) {
             row = mCache.optimizedArrayRowPool.acquire();
             if (row == null) {
                 row = new ValuesRow(mCache);
-                OPTIMIZED_ARRAY_ROW_CREATION++;
+                if (mMetrics != null) {
+                    mMetrics.optimizedArrayRowCreations++;
+                }
+            } else {
+                row.reset();
+            }
+        } else if (engine == ENGINE_COMPACT) {
+            row = mCache.compactArrayRowPool.acquire();
+            if (row == null) {
+                row = new CompactRow(mCache);
+                if (mMetrics != null) {
+                    mMetrics.compactArrayRowCreations++;
+                }
             } else {
                 row.reset();
             }
@@ -263,18 +488,21 @@ public class LinearSystem {
             row = mCache.arrayRowPool.acquire();
             if (row == null) {
                 row = new ArrayRow(mCache);
-                ARRAY_ROW_CREATION++;
+                if (mMetrics != null) {
+                    mMetrics.arrayRowCreations++;
+                }
             } else {
                 row.reset();
             }
         }
-        SolverVariable.increaseErrorId();
+        mCache.increaseErrorId();
+        row.tracker = mTracker;
         return row;
     }
 
     public SolverVariable createSlackVariable() {
-        if (sMetrics != null) {
-            sMetrics.slackvariables++;
+        if (mMetrics != null) {
+            mMetrics.slackvariables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -288,8 +516,8 @@ public class LinearSystem {
     }
 
     public SolverVariable createExtraVariable() {
-        if (sMetrics != null) {
-            sMetrics.extravariables++;
+        if (mMetrics != null) {
+            mMetrics.extravariables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -325,8 +553,8 @@ public class LinearSystem {
     }
 
     private SolverVariable createVariable(String name, SolverVariable.Type type) {
-        if (sMetrics != null) {
-            sMetrics.variables++;
+        if (mMetrics != null) {
+            mMetrics.variables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -345,8 +573,8 @@ public class LinearSystem {
     }
 
     public SolverVariable createErrorVariable(int strength, String prefix) {
-        if (sMetrics != null) {
-            sMetrics.errors++;
+        if (mMetrics != null) {
+            mMetrics.errors++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -375,9 +603,11 @@ public class LinearSystem {
             variable.reset();
             variable.setType(type, prefix);
         }
-        if (mPoolVariablesCount >= POOL_SIZE) {
-            POOL_SIZE *= 2;
-            mPoolVariables = Arrays.copyOf(mPoolVariables, POOL_SIZE);
+        if (FULL_DEBUG && variable.getName() == null) {
+            variable.setName(mCache.getUniqueName(type, prefix));
+        }
+        if (mPoolVariablesCount >= mPoolVariables.length) {
+            mPoolVariables = Arrays.copyOf(mPoolVariables, mPoolVariables.length * 2);
         }
         mPoolVariables[mPoolVariablesCount++] = variable;
         return variable;
@@ -445,22 +675,46 @@ public class LinearSystem {
      * Minimize the current goal of the system.
      */
     public void minimize() throws Exception {
-        if (sMetrics != null) {
-            sMetrics.minimize++;
+        if (mRecorder == null) {
+            minimizeSystem();
+            return;
+        }
+        long start = System.nanoTime();
+        mPivotCount = 0;
+        mBfsIterations = 0;
+        mOptimizeIterations = 0;
+        minimizeSystem();
+        mRecorder.record(LayoutRecorder.MINIMIZE, System.nanoTime() - start);
+        mRecorder.record(LayoutRecorder.TABLE_ROWS, mNumRows);
+        mRecorder.record(LayoutRecorder.TABLE_COLUMNS, mNumColumns);
+        mRecorder.record(LayoutRecorder.PIVOTS, mPivotCount);
+        mRecorder.record(LayoutRecorder.BFS_ITERATIONS, mBfsIterations);
+        mRecorder.record(LayoutRecorder.OPTIMIZE_ITERATIONS, mOptimizeIterations);
+    }
+
+    private void minimizeSystem() throws Exception {
+        if (mMetrics != null) {
+            mMetrics.minimize++;
+        }
+        if (mTracker != null && mTracker.isUpdated()) {
+            applyUpdate();
         }
         if (mGoal.isEmpty()) {
             if (DEBUG) {
                 System.out.println("\n*** SKIPPING MINIMIZE! ***\n");
             }
             computeValues();
+            if (mTracker != null) {
+                mTracker.solved(this);
+            }
             return;
         }
         if (DEBUG) {
             System.out.println("\n*** MINIMIZE ***\n");
         }
         if (graphOptimizer || newgraphOptimizer) {
-            if (sMetrics != null) {
-                sMetrics.graphOptimizer++;
+            if (mMetrics != null) {
+                mMetrics.graphOptimizer++;
             }
             boolean fullySolved = true;
             for (int i = 0; i < mNumRows; i++) {
@@ -473,8 +727,8 @@ public class LinearSystem {
             if (!fullySolved) {
                 minimizeGoal(mGoal);
             } else {
-                if (sMetrics != null) {
-                    sMetrics.fullySolved++;
+                if (mMetrics != null) {
+                    mMetrics.fullySolved++;
                 }
                 computeValues();
             }
@@ -484,6 +738,30 @@ public class LinearSystem {
         if (DEBUG) {
             System.out.println("\n*** END MINIMIZE ***\n");
         }
+        if (mTracker != null) {
+            mTracker.solved(this);
+        }
+    }
+
+    /**
+     * Apply the constants collected while updating the system to its tableau. The previous
+     * basis stays optimal, but may not be feasible anymore: minimizing will take care of it.
+     */
+    private void applyUpdate() {
+        if (mMetrics != null) {
+            mMetrics.incrementalUpdates++;
+        }
+        mTracker.replay(this);
+        for (int i = 1; i <= mVariablesID; i++) {
+            SolverVariable variable = mCache.mIndexedVariables[i];
+            if (variable != null && !variable.isFinalValue) {
+                variable.computedValue = 0;
+            }
+        }
+        if (DEBUG) {
+            System.out.println("System updated:");
+            displayReadableRows();
+        }
     }
 
     /**
@@ -491,10 +769,10 @@ public class LinearSystem {
      * @param goal the goal to minimize.
      */
     void minimizeGoal(Row goal) throws Exception {
-        if (sMetrics != null) {
-            sMetrics.minimizeGoal++;
-            sMetrics.maxVariables = Math.max(sMetrics.maxVariables, mNumColumns);
-            sMetrics.maxRows = Math.max(sMetrics.maxRows, mNumRows);
+        if (mMetrics != null) {
+            mMetrics.minimizeGoal++;
+            mMetrics.maxVariables = Math.max(mMetrics.maxVariables, mNumColumns);
+            mMetrics.maxRows = Math.max(mMetrics.maxRows, mNumRows);
         }
         // First, let's make sure that the system is in Basic Feasible Solved Form (BFS), i.e.
         // all the constants of the restricted variables should be positive.
@@ -506,12 +784,12 @@ public class LinearSystem {
         if (DEBUG) {
             displayReadableRows();
         }
-        enforceBFS(goal);
+        mBfsIterations += enforceBFS(goal);
         if (DEBUG) {
             System.out.println("Goal after enforcing BFS " + goal);
             displayReadableRows();
         }
-        optimize(goal, false);
+        mOptimizeIterations += optimize(goal, false);
         if (DEBUG) {
             System.out.println("Goal after optimization " + goal);
             displayReadableRows();
@@ -535,11 +813,7 @@ public class LinearSystem {
                 mRows[mNumRows -1] = null;
                 mNumRows--;
                 i--;
-                if (OPTIMIZED_ENGINE) {
-                    mCache.optimizedArrayRowPool.release(current);
-                } else {
-                    mCache.arrayRowPool.release(current);
-                }
+                releaseRow(current);
             }
             i++;
         }
@@ -553,10 +827,16 @@ public class LinearSystem {
         if (row == null) {
             return;
         }
-        if (sMetrics != null) {
-            sMetrics.constraints++;
+        if (mTracker != null && row.constantSlot == -1 && mTracker.callRow(this, row)) {
+            // we are updating the system, only the constant of the row was needed
+            row.reset();
+            releaseRow(row);
+            return;
+        }
+        if (mMetrics != null) {
+            mMetrics.constraints++;
             if (row.isSimpleDefinition) {
-                sMetrics.simpleconstraints++;
+                mMetrics.simpleconstraints++;
             }
         }
         if (mNumRows + 1 >= mMaxRows || mNumColumns + 1 >= mMaxColumns) {
@@ -573,6 +853,7 @@ public class LinearSystem {
             row.updateFromSystem(this);
 
             if (row.isEmpty()) {
+                releaseRow(row);
                 return;
             }
 
@@ -588,36 +869,34 @@ public class LinearSystem {
                 // extra variable added... let's try to see if we can remove it
                 SolverVariable extra = createExtraVariable();
                 row.variable = extra;
-                int numRows = mNumRows;
-                addRow(row);
-                if (mNumRows == numRows + 1) {
-                    added = true;
-                    mTempGoal.initFromRow(row);
-                    optimize(mTempGoal, true);
-                    if (extra.definitionId == -1) {
-                        if (DEBUG) {
-                            System.out.println("row added is 0, so get rid of it");
-                        }
-                        if (row.variable == extra) {
-                            // move extra to be parametric
-                            SolverVariable pivotCandidate = row.pickPivot(extra);
-                            if (pivotCandidate != null) {
-                                if (sMetrics != null) {
-                                    sMetrics.pivots++;
-                                }
-                                row.pivot(pivotCandidate);
+                if (!addRow(row)) {
+                    // the row only set a final value and was released
+                    return;
+                }
+                added = true;
+                mTempGoal.initFromRow(row);
+                optimize(mTempGoal, true);
+                if (extra.definitionId == -1) {
+                    if (DEBUG) {
+                        System.out.println("row added is 0, so get rid of it");
+                    }
+                    if (row.variable == extra) {
+                        // move extra to be parametric
+                        SolverVariable pivotCandidate = row.pickPivot(extra);
+                        if (pivotCandidate != null) {
+                            if (mMetrics != null) {
+                                mMetrics.pivots++;
                             }
+                            mPivotCount++;
+                            row.pivot(pivotCandidate);
                         }
-                        if (!row.isSimpleDefinition) {
-                            row.variable.updateReferencesWithNewDefinition(this, row);
-                        }
-                        if (OPTIMIZED_ENGINE) {
-                            mCache.optimizedArrayRowPool.release(row);
-                        } else {
-                            mCache.arrayRowPool.release(row);
-                        }
-                        mNumRows--;
                     }
+                    if (!row.isSimpleDefinition) {
+                        row.variable.updateReferencesWithNewDefinition(this, row);
+                    }
+                    releaseRow(row);
+                    mNumRows--;
+                    return;
                 }
             }
 
@@ -627,6 +906,9 @@ public class LinearSystem {
                     System.out.println("No variable found to pivot on " + row.toReadableString());
                     displayReadableRows();
                 }
+                if (!added) {
+                    releaseRow(row);
+                }
                 return;
             }
         }
@@ -635,9 +917,22 @@ public class LinearSystem {
         }
     }
 
-    private final void addRow(ArrayRow row) {
-        if (SIMPLIFY_SYNONYMS && row.isSimpleDefinition) {
+    /**
+     * Add the row to the system, or set the final value of its variable if it is a simple
+     * definition. In that case the row is released and must not be used again.
+     *
+     * @return true if the row was kept in the system
+     */
+    private final boolean addRow(ArrayRow row) {
+        boolean kept = true;
+        if (mConfig.simplifySynonyms && row.isSimpleDefinition) {
+            if (mTracker != null) {
+                mTracker.setFinal(row.variable, row.constantSlot, 1);
+            }
             row.variable.setFinalValue(this, row.constantValue);
+            // the row is not kept
+            releaseRow(row);
+            kept = false;
         } else {
             mRows[mNumRows] = row;
             row.variable.definitionId = mNumRows;
@@ -649,7 +944,7 @@ public class LinearSystem {
             System.out.println("here is the system:");
             displayReadableRows();
         }
-        if (SIMPLIFY_SYNONYMS && hasSimpleDefinition) {
+        if (mConfig.simplifySynonyms && hasSimpleDefinition) {
             // compact the rows...
             for (int i = 0; i < mNumRows; i++) {
                 if (mRows[i] == null) {
@@ -657,12 +952,11 @@ public class LinearSystem {
                 }
                 if (mRows[i] != null && mRows[i].isSimpleDefinition) {
                     ArrayRow removedRow = mRows[i];
-                    removedRow.variable.setFinalValue(this, removedRow.constantValue);
-                    if (OPTIMIZED_ENGINE) {
-                        mCache.optimizedArrayRowPool.release(removedRow);
-                    } else {
-                        mCache.arrayRowPool.release(removedRow);
+                    if (mTracker != null) {
+                        mTracker.setFinal(removedRow.variable, removedRow.constantSlot, 1);
                     }
+                    removedRow.variable.setFinalValue(this, removedRow.constantValue);
+                    releaseRow(removedRow);
                     mRows[i] = null;
                     int lastRow = i + 1;
                     for (int j = i + 1; j < mNumRows; j++) {
@@ -681,6 +975,7 @@ public class LinearSystem {
             }
             hasSimpleDefinition = false;
         }
+        return kept;
     }
 
     public void removeRow(ArrayRow row) {
@@ -696,13 +991,12 @@ public class LinearSystem {
                 mNumRows--;
             }
             if (!row.variable.isFinalValue) {
+                if (mTracker != null) {
+                    mTracker.setFinal(row.variable, row.constantSlot, 1);
+                }
                 row.variable.setFinalValue(this, row.constantValue);
             }
-            if (OPTIMIZED_ENGINE) {
-                mCache.optimizedArrayRowPool.release(row);
-            } else {
-                mCache.arrayRowPool.release(row);
-            }
+            releaseRow(row);
         }
     }
 
@@ -713,8 +1007,8 @@ public class LinearSystem {
      * @return number of iterations.
      */
     private final int optimize(Row goal, boolean b) {
-        if (sMetrics != null) {
-            sMetrics.optimize++;
+        if (mMetrics != null) {
+            mMetrics.optimize++;
         }
         boolean done = false;
         int tries = 0;
@@ -731,8 +1025,8 @@ public class LinearSystem {
         }
 
         while (!done) {
-            if (sMetrics != null) {
-                sMetrics.iterations++;
+            if (mMetrics != null) {
+                mMetrics.iterations++;
             }
             tries++;
             if (DEBUG) {
@@ -779,34 +1073,12 @@ public class LinearSystem {
                 // - only look at equations containing the column we are trying to pivot on (duh)
                 // - select preferably an equation with strong strength over weak strength
 
-                float min = Float.MAX_VALUE;
-                int pivotRowIndex = -1;
-
-                for (int i = 0; i < mNumRows; i++) {
-                    ArrayRow current = mRows[i];
-                    SolverVariable variable = current.variable;
-                    if (variable.mType == SolverVariable.Type.UNRESTRICTED) {
-                        // skip unrestricted variables equations (to only look at Cs)
-                        continue;
-                    }
-                    if (current.isSimpleDefinition) {
-                        continue;
-                    }
-
-                    if (current.hasVariable(pivotCandidate)) {
-                        if (DEBUG) {
-                            System.out.println("equation " + i + " " + current + " contains " + pivotCandidate);
-                        }
-                        // the current row does contains the variable
-                        // we want to pivot on
-                        float a_j = current.variables.get(pivotCandidate);
-                        if (a_j < 0) {
-                            float value = - current.constantValue / a_j;
-                            if (value < min) {
-                                min = value;
-                                pivotRowIndex = i;
-                            }
-                        }
+                int pivotRowIndex = findPivotRow(pivotCandidate);
+                if (mCheckPivotRows) {
+                    mPivotRowChecks++;
+                    if (pivotRowIndex != scanPivotRow(pivotCandidate)) {
+                        mPivotRowMismatches++;
+                        Utils.loge(TAG, "Problem with pivot row for " + pivotCandidate);
                     }
                 }
                 // At this point, we ought to have an equation to pivot on
@@ -818,9 +1090,10 @@ public class LinearSystem {
                     }
                     ArrayRow pivotEquation = mRows[pivotRowIndex];
                     pivotEquation.variable.definitionId = -1;
-                    if (sMetrics != null) {
-                        sMetrics.pivots++;
+                    if (mMetrics != null) {
+                        mMetrics.pivots++;
                     }
+                    mPivotCount++;
                     pivotEquation.pivot(pivotCandidate);
                     pivotEquation.variable.definitionId = pivotRowIndex;
                     pivotEquation.variable.updateReferencesWithNewDefinition(this, pivotEquation);
@@ -857,6 +1130,70 @@ public class LinearSystem {
         return tries;
     }
 
+    /**
+     * Find the row to pivot on for the given column: the restricted row containing the
+     * column with a negative coefficient that has the smallest ratio, or the first one
+     * on ties. Only the rows referencing the column are examined.
+     *
+     * @return the row index, or -1 if there's none
+     */
+    private int findPivotRow(SolverVariable pivotCandidate) {
+        float min = Float.MAX_VALUE;
+        int pivotRowIndex = -1;
+        // the client equations of a variable include all the rows that contain it, but
+        // may also list rows it was removed from, or rows that are not in the table.
+        final ArrayRow[] rows = pivotCandidate.mClientEquations;
+        final int count = pivotCandidate.mClientEquationsCount;
+        for (int k = 0; k < count; k++) {
+            ArrayRow current = rows[k];
+            SolverVariable variable = current.variable;
+            if (variable == null || variable.mType == SolverVariable.Type.UNRESTRICTED) {
+                // skip unrestricted variables equations (to only look at Cs)
+                continue;
+            }
+            int i = variable.definitionId;
+            if (i < 0 || i >= mNumRows || mRows[i] != current) {
+                continue;
+            }
+            if (current.isSimpleDefinition) {
+                continue;
+            }
+            float a_j = current.variables.get(pivotCandidate);
+            if (a_j < 0) {
+                float value = - current.constantValue / a_j;
+                if (value < min || (value == min && i < pivotRowIndex)) {
+                    min = value;
+                    pivotRowIndex = i;
+                }
+            }
+        }
+        return pivotRowIndex;
+    }
+
+    /**
+     * Same as {@link #findPivotRow(SolverVariable)}, looking at every row
+     */
+    private int scanPivotRow(SolverVariable pivotCandidate) {
+        float min = Float.MAX_VALUE;
+        int pivotRowIndex = -1;
+        for (int i = 0; i < mNumRows; i++) {
+            ArrayRow current = mRows[i];
+            if (current.variable.mType == SolverVariable.Type.UNRESTRICTED
+                    || current.isSimpleDefinition || !current.hasVariable(pivotCandidate)) {
+                continue;
+            }
+            float a_j = current.variables.get(pivotCandidate);
+            if (a_j < 0) {
+                float value = - current.constantValue / a_j;
+                if (value < min) {
+                    min = value;
+                    pivotRowIndex = i;
+                }
+            }
+        }
+        return pivotRowIndex;
+    }
+
     /**
      * Make sure that the system is in Basic Feasible Solved form (BFS).
      * @param goal the row representing the system goal
@@ -899,8 +1236,8 @@ public class LinearSystem {
             done = false;
             tries = 0;
             while (!done) {
-                if (sMetrics != null) {
-                    sMetrics.bfs++;
+                if (mMetrics != null) {
+                    mMetrics.bfs++;
                 }
                 tries++;
                 if (DEBUG) {
@@ -927,7 +1264,7 @@ public class LinearSystem {
                         if (DEBUG) {
                             System.out.println("looking at pivoting on row " + current);
                         }
-                        if (SKIP_COLUMNS) {
+                        if (mConfig.skipColumns) {
                             final int size = current.variables.getCurrentSize();
                             for (int j = 0; j < size; j++) {
                                 SolverVariable candidate = current.variables.getVariable(j);
@@ -980,9 +1317,10 @@ public class LinearSystem {
                                 + mCache.mIndexedVariables[pivotColumnIndex]);
                     }
                     pivotEquation.variable.definitionId = -1;
-                    if (sMetrics != null) {
-                        sMetrics.pivots++;
+                    if (mMetrics != null) {
+                        mMetrics.pivots++;
                     }
+                    mPivotCount++;
                     pivotEquation.pivot(mCache.mIndexedVariables[pivotColumnIndex]);
                     pivotEquation.variable.definitionId = pivotRowIndex;
                     pivotEquation.variable.updateReferencesWithNewDefinition(this, pivotEquation);
@@ -1211,6 +1549,9 @@ public class LinearSystem {
         if (DEBUG_CONSTRAINTS) {
             System.out.println("-> " + a + " >= " + b + (margin != 0 ? " + " + margin : "") + " " + getDisplayStrength(strength));
         }
+        if (skipCall(IncrementalTracker.CALL_GREATER_THAN, strength, 0, margin, 0, a, b, null, null)) {
+            return;
+        }
         ArrayRow row = createRow();
         SolverVariable slack = createSlackVariable();
         slack.strength = 0;
@@ -1219,6 +1560,7 @@ public class LinearSystem {
             float slackValue = row.variables.get(slack);
             addSingleError(row, (int) (-1 * slackValue), strength);
         }
+        initRow(row, margin < 0 ? -1 : 1);
         addConstraint(row);
     }
 
@@ -1226,10 +1568,15 @@ public class LinearSystem {
         if (DEBUG_CONSTRAINTS) {
             System.out.println("-> Barrier " + a + " >= " + b);
         }
+        if (skipCall(IncrementalTracker.CALL_GREATER_BARRIER, hasMatchConstraintWidgets ? 1 : 0, 0,
+                margin, 0, a, b, null, null)) {
+            return;
+        }
         ArrayRow row = createRow();
         SolverVariable slack = createSlackVariable();
         slack.strength = 0;
         row.createRowGreaterThan(a, b, slack, margin);
+        initRow(row, margin < 0 ? -1 : 1);
         addConstraint(row);
     }
 
@@ -1244,6 +1591,9 @@ public class LinearSystem {
         if (DEBUG_CONSTRAINTS) {
             System.out.println("-> " + a + " <= " + b + (margin != 0 ? " + " + margin : "") + " " + getDisplayStrength(strength));
         }
+        if (skipCall(IncrementalTracker.CALL_LOWER_THAN, strength, 0, margin, 0, a, b, null, null)) {
+            return;
+        }
         ArrayRow row = createRow();
         SolverVariable slack = createSlackVariable();
         slack.strength = 0;
@@ -1252,6 +1602,7 @@ public class LinearSystem {
             float slackValue = row.variables.get(slack);
             addSingleError(row, (int) (-1 * slackValue), strength);
         }
+        initRow(row, margin < 0 ? -1 : 1);
         addConstraint(row);
     }
 
@@ -1259,10 +1610,15 @@ public class LinearSystem {
         if (DEBUG_CONSTRAINTS) {
             System.out.println("-> Barrier " + a + " <= " + b);
         }
+        if (skipCall(IncrementalTracker.CALL_LOWER_BARRIER, hasMatchConstraintWidgets ? 1 : 0, 0,
+                margin, 0, a, b, null, null)) {
+            return;
+        }
         ArrayRow row = createRow();
         SolverVariable slack = createSlackVariable();
         slack.strength = 0;
         row.createRowLowerThan(a, b, slack, margin);
+        initRow(row, margin < 0 ? -1 : 1);
         addConstraint(row);
     }
 
@@ -1285,11 +1641,35 @@ public class LinearSystem {
                     + " = " + c + " - " + d + " - " + m2
                     + " " + getDisplayStrength(strength));
         }
+        if (skipCall(IncrementalTracker.CALL_CENTERING, strength, bias, m1, m2, a, b, c, d)) {
+            return;
+        }
         ArrayRow row = createRow();
         row.createRowCentering(a, b, m1, bias, c, d, m2);
         if (strength != SolverVariable.STRENGTH_FIXED) {
             row.addError(this, strength);
         }
+        if (mTracker != null) {
+            // same cases as ArrayRow.createRowCentering()
+            float factorA = 0;
+            float factorB = 0;
+            if (b != c) {
+                if (bias == 0.5f) {
+                    if (m1 > 0 || m2 > 0) {
+                        factorA = -1;
+                        factorB = 1;
+                    }
+                } else if (bias <= 0) {
+                    factorA = 1;
+                } else if (bias >= 1) {
+                    factorB = -1;
+                } else if (m1 > 0 || m2 > 0) {
+                    factorA = -(1 - bias);
+                    factorB = bias;
+                }
+            }
+            mTracker.initRow(row, mTracker.callConstant(0), factorA, mTracker.callConstant(1), factorB);
+        }
         addConstraint(row);
     }
 
@@ -1297,15 +1677,22 @@ public class LinearSystem {
         if (DEBUG_CONSTRAINTS) {
             System.out.println("-> [ratio: " + ratio + "] : " + a + " = " + b + " + (" + c + " - " + d + ") * " + ratio + " " + getDisplayStrength(strength));
         }
+        if (skipCall(IncrementalTracker.CALL_RATIO, strength, ratio, 0, 0, a, b, c, d)) {
+            return;
+        }
         ArrayRow row = createRow();
         row.createRowDimensionRatio(a, b, c, d, ratio);
         if (strength != SolverVariable.STRENGTH_FIXED) {
             row.addError(this, strength);
         }
+        initRow(row, 0);
         addConstraint(row);
     }
 
     public void addSynonym(SolverVariable a, SolverVariable b, int margin) {
+        if (skipCall(IncrementalTracker.CALL_SYNONYM, 0, 0, margin, 0, a, b, null, null)) {
+            return;
+        }
         if (a.definitionId == -1 && margin == 0) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("(S) -> " + a + " = " + b + (margin != 0 ? " + " + margin : ""));
@@ -1321,7 +1708,7 @@ public class LinearSystem {
                 a.setSynonym(this, b, 0);
             }
         } else {
-            addEquality(a, b, margin, SolverVariable.STRENGTH_FIXED);
+            addEqualityConstraint(a, b, margin, SolverVariable.STRENGTH_FIXED);
         }
     }
 
@@ -1333,14 +1720,25 @@ public class LinearSystem {
      * @param strength strength used
      */
     public ArrayRow addEquality(SolverVariable a, SolverVariable b, int margin, int strength) {
-        if (USE_BASIC_SYNONYMS && strength == SolverVariable.STRENGTH_FIXED && b.isFinalValue && a.definitionId == -1) {
+        if (skipCall(IncrementalTracker.CALL_EQUALITY, strength, 0, margin, 0, a, b, null, null)) {
+            return null;
+        }
+        return addEqualityConstraint(a, b, margin, strength);
+    }
+
+    private ArrayRow addEqualityConstraint(SolverVariable a, SolverVariable b, int margin, int strength) {
+        if (mConfig.useBasicSynonyms && strength == SolverVariable.STRENGTH_FIXED && b.isFinalValue && a.definitionId == -1) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("=> " + a + " = " + b + (margin != 0 ? " + " + margin : "") + " = " + (b.computedValue + margin) + " (Synonym)");
             }
+            if (mTracker != null) {
+                mTracker.setFinal(a, mTracker.finalSlot(b), 1);
+                mTracker.addFinal(a, mTracker.callConstant(0), 1);
+            }
             a.setFinalValue(this,b.computedValue + margin);
             return null;
         }
-        if (false && USE_SYNONYMS && strength == SolverVariable.STRENGTH_FIXED && a.definitionId == -1 && margin == 0) {
+        if (false && mConfig.useSynonyms && strength == SolverVariable.STRENGTH_FIXED && a.definitionId == -1 && margin == 0) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("(S) -> " + a + " = " + b + (margin != 0 ? " + " + margin : "") + " " + getDisplayStrength(strength));
             }
@@ -1364,6 +1762,7 @@ public class LinearSystem {
         if (strength != SolverVariable.STRENGTH_FIXED) {
             row.addError(this, strength);
         }
+        initRow(row, margin < 0 ? -1 : 1);
         addConstraint(row);
         return row;
     }
@@ -1374,14 +1773,24 @@ public class LinearSystem {
      * @param value the value we set
      */
     public void addEquality(SolverVariable a, int value) {
-        if (USE_BASIC_SYNONYMS && a.definitionId == -1) {
+        if (skipCall(IncrementalTracker.CALL_EQUALITY_VALUE, 0, 0, value, 0, a, null, null, null)) {
+            return;
+        }
+        if (mConfig.useBasicSynonyms && a.definitionId == -1) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("=> " + a + " = " + value + " (Synonym)");
             }
+            if (mTracker != null) {
+                mTracker.setFinal(a, mTracker.callConstant(0), 1);
+            }
             a.setFinalValue(this, value);
             for (int i = 0 ; i < mVariablesID + 1; i++) {
                 SolverVariable variable = mCache.mIndexedVariables[i];
                 if (variable != null && variable.isSynonym && variable.synonym == a.id) {
+                    if (mTracker != null) {
+                        mTracker.setFinal(variable, mTracker.callConstant(0), 1);
+                        mTracker.addFinal(variable, IncrementalTracker.SLOT_ONE, variable.synonymDelta);
+                    }
                     variable.setFinalValue(this, value + variable.synonymDelta);
                 }
             }
@@ -1395,23 +1804,51 @@ public class LinearSystem {
             ArrayRow row = mRows[idx];
             if (row.isSimpleDefinition) {
                 row.constantValue = value;
+                if (mTracker != null) {
+                    mTracker.assign(row, mTracker.callConstant(0));
+                }
             } else {
                 if (row.variables.getCurrentSize() == 0) {
                     row.isSimpleDefinition = true;
                     row.constantValue = value;
+                    if (mTracker != null) {
+                        mTracker.assign(row, mTracker.callConstant(0));
+                    }
                 } else {
                     ArrayRow newRow = createRow();
                     newRow.createRowEquals(a, value);
+                    initRow(newRow, value < 0 ? -1 : 1);
                     addConstraint(newRow);
                 }
             }
         } else {
             ArrayRow row = createRow();
             row.createRowDefinition(a, value);
+            initRow(row, 1);
             addConstraint(row);
         }
     }
 
+    /**
+     * In incremental mode, records the call or, if we are updating the system, matches it
+     *
+     * @return true if the call should be skipped
+     */
+    private boolean skipCall(int type, int value, float factor, int constantA, int constantB,
+                             SolverVariable a, SolverVariable b, SolverVariable c, SolverVariable d) {
+        return mTracker != null
+                && mTracker.call(this, type, value, factor, constantA, constantB, a, b, c, d);
+    }
+
+    /**
+     * In incremental mode, the constant of the row is the first constant of the call times factor
+     */
+    private void initRow(ArrayRow row, float factor) {
+        if (mTracker != null) {
+            mTracker.initRow(row, mTracker.callConstant(0), factor);
+        }
+    }
+
     /**
      * Create a constraint to express A = C * percent
      * @param linearSystem the system we create the row on
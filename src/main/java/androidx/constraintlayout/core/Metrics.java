@@ -66,6 +66,11 @@ public class Metrics {
     public long determineGroups;
     public long layouts;
     public long grouping;
+    public long arrayRowCreations;
+    public long optimizedArrayRowCreations;
+    public long compactArrayRowCreations;
+    public long incrementalUpdates;
+    public long parallelGroupMeasures;
 
     public String toString() {
         return "\n*** Metrics ***\n"
@@ -143,6 +148,11 @@ public class Metrics {
         matchConnectionResolved = 0;
         chainConnectionResolved = 0;
         barrierConnectionResolved = 0;
+        arrayRowCreations = 0;
+        optimizedArrayRowCreations = 0;
+        compactArrayRowCreations = 0;
+        incrementalUpdates = 0;
+        parallelGroupMeasures = 0;
         problematicLayouts.clear();
     }
 }
@@ -70,6 +70,16 @@ final class Pools {
          * @param count the number of variables to release
          */
         void releaseAll(T[] variables, int count);
+
+        /**
+         * Add the usage counters of this pool to the given statistics
+         */
+        void addStatistics(Cache.PoolStatistics statistics);
+
+        /**
+         * Reset the usage counters of this pool
+         */
+        void resetStatistics();
     }
 
     private Pools() {
@@ -79,13 +89,23 @@ final class Pools {
     /**
      * Simple (non-synchronized) pool of objects.
      *
+     * The pool starts with room for a given number of instances, and grows (up to a
+     * maximum) when more are released at once, so that it adapts to the peak usage.
+     *
      * @param <T> The pooled type.
      */
     static class SimplePool<T> implements Pool<T> {
-        private final Object[] mPool;
+        private Object[] mPool;
+        private final int mMaxPoolSize;
 
         private int mPoolSize;
 
+        // usage counters
+        private long mHits;
+        private long mMisses;
+        private long mDrops;
+        private int mHighWater;
+
         /**
          * Creates a new instance.
          *
@@ -94,10 +114,24 @@ final class Pools {
          * @throws IllegalArgumentException If the max pool size is less than zero.
          */
         SimplePool(int maxPoolSize) {
-            if (maxPoolSize <= 0) {
-                throw new IllegalArgumentException("The max pool size must be > 0");
+            this(maxPoolSize, maxPoolSize);
+        }
+
+        /**
+         * Creates a new instance that can grow.
+         *
+         * @param initialPoolSize The initial pool size.
+         * @param maxPoolSize The max pool size.
+         *
+         * @throws IllegalArgumentException If a pool size is less than zero, or if the
+         * initial size is larger than the max size.
+         */
+        SimplePool(int initialPoolSize, int maxPoolSize) {
+            if (initialPoolSize <= 0 || maxPoolSize < initialPoolSize) {
+                throw new IllegalArgumentException("The pool sizes must be > 0 and ordered");
             }
-            mPool = new Object[maxPoolSize];
+            mPool = new Object[initialPoolSize];
+            mMaxPoolSize = maxPoolSize;
         }
 
         @Override
@@ -108,8 +142,10 @@ final class Pools {
                 T instance = (T) mPool[lastPooledIndex];
                 mPool[lastPooledIndex] = null;
                 mPoolSize--;
+                mHits++;
                 return instance;
             }
+            mMisses++;
             return null;
         }
 
@@ -120,11 +156,15 @@ final class Pools {
                     throw new IllegalStateException("Already in the pool!");
                 }
             }
-            if (mPoolSize < mPool.length) {
+            if (mPoolSize < mPool.length || grow()) {
                 mPool[mPoolSize] = instance;
                 mPoolSize++;
+                if (mPoolSize > mHighWater) {
+                    mHighWater = mPoolSize;
+                }
                 return true;
             }
+            mDrops++;
             return false;
         }
 
@@ -140,11 +180,45 @@ final class Pools {
                         throw new IllegalStateException("Already in the pool!");
                     }
                 }
-                if (mPoolSize < mPool.length) {
+                if (mPoolSize < mPool.length || grow()) {
                     mPool[mPoolSize] = instance;
                     mPoolSize++;
+                } else {
+                    mDrops++;
                 }
             }
+            if (mPoolSize > mHighWater) {
+                mHighWater = mPoolSize;
+            }
+        }
+
+        private boolean grow() {
+            if (mPool.length >= mMaxPoolSize) {
+                return false;
+            }
+            int size = (int) Math.min((long) mPool.length * 2, mMaxPoolSize);
+            Object[] pool = new Object[size];
+            System.arraycopy(mPool, 0, pool, 0, mPoolSize);
+            mPool = pool;
+            return true;
+        }
+
+        @Override
+        public void addStatistics(Cache.PoolStatistics statistics) {
+            statistics.hits += mHits;
+            statistics.misses += mMisses;
+            statistics.drops += mDrops;
+            statistics.highWater += mHighWater;
+            statistics.pooled += mPoolSize;
+            statistics.capacity += mPool.length;
+        }
+
+        @Override
+        public void resetStatistics() {
+            mHits = 0;
+            mMisses = 0;
+            mDrops = 0;
+            mHighWater = mPoolSize;
         }
 
         private boolean isInPool(T instance) {
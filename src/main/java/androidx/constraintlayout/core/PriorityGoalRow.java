@@ -16,136 +16,51 @@
 
 package androidx.constraintlayout.core;
 
+import androidx.constraintlayout.core.motion.utils.Utils;
+
 import java.util.Arrays;
-import java.util.Comparator;
 
 /**
  * Implements a row containing goals taking in account priorities.
+ *
+ * The strengths of the goal variables are stored here, indexed by variable id. The goals
+ * are kept in a binary heap ordered by their strengths (compared from the strongest one),
+ * then by the order in which they were added, so the pivot candidate is found without
+ * looking at all of them.
  */
 public class PriorityGoalRow extends ArrayRow {
+    private static final String TAG = "PriorityGoalRow";
     private static final float epsilon = 0.0001f;
     private static final boolean DEBUG = false;
+    private static final boolean FULL_HEAP_CHECK = false; // validate the candidates (debug purposes)
+
+    private static final int MAX_STRENGTH = SolverVariable.MAX_STRENGTH;
 
     private int TABLE_SIZE = 128;
-    private SolverVariable[] arrayGoals = new SolverVariable[TABLE_SIZE];
-    private SolverVariable[] sortArray = new SolverVariable[TABLE_SIZE];
+    private SolverVariable[] arrayGoals = new SolverVariable[TABLE_SIZE]; // the heap
     private int numGoals = 0;
-    GoalVariableAccessor accessor = new GoalVariableAccessor(this);
-
-    class GoalVariableAccessor {
-        SolverVariable variable;
-        PriorityGoalRow row;
 
-        public GoalVariableAccessor(PriorityGoalRow row) {
-            this.row = row;
-        }
+    // indexed by variable id
+    private float[] mStrengths = new float[TABLE_SIZE * MAX_STRENGTH];
+    private int[] mHeapPosition = new int[TABLE_SIZE];
+    private int[] mSequence = new int[TABLE_SIZE];
+    private int mSequenceCounter = 0;
+    private int mMaxId = -1;
 
-        public void init(SolverVariable variable) {
-            this.variable = variable;
-        }
-
-        public boolean addToGoal(SolverVariable other, float value) {
-            if (variable.inGoal) {
-                boolean empty = true;
-                for (int i = 0; i < SolverVariable.MAX_STRENGTH; i++) {
-                    variable.goalStrengthVector[i] += other.goalStrengthVector[i] * value;
-                    float v = variable.goalStrengthVector[i];
-                    if (Math.abs(v) < epsilon) {
-                        variable.goalStrengthVector[i] = 0;
-                    } else {
-                        empty = false;
-                    }
-                }
-                if (empty) {
-                    removeGoal(variable);
-                }
-            } else {
-                for (int i = 0; i < SolverVariable.MAX_STRENGTH; i++) {
-                    float strength = other.goalStrengthVector[i];
-                    if (strength != 0) {
-                        float v = value * strength;
-                        if (Math.abs(v) < epsilon) {
-                            v = 0;
-                        }
-                        variable.goalStrengthVector[i] = v;
-                    } else {
-                        variable.goalStrengthVector[i] = 0;
-                    }
-                }
-                return true;
-            }
-            return false;
-        }
-
-        public void add(SolverVariable other) {
-            for (int i = 0; i < SolverVariable.MAX_STRENGTH; i++) {
-                variable.goalStrengthVector[i] += other.goalStrengthVector[i];
-                float value = variable.goalStrengthVector[i];
-                if (Math.abs(value) < epsilon) {
-                    variable.goalStrengthVector[i] = 0;
-                }
-            }
-        }
-
-        public final boolean isNegative() {
-            for (int i = SolverVariable.MAX_STRENGTH - 1; i >= 0; i--) {
-                float value = variable.goalStrengthVector[i];
-                if (value > 0) {
-                    return false;
-                }
-                if (value < 0) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        public final boolean isSmallerThan(SolverVariable other) {
-            for (int i = SolverVariable.MAX_STRENGTH - 1; i >= 0 ; i--) {
-                float comparedValue = other.goalStrengthVector[i];
-                float value = variable.goalStrengthVector[i];
-                if (value == comparedValue) {
-                    continue;
-                }
-                if (value < comparedValue) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
-            return false;
-        }
-
-        public final boolean isNull() {
-            for (int i = 0; i < SolverVariable.MAX_STRENGTH; i++) {
-                if (variable.goalStrengthVector[i] != 0) {
-                    return false;
-                }
-            }
-            return true;
-        }
-
-        public void reset() {
-            Arrays.fill(variable.goalStrengthVector, 0);
-        }
-
-        public String toString() {
-            String result = "[ ";
-            if (variable != null) {
-                for (int i = 0; i < SolverVariable.MAX_STRENGTH; i++) {
-                    result += variable.goalStrengthVector[i] + " ";
-                }
-            }
-            result += "] " + variable;
-            return result;
-        }
-
-    }
+    private int[] mStack = new int[TABLE_SIZE];
 
     @Override
     public void clear() {
+        for (int i = 0; i < numGoals; i++) {
+            arrayGoals[i] = null;
+        }
         numGoals = 0;
         constantValue = 0;
+        if (mMaxId >= 0) {
+            Arrays.fill(mStrengths, 0, (mMaxId + 1) * MAX_STRENGTH, 0);
+        }
+        mMaxId = -1;
+        mSequenceCounter = 0;
     }
 
     Cache mCache;
@@ -162,75 +77,230 @@ public class PriorityGoalRow extends ArrayRow {
 
     final static int NOT_FOUND = -1;
 
+    private void ensureId(int id) {
+        if (id > mMaxId) {
+            mMaxId = id;
+        }
+        if (id < mHeapPosition.length) {
+            return;
+        }
+        int size = Math.max(id + 1, mHeapPosition.length * 2);
+        mStrengths = Arrays.copyOf(mStrengths, size * MAX_STRENGTH);
+        mHeapPosition = Arrays.copyOf(mHeapPosition, size);
+        mSequence = Arrays.copyOf(mSequence, size);
+    }
+
+    private boolean isNegative(int id) {
+        final float[] strengths = mStrengths;
+        final int offset = id * MAX_STRENGTH;
+        for (int i = MAX_STRENGTH - 1; i >= 0; i--) {
+            float value = strengths[offset + i];
+            if (value > 0) {
+                return false;
+            }
+            if (value < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the goal a comes before the goal b
+     */
+    private boolean isBefore(SolverVariable a, SolverVariable b) {
+        final float[] strengths = mStrengths;
+        final int offsetA = a.id * MAX_STRENGTH;
+        final int offsetB = b.id * MAX_STRENGTH;
+        for (int i = MAX_STRENGTH - 1; i >= 0; i--) {
+            float value = strengths[offsetA + i];
+            float comparedValue = strengths[offsetB + i];
+            if (value == comparedValue) {
+                continue;
+            }
+            return value < comparedValue;
+        }
+        return mSequence[a.id] < mSequence[b.id];
+    }
+
     @Override
     public SolverVariable getPivotCandidate(LinearSystem system, boolean[] avoid) {
-        int pivot = NOT_FOUND;
+        // The heap is ordered, only the children of avoided goals need to be looked at
+        SolverVariable pivot = null;
+        if (numGoals == 0) {
+            return null;
+        }
+        int top = 0;
+        mStack[top++] = 0;
+        while (top > 0) {
+            int position = mStack[--top];
+            SolverVariable variable = arrayGoals[position];
+            if (!isNegative(variable.id)) {
+                continue;
+            }
+            if (pivot != null && !isBefore(variable, pivot)) {
+                continue;
+            }
+            if (!avoid[variable.id]) {
+                pivot = variable;
+                continue;
+            }
+            int child = 2 * position + 1;
+            if (child < numGoals) {
+                mStack[top++] = child;
+            }
+            if (child + 1 < numGoals) {
+                mStack[top++] = child + 1;
+            }
+        }
+        if (FULL_HEAP_CHECK) {
+            SolverVariable expected = scanPivotCandidate(avoid);
+            if (expected != pivot) {
+                Utils.loge(TAG, "wrong goal candidate " + pivot + " instead of " + expected);
+            }
+        }
+        return pivot;
+    }
+
+    private SolverVariable scanPivotCandidate(boolean[] avoid) {
+        SolverVariable pivot = null;
         for (int i = 0; i < numGoals; i++) {
             SolverVariable variable = arrayGoals[i];
-            if (avoid[variable.id]) {
+            if (avoid[variable.id] || !isNegative(variable.id)) {
                 continue;
             }
-            accessor.init(variable);
-            if (pivot == NOT_FOUND) {
-                if (accessor.isNegative())  {
-                    pivot = i;
-                }
-            } else if (accessor.isSmallerThan(arrayGoals[pivot])) {
-                pivot = i;
+            if (pivot == null || isBefore(variable, pivot)) {
+                pivot = variable;
             }
         }
-        if (pivot == NOT_FOUND) {
-            return null;
-        }
-        return arrayGoals[pivot];
+        return pivot;
     }
 
     @Override
     public void addError(SolverVariable error) {
-        accessor.init(error);
-        accessor.reset();
-        error.goalStrengthVector[error.strength] = 1;
+        ensureId(error.id);
+        int offset = error.id * MAX_STRENGTH;
+        Arrays.fill(mStrengths, offset, offset + MAX_STRENGTH, 0);
+        mStrengths[offset + error.strength] = 1;
+        if (error.inGoal) {
+            siftDown(siftUp(mHeapPosition[error.id]));
+            return;
+        }
         addToGoal(error);
     }
 
-    private final void addToGoal(SolverVariable variable) {
-        if (numGoals + 1> arrayGoals.length) {
+    private void addToGoal(SolverVariable variable) {
+        if (numGoals + 1 > arrayGoals.length) {
             arrayGoals = Arrays.copyOf(arrayGoals, arrayGoals.length * 2);
-            sortArray = Arrays.copyOf(arrayGoals, arrayGoals.length * 2);
+            mStack = new int[arrayGoals.length];
         }
+        mSequence[variable.id] = mSequenceCounter++;
         arrayGoals[numGoals] = variable;
+        mHeapPosition[variable.id] = numGoals;
         numGoals++;
+        siftUp(numGoals - 1);
 
-        if (numGoals > 1 && arrayGoals[numGoals - 1].id > variable.id) {
-            for (int i = 0; i < numGoals; i++) {
-                sortArray[i] = arrayGoals[i];
-            }
-            Arrays.sort(sortArray, 0, numGoals, new Comparator<SolverVariable>() {
-                @Override
-                public int compare(SolverVariable variable1, SolverVariable variable2) {
-                    return variable1.id - variable2.id;
-                }
-            });
-            for (int i = 0; i < numGoals; i++) {
-                arrayGoals[i] = sortArray[i];
+        variable.inGoal = true;
+        variable.addToRow(this);
+    }
+
+    private void removeGoal(SolverVariable variable) {
+        if (!variable.inGoal) {
+            return;
+        }
+        int position = mHeapPosition[variable.id];
+        numGoals--;
+        SolverVariable last = arrayGoals[numGoals];
+        arrayGoals[numGoals] = null;
+        if (position < numGoals) {
+            arrayGoals[position] = last;
+            mHeapPosition[last.id] = position;
+            siftDown(siftUp(position));
+        }
+        variable.inGoal = false;
+    }
+
+    private int siftUp(int position) {
+        SolverVariable variable = arrayGoals[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            SolverVariable parentVariable = arrayGoals[parent];
+            if (!isBefore(variable, parentVariable)) {
+                break;
             }
+            arrayGoals[position] = parentVariable;
+            mHeapPosition[parentVariable.id] = position;
+            position = parent;
         }
+        arrayGoals[position] = variable;
+        mHeapPosition[variable.id] = position;
+        return position;
+    }
 
-        variable.inGoal = true;
-        variable.addToRow(this);
+    private void siftDown(int position) {
+        SolverVariable variable = arrayGoals[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= numGoals) {
+                break;
+            }
+            SolverVariable childVariable = arrayGoals[child];
+            if (child + 1 < numGoals && isBefore(arrayGoals[child + 1], childVariable)) {
+                child++;
+                childVariable = arrayGoals[child];
+            }
+            if (!isBefore(childVariable, variable)) {
+                break;
+            }
+            arrayGoals[position] = childVariable;
+            mHeapPosition[childVariable.id] = position;
+            position = child;
+        }
+        arrayGoals[position] = variable;
+        mHeapPosition[variable.id] = position;
     }
 
-    private final void removeGoal(SolverVariable variable) {
-        for (int i = 0; i < numGoals; i++) {
-            if (arrayGoals[i] == variable) {
-                for (int j = i; j < numGoals - 1; j++) {
-                    arrayGoals[j] = arrayGoals[j + 1];
+    /**
+     * Add the strengths of the goal other multiplied by value to the ones of variable.
+     *
+     * @return true if variable was not a goal (its strengths are then set, not added)
+     */
+    private boolean addToGoal(SolverVariable variable, SolverVariable other, float value) {
+        final float[] strengths = mStrengths;
+        final int offset = variable.id * MAX_STRENGTH;
+        final int otherOffset = other.id * MAX_STRENGTH;
+        if (variable.inGoal) {
+            boolean empty = true;
+            for (int i = 0; i < MAX_STRENGTH; i++) {
+                strengths[offset + i] += strengths[otherOffset + i] * value;
+                float v = strengths[offset + i];
+                if (Math.abs(v) < epsilon) {
+                    strengths[offset + i] = 0;
+                } else {
+                    empty = false;
+                }
+            }
+            if (empty) {
+                removeGoal(variable);
+            } else {
+                siftDown(siftUp(mHeapPosition[variable.id]));
+            }
+        } else {
+            for (int i = 0; i < MAX_STRENGTH; i++) {
+                float strength = strengths[otherOffset + i];
+                if (strength != 0) {
+                    float v = value * strength;
+                    if (Math.abs(v) < epsilon) {
+                        v = 0;
+                    }
+                    strengths[offset + i] = v;
+                } else {
+                    strengths[offset + i] = 0;
                 }
-                numGoals--;
-                variable.inGoal = false;
-                return;
             }
+            return true;
         }
+        return false;
     }
 
     @Override
@@ -239,14 +309,15 @@ public class PriorityGoalRow extends ArrayRow {
         if (goalVariable == null) {
             return;
         }
+        ensureId(goalVariable.id);
 
         ArrayRowVariables rowVariables = definition.variables;
         int currentSize = rowVariables.getCurrentSize();
         for (int i = 0; i < currentSize; i++) {
             SolverVariable solverVariable = rowVariables.getVariable(i);
             float value = rowVariables.getVariableValue(i);
-            accessor.init(solverVariable);
-            if (accessor.addToGoal(goalVariable, value)) {
+            ensureId(solverVariable.id);
+            if (addToGoal(solverVariable, goalVariable, value)) {
                 addToGoal(solverVariable);
             }
             constantValue += definition.constantValue * value;
@@ -260,9 +331,12 @@ public class PriorityGoalRow extends ArrayRow {
         result += " goal -> (" + constantValue + ") : ";
         for (int i = 0; i < numGoals; i++) {
             SolverVariable v = arrayGoals[i];
-            accessor.init(v);
-            result += accessor + " ";
+            result += "[ ";
+            for (int j = 0; j < MAX_STRENGTH; j++) {
+                result += mStrengths[v.id * MAX_STRENGTH + j] + " ";
+            }
+            result += "] " + v + " ";
         }
         return result;
     }
-}
\ No newline at end of file
+}
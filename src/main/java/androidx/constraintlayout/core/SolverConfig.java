@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+/**
+ * Options of a {@link LinearSystem}: the storage engine of its rows and the
+ * simplifications it applies. Each system has its own, so that systems with different
+ * options can be used side by side, and on different threads.
+ *
+ * A new config takes the values of the static flags of {@link LinearSystem}.
+ * {@link #worklistPropagation} and {@link #incrementalGraph} apply to the dependency graph of
+ * the container instead.
+ */
+public class SolverConfig {
+    public static final int DEFAULT_POOL_SIZE = 1000;
+
+    /**
+     * One of {@link LinearSystem#ENGINE_LINKED}, {@link LinearSystem#ENGINE_VALUES} or
+     * {@link LinearSystem#ENGINE_COMPACT}
+     */
+    public int engine;
+    public boolean useDependencyOrdering;
+    public boolean useBasicSynonyms;
+    public boolean simplifySynonyms;
+    public boolean useSynonyms;
+    public boolean skipColumns;
+    // initial number of variables tracked for release to the pool
+    public int poolSize = DEFAULT_POOL_SIZE;
+    // resolve the dependency graph without a stack as deep as its dependency paths
+    public boolean worklistPropagation = true;
+    // keep the dependency graph when it is invalidated, only rebuilding the widgets reported
+    // with ConstraintWidgetContainer#invalidateWidget and the ones connected to them
+    public boolean incrementalGraph = false;
+
+    public SolverConfig() {
+        engine = LinearSystem.OPTIMIZED_ENGINE
+                ? LinearSystem.ENGINE_VALUES : LinearSystem.ENGINE_LINKED;
+        useDependencyOrdering = LinearSystem.USE_DEPENDENCY_ORDERING;
+        useBasicSynonyms = LinearSystem.USE_BASIC_SYNONYMS;
+        simplifySynonyms = LinearSystem.SIMPLIFY_SYNONYMS;
+        useSynonyms = LinearSystem.USE_SYNONYMS;
+        skipColumns = LinearSystem.SKIP_COLUMNS;
+    }
+
+    public SolverConfig(SolverConfig config) {
+        copyFrom(config);
+    }
+
+    public void copyFrom(SolverConfig config) {
+        engine = config.engine;
+        useDependencyOrdering = config.useDependencyOrdering;
+        useBasicSynonyms = config.useBasicSynonyms;
+        simplifySynonyms = config.simplifySynonyms;
+        useSynonyms = config.useSynonyms;
+        skipColumns = config.skipColumns;
+        poolSize = config.poolSize;
+        worklistPropagation = config.worklistPropagation;
+        incrementalGraph = config.incrementalGraph;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverConfig{engine=" + engine
+                + ", dependencyOrdering=" + useDependencyOrdering
+                + ", basicSynonyms=" + useBasicSynonyms
+                + ", simplifySynonyms=" + simplifySynonyms
+                + ", synonyms=" + useSynonyms
+                + ", skipColumns=" + skipColumns
+                + ", poolSize=" + poolSize
+                + ", worklistPropagation=" + worklistPropagation
+                + ", incrementalGraph=" + incrementalGraph + "}";
+    }
+}
@@ -41,11 +41,6 @@ public class SolverVariable implements Comparable<SolverVariable> {
     public static final int STRENGTH_CENTERING = 7;
     public static final int STRENGTH_FIXED = 8;
 
-    private static int uniqueSlackId = 1;
-    private static int uniqueErrorId = 1;
-    private static int uniqueUnrestrictedId = 1;
-    private static int uniqueConstantId = 1;
-    private static int uniqueId = 1;
     public boolean inGoal;
 
     private String mName;
@@ -57,8 +52,9 @@ public class SolverVariable implements Comparable<SolverVariable> {
     public boolean isFinalValue = false;
 
     final static int MAX_STRENGTH = 9;
-    float[] strengthVector = new float[MAX_STRENGTH];
-    float[] goalStrengthVector = new float[MAX_STRENGTH];
+    // never set, shared by all the variables (the goal strengths are kept by PriorityGoalRow)
+    private static final float[] NO_STRENGTHS = new float[MAX_STRENGTH];
+    final float[] strengthVector = NO_STRENGTHS;
 
     Type mType;
 
@@ -95,27 +91,6 @@ public class SolverVariable implements Comparable<SolverVariable> {
         UNKNOWN
     }
 
-    static void increaseErrorId() {
-        uniqueErrorId++;
-    }
-
-    private static String getUniqueName(Type type, String prefix) {
-        if (prefix != null) {
-            return prefix + uniqueErrorId;
-        }
-        switch (type) {
-            case UNRESTRICTED: return "U" + ++uniqueUnrestrictedId;
-            case CONSTANT: return "C" + ++uniqueConstantId;
-            case SLACK: return "S" + ++uniqueSlackId;
-            case ERROR: {
-                return "e" + ++uniqueErrorId;
-            }
-            case UNKNOWN:
-                return "V" + ++uniqueId;
-        }
-        throw new AssertionError(type.name());
-    }
-
     /**
      * Base constructor
      *  @param name the variable name
@@ -133,12 +108,6 @@ public class SolverVariable implements Comparable<SolverVariable> {
         }
     }
 
-    void clearStrengths() {
-        for (int i = 0; i < MAX_STRENGTH; i++) {
-            strengthVector[i] = 0;
-        }
-    }
-
     String strengthsToString() {
         String representation = this + "[";
         boolean negative = false;
@@ -275,7 +244,6 @@ public class SolverVariable implements Comparable<SolverVariable> {
         }
         usageInRowCount = 0;
         inGoal = false;
-        Arrays.fill(goalStrengthVector, 0);
     }
 
     /**
@@ -290,9 +258,6 @@ public class SolverVariable implements Comparable<SolverVariable> {
     public void setName(String name) { mName = name; }
     public void setType(Type type, String prefix) {
         mType = type;
-        if (INTERNAL_DEBUG && mName == null) {
-            mName = getUniqueName(type, prefix);
-        }
     }
 
     @Override
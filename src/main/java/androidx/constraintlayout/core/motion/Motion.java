@@ -24,6 +24,7 @@ import androidx.constraintlayout.core.motion.key.MotionKeyCycle;
 import androidx.constraintlayout.core.motion.key.MotionKeyPosition;
 import androidx.constraintlayout.core.motion.key.MotionKeyTimeCycle;
 import androidx.constraintlayout.core.motion.key.MotionKeyTrigger;
+import androidx.constraintlayout.core.motion.utils.AttributeRegistry;
 import androidx.constraintlayout.core.motion.utils.CurveFit;
 import androidx.constraintlayout.core.motion.utils.DifferentialInterpolator;
 import androidx.constraintlayout.core.motion.utils.Easing;
@@ -108,6 +109,11 @@ public class Motion {
     private HashMap<String, SplineSet> mAttributesMap; // splines to calculate values of attributes
     private HashMap<String, KeyCycleOscillator> mCycleMap; // splines to calculate values of attributes
     private MotionKeyTrigger[] mKeyTriggers; // splines to calculate values of attributes
+    // ids of the attributes, the arrays below are indexed by id and filled in setup()
+    private final AttributeRegistry mAttributeRegistry = new AttributeRegistry();
+    private SplineSet[] mAttributeSplines; // mAttributesMap by id
+    private KeyCycleOscillator[] mCycles; // mCycleMap values, in the map order
+    private CustomVariable[] mCustomVariables; // custom attributes of mSpline[1..]
     private int mPathMotionArc = UNSET;
     private int mTransformPivotTarget = UNSET; // if set, pivot point is maintained as the other object
     private MotionWidget mTransformPivotView = null; // if set, pivot point is maintained as the other object
@@ -941,6 +947,27 @@ public class Motion {
             }
         }
 
+        //--------------------------- attribute ids ----------------
+        mAttributeRegistry.clear();
+        mAttributeSplines = null;
+        if (mAttributesMap != null) {
+            // the ids follow the order of the map, the one the splines were applied in
+            for (String attribute : mAttributesMap.keySet()) {
+                mAttributeRegistry.intern(attribute);
+            }
+            mAttributeSplines = new SplineSet[mAttributeRegistry.size()];
+            for (HashMap.Entry<String, SplineSet> entry : mAttributesMap.entrySet()) {
+                mAttributeSplines[mAttributeRegistry.getId(entry.getKey())] = entry.getValue();
+            }
+        }
+        // in the order of the map, the one the cycles were applied in
+        mCycles = mCycleMap.values().toArray(new KeyCycleOscillator[0]);
+        // resolved once: the start path only changes in setStart(), which needs a new setup
+        mCustomVariables = new CustomVariable[mAttributeNames.length];
+        for (int i = 0; i < mAttributeNames.length; i++) {
+            mCustomVariables[i] = mStartMotionPath.customAttributes.get(mAttributeNames[i]);
+        }
+
         if (DEBUG) {
             Utils.log(TAG, "Animation of splineAttributes " + Arrays.toString(splineAttributes.toArray()));
             Utils.log(TAG, "Animation of cycle " + Arrays.toString(mCycleMap.keySet().toArray()));
@@ -1169,7 +1196,9 @@ public class Motion {
         Easing easing = mStartMotionPath.mKeyFrameEasing;
         float start = 0;
         float end = Float.NaN;
-        for (MotionPaths frame : mMotionPaths) {
+        // indexed, as an iterator would be allocated on every frame
+        for (int i = 0; i < mMotionPaths.size(); i++) {
+            MotionPaths frame = mMotionPaths.get(i);
             if (frame.mKeyFrameEasing != null) { // this frame has an easing
                 if (frame.time < position) {  // frame with easing is before the current pos
                     easing = frame.mKeyFrameEasing; // this is the candidate
@@ -1241,9 +1270,9 @@ public class Motion {
             position = section * steps + jump;
         }
         // MotionKeyTimeCycle.PathRotate timePathRotate = null;
-        if (mAttributesMap != null) {
-            for (SplineSet aSpline : mAttributesMap.values()) {
-                aSpline.setProperty(child, position);
+        if (mAttributeSplines != null) {
+            for (int i = 0; i < mAttributeSplines.length; i++) {
+                mAttributeSplines[i].setProperty(child, position);
             }
         }
 
@@ -1306,7 +1335,7 @@ public class Motion {
                 CurveFit spline = mSpline[i];
                 spline.getPos(position, mValuesBuff);
                 //interpolated here
-                mStartMotionPath.customAttributes.get(mAttributeNames[i - 1]).setInterpolatedValue(child, mValuesBuff);
+                mCustomVariables[i - 1].setInterpolatedValue(child, mValuesBuff);
             }
             if (mStartPoint.mVisibilityMode == MotionWidget.VISIBILITY_MODE_NORMAL) {
                 if (position <= 0.0f) {
@@ -1350,8 +1379,9 @@ public class Motion {
         }
 
         // TODO add pathRotate KeyCycles
-        if (mCycleMap != null) {
-            for (KeyCycleOscillator osc : mCycleMap.values()) {
+        if (mCycles != null) {
+            for (int i = 0; i < mCycles.length; i++) {
+                KeyCycleOscillator osc = mCycles[i];
                 if (osc instanceof KeyCycleOscillator.PathRotateSet) {
                     ((KeyCycleOscillator.PathRotateSet) osc).setPathRotate(child, position,
                             mInterpolateVelocity[0], mInterpolateVelocity[1]);
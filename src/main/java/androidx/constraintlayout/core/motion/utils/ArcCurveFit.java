@@ -76,19 +76,18 @@ public class ArcCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < mArcs.length; i++) {
-            if (t <= mArcs[i].mTime2) {
-                if (mArcs[i].linear) {
-                    v[0] = mArcs[i].getLinearX(t);
-                    v[1] = mArcs[i].getLinearY(t);
-                    return;
-                }
-                mArcs[i].setPoint(t);
-                v[0] = mArcs[i].getX();
-                v[1] = mArcs[i].getY();
-                return;
-            }
+        int i = findSegment(mTime, t, true);
+        if (i < 0) {
+            return;
+        }
+        if (mArcs[i].linear) {
+            v[0] = mArcs[i].getLinearX(t);
+            v[1] = mArcs[i].getLinearY(t);
+            return;
         }
+        mArcs[i].setPoint(t);
+        v[0] = mArcs[i].getX();
+        v[1] = mArcs[i].getY();
     }
 
     @Override
@@ -129,19 +128,18 @@ public class ArcCurveFit extends CurveFit {
                 t = mArcs[mArcs.length - 1].mTime2;
             }
         }
-        for (int i = 0; i < mArcs.length; i++) {
-            if (t <= mArcs[i].mTime2) {
-                if (mArcs[i].linear) {
-                    v[0] = (float) mArcs[i].getLinearX(t);
-                    v[1] = (float) mArcs[i].getLinearY(t);
-                    return;
-                }
-                mArcs[i].setPoint(t);
-                v[0] = (float) mArcs[i].getX();
-                v[1] = (float) mArcs[i].getY();
-                return;
-            }
+        int i = findSegment(mTime, t, true);
+        if (i < 0) {
+            return;
         }
+        if (mArcs[i].linear) {
+            v[0] = (float) mArcs[i].getLinearX(t);
+            v[1] = (float) mArcs[i].getLinearY(t);
+            return;
+        }
+        mArcs[i].setPoint(t);
+        v[0] = (float) mArcs[i].getX();
+        v[1] = (float) mArcs[i].getY();
     }
 
     @Override
@@ -152,19 +150,18 @@ public class ArcCurveFit extends CurveFit {
             t = mArcs[mArcs.length - 1].mTime2;
         }
 
-        for (int i = 0; i < mArcs.length; i++) {
-            if (t <= mArcs[i].mTime2) {
-                if (mArcs[i].linear) {
-                    v[0] = mArcs[i].getLinearDX(t);
-                    v[1] = mArcs[i].getLinearDY(t);
-                    return;
-                }
-                mArcs[i].setPoint(t);
-                v[0] = mArcs[i].getDX();
-                v[1] = mArcs[i].getDY();
-                return;
-            }
+        int i = findSegment(mTime, t, true);
+        if (i < 0) {
+            return;
+        }
+        if (mArcs[i].linear) {
+            v[0] = mArcs[i].getLinearDX(t);
+            v[1] = mArcs[i].getLinearDY(t);
+            return;
         }
+        mArcs[i].setPoint(t);
+        v[0] = mArcs[i].getDX();
+        v[1] = mArcs[i].getDY();
     }
 
     @Override
@@ -204,24 +201,22 @@ public class ArcCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < mArcs.length; i++) {
-            if (t <= mArcs[i].mTime2) {
-
-                if (mArcs[i].linear) {
-                    if (j == 0) {
-                        return mArcs[i].getLinearX(t);
-                    }
-                    return mArcs[i].getLinearY(t);
-                }
-                mArcs[i].setPoint(t);
-
-                if (j == 0) {
-                    return mArcs[i].getX();
-                }
-                return mArcs[i].getY();
+        int i = findSegment(mTime, t, true);
+        if (i < 0) {
+            return Double.NaN;
+        }
+        if (mArcs[i].linear) {
+            if (j == 0) {
+                return mArcs[i].getLinearX(t);
             }
+            return mArcs[i].getLinearY(t);
+        }
+        mArcs[i].setPoint(t);
+
+        if (j == 0) {
+            return mArcs[i].getX();
         }
-        return Double.NaN;
+        return mArcs[i].getY();
     }
 
     @Override
@@ -233,22 +228,21 @@ public class ArcCurveFit extends CurveFit {
             t = mArcs[mArcs.length - 1].mTime2;
         }
 
-        for (int i = 0; i < mArcs.length; i++) {
-            if (t <= mArcs[i].mTime2) {
-                if (mArcs[i].linear) {
-                    if (j == 0) {
-                        return mArcs[i].getLinearDX(t);
-                    }
-                    return mArcs[i].getLinearDY(t);
-                }
-                mArcs[i].setPoint(t);
-                if (j == 0) {
-                    return mArcs[i].getDX();
-                }
-                return mArcs[i].getDY();
+        int i = findSegment(mTime, t, true);
+        if (i < 0) {
+            return Double.NaN;
+        }
+        if (mArcs[i].linear) {
+            if (j == 0) {
+                return mArcs[i].getLinearDX(t);
             }
+            return mArcs[i].getLinearDY(t);
+        }
+        mArcs[i].setPoint(t);
+        if (j == 0) {
+            return mArcs[i].getDX();
         }
-        return Double.NaN;
+        return mArcs[i].getDY();
     }
 
     @Override
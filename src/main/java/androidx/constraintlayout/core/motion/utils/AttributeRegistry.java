@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.motion.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Interns attribute names ("alpha", "CUSTOM,name"...) into dense ids, so that the values
+ * attached to the attributes can be kept in arrays indexed by id.
+ */
+public class AttributeRegistry {
+    private final HashMap<String, Integer> mIds = new HashMap<>();
+    private String[] mNames = new String[8];
+    private int mCount = 0;
+
+    /**
+     * Returns the id of the attribute, giving it the next id if it doesn't have one
+     */
+    public int intern(String name) {
+        Integer id = mIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (mCount == mNames.length) {
+            mNames = Arrays.copyOf(mNames, mCount * 2);
+        }
+        mNames[mCount] = name;
+        mIds.put(name, mCount);
+        return mCount++;
+    }
+
+    /**
+     * Returns the id of the attribute, or -1 if it was not interned
+     */
+    public int getId(String name) {
+        Integer id = mIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String getName(int id) {
+        return mNames[id];
+    }
+
+    /**
+     * Number of attributes, ids go from 0 to size() - 1
+     */
+    public int size() {
+        return mCount;
+    }
+
+    public void clear() {
+        mIds.clear();
+        Arrays.fill(mNames, 0, mCount, null);
+        mCount = 0;
+    }
+}
@@ -20,6 +20,9 @@ package androidx.constraintlayout.core.motion.utils;
  * Base class for curve fitting / interpolation
  * Curve fits must be capable of being differentiable and extend beyond the points (extrapolate)
  *
+ * A curve fit remembers the segment of its last lookup, so an instance must not be used from
+ * several threads at once: give each thread its own.
+ *
  * @suppress
  */
 
@@ -58,6 +61,51 @@ public abstract class CurveFit {
 
     public abstract double[] getTimePoints();
 
+    // last segment found, where the next lookup starts
+    private int mSegment;
+
+    /**
+     * Find the first segment i (between time[i] and time[i + 1]) such that t is before
+     * time[i + 1], starting from the segment of the previous lookup as animations mostly
+     * move forward, and falling back to a binary search.
+     *
+     * @param time      the increasing time points
+     * @param t         the time to look up
+     * @param inclusive if t equal to time[i + 1] is in segment i
+     * @return the segment, or -1 if t is after the last time point (or NaN)
+     */
+    protected final int findSegment(double[] time, double t, boolean inclusive) {
+        final int count = time.length - 1;
+        int i = mSegment;
+        if (i < count && isBefore(time, i + 1, t, inclusive)) {
+            if (i == 0 || !isBefore(time, i, t, inclusive)) {
+                return i;
+            }
+        } else if (i + 1 < count && isBefore(time, i + 2, t, inclusive)) {
+            mSegment = i + 1;
+            return i + 1;
+        }
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isBefore(time, mid + 1, t, inclusive)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        if (low == count) {
+            return -1;
+        }
+        mSegment = low;
+        return low;
+    }
+
+    private static boolean isBefore(double[] time, int i, double t, boolean inclusive) {
+        return inclusive ? t <= time[i] : t < time[i];
+    }
+
     static class Constant extends CurveFit {
         double mTime;
         double[] mValue;
@@ -88,11 +88,26 @@ public class Easing {
         return 1;
     }
 
-    static class CubicEasing extends Easing {
+    public static class CubicEasing extends Easing {
 
         private static double error = 0.01;
         private static double d_error = 0.0001;
+        private static final int LUT_SIZE = 512; // number of intervals in the lookup table
+        private static final double LUT_PRECISION = 1e-7;
+        // x precision of the curve solved from the table, fine enough for steep curves
+        private static final double LUT_SOLVE_PRECISION = 1e-10;
+        // largest error of a linear interpolation in the table, elsewhere the curve is solved
+        private static final double LUT_TOLERANCE = 5e-6;
+        private static final double LUT_DIFF_TOLERANCE = 2e-4;
+        private static final int LUT_MAX_ITERATIONS = 20;
         double x1, y1, x2, y2;
+        private boolean mUseLookupTable = false;
+        // for LUT_SIZE + 1 evenly spaced x: the curve parameter, the value and the derivative
+        private double[] mLookupT;
+        private double[] mLookupY;
+        private double[] mLookupDiff;
+        // the intervals of the table in which a linear interpolation is precise enough
+        private boolean[] mLookupLinear;
 
         CubicEasing(String configString) {
             // done this way for efficiency
@@ -117,6 +132,10 @@ public class Easing {
             this.y1 = y1;
             this.x2 = x2;
             this.y2 = y2;
+            mLookupT = null;
+            mLookupY = null;
+            mLookupDiff = null;
+            mLookupLinear = null;
         }
 
         private double getX(double t) {
@@ -147,11 +166,115 @@ public class Easing {
             return 3 * t1 * t1 * y1 + 6 * t1 * t * (y2 - y1) + 3 * t * t * (1 - y2);
         }
 
+        /**
+         * When enabled, get() and getDiff() use tables precomputed for evenly spaced values
+         * of x instead of doing a binary search on every call: a linear interpolation where
+         * the curve is close to a line, and elsewhere Newton's method on the curve, starting
+         * from the table. This is meant for easings that are evaluated on every frame. The
+         * tables are built when the mode is enabled.
+         *
+         * @param useLookupTable true to use the precomputed table
+         */
+        public void setUseLookupTable(boolean useLookupTable) {
+            mUseLookupTable = useLookupTable;
+            if (useLookupTable && mLookupT == null) {
+                buildLookupTable();
+            }
+        }
+
+        /**
+         * The curve parameter for x, with a precise binary search
+         */
+        private double solveT(double x) {
+            double t = 0.5;
+            double range = 0.5;
+            while (range > LUT_PRECISION) {
+                range *= 0.5;
+                if (getX(t) < x) {
+                    t += range;
+                } else {
+                    t -= range;
+                }
+            }
+            return t;
+        }
+
+        private double slope(double t) {
+            double diffX = getDiffX(t);
+            return (diffX > LUT_PRECISION) ? getDiffY(t) / diffX : Double.NaN;
+        }
+
+        private void buildLookupTable() {
+            double[] lookupT = new double[LUT_SIZE + 1];
+            double[] lookupY = new double[LUT_SIZE + 1];
+            double[] lookupDiff = new double[LUT_SIZE + 1];
+            boolean[] lookupLinear = new boolean[LUT_SIZE];
+            for (int i = 0; i <= LUT_SIZE; i++) {
+                double t = solveT(i / (double) LUT_SIZE);
+                lookupT[i] = t;
+                lookupY[i] = getY(t);
+                lookupDiff[i] = slope(t);
+            }
+            for (int i = 0; i < LUT_SIZE; i++) {
+                // a smooth interval is furthest from its chord around the middle
+                double t = solveT((i + 0.5) / LUT_SIZE);
+                double errorY = getY(t) - (lookupY[i] + lookupY[i + 1]) * 0.5;
+                double errorDiff = slope(t) - (lookupDiff[i] + lookupDiff[i + 1]) * 0.5;
+                lookupLinear[i] = Math.abs(errorY) < LUT_TOLERANCE
+                        && Math.abs(errorDiff) < LUT_DIFF_TOLERANCE; // false for NaN
+            }
+            mLookupT = lookupT;
+            mLookupY = lookupY;
+            mLookupDiff = lookupDiff;
+            mLookupLinear = lookupLinear;
+        }
+
+        /**
+         * The curve parameter for x in the given interval of the table, refined with Newton's
+         * method, falling back to a bisection of the interval where the tangent is close to
+         * vertical
+         */
+        private double lookupT(double x, int index, double fraction) {
+            double low = mLookupT[index];
+            double high = mLookupT[index + 1];
+            double t = low + (high - low) * fraction;
+            for (int i = 0; i < LUT_MAX_ITERATIONS; i++) {
+                double dx = getX(t) - x;
+                if (Math.abs(dx) < LUT_SOLVE_PRECISION) {
+                    break;
+                }
+                if (dx < 0) {
+                    low = t;
+                } else {
+                    high = t;
+                }
+                double next = t - dx / getDiffX(t);
+                t = (next > low && next < high) ? next : (low + high) * 0.5;
+            }
+            return t;
+        }
+
         /**
          * binary search for the region
          * and linear interpolate the answer
          */
         public double getDiff(double x) {
+            if (mUseLookupTable && x >= 0 && x <= 1) {
+                if (mLookupT == null) {
+                    buildLookupTable();
+                }
+                double position = x * LUT_SIZE;
+                int index = Math.min((int) position, LUT_SIZE - 1);
+                double fraction = position - index;
+                if (mLookupLinear[index]) {
+                    double diff = mLookupDiff[index];
+                    return diff + (mLookupDiff[index + 1] - diff) * fraction;
+                }
+                double diff = slope(lookupT(x, index, fraction));
+                if (!Double.isNaN(diff)) {
+                    return diff;
+                }
+            }
             double t = 0.5;
             double range = 0.5;
             while (range > d_error) {
@@ -183,6 +306,19 @@ public class Easing {
             if (x >= 1.0) {
                 return 1.0;
             }
+            if (mUseLookupTable) {
+                if (mLookupT == null) {
+                    buildLookupTable();
+                }
+                double position = x * LUT_SIZE;
+                int index = Math.min((int) position, LUT_SIZE - 1);
+                double fraction = position - index;
+                if (mLookupLinear[index]) {
+                    double y = mLookupY[index];
+                    return y + (mLookupY[index + 1] - y) * fraction;
+                }
+                return getY(lookupT(x, index, fraction));
+            }
             double t = 0.5;
             double range = 0.5;
             while (range > error) {
@@ -17,64 +17,135 @@
 package androidx.constraintlayout.core.motion.utils;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Used by KeyTimeCycles (and any future time dependent behaviour) to cache its current parameters
  * to maintain consistency across requestLayout type rebuilds.
+ *
+ * Values are keyed by the identity of the view, an attribute id and an element, in an open
+ * addressing table of primitive arrays: lookups don't allocate, and setting a value only
+ * allocates when the table grows. Attribute ids come from {@link #getAttributeId(String)},
+ * callers setting or getting values every frame should resolve them once.
  */
 public class KeyCache {
+    private static final int CUSTOM_ID_START = 10000;
+    private static final int INITIAL_CAPACITY = 16;
+    // stands for a null view, as null marks the empty slots
+    private static final Object NULL_VIEW = new Object();
+    private static final ConcurrentHashMap<String, Integer> sCustomIds = new ConcurrentHashMap<>();
+
+    private Object[] mViews = new Object[INITIAL_CAPACITY];
+    private int[] mTypes = new int[INITIAL_CAPACITY];
+    private int[] mElements = new int[INITIAL_CAPACITY];
+    private float[] mValues = new float[INITIAL_CAPACITY];
+    private int mSize = 0;
 
-    HashMap<Object, HashMap<String, float[]>> map = new HashMap<>();
+    /**
+     * Get the id of an attribute: its {@link TypedValues} id, or for a custom attribute an
+     * id given to its name, the same for every cache.
+     */
+    public static int getAttributeId(String type) {
+        int id = TypedValues.Attributes.getId(type);
+        if (id != -1) {
+            return id;
+        }
+        Integer customId = sCustomIds.get(type);
+        if (customId != null) {
+            return customId;
+        }
+        synchronized (sCustomIds) {
+            return sCustomIds.computeIfAbsent(type, name -> CUSTOM_ID_START + sCustomIds.size());
+        }
+    }
 
     public void setFloatValue(Object view, String type, int element, float value) {
-        if (!map.containsKey(view)) {
-            HashMap<String, float[]> array = new HashMap<>();
-            float[] vArray = new float[element + 1];
-            vArray[element] = value;
-            array.put(type, vArray);
-            map.put(view, array);
-        } else {
-            HashMap<String, float[]> array = map.get(view);
-            if (array == null) {
-                array = new HashMap<>();
-            }
+        setFloatValue(view, getAttributeId(type), element, value);
+    }
+
+    public float getFloatValue(Object view, String type, int element) {
+        return getFloatValue(view, getAttributeId(type), element);
+    }
 
-            if (!array.containsKey(type)) {
-                float[] vArray = new float[element + 1];
-                vArray[element] = value;
-                array.put(type, vArray);
-                map.put(view, array);
-            } else {
-                float[] vArray = array.get(type);
-                if (vArray == null) {
-                    vArray = new float[0];
-                }
-                if (vArray.length <= element) {
-                    vArray = Arrays.copyOf(vArray, element + 1);
-                }
-                vArray[element] = value;
-                array.put(type, vArray);
+    /**
+     * Set a value
+     *
+     * @param view    the view (compared by identity)
+     * @param type    the attribute id, see {@link #getAttributeId(String)}
+     * @param element the element of the attribute
+     */
+    public void setFloatValue(Object view, int type, int element, float value) {
+        if (view == null) {
+            view = NULL_VIEW;
+        }
+        int slot = find(view, type, element);
+        if (mViews[slot] == null) {
+            if ((mSize + 1) * 2 > mViews.length) {
+                grow();
+                slot = find(view, type, element);
             }
+            mViews[slot] = view;
+            mTypes[slot] = type;
+            mElements[slot] = element;
+            mSize++;
         }
+        mValues[slot] = value;
     }
 
-    public float getFloatValue(Object view, String type, int element) {
-        if (!map.containsKey(view)) {
+    /**
+     * Get a value
+     *
+     * @return the value, or NaN if it was not set
+     */
+    public float getFloatValue(Object view, int type, int element) {
+        if (view == null) {
+            view = NULL_VIEW;
+        }
+        int slot = find(view, type, element);
+        if (mViews[slot] == null) {
             return Float.NaN;
-        } else {
-            HashMap<String, float[]> array = map.get(view);
-            if (array == null || !array.containsKey(type)) {
-                return Float.NaN;
-            }
-            float[] vArray = array.get(type);
-            if (vArray == null) {
-                return Float.NaN;
+        }
+        return mValues[slot];
+    }
+
+    public void clear() {
+        Arrays.fill(mViews, null);
+        mSize = 0;
+    }
+
+    // slot holding the key, or the empty slot where it would go
+    private int find(Object view, int type, int element) {
+        final int mask = mViews.length - 1;
+        int hash = (System.identityHashCode(view) * 31 + type) * 31 + element;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (true) {
+            Object key = mViews[slot];
+            if (key == null
+                    || (key == view && mTypes[slot] == type && mElements[slot] == element)) {
+                return slot;
             }
-            if (vArray.length > element) {
-                return vArray[element];
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        Object[] views = mViews;
+        int[] types = mTypes;
+        int[] elements = mElements;
+        float[] values = mValues;
+        int capacity = views.length * 2;
+        mViews = new Object[capacity];
+        mTypes = new int[capacity];
+        mElements = new int[capacity];
+        mValues = new float[capacity];
+        for (int i = 0; i < views.length; i++) {
+            if (views[i] != null) {
+                int slot = find(views[i], types[i], elements[i]);
+                mViews[slot] = views[i];
+                mTypes[slot] = types[i];
+                mElements[slot] = elements[i];
+                mValues[slot] = values[i];
             }
-            return Float.NaN;
         }
     }
 }
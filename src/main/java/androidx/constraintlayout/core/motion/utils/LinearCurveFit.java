@@ -134,23 +134,17 @@ public class LinearCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                for (int j = 0; j < dim; j++) {
-                    v[j] = mY[i][j];
-                }
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
 
-                    v[j] = y1 * (1 - x) + y2 * x;
-                }
-                return;
-            }
+            v[j] = y1 * (1 - x) + y2 * x;
         }
     }
 
@@ -187,23 +181,17 @@ public class LinearCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                for (int j = 0; j < dim; j++) {
-                    v[j] = (float) mY[i][j];
-                }
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
 
-                    v[j] = (float) (y1 * (1 - x) + y2 * x);
-                }
-                return;
-            }
+            v[j] = (float) (y1 * (1 - x) + y2 * x);
         }
     }
 
@@ -225,20 +213,21 @@ public class LinearCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                return mY[i][j];
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                double y1 = mY[i][j];
-                double y2 = mY[i + 1][j];
-                return (y1 * (1 - x) + y2 * x);
-
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return 0; // should never reach here
+        }
+        if (t == mT[i]) {
+            while (i > 0 && mT[i - 1] == t) {
+                i--;
             }
+            return mY[i][j];
         }
-        return 0; // should never reach here
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        double y1 = mY[i][j];
+        double y2 = mY[i + 1][j];
+        return (y1 * (1 - x) + y2 * x);
     }
 
     public void getSlope(double t, double[] v) {
@@ -250,20 +239,17 @@ public class LinearCurveFit extends CurveFit {
             t = mT[n - 1];
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t <= mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
+        int i = findSegment(mT, t, true);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
 
-                    v[j] = (y2 - y1) / h;
-                }
-                break;
-            }
+            v[j] = (y2 - y1) / h;
         }
-        return;
     }
 
     public double getSlope(double t, int j) {
@@ -274,16 +260,14 @@ public class LinearCurveFit extends CurveFit {
         } else if (t >= mT[n - 1]) {
             t = mT[n - 1];
         }
-        for (int i = 0; i < n - 1; i++) {
-            if (t <= mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                double y1 = mY[i][j];
-                double y2 = mY[i + 1][j];
-                return (y2 - y1) / h;
-            }
+        int i = findSegment(mT, t, true);
+        if (i < 0) {
+            return 0; // should never reach here
         }
-        return 0; // should never reach here
+        double h = mT[i + 1] - mT[i];
+        double y1 = mY[i][j];
+        double y2 = mY[i + 1][j];
+        return (y2 - y1) / h;
     }
 
     @Override
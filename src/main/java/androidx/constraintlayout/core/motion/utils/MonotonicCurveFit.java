@@ -106,24 +106,18 @@ public class MonotonicCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                for (int j = 0; j < dim; j++) {
-                    v[j] = mY[i][j];
-                }
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
-                    double t1 = mTangent[i][j];
-                    double t2 = mTangent[i + 1][j];
-                    v[j] = interpolate(h, x, y1, y2, t1, t2);
-                }
-                return;
-            }
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
+            double t1 = mTangent[i][j];
+            double t2 = mTangent[i + 1][j];
+            v[j] = interpolate(h, x, y1, y2, t1, t2);
         }
     }
 
@@ -161,24 +155,18 @@ public class MonotonicCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                for (int j = 0; j < dim; j++) {
-                    v[j] = (float) mY[i][j];
-                }
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
-                    double t1 = mTangent[i][j];
-                    double t2 = mTangent[i + 1][j];
-                    v[j] = (float) interpolate(h, x, y1, y2, t1, t2);
-                }
-                return;
-            }
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
+            double t1 = mTangent[i][j];
+            double t2 = mTangent[i + 1][j];
+            v[j] = (float) interpolate(h, x, y1, y2, t1, t2);
         }
     }
 
@@ -201,22 +189,23 @@ public class MonotonicCurveFit extends CurveFit {
             }
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t == mT[i]) {
-                return mY[i][j];
-            }
-            if (t < mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                double y1 = mY[i][j];
-                double y2 = mY[i + 1][j];
-                double t1 = mTangent[i][j];
-                double t2 = mTangent[i + 1][j];
-                return interpolate(h, x, y1, y2, t1, t2);
-
+        int i = findSegment(mT, t, false);
+        if (i < 0) {
+            return 0; // should never reach here
+        }
+        if (t == mT[i]) {
+            while (i > 0 && mT[i - 1] == t) {
+                i--;
             }
+            return mY[i][j];
         }
-        return 0; // should never reach here
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        double y1 = mY[i][j];
+        double y2 = mY[i + 1][j];
+        double t1 = mTangent[i][j];
+        double t2 = mTangent[i + 1][j];
+        return interpolate(h, x, y1, y2, t1, t2);
     }
 
     @Override
@@ -229,21 +218,19 @@ public class MonotonicCurveFit extends CurveFit {
             t = mT[n - 1];
         }
 
-        for (int i = 0; i < n - 1; i++) {
-            if (t <= mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                for (int j = 0; j < dim; j++) {
-                    double y1 = mY[i][j];
-                    double y2 = mY[i + 1][j];
-                    double t1 = mTangent[i][j];
-                    double t2 = mTangent[i + 1][j];
-                    v[j] = diff(h, x, y1, y2, t1, t2) / h;
-                }
-                break;
-            }
+        int i = findSegment(mT, t, true);
+        if (i < 0) {
+            return;
+        }
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        for (int j = 0; j < dim; j++) {
+            double y1 = mY[i][j];
+            double y2 = mY[i + 1][j];
+            double t1 = mTangent[i][j];
+            double t2 = mTangent[i + 1][j];
+            v[j] = diff(h, x, y1, y2, t1, t2) / h;
         }
-        return;
     }
 
     @Override
@@ -255,18 +242,17 @@ public class MonotonicCurveFit extends CurveFit {
         } else if (t >= mT[n - 1]) {
             t = mT[n - 1];
         }
-        for (int i = 0; i < n - 1; i++) {
-            if (t <= mT[i + 1]) {
-                double h = mT[i + 1] - mT[i];
-                double x = (t - mT[i]) / h;
-                double y1 = mY[i][j];
-                double y2 = mY[i + 1][j];
-                double t1 = mTangent[i][j];
-                double t2 = mTangent[i + 1][j];
-                return diff(h, x, y1, y2, t1, t2) / h;
-            }
+        int i = findSegment(mT, t, true);
+        if (i < 0) {
+            return 0; // should never reach here
         }
-        return 0; // should never reach here
+        double h = mT[i + 1] - mT[i];
+        double x = (t - mT[i]) / h;
+        double y1 = mY[i][j];
+        double y2 = mY[i + 1][j];
+        double t1 = mTangent[i][j];
+        double t2 = mTangent[i + 1][j];
+        return diff(h, x, y1, y2, t1, t2) / h;
     }
 
     @Override
@@ -102,6 +102,7 @@ public abstract class TimeCycleSplineSet {
 
     public static class CustomSet extends TimeCycleSplineSet {
         String mAttributeName;
+        int mAttributeId;
         KeyFrameArray.CustomArray  mConstraintAttributeList;
         KeyFrameArray.FloatArray mWaveProperties = new KeyFrameArray.FloatArray();
         float[] mTempValues;
@@ -109,6 +110,7 @@ public abstract class TimeCycleSplineSet {
 
         public CustomSet(String attribute, KeyFrameArray.CustomArray attrList) {
             mAttributeName = attribute.split(",")[1];
+            mAttributeId = KeyCache.getAttributeId(mAttributeName);
             mConstraintAttributeList = attrList;
         }
 
@@ -152,7 +154,7 @@ public abstract class TimeCycleSplineSet {
             long delta_time = time - last_time;
 
             if (Float.isNaN(last_cycle)) { // it has not been set
-                last_cycle = cache.getFloatValue(view, mAttributeName, 0); // check the cache
+                last_cycle = cache.getFloatValue(view, mAttributeId, 0); // check the cache
                 if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                     last_cycle = 0;
                 }
@@ -253,6 +255,7 @@ public abstract class TimeCycleSplineSet {
 
     public static class CustomVarSet extends TimeCycleSplineSet {
         String mAttributeName;
+        int mAttributeId;
         KeyFrameArray.CustomVar mConstraintAttributeList;
         KeyFrameArray.FloatArray mWaveProperties = new KeyFrameArray.FloatArray();
         float[] mTempValues;
@@ -260,6 +263,7 @@ public abstract class TimeCycleSplineSet {
 
         public CustomVarSet(String attribute, KeyFrameArray.CustomVar attrList) {
             mAttributeName = attribute.split(",")[1];
+            mAttributeId = KeyCache.getAttributeId(mAttributeName);
             mConstraintAttributeList = attrList;
         }
 
@@ -303,7 +307,7 @@ public abstract class TimeCycleSplineSet {
             long delta_time = time - last_time;
 
             if (Float.isNaN(last_cycle)) { // it has not been set
-                last_cycle = cache.getFloatValue(view, mAttributeName, 0); // check the cache
+                last_cycle = cache.getFloatValue(view, mAttributeId, 0); // check the cache
                 if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                     last_cycle = 0;
                 }
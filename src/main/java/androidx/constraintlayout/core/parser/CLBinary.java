@@ -0,0 +1,466 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.parser;
+
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * A compact binary form of parsed JSON5 documents, to ship ConstraintSets and MotionScenes
+ * compiled ahead of time instead of parsing them at startup.
+ *
+ * {@link #decode(ByteBuffer)} builds the tree of {@link CLElement} straight from the
+ * buffer (which can be memory-mapped, it is only read) without tokenizing any text;
+ * the tree is the same as the one parsed from the source, minus the comments and the
+ * formatting. {@link #main(String[])} converts files from the command line.
+ *
+ * Layout, big endian; counts, lengths and references are unsigned varints:
+ * <pre>
+ *   int      MAGIC
+ *   short    FORMAT_VERSION
+ *   int      fingerprint of the dictionary
+ *   varint   count of strings, then their lengths, then all their chars (UTF-16)
+ *   element  the root object
+ * </pre>
+ * Keys and strings refer first to the dictionary of the format (the words used by the
+ * ConstraintSet parser and the attribute names of {@link TypedValues}), then to the strings
+ * of the document, each stored once. An element is a tag followed by: for an object, the
+ * count of keys then each key reference and value; for an array, the count then the
+ * elements; for a string, its reference; for an integer, its zigzag varint; for a float,
+ * its 4 bytes; nothing for true, false, null and a key without value.
+ */
+public class CLBinary {
+
+  public static final int MAGIC = 0x434C4201; // "CLB" 1
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int TAG_OBJECT = 1;
+  private static final int TAG_ARRAY = 2;
+  private static final int TAG_STRING = 3;
+  private static final int TAG_INT = 4;
+  private static final int TAG_FLOAT = 5;
+  private static final int TAG_TRUE = 6;
+  private static final int TAG_FALSE = 7;
+  private static final int TAG_NULL = 8;
+  private static final int TAG_NONE = 9;
+
+  // integers up to this magnitude are exact floats
+  private static final int MAX_INT = 1 << 24;
+
+  private static final String[] WORDS = {
+          "true", "false", "null",
+          "ConstraintSets", "Transitions", "Variables", "Generate", "Helpers", "Header",
+          "Design", "Extends", "KeyFrames", "KeyAttributes", "KeyPositions", "KeyCycles",
+          "export", "exportAs", "parent", "width", "height", "start", "end", "left", "right",
+          "top", "bottom", "baseline", "center", "centerHorizontally", "centerVertically",
+          "circular", "clear", "constraints", "dimensions", "transforms", "custom", "wrap",
+          "preferWrap", "spread", "spread_inside", "packed", "percent", "min", "max",
+          "hChain", "vChain", "hGuideline", "vGuideline", "barrier", "contains", "direction",
+          "ids", "tag", "id", "prefix", "postfix", "value", "style", "type", "visible",
+          "invisible", "gone", "frames", "percentX", "percentY", "spline", "linear", "step",
+          "none", "flip", "parentRelative", "deltaRelative", "pathRelative", "startVertical",
+          "startHorizontal",
+  };
+
+  private static final String[] DICTIONARY;
+  private static final HashMap<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+  private static final char[] DICTIONARY_CHARS;
+  private static final int[] DICTIONARY_STARTS;
+  private static final int FINGERPRINT;
+
+  static {
+    LinkedHashSet<String> words = new LinkedHashSet<>(Arrays.asList(WORDS));
+    Collections.addAll(words, TypedValues.Attributes.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Cycle.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Trigger.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Position.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Motion.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Custom.KEY_WORDS);
+    Collections.addAll(words, TypedValues.MotionScene.KEY_WORDS);
+    Collections.addAll(words, TypedValues.Transition.KEY_WORDS);
+    DICTIONARY = words.toArray(new String[0]);
+    DICTIONARY_STARTS = new int[DICTIONARY.length + 1];
+    StringBuilder chars = new StringBuilder();
+    for (int i = 0; i < DICTIONARY.length; i++) {
+      DICTIONARY_INDEX.put(DICTIONARY[i], i);
+      chars.append(DICTIONARY[i]);
+      DICTIONARY_STARTS[i + 1] = chars.length();
+    }
+    DICTIONARY_CHARS = chars.toString().toCharArray();
+    // a document only decodes with the dictionary it was encoded with
+    FINGERPRINT = Arrays.hashCode(DICTIONARY);
+  }
+
+  /////////////////////////////////////////////////////////////////////////
+  // Encoding
+  /////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the binary form of the document
+   */
+  public static byte[] encode(CLObject root) throws CLParsingException {
+    Encoder encoder = new Encoder();
+    encoder.element(root);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(encoder.mBody.size() * 2);
+    writeInt(out, MAGIC);
+    out.write(FORMAT_VERSION >> 8);
+    out.write(FORMAT_VERSION);
+    writeInt(out, FINGERPRINT);
+    writeVarint(out, encoder.mStrings.size());
+    for (String string : encoder.mStrings) {
+      writeVarint(out, string.length());
+    }
+    for (String string : encoder.mStrings) {
+      for (int i = 0; i < string.length(); i++) {
+        char c = string.charAt(i);
+        out.write(c >> 8);
+        out.write(c);
+      }
+    }
+    out.writeBytes(encoder.mBody.toByteArray());
+    return out.toByteArray();
+  }
+
+  private static class Encoder {
+    final ByteArrayOutputStream mBody = new ByteArrayOutputStream();
+    final ArrayList<String> mStrings = new ArrayList<>();
+    final HashMap<String, Integer> mStringIndex = new HashMap<>();
+
+    void element(CLElement element) throws CLParsingException {
+      if (element == null) {
+        mBody.write(TAG_NONE);
+      } else if (element instanceof CLObject) {
+        CLObject object = (CLObject) element;
+        int count = 0;
+        for (int i = 0; i < object.size(); i++) {
+          if (object.mElements.get(i) instanceof CLKey) {
+            count++;
+          }
+        }
+        mBody.write(TAG_OBJECT);
+        writeVarint(mBody, count);
+        for (int i = 0; i < object.size(); i++) {
+          CLElement child = object.mElements.get(i);
+          if (child instanceof CLKey) {
+            CLKey key = (CLKey) child;
+            writeVarint(mBody, reference(key.content()));
+            element(key.getValue());
+          }
+        }
+      } else if (element instanceof CLArray) {
+        CLArray array = (CLArray) element;
+        mBody.write(TAG_ARRAY);
+        writeVarint(mBody, array.size());
+        for (int i = 0; i < array.size(); i++) {
+          element(array.mElements.get(i));
+        }
+      } else if (element instanceof CLString) {
+        mBody.write(TAG_STRING);
+        writeVarint(mBody, reference(element.content()));
+      } else if (element instanceof CLNumber) {
+        float value;
+        try {
+          value = element.getFloat();
+        } catch (NumberFormatException e) {
+          throw new CLParsingException("invalid number <" + element.content() + ">", element);
+        }
+        int intValue = (int) value;
+        if (intValue == value && Math.abs(intValue) <= MAX_INT
+                && Float.floatToRawIntBits(value) != Float.floatToRawIntBits(-0f)) {
+          mBody.write(TAG_INT);
+          writeVarint(mBody, (intValue << 1) ^ (intValue >> 31));
+        } else {
+          mBody.write(TAG_FLOAT);
+          writeInt(mBody, Float.floatToRawIntBits(value));
+        }
+      } else if (element instanceof CLToken) {
+        switch (((CLToken) element).getType()) {
+          case TRUE:
+            mBody.write(TAG_TRUE);
+            break;
+          case FALSE:
+            mBody.write(TAG_FALSE);
+            break;
+          case NULL:
+            mBody.write(TAG_NULL);
+            break;
+          default:
+            throw new CLParsingException("invalid token <" + element.content() + ">", element);
+        }
+      } else {
+        throw new CLParsingException("cannot encode " + element.getStrClass(), element);
+      }
+    }
+
+    int reference(String string) {
+      Integer index = DICTIONARY_INDEX.get(string);
+      if (index != null) {
+        return index;
+      }
+      index = mStringIndex.get(string);
+      if (index == null) {
+        index = DICTIONARY.length + mStrings.size();
+        mStrings.add(string);
+        mStringIndex.put(string, index);
+      }
+      return index;
+    }
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /////////////////////////////////////////////////////////////////////////
+  // Decoding
+  /////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Builds the document from its binary form, read from the position of the buffer (which
+   * is left unchanged)
+   */
+  public static CLObject decode(ByteBuffer buffer) throws CLParsingException {
+    ByteBuffer in = buffer.duplicate();
+    try {
+      if (in.getInt() != MAGIC) {
+        throw new CLParsingException("not a compiled document", null);
+      }
+      int version = in.getShort();
+      if (version != FORMAT_VERSION || in.getInt() != FINGERPRINT) {
+        throw new CLParsingException("document compiled with another format (version "
+                + version + ")", null);
+      }
+      // at least a byte for the length of each string
+      int count = readCount(in, 1);
+      int[] starts = new int[count + 1];
+      for (int i = 0; i < count; i++) {
+        // the chars follow the lengths, there must be room for them
+        starts[i + 1] = starts[i] + readCount(in, 2);
+        if (starts[i + 1] > in.remaining() / 2) {
+          throw new CLParsingException("invalid compiled strings", null);
+        }
+      }
+      char[] chars = new char[starts[count]];
+      in.asCharBuffer().get(chars);
+      in.position(in.position() + chars.length * 2);
+
+      Decoder decoder = new Decoder(in, chars, starts);
+      CLElement root = decoder.element(in.get());
+      if (!(root instanceof CLObject)) {
+        throw new CLParsingException("invalid compiled document", null);
+      }
+      return (CLObject) root;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new CLParsingException("truncated compiled document", null);
+    }
+  }
+
+  private static class Decoder {
+    final ByteBuffer mIn;
+    final char[] mChars;
+    final int[] mStarts;
+
+    Decoder(ByteBuffer in, char[] chars, int[] starts) {
+      mIn = in;
+      mChars = chars;
+      mStarts = starts;
+    }
+
+    CLElement element(int tag) throws CLParsingException {
+      switch (tag) {
+        case TAG_OBJECT: {
+          CLObject object = new CLObject(mChars);
+          close(object, 0, 0);
+          // at least a byte for the reference of each key and one for its value
+          int count = readCount(mIn, 2);
+          for (int i = 0; i < count; i++) {
+            CLKey key = (CLKey) text(true, readVarint(mIn));
+            int valueTag = mIn.get();
+            if (valueTag != TAG_NONE) {
+              CLElement value = element(valueTag);
+              key.set(value);
+              value.setContainer(key);
+            }
+            key.setContainer(object);
+            object.add(key);
+          }
+          return object;
+        }
+        case TAG_ARRAY: {
+          CLArray array = new CLArray(mChars);
+          close(array, 0, 0);
+          int count = readCount(mIn, 1);
+          for (int i = 0; i < count; i++) {
+            CLElement value = element(mIn.get());
+            value.setContainer(array);
+            array.add(value);
+          }
+          return array;
+        }
+        case TAG_STRING:
+          return text(false, readVarint(mIn));
+        case TAG_INT: {
+          int value = readVarint(mIn);
+          return new CLNumber((value >>> 1) ^ -(value & 1));
+        }
+        case TAG_FLOAT:
+          return new CLNumber(Float.intBitsToFloat(mIn.getInt()));
+        case TAG_TRUE:
+          return token(CLToken.Type.TRUE, 0);
+        case TAG_FALSE:
+          return token(CLToken.Type.FALSE, 1);
+        case TAG_NULL:
+          return token(CLToken.Type.NULL, 2);
+        default:
+          throw new CLParsingException("invalid compiled element " + tag, null);
+      }
+    }
+
+    /**
+     * Returns a key or a string on the referenced string, in the dictionary or in the
+     * strings of the document
+     */
+    private CLElement text(boolean isKey, int reference) {
+      char[] chars = DICTIONARY_CHARS;
+      int[] starts = DICTIONARY_STARTS;
+      if (reference >= DICTIONARY.length) {
+        chars = mChars;
+        starts = mStarts;
+        reference -= DICTIONARY.length;
+      }
+      CLElement element = isKey ? new CLKey(chars) : new CLString(chars);
+      close(element, starts[reference], starts[reference + 1]);
+      return element;
+    }
+
+    private static CLToken token(CLToken.Type type, int word) {
+      CLToken token = new CLToken(DICTIONARY_CHARS);
+      token.type = type;
+      close(token, DICTIONARY_STARTS[word], DICTIONARY_STARTS[word + 1]);
+      return token;
+    }
+
+    /**
+     * Sets the range of a new element (before it is added to its container)
+     */
+    private static void close(CLElement element, int start, int end) {
+      element.setStart(start);
+      element.setEnd(end - 1);
+    }
+  }
+
+  private static int readVarint(ByteBuffer in) throws CLParsingException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new CLParsingException("invalid compiled varint", null);
+  }
+
+  /**
+   * Reads a count of items taking at least {@code itemSize} bytes each, so that a corrupt
+   * count fails here instead of allocating or looping on it
+   */
+  private static int readCount(ByteBuffer in, int itemSize) throws CLParsingException {
+    int count = readVarint(in);
+    if (count < 0 || count > in.remaining() / itemSize) {
+      throw new CLParsingException("invalid compiled count " + (count & 0xFFFFFFFFL), null);
+    }
+    return count;
+  }
+
+  /////////////////////////////////////////////////////////////////////////
+  // Command line
+  /////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Converts JSON5 documents to their binary form:
+   * {@code CLBinary <input file or directory> <output file or directory>}; each file of an
+   * input directory is written to the output directory, with the {@code .clb} extension.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: CLBinary <input file or directory> <output file or directory>");
+      System.exit(1);
+    }
+    File input = new File(args[0]);
+    File output = new File(args[1]);
+    boolean failed = false;
+    if (input.isDirectory()) {
+      File[] files = input.listFiles();
+      if (files != null) {
+        Arrays.sort(files);
+        output.mkdirs();
+        for (File file : files) {
+          if (file.isFile()) {
+            String name = file.getName();
+            int extension = name.lastIndexOf('.');
+            if (extension > 0) {
+              name = name.substring(0, extension);
+            }
+            failed |= !convert(file, new File(output, name + ".clb"));
+          }
+        }
+      }
+    } else {
+      failed = !convert(input, output);
+    }
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  private static boolean convert(File input, File output) throws IOException {
+    String content = new String(Files.readAllBytes(input.toPath()), "UTF-8");
+    try {
+      byte[] compiled = encode(CLParser.parse(content));
+      Files.write(output.toPath(), compiled);
+      System.out.println(input + " -> " + output + " (" + content.length() + " chars, "
+              + compiled.length + " bytes)");
+      return true;
+    } catch (CLParsingException e) {
+      System.err.println(input + ": " + e.reason());
+      return false;
+    }
+  }
+}
@@ -16,10 +16,15 @@
 package androidx.constraintlayout.core.parser;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 public class CLContainer extends CLElement {
   ArrayList<CLElement> mElements = new ArrayList<>();
 
+  // Containers with at least this many elements get a hashed index of their keys
+  private static final int KEY_INDEX_THRESHOLD = 8;
+  private HashMap<String, CLKey> mKeyIndex; // lazily built, reset when the elements change
+
   public CLContainer(char[] content) {
     super(content);
   }
@@ -30,6 +35,7 @@ public class CLContainer extends CLElement {
 
   public void add(CLElement element) {
     mElements.add(element);
+    mKeyIndex = null;
     if (CLParser.DEBUG) {
       System.out.println("added element " + element + " to " + this);
     }
@@ -62,28 +68,69 @@ public class CLContainer extends CLElement {
     return names;
   }
 
-  public boolean has(String name) {
-    for (CLElement element : mElements) {
+  /**
+   * Returns the first key with the given name, or null if there is none.
+   * Large containers are looked up through a hashed index of their keys.
+   */
+  CLKey findKey(String name) {
+    if (mElements.size() >= KEY_INDEX_THRESHOLD) {
+      if (mKeyIndex == null) {
+        buildKeyIndex();
+      }
+      return mKeyIndex.get(name);
+    }
+    for (int i = 0; i < mElements.size(); i++) {
+      CLElement element = mElements.get(i);
       if (element instanceof CLKey) {
         CLKey key = (CLKey) element;
-        if (key.content().equals(name)) {
-          return true;
+        if (key.contentEquals(name)) {
+          return key;
         }
       }
     }
-    return false;
+    return null;
   }
 
-  public void put(String name, CLElement value) {
-    for (CLElement element : mElements) {
-      CLKey key = (CLKey) element;
-      if (key.content().equals(name)) {
-        key.set(value);
-        return;
+  private void buildKeyIndex() {
+    mKeyIndex = new HashMap<>(mElements.size() * 2);
+    for (int i = 0; i < mElements.size(); i++) {
+      CLElement element = mElements.get(i);
+      if (element instanceof CLKey) {
+        mKeyIndex.putIfAbsent(element.content(), (CLKey) element);
       }
     }
-    CLKey key = (CLKey) CLKey.allocate(name, value);
+  }
+
+  public boolean has(String name) {
+    return findKey(name) != null;
+  }
+
+  public void put(String name, CLElement value) {
+    CLKey key = findKey(name);
+    if (key != null) {
+      key.set(value);
+      return;
+    }
+    key = (CLKey) CLKey.allocate(name, value);
     mElements.add(key);
+    mKeyIndex = null;
+  }
+
+  /**
+   * Returns a deep copy of this container, which can be modified without changing this one
+   */
+  @Override
+  public CLContainer clone() {
+    CLContainer clone = (CLContainer) super.clone();
+    ArrayList<CLElement> elements = new ArrayList<>(mElements.size());
+    for (CLElement element : mElements) {
+      CLElement copy = element.clone();
+      copy.setContainer(clone);
+      elements.add(copy);
+    }
+    clone.mElements = elements;
+    clone.mKeyIndex = null;
+    return clone;
   }
 
   public void putNumber(String name, float value) {
@@ -94,13 +141,14 @@ public class CLContainer extends CLElement {
     ArrayList<CLElement> toRemove = new ArrayList<>();
     for (CLElement element : mElements) {
       CLKey key = (CLKey) element;
-      if (key.content().equals(name)) {
+      if (key.contentEquals(name)) {
         toRemove.add(element);
       }
     }
     for (CLElement element : toRemove) {
       mElements.remove(element);
     }
+    mKeyIndex = null;
   }
 
   /////////////////////////////////////////////////////////////////////////
@@ -108,11 +156,9 @@ public class CLContainer extends CLElement {
   /////////////////////////////////////////////////////////////////////////
 
   public CLElement get(String name) throws CLParsingException {
-    for (CLElement element : mElements) {
-      CLKey key = (CLKey) element;
-      if (key.content().equals(name)) {
-        return key.getValue();
-      }
+    CLKey key = findKey(name);
+    if (key != null) {
+      return key.getValue();
     }
     throw new CLParsingException("no element for key <" + name + ">", this);
   }
@@ -180,11 +226,9 @@ public class CLContainer extends CLElement {
   /////////////////////////////////////////////////////////////////////////
 
   public CLElement getOrNull(String name) {
-    for (CLElement element : mElements) {
-      CLKey key = (CLKey) element;
-      if (key.content().equals(name)) {
-        return key.getValue();
-      }
+    CLKey key = findKey(name);
+    if (key != null) {
+      return key.getValue();
     }
     return null;
   }
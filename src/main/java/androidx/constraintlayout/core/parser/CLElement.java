@@ -15,13 +15,14 @@
  */
 package androidx.constraintlayout.core.parser;
 
-public class CLElement {
+public class CLElement implements Cloneable {
 
-    private final char[] mContent;
+    final char[] mContent;
     protected long start = -1;
     protected long end = Long.MAX_VALUE;
     protected CLContainer mContainer;
     private int line;
+    private String mCachedContent; // content of a finished element, computed on first access
 
     protected static int MAX_LINE = 80; // Max number of characters before the formatter indents
     protected static int BASE_INDENT = 2; // default indentation value
@@ -49,6 +50,7 @@ public class CLElement {
 
     public void setStart(long start) {
         this.start = start;
+        mCachedContent = null;
     }
 
     /**
@@ -93,8 +95,7 @@ public class CLElement {
         if (start > end || end == Long.MAX_VALUE) {
             return this.getClass() + " (INVALID, " + start + "-" + end + ")";
         }
-        String content = new String(mContent);
-        content = content.substring((int) start, (int) end + 1);
+        String content = new String(mContent, (int) start, (int) (end - start + 1));
 
         return getStrClass() + " (" + start + " : " + end + ") <<" + content + ">>";
     }
@@ -112,11 +113,29 @@ public class CLElement {
     }
 
     public String content() {
-        String content = new String(mContent);
+        if (mCachedContent != null) {
+            return mCachedContent;
+        }
+        if (end == Long.MAX_VALUE || end < start) {
+            return new String(mContent, (int) start, 1);
+        }
+        // Only copy the range of this element, and keep it once the element is closed
+        mCachedContent = new String(mContent, (int) start, (int) (end - start + 1));
+        return mCachedContent;
+    }
+
+    /**
+     * Compares the content of this element to the given string, without copying it out of
+     * the parsed buffer
+     */
+    boolean contentEquals(String string) {
+        if (mCachedContent != null) {
+            return mCachedContent.equals(string);
+        }
         if (end == Long.MAX_VALUE || end < start) {
-            return content.substring((int) start, (int) start + 1);
+            return content().equals(string);
         }
-        return content.substring((int) start, (int) end + 1);
+        return CLParser.regionEquals(mContent, (int) start, (int) (end - start + 1), string);
     }
 
     public boolean isDone() {
@@ -156,4 +175,18 @@ public class CLElement {
         }
         return Float.NaN;
     }
+
+    /**
+     * Returns a copy of this element, detached from its container
+     */
+    @Override
+    public CLElement clone() {
+        try {
+            CLElement clone = (CLElement) super.clone();
+            clone.mContainer = null;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
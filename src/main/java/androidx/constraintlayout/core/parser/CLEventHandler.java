@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.parser;
+
+/**
+ * Receives the content parsed by {@link CLParser#parse(String, CLEventHandler)}, in document
+ * order, without a tree of {@link CLElement} being built.
+ *
+ * Keys and strings are passed as a range of the parsed buffer, which is shared: copy them
+ * with {@code new String(content, start, length)} only when needed, or compare them with
+ * {@link CLParser#regionEquals(char[], int, int, String)}.
+ */
+public interface CLEventHandler {
+
+  void startObject();
+
+  void endObject();
+
+  void startArray();
+
+  void endArray();
+
+  void onKey(char[] content, int start, int length);
+
+  void onString(char[] content, int start, int length);
+
+  void onNumber(float value);
+
+  void onBoolean(boolean value);
+
+  void onNull();
+}
@@ -17,6 +17,12 @@ package androidx.constraintlayout.core.parser;
 
 public class CLNumber extends CLElement {
 
+  // largest mantissa parsed inline: integers up to it are exact floats
+  private static final int MAX_INLINE_MANTISSA = 1 << 24;
+  private static final double[] POWERS_OF_TEN = {
+          1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10
+  };
+
   float value = Float.NaN;
   public CLNumber(char[] content) {
     super(content);
@@ -31,6 +37,64 @@ public class CLNumber extends CLElement {
     return new CLNumber(content);
   }
 
+  @Override
+  public void setEnd(long end) {
+    boolean parse = !isDone() && Float.isNaN(value);
+    super.setEnd(end);
+    if (parse && start >= 0 && end >= start) {
+      // plain decimals are parsed when closed, straight from the buffer; anything else
+      // is left to Float.parseFloat on first access
+      value = parseDecimal(mContent, (int) start, (int) end);
+    }
+  }
+
+  /**
+   * Parses the plain decimal number (optional sign, digits, optional fraction) between
+   * start and end (inclusive) without allocating.
+   *
+   * @return the same value as {@link Float#parseFloat(String)}, or NaN if the number isn't
+   * a plain decimal or has too many digits to be converted exactly here
+   */
+  static float parseDecimal(char[] content, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (content[i] == '-' || content[i] == '+') {
+      negative = content[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int scale = 0;
+    boolean digits = false;
+    boolean fraction = false;
+    for (; i <= end; i++) {
+      char c = content[i];
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        if (mantissa > MAX_INLINE_MANTISSA) {
+          return Float.NaN;
+        }
+        digits = true;
+        if (fraction) {
+          scale++;
+        }
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else {
+        return Float.NaN;
+      }
+    }
+    if (!digits || scale >= POWERS_OF_TEN.length) {
+      return Float.NaN;
+    }
+    // both operands are exact, so the quotient is the correctly rounded double
+    double value = mantissa / POWERS_OF_TEN[scale];
+    if ((Double.doubleToRawLongBits(value) & 0x1FFFFFFFL) == 0x10000000L) {
+      // half way between two floats, rounding it again could differ from parseFloat
+      return Float.NaN;
+    }
+    return negative ? -(float) value : (float) value;
+  }
+
   protected String toJSON() {
     float value = getFloat();
     int intValue = (int) value;
@@ -27,6 +27,11 @@ public class CLObject extends CLContainer implements Iterable<CLKey>{
     return new CLObject(content);
   }
 
+  @Override
+  public CLObject clone() {
+    return (CLObject) super.clone();
+  }
+
   public String toJSON() {
     StringBuilder json = new StringBuilder(getDebugName() + "{ ");
     boolean first = true;
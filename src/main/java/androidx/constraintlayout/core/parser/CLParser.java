@@ -15,6 +15,8 @@
  */
 package androidx.constraintlayout.core.parser;
 
+import java.util.Arrays;
+
 public class CLParser {
 
   static boolean DEBUG = false;
@@ -29,10 +31,33 @@ public class CLParser {
     return (new CLParser(string)).parse();
   }
 
+  /**
+   * Parses the content as a stream of events sent to the handler, without building a tree
+   * of {@link CLElement}.
+   */
+  public static void parse(String string, CLEventHandler handler) throws CLParsingException {
+    (new CLParser(string)).parse(handler);
+  }
+
   public CLParser(String content) {
     mContent = content;
   }
 
+  /**
+   * Returns true if the range of the content has the same characters as the string
+   */
+  public static boolean regionEquals(char[] content, int start, int length, String string) {
+    if (length != string.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (content[start + i] != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public CLObject parse() throws CLParsingException {
     CLObject root = null;
 
@@ -154,6 +179,173 @@ public class CLParser {
     return root;
   }
 
+  /**
+   * Parses the content into events sent to the handler. As with {@link #parse()}, content
+   * before the root object is skipped, and the objects and arrays still open at the end of
+   * the content are closed.
+   */
+  public void parse(CLEventHandler handler) throws CLParsingException {
+    char[] content = mContent.toCharArray();
+    final int length = content.length;
+
+    int i = 0;
+    while (i < length && content[i] != '{') {
+      i++;
+    }
+    if (i == length) {
+      throw new CLParsingException("invalid json content", null);
+    }
+
+    // for each open container, true if it is an object, false if it is an array
+    boolean[] objects = new boolean[16];
+    int depth = 0;
+    boolean expectKey = false;
+    while (i < length) {
+      char c = content[i];
+      switch (c) {
+        case ' ':
+        case ':':
+        case '\t':
+        case '\r':
+        case '\n': {
+          i++;
+        }
+        break;
+        case ',': {
+          expectKey = objects[depth - 1];
+          i++;
+        }
+        break;
+        case '/': {
+          if (i + 1 < length && content[i + 1] == '/') {
+            while (i < length && content[i] != '\n') {
+              i++;
+            }
+          } else {
+            i++;
+          }
+        }
+        break;
+        case '{':
+        case '[': {
+          if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+          }
+          expectKey = c == '{';
+          objects[depth++] = expectKey;
+          if (expectKey) {
+            handler.startObject();
+          } else {
+            handler.startArray();
+          }
+          i++;
+        }
+        break;
+        case '}':
+        case ']': {
+          depth--;
+          if (objects[depth]) {
+            handler.endObject();
+          } else {
+            handler.endArray();
+          }
+          expectKey = false;
+          if (depth == 0) {
+            return;
+          }
+          i++;
+        }
+        break;
+        case '"':
+        case '\'': {
+          int start = i + 1;
+          int end = start;
+          while (end < length && content[end] != c) {
+            end++;
+          }
+          if (expectKey) {
+            handler.onKey(content, start, end - start);
+          } else {
+            handler.onString(content, start, end - start);
+          }
+          expectKey = false;
+          i = end + 1;
+        }
+        break;
+        default: {
+          int start = i;
+          while (i < length && !isDelimiter(content[i])) {
+            i++;
+          }
+          if (expectKey) {
+            handler.onKey(content, start, i - start);
+          } else {
+            parseValue(content, start, i - 1, handler);
+          }
+          expectKey = false;
+        }
+      }
+    }
+
+    // Close all open containers, as the tree parser does with invalid content
+    while (depth > 0) {
+      depth--;
+      if (objects[depth]) {
+        handler.endObject();
+      } else {
+        handler.endArray();
+      }
+    }
+  }
+
+  private static boolean isDelimiter(char c) {
+    return c == '}' || c == ']' || c == ',' || c == ' ' || c == '\t' || c == '\r'
+            || c == '\n' || c == ':';
+  }
+
+  /**
+   * Sends the number or token between start and end (inclusive) to the handler
+   */
+  private static void parseValue(char[] content, int start, int end, CLEventHandler handler)
+          throws CLParsingException {
+    char c = content[start];
+    if (c == '-' || c == '+' || c == '.' || (c >= '0' && c <= '9')) {
+      float value = CLNumber.parseDecimal(content, start, end);
+      if (Float.isNaN(value)) {
+        try {
+          value = Float.parseFloat(new String(content, start, end - start + 1));
+        } catch (NumberFormatException e) {
+          throw new CLParsingException("incorrect number <"
+                  + new String(content, start, end - start + 1) + "> at line "
+                  + lineAt(content, start), null);
+        }
+      }
+      handler.onNumber(value);
+      return;
+    }
+    int length = end - start + 1;
+    if (regionEquals(content, start, length, "true")) {
+      handler.onBoolean(true);
+    } else if (regionEquals(content, start, length, "false")) {
+      handler.onBoolean(false);
+    } else if (regionEquals(content, start, length, "null")) {
+      handler.onNull();
+    } else {
+      throw new CLParsingException("incorrect token <" + new String(content, start, length)
+              + "> at line " + lineAt(content, start), null);
+    }
+  }
+
+  private static int lineAt(char[] content, int position) {
+    int line = 1;
+    for (int i = 0; i < position; i++) {
+      if (content[i] == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+
   private CLElement getNextJsonElement(int position, char c, CLElement currentElement,
                                               char[] content) throws CLParsingException {
     switch (c) {
@@ -38,9 +38,9 @@ public class CLToken extends CLElement {
 
   enum Type { UNKNOWN, TRUE, FALSE, NULL }
 
-  char[] tokenTrue = "true".toCharArray();
-  char[] tokenFalse = "false".toCharArray();
-  char[] tokenNull = "null".toCharArray();
+  static final char[] tokenTrue = "true".toCharArray();
+  static final char[] tokenFalse = "false".toCharArray();
+  static final char[] tokenNull = "null".toCharArray();
 
   public CLToken(char[] content) {
     super(content);
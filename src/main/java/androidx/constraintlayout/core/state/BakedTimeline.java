@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.state;
+
+/**
+ * The frames of all the widgets of a transition sampled at regular progress steps, see
+ * {@link Transition#bake(int, int, int, float)}.
+ *
+ * The samples are stored in one array, widget after widget for each step. Frames between
+ * two steps are interpolated linearly; visibility, and transforms that are only set on one
+ * side, take the value of the closest step.
+ */
+class BakedTimeline {
+    private static final int LEFT = 0;
+    private static final int TOP = 1;
+    private static final int RIGHT = 2;
+    private static final int BOTTOM = 3;
+    private static final int PIVOT_X = 4;
+    private static final int PIVOT_Y = 5;
+    private static final int ROTATION_X = 6;
+    private static final int ROTATION_Y = 7;
+    private static final int ROTATION_Z = 8;
+    private static final int TRANSLATION_X = 9;
+    private static final int TRANSLATION_Y = 10;
+    private static final int TRANSLATION_Z = 11;
+    private static final int SCALE_X = 12;
+    private static final int SCALE_Y = 13;
+    private static final int ALPHA = 14;
+    private static final int VISIBILITY = 15;
+    private static final int ATTRIBUTES = 16;
+
+    final int parentWidth;
+    final int parentHeight;
+    final int steps;
+    final int count;
+    private final float[] mSamples;
+
+    BakedTimeline(int parentWidth, int parentHeight, int steps, int count) {
+        this.parentWidth = parentWidth;
+        this.parentHeight = parentHeight;
+        this.steps = steps;
+        this.count = count;
+        mSamples = new float[(steps + 1) * count * ATTRIBUTES];
+    }
+
+    /**
+     * Store the frames interpolated at the given step
+     */
+    void record(int step, TransitionFrames frames) {
+        final float[] s = mSamples;
+        int offset = step * count * ATTRIBUTES;
+        for (int i = 0; i < count; i++) {
+            s[offset + LEFT] = frames.left[i];
+            s[offset + TOP] = frames.top[i];
+            s[offset + RIGHT] = frames.right[i];
+            s[offset + BOTTOM] = frames.bottom[i];
+            s[offset + PIVOT_X] = frames.pivotX[i];
+            s[offset + PIVOT_Y] = frames.pivotY[i];
+            s[offset + ROTATION_X] = frames.rotationX[i];
+            s[offset + ROTATION_Y] = frames.rotationY[i];
+            s[offset + ROTATION_Z] = frames.rotationZ[i];
+            s[offset + TRANSLATION_X] = frames.translationX[i];
+            s[offset + TRANSLATION_Y] = frames.translationY[i];
+            s[offset + TRANSLATION_Z] = frames.translationZ[i];
+            s[offset + SCALE_X] = frames.scaleX[i];
+            s[offset + SCALE_Y] = frames.scaleY[i];
+            s[offset + ALPHA] = frames.alpha[i];
+            s[offset + VISIBILITY] = frames.visibility[i];
+            offset += ATTRIBUTES;
+        }
+    }
+
+    boolean matches(int parentWidth, int parentHeight, float progress) {
+        return parentWidth == this.parentWidth && parentHeight == this.parentHeight
+                && progress >= 0 && progress <= 1;
+    }
+
+    /**
+     * Set the frame of a widget at the given progress (between 0 and 1)
+     */
+    void apply(float progress, int index, WidgetFrame frame) {
+        float position = progress * steps;
+        int step = Math.min((int) position, steps - 1);
+        float fraction = position - step;
+        int a = (step * count + index) * ATTRIBUTES;
+        int b = a + count * ATTRIBUTES;
+        frame.left = Math.round(lerp(a + LEFT, b + LEFT, fraction));
+        frame.top = Math.round(lerp(a + TOP, b + TOP, fraction));
+        frame.right = Math.round(lerp(a + RIGHT, b + RIGHT, fraction));
+        frame.bottom = Math.round(lerp(a + BOTTOM, b + BOTTOM, fraction));
+        frame.pivotX = lerp(a + PIVOT_X, b + PIVOT_X, fraction);
+        frame.pivotY = lerp(a + PIVOT_Y, b + PIVOT_Y, fraction);
+        frame.rotationX = lerp(a + ROTATION_X, b + ROTATION_X, fraction);
+        frame.rotationY = lerp(a + ROTATION_Y, b + ROTATION_Y, fraction);
+        frame.rotationZ = lerp(a + ROTATION_Z, b + ROTATION_Z, fraction);
+        frame.translationX = lerp(a + TRANSLATION_X, b + TRANSLATION_X, fraction);
+        frame.translationY = lerp(a + TRANSLATION_Y, b + TRANSLATION_Y, fraction);
+        frame.translationZ = lerp(a + TRANSLATION_Z, b + TRANSLATION_Z, fraction);
+        frame.scaleX = lerp(a + SCALE_X, b + SCALE_X, fraction);
+        frame.scaleY = lerp(a + SCALE_Y, b + SCALE_Y, fraction);
+        frame.alpha = lerp(a + ALPHA, b + ALPHA, fraction);
+        frame.visibility = (int) mSamples[(fraction < 0.5f ? a : b) + VISIBILITY];
+        frame.interpolatedPos = progress;
+    }
+
+    private float lerp(int a, int b, float fraction) {
+        float start = mSamples[a];
+        float end = mSamples[b];
+        if (Float.isNaN(start) || Float.isNaN(end)) {
+            return fraction < 0.5f ? start : end;
+        }
+        return start + (end - start) * fraction;
+    }
+
+    /**
+     * Largest difference between a baked and a live frame, in pixels, degrees and percents
+     * of scale and alpha; infinite if only one of them has a transform set
+     */
+    static float difference(WidgetFrame baked, WidgetFrame live) {
+        float error = 0;
+        error = Math.max(error, Math.abs(baked.left - live.left));
+        error = Math.max(error, Math.abs(baked.top - live.top));
+        error = Math.max(error, Math.abs(baked.right - live.right));
+        error = Math.max(error, Math.abs(baked.bottom - live.bottom));
+        error = Math.max(error, difference(baked.pivotX, live.pivotX));
+        error = Math.max(error, difference(baked.pivotY, live.pivotY));
+        error = Math.max(error, difference(baked.rotationX, live.rotationX));
+        error = Math.max(error, difference(baked.rotationY, live.rotationY));
+        error = Math.max(error, difference(baked.rotationZ, live.rotationZ));
+        error = Math.max(error, difference(baked.translationX, live.translationX));
+        error = Math.max(error, difference(baked.translationY, live.translationY));
+        error = Math.max(error, difference(baked.translationZ, live.translationZ));
+        // scale and alpha in percent
+        error = Math.max(error, 100 * difference(baked.scaleX, live.scaleX));
+        error = Math.max(error, 100 * difference(baked.scaleY, live.scaleY));
+        error = Math.max(error, 100 * difference(baked.alpha, live.alpha));
+        if (baked.visibility != live.visibility) {
+            error = Float.POSITIVE_INFINITY;
+        }
+        return error;
+    }
+
+    private static float difference(float baked, float live) {
+        if (Float.isNaN(baked) || Float.isNaN(live)) {
+            return Float.isNaN(baked) == Float.isNaN(live) ? 0 : Float.POSITIVE_INFINITY;
+        }
+        return Math.abs(baked - live);
+    }
+}
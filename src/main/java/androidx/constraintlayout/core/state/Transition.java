@@ -30,9 +30,14 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Transition {
     private HashMap<String, WidgetState> state = new HashMap<>();
+    // the widget states in the order they were added, indexed by getWidgetIndex()
+    private final ArrayList<WidgetState> mWidgets = new ArrayList<>();
+    private final ArrayList<String> mWidgetIds = new ArrayList<>();
+    private BakedTimeline mBaked = null;
     HashMap<Integer, HashMap<String, KeyPosition>> keyPositions = new HashMap<>();
 
     public final static int START = 0;
@@ -43,6 +48,14 @@ public class Transition {
     // Interpolation
     private int mDefaultInterpolator = 0;
     private String mDefaultInterpolatorString = null;
+    private Interpolator mInterpolator = null;
+    private boolean mUseInterpolatorLookupTable = false;
+    // interpolators by easing string, the easings are immutable once built
+    private static final int MAX_CACHED_INTERPOLATORS = 64;
+    private static final ConcurrentHashMap<String, Interpolator> sInterpolators =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Interpolator> sLookupTableInterpolators =
+            new ConcurrentHashMap<>();
     private static final int SPLINE_STRING = -1;
     private static final int INTERPOLATOR_REFERENCE_ID = -2;
     static final int EASE_IN_OUT = 0;
@@ -128,6 +141,7 @@ public class Transition {
     }
 
     public void setTransitionProperties(TypedBundle bundle) {
+        mBaked = null;
         pathMotionArc = bundle.getInteger(TypedValues.Position.TYPE_PATH_MOTION_ARC);
         mAutoTransition = bundle.getInteger(TypedValues.Transition.TYPE_AUTO_TRANSITION);
     }
@@ -141,8 +155,12 @@ public class Transition {
         MotionWidget motionWidgetEnd;
         MotionWidget motionWidgetInterpolated;
         KeyCache myKeyCache = new KeyCache();
+        int index;
         int myParentHeight = -1;
         int myParentWidth = -1;
+        boolean mNeedsSetup = true;
+        // number of times the splines were built
+        int mSetupCount = 0;
 
         public WidgetState() {
             start = new WidgetFrame();
@@ -160,18 +178,21 @@ public class Transition {
             MotionKeyPosition keyPosition = new MotionKeyPosition();
             prop.applyDelta(keyPosition);
             motionControl.addKey(keyPosition);
+            mNeedsSetup = true;
         }
 
         public void setKeyAttribute(TypedBundle prop) {
             MotionKeyAttributes keyAttributes = new MotionKeyAttributes();
             prop.applyDelta(keyAttributes);
             motionControl.addKey(keyAttributes);
+            mNeedsSetup = true;
         }
 
         public void setKeyCycle(TypedBundle prop) {
             MotionKeyCycle keyAttributes = new MotionKeyCycle();
             prop.applyDelta(keyAttributes);
             motionControl.addKey(keyAttributes);
+            mNeedsSetup = true;
         }
 
         public void update(ConstraintWidget child, int state) {
@@ -182,7 +203,14 @@ public class Transition {
                 end.update(child);
                 motionControl.setEnd(motionWidgetEnd);
             }
-            myParentWidth = -1;
+            mNeedsSetup = true;
+        }
+
+        /**
+         * Force the splines of this widget to be rebuilt on the next interpolation
+         */
+        public void invalidate() {
+            mNeedsSetup = true;
         }
 
         public WidgetFrame getFrame(int type) {
@@ -195,9 +223,13 @@ public class Transition {
         }
 
         public void interpolate(int parentWidth, int parentHeight, float progress, Transition transition) {
-            if (true || parentHeight != myParentHeight || parentWidth != myParentWidth) {
+            // Splines only depend on the start/end frames, the keyframes and the parent size;
+            // rebuild them when one of those changed, otherwise only evaluate them.
+            if (mNeedsSetup || parentHeight != myParentHeight || parentWidth != myParentWidth) {
                 myParentHeight = parentHeight;
                 myParentWidth = parentWidth;
+                mNeedsSetup = false;
+                mSetupCount++;
                 motionControl.setup(parentWidth, parentHeight, 1, System.nanoTime());
             }
             WidgetFrame.interpolate(parentWidth, parentHeight, interpolated, start, end, transition, progress);
@@ -228,6 +260,9 @@ public class Transition {
 
     public void clear() {
         state.clear();
+        mWidgets.clear();
+        mWidgetIds.clear();
+        mBaked = null;
     }
 
     public boolean contains(String key) {
@@ -235,18 +270,22 @@ public class Transition {
     }
 
     public void addKeyPosition(String target, TypedBundle bundle) {
+        mBaked = null;
         getWidgetState(target, null, 0).setKeyPosition(bundle);
     }
 
     public void addKeyAttribute(String target, TypedBundle bundle) {
+        mBaked = null;
         getWidgetState(target, null, 0).setKeyAttribute(bundle);
     }
 
     public void addKeyCycle(String target, TypedBundle bundle) {
+        mBaked = null;
         getWidgetState(target, null, 0).setKeyCycle(bundle);
     }
 
     public void addKeyPosition(String target, int frame, int type, float x, float y) {
+        mBaked = null;
         TypedBundle bundle = new TypedBundle();
         bundle.add(TypedValues.Position.TYPE_POSITION_TYPE, 2);
         bundle.add(TypedValues.TYPE_FRAME_POSITION, frame);
@@ -267,15 +306,20 @@ public class Transition {
         WidgetState widgetState = getWidgetState(widgetId, null, state);
         WidgetFrame frame = widgetState.getFrame(state);
         frame.addCustomFloat(property, value);
+        widgetState.invalidate();
+        mBaked = null;
     }
 
     public void addCustomColor(int state, String widgetId, String property, int color) {
         WidgetState widgetState = getWidgetState(widgetId, null, state);
         WidgetFrame frame = widgetState.getFrame(state);
         frame.addCustomColor(property, color);
+        widgetState.invalidate();
+        mBaked = null;
     }
 
     public void updateFrom(ConstraintWidgetContainer container, int state) {
+        mBaked = null;
         final ArrayList<ConstraintWidget> children = container.getChildren();
         final int count = children.size();
         for (int i = 0; i < count; i++) {
@@ -286,12 +330,126 @@ public class Transition {
     }
 
     public void interpolate(int parentWidth, int parentHeight, float progress) {
-        for (String key : state.keySet()) {
-            WidgetState widget = state.get(key);
+        final int count = mWidgets.size();
+        final BakedTimeline baked = getBaked(parentWidth, parentHeight, progress);
+        for (int i = 0; i < count; i++) {
+            interpolate(mWidgets.get(i), parentWidth, parentHeight, progress, baked);
+        }
+    }
+
+    private BakedTimeline getBaked(int parentWidth, int parentHeight, float progress) {
+        if (mBaked != null && mBaked.matches(parentWidth, parentHeight, progress)) {
+            return mBaked;
+        }
+        return null;
+    }
+
+    private void interpolate(WidgetState widget, int parentWidth, int parentHeight,
+                             float progress, BakedTimeline baked) {
+        // custom attributes are not baked
+        if (baked != null && widget.start.mCustom.isEmpty() && widget.end.mCustom.isEmpty()) {
+            baked.apply(progress, widget.index, widget.interpolated);
+        } else {
             widget.interpolate(parentWidth, parentHeight, progress, this);
         }
     }
 
+    /**
+     * Sample the frames of all the widgets at steps + 1 regular progress values, and from
+     * now on interpolate between those samples instead of evaluating the motion (for this
+     * parent size). The bake is dropped when the transition changes.
+     *
+     * The baked frames are compared to the live ones halfway between the samples; if they
+     * differ by more than the tolerance (in pixels or degrees, percents for scale and
+     * alpha), the bake is not used.
+     *
+     * @return true if the transition is now baked
+     */
+    public boolean bake(int parentWidth, int parentHeight, int steps, float tolerance) {
+        mBaked = null;
+        steps = Math.max(1, steps);
+        final int count = mWidgets.size();
+        TransitionFrames frames = new TransitionFrames();
+        BakedTimeline timeline = new BakedTimeline(parentWidth, parentHeight, steps, count);
+        for (int step = 0; step <= steps; step++) {
+            interpolate(parentWidth, parentHeight, step / (float) steps, frames);
+            timeline.record(step, frames);
+        }
+        WidgetFrame baked = new WidgetFrame();
+        for (int step = 0; step < steps; step++) {
+            float progress = (step + 0.5f) / steps;
+            interpolate(parentWidth, parentHeight, progress);
+            for (int i = 0; i < count; i++) {
+                WidgetState widget = mWidgets.get(i);
+                if (!widget.start.mCustom.isEmpty() || !widget.end.mCustom.isEmpty()) {
+                    continue;
+                }
+                timeline.apply(progress, i, baked);
+                if (!(BakedTimeline.difference(baked, widget.interpolated) <= tolerance)) {
+                    return false;
+                }
+            }
+        }
+        mBaked = timeline;
+        return true;
+    }
+
+    public boolean isBaked() {
+        return mBaked != null;
+    }
+
+    public void clearBake() {
+        mBaked = null;
+    }
+
+    /**
+     * Interpolate all the widgets and copy their frames into the given arrays, at the index
+     * of each widget. Does not allocate once the arrays are large enough.
+     *
+     * @param frames receives the interpolated frames
+     */
+    public void interpolate(int parentWidth, int parentHeight, float progress,
+                            TransitionFrames frames) {
+        final int count = mWidgets.size();
+        frames.ensureCapacity(count);
+        frames.count = count;
+        frames.progress = progress;
+        final BakedTimeline baked = getBaked(parentWidth, parentHeight, progress);
+        for (int i = 0; i < count; i++) {
+            WidgetState widget = mWidgets.get(i);
+            interpolate(widget, parentWidth, parentHeight, progress, baked);
+            frames.set(i, widget.interpolated);
+        }
+    }
+
+    /**
+     * Number of widgets in the transition
+     */
+    public int getWidgetCount() {
+        return mWidgets.size();
+    }
+
+    /**
+     * Index of the widget in the arrays of {@link TransitionFrames}, stable until the
+     * transition is cleared.
+     *
+     * @return the index, or -1 if the widget is not in the transition
+     */
+    public int getWidgetIndex(String id) {
+        WidgetState widgetState = state.get(id);
+        if (widgetState == null) {
+            return -1;
+        }
+        return widgetState.index;
+    }
+
+    /**
+     * Id of the widget at the given index
+     */
+    public String getWidgetId(int index) {
+        return mWidgetIds.get(index);
+    }
+
     public WidgetFrame getStart(String id) {
         WidgetState widgetState = state.get(id);
         if (widgetState == null) {
@@ -330,7 +488,7 @@ public class Transition {
         return widgetState.motionControl.buildKeyFrames(rectangles, pathMode, position);
     }
 
-    private WidgetState getWidgetState(String widgetId) {
+    WidgetState getWidgetState(String widgetId) {
         return this.state.get(widgetId);
     }
 
@@ -342,6 +500,10 @@ public class Transition {
                 widgetState.motionControl.setPathMotionArc(pathMotionArc);
             }
             state.put(widgetId, widgetState);
+            widgetState.index = mWidgets.size();
+            mBaked = null;
+            mWidgets.add(widgetState);
+            mWidgetIds.add(widgetId);
             if (child != null) {
                 widgetState.update(child, transitionState);
             }
@@ -380,29 +542,91 @@ public class Transition {
     }
 
     public Interpolator getInterpolator() {
-        return getInterpolator(mDefaultInterpolator, mDefaultInterpolatorString);
+        if (mInterpolator == null) {
+            mInterpolator = getInterpolator(mDefaultInterpolator, mDefaultInterpolatorString,
+                    mUseInterpolatorLookupTable);
+        }
+        return mInterpolator;
+    }
+
+    /**
+     * Evaluate the cubic easing of the transition with a precomputed table instead of a
+     * binary search on every frame, see {@link Easing.CubicEasing#setUseLookupTable}. Off by
+     * default; the values are within 1e-5 of the exact curve, closer than the ones of the
+     * binary search.
+     *
+     * @param useLookupTable true to use the precomputed table
+     */
+    public void setUseInterpolatorLookupTable(boolean useLookupTable) {
+        if (mUseInterpolatorLookupTable != useLookupTable) {
+            mUseInterpolatorLookupTable = useLookupTable;
+            mInterpolator = null;
+        }
     }
 
     public static Interpolator getInterpolator(int interpolator, String interpolatorString) {
+        return getInterpolator(interpolator, interpolatorString, false);
+    }
+
+    /**
+     * Returns the interpolator of the given type, shared by all the transitions that use the
+     * same easing.
+     *
+     * @param useLookupTable true to evaluate cubic easings with a precomputed table
+     */
+    public static Interpolator getInterpolator(int interpolator, String interpolatorString,
+                                               boolean useLookupTable) {
+        String configString;
         switch (interpolator) {
             case SPLINE_STRING:
-                return v -> (float) Easing.getInterpolator(interpolatorString).get(v);
+                configString = interpolatorString;
+                break;
             case EASE_IN_OUT:
-                return v -> (float) Easing.getInterpolator("standard").get(v);
+                configString = "standard";
+                break;
             case EASE_IN:
-                return v -> (float) Easing.getInterpolator("accelerate").get(v);
+                configString = "accelerate";
+                break;
             case EASE_OUT:
-                return v -> (float) Easing.getInterpolator("decelerate").get(v);
+                configString = "decelerate";
+                break;
             case LINEAR:
-                return v -> (float) Easing.getInterpolator("linear").get(v);
+                configString = "linear";
+                break;
             case ANTICIPATE:
-                return v -> (float) Easing.getInterpolator("anticipate").get(v);
+                configString = "anticipate";
+                break;
             case OVERSHOOT:
-                return v -> (float) Easing.getInterpolator("overshoot").get(v);
+                configString = "overshoot";
+                break;
             case BOUNCE: // TODO make a better bounce
-                return v -> (float) Easing.getInterpolator("spline(0.0, 0.2, 0.4, 0.6, 0.8 ,1.0, 0.8, 1.0, 0.9, 1.0)").get(v);
+                configString = "spline(0.0, 0.2, 0.4, 0.6, 0.8 ,1.0, 0.8, 1.0, 0.9, 1.0)";
+                break;
+            default:
+                return null;
         }
-        return null;
+        if (configString == null) {
+            return null;
+        }
+        ConcurrentHashMap<String, Interpolator> cache = useLookupTable
+                ? sLookupTableInterpolators : sInterpolators;
+        Interpolator cached = cache.get(configString);
+        if (cached != null) {
+            return cached;
+        }
+        // parse the easing once, the returned interpolator is called on every frame
+        final Easing easing = Easing.getInterpolator(configString);
+        if (useLookupTable && easing instanceof Easing.CubicEasing) {
+            ((Easing.CubicEasing) easing).setUseLookupTable(true);
+        }
+        Interpolator created = v -> (float) easing.get(v);
+        if (cache.size() < MAX_CACHED_INTERPOLATORS) {
+            cached = cache.putIfAbsent(configString, created);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return created;
     }
 
     public int getAutoTransition() {
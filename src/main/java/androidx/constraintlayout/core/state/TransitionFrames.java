@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.state;
+
+import java.util.Arrays;
+
+/**
+ * The interpolated frames of all the widgets of a {@link Transition}, as one array per
+ * attribute indexed by {@link Transition#getWidgetIndex(String)}.
+ *
+ * Filled by {@link Transition#interpolate(int, int, float, TransitionFrames)}; the arrays are
+ * only reallocated when the transition gets more widgets. Unset transforms are NaN, as in
+ * {@link WidgetFrame}. Custom attributes are not copied, use
+ * {@link Transition#getInterpolated(String)} for them.
+ */
+public class TransitionFrames {
+    public int count = 0;
+    public float progress = Float.NaN;
+
+    public float[] left = new float[0];
+    public float[] top = new float[0];
+    public float[] right = new float[0];
+    public float[] bottom = new float[0];
+
+    public float[] pivotX = new float[0];
+    public float[] pivotY = new float[0];
+
+    public float[] rotationX = new float[0];
+    public float[] rotationY = new float[0];
+    public float[] rotationZ = new float[0];
+
+    public float[] translationX = new float[0];
+    public float[] translationY = new float[0];
+    public float[] translationZ = new float[0];
+
+    public float[] scaleX = new float[0];
+    public float[] scaleY = new float[0];
+
+    public float[] alpha = new float[0];
+
+    public int[] visibility = new int[0];
+
+    /**
+     * Make sure the arrays can hold the given number of widgets
+     */
+    public void ensureCapacity(int capacity) {
+        if (left.length >= capacity) {
+            return;
+        }
+        capacity = Math.max(capacity, left.length * 2);
+        left = Arrays.copyOf(left, capacity);
+        top = Arrays.copyOf(top, capacity);
+        right = Arrays.copyOf(right, capacity);
+        bottom = Arrays.copyOf(bottom, capacity);
+        pivotX = Arrays.copyOf(pivotX, capacity);
+        pivotY = Arrays.copyOf(pivotY, capacity);
+        rotationX = Arrays.copyOf(rotationX, capacity);
+        rotationY = Arrays.copyOf(rotationY, capacity);
+        rotationZ = Arrays.copyOf(rotationZ, capacity);
+        translationX = Arrays.copyOf(translationX, capacity);
+        translationY = Arrays.copyOf(translationY, capacity);
+        translationZ = Arrays.copyOf(translationZ, capacity);
+        scaleX = Arrays.copyOf(scaleX, capacity);
+        scaleY = Arrays.copyOf(scaleY, capacity);
+        alpha = Arrays.copyOf(alpha, capacity);
+        visibility = Arrays.copyOf(visibility, capacity);
+    }
+
+    void set(int index, WidgetFrame frame) {
+        left[index] = frame.left;
+        top[index] = frame.top;
+        right[index] = frame.right;
+        bottom[index] = frame.bottom;
+        pivotX[index] = frame.pivotX;
+        pivotY[index] = frame.pivotY;
+        rotationX[index] = frame.rotationX;
+        rotationY[index] = frame.rotationY;
+        rotationZ[index] = frame.rotationZ;
+        translationX[index] = frame.translationX;
+        translationY[index] = frame.translationY;
+        translationZ[index] = frame.translationZ;
+        scaleX[index] = frame.scaleX;
+        scaleY[index] = frame.scaleY;
+        alpha[index] = frame.alpha;
+        visibility[index] = frame.visibility;
+    }
+
+    /**
+     * Copy the frame of a widget back into a {@link WidgetFrame} (custom attributes excepted)
+     */
+    public void get(int index, WidgetFrame frame) {
+        frame.left = (int) left[index];
+        frame.top = (int) top[index];
+        frame.right = (int) right[index];
+        frame.bottom = (int) bottom[index];
+        frame.pivotX = pivotX[index];
+        frame.pivotY = pivotY[index];
+        frame.rotationX = rotationX[index];
+        frame.rotationY = rotationY[index];
+        frame.rotationZ = rotationZ[index];
+        frame.translationX = translationX[index];
+        frame.translationY = translationY[index];
+        frame.translationZ = translationZ[index];
+        frame.scaleX = scaleX[index];
+        frame.scaleY = scaleY[index];
+        frame.alpha = alpha[index];
+        frame.visibility = visibility[index];
+        frame.interpolatedPos = progress;
+    }
+}
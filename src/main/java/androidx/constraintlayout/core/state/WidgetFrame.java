@@ -294,32 +294,36 @@ public class WidgetFrame {
     }
 
     public void setCustomAttribute(String name, int type, float value) {
-        if (mCustom.containsKey(name)) {
-            mCustom.get(name).setFloatValue(value);
+        CustomVariable variable = mCustom.get(name);
+        if (variable != null) {
+            variable.setFloatValue(value);
         } else {
             mCustom.put(name, new CustomVariable(name, type, value));
         }
     }
 
     public void setCustomAttribute(String name, int type, int value) {
-        if (mCustom.containsKey(name)) {
-            mCustom.get(name).setIntValue(value);
+        CustomVariable variable = mCustom.get(name);
+        if (variable != null) {
+            variable.setIntValue(value);
         } else {
             mCustom.put(name, new CustomVariable(name, type, value));
         }
     }
 
     public void setCustomAttribute(String name, int type, boolean value) {
-        if (mCustom.containsKey(name)) {
-            mCustom.get(name).setBooleanValue(value);
+        CustomVariable variable = mCustom.get(name);
+        if (variable != null) {
+            variable.setBooleanValue(value);
         } else {
             mCustom.put(name, new CustomVariable(name, type, value));
         }
     }
 
     public void setCustomAttribute(String name, int type, String value) {
-        if (mCustom.containsKey(name)) {
-            mCustom.get(name).setStringValue(value);
+        CustomVariable variable = mCustom.get(name);
+        if (variable != null) {
+            variable.setStringValue(value);
         } else {
             mCustom.put(name, new CustomVariable(name, type, value));
         }
@@ -38,6 +38,7 @@ public class Barrier extends HelperWidget {
     private boolean mAllowsGoneWidget = true;
     private int mMargin = 0;
     boolean resolved = false;
+    private boolean mSavedResolved = false;
 
     public Barrier() {}
     public Barrier(String debugName) {
@@ -121,6 +122,18 @@ public class Barrier extends HelperWidget {
         }
     }
 
+    @Override
+    void saveSolverState() {
+        super.saveSolverState();
+        mSavedResolved = resolved;
+    }
+
+    @Override
+    void restoreSolverState() {
+        super.restoreSolverState();
+        resolved = mSavedResolved;
+    }
+
     /**
      * Add this widget to the solver
      *
@@ -187,6 +187,9 @@ public class ConstraintAnchor {
      * Resets the anchor's connection.
      */
     public void reset() {
+        if (mTarget != null) {
+            mOwner.invalidateWidget();
+        }
         if (mTarget != null && mTarget.mDependents != null) {
             mTarget.mDependents.remove(this);
             if (mTarget.mDependents.size() == 0) {
@@ -219,6 +222,9 @@ public class ConstraintAnchor {
         if (!forceConnection && !isValidConnection(toAnchor)) {
             return false;
         }
+        if (mTarget != toAnchor || mMargin != margin || mGoneMargin != goneMargin) {
+            mOwner.invalidateWidget();
+        }
         mTarget = toAnchor;
         if (mTarget.mDependents == null) {
             mTarget.mDependents = new HashSet<>();
@@ -364,6 +370,9 @@ public class ConstraintAnchor {
      */
     public void setMargin(int margin) {
         if (isConnected()) {
+            if (mMargin != margin) {
+                mOwner.invalidateWidget();
+            }
             mMargin = margin;
         }
     }
@@ -374,6 +383,9 @@ public class ConstraintAnchor {
      */
     public void setGoneMargin(int margin) {
         if (isConnected()) {
+            if (mGoneMargin != margin) {
+                mOwner.invalidateWidget();
+            }
             mGoneMargin = margin;
         }
     }
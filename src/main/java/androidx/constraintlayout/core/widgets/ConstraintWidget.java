@@ -95,6 +95,12 @@ public class ConstraintWidget {
     private boolean horizontalSolvingPass = false;
     private boolean verticalSolvingPass = false;
 
+    // state consumed by addToSolver(), see saveSolverState()
+    private boolean mSavedResolvedHorizontal = false;
+    private boolean mSavedResolvedVertical = false;
+    private int mSavedWidthOverride = -1;
+    private int mSavedHeightOverride = -1;
+
     public void setFinalFrame(int left, int top, int right, int bottom, int baseline, int orientation) {
         setFrame(left, top, right, bottom);
         setBaselineDistance(baseline);
@@ -198,6 +204,27 @@ public class ConstraintWidget {
         return resolvedVertical || (mTop.hasFinalValue() && mBottom.hasFinalValue());
     }
 
+    /**
+     * Save the state that {@link #addToSolver(LinearSystem, boolean)} consumes, so that the
+     * widget can be added again to a system that has to be rebuilt
+     */
+    void saveSolverState() {
+        mSavedResolvedHorizontal = resolvedHorizontal;
+        mSavedResolvedVertical = resolvedVertical;
+        mSavedWidthOverride = mWidthOverride;
+        mSavedHeightOverride = mHeightOverride;
+    }
+
+    /**
+     * Restore the state saved by {@link #saveSolverState()}
+     */
+    void restoreSolverState() {
+        resolvedHorizontal = mSavedResolvedHorizontal;
+        resolvedVertical = mSavedResolvedVertical;
+        mWidthOverride = mSavedWidthOverride;
+        mHeightOverride = mSavedHeightOverride;
+    }
+
     public void resetFinalResolution() {
         resolvedHorizontal = false;
         resolvedVertical = false;
@@ -786,6 +813,15 @@ public class ConstraintWidget {
         mCenterY.resetSolverVariable(cache);
     }
 
+    /**
+     * Drop the solver variables of the anchors, so that the next system creates new ones
+     */
+    public void releaseSolverVariables() {
+        for (int i = 0, mAnchorsSize = mAnchors.size(); i < mAnchorsSize; i++) {
+            mAnchors.get(i).mSolverVariable = null;
+        }
+    }
+
     /**
      * Add all the anchors to the mAnchors array
      */
@@ -900,9 +936,22 @@ public class ConstraintWidget {
      * @param visibility either VISIBLE, INVISIBLE, or GONE
      */
     public void setVisibility(int visibility) {
+        if (mVisibility != visibility) {
+            invalidateWidget();
+        }
         mVisibility = visibility;
     }
 
+    /**
+     * Report a change of the constraints, dimensions or visibility of this widget to its
+     * container, see {@link ConstraintWidgetContainer#invalidateWidget(ConstraintWidget)}
+     */
+    void invalidateWidget() {
+        if (mParent instanceof ConstraintWidgetContainer) {
+            ((ConstraintWidgetContainer) mParent).invalidateWidget(this);
+        }
+    }
+
     /**
      * Returns the current visibility value for this widget
      *
@@ -1568,6 +1617,9 @@ public class ConstraintWidget {
      * @param h height
      */
     public void setDimension(int w, int h) {
+        if (mWidth != w || mHeight != h) {
+            invalidateWidget();
+        }
         mWidth = w;
         if (mWidth < mMinWidth) {
             mWidth = mMinWidth;
@@ -2211,6 +2263,9 @@ public class ConstraintWidget {
      * @param behaviour the horizontal dimension's behaviour
      */
     public void setHorizontalDimensionBehaviour(DimensionBehaviour behaviour) {
+        if (mListDimensionBehaviors[DIMENSION_HORIZONTAL] != behaviour) {
+            invalidateWidget();
+        }
         mListDimensionBehaviors[DIMENSION_HORIZONTAL] = behaviour;
     }
 
@@ -2220,6 +2275,9 @@ public class ConstraintWidget {
      * @param behaviour the vertical dimension's behaviour
      */
     public void setVerticalDimensionBehaviour(DimensionBehaviour behaviour) {
+        if (mListDimensionBehaviors[DIMENSION_VERTICAL] != behaviour) {
+            invalidateWidget();
+        }
         mListDimensionBehaviors[DIMENSION_VERTICAL] = behaviour;
     }
 
@@ -2463,8 +2521,9 @@ public class ConstraintWidget {
             }
         }
 
-        if (LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.widgets++;
+        Metrics metrics = system.getSystemMetrics();
+        if (metrics != null) {
+            metrics.widgets++;
         }
         if (FULL_DEBUG) {
             if (optimize && horizontalRun != null && verticalRun != null) {
@@ -2476,8 +2535,8 @@ public class ConstraintWidget {
                 && horizontalRun.start.resolved && horizontalRun.end.resolved
                 && verticalRun.start.resolved && verticalRun.end.resolved) {
 
-            if (LinearSystem.sMetrics != null) {
-                LinearSystem.sMetrics.graphSolved++;
+            if (metrics != null) {
+                metrics.graphSolved++;
             }
             system.addEquality(left, horizontalRun.start.value);
             system.addEquality(right, horizontalRun.end.value);
@@ -2498,8 +2557,8 @@ public class ConstraintWidget {
             resolvedVertical = false;
             return; // we are done here
         }
-        if (LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.linearSolved++;
+        if (metrics != null) {
+            metrics.linearSolved++;
         }
 
         boolean inHorizontalChain = false;
@@ -2846,8 +2905,8 @@ public class ConstraintWidget {
         SolverVariable beginTarget = system.createObjectVariable(beginAnchor.getTarget());
         SolverVariable endTarget = system.createObjectVariable(endAnchor.getTarget());
 
-        if (system.getMetrics() != null) {
-            system.getMetrics().nonresolvedWidgets++;
+        if (system.getSystemMetrics() != null) {
+            system.getSystemMetrics().nonresolvedWidgets++;
         }
 
         boolean isBeginConnected = beginAnchor.isConnected();
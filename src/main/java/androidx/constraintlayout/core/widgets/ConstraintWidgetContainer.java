@@ -16,8 +16,12 @@
 
 package androidx.constraintlayout.core.widgets;
 
+import androidx.constraintlayout.core.Cache;
+import androidx.constraintlayout.core.LayoutHistogram;
+import androidx.constraintlayout.core.LayoutRecorder;
 import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.Metrics;
+import androidx.constraintlayout.core.SolverConfig;
 import androidx.constraintlayout.core.SolverVariable;
 import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
 import androidx.constraintlayout.core.widgets.analyzer.DependencyGraph;
@@ -61,6 +65,16 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         mDependencyGraph.invalidateGraph();
     }
 
+    /**
+     * Invalidate the part of the graph of constraints of a widget whose constraints,
+     * dimension behaviours or visibility changed, see {@link SolverConfig#incrementalGraph}.
+     * The setters of the anchors, dimensions, dimension behaviours and visibility of the
+     * children call it, other changes have to be reported.
+     */
+    public void invalidateWidget(ConstraintWidget widget) {
+        mDependencyGraph.invalidateWidget(widget);
+    }
+
     /**
      * Invalidate the widgets measures
      */
@@ -144,8 +158,32 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         mSystem.fillMetrics(metrics);
     }
 
+    private LayoutRecorder mRecorder = null;
+
+    /**
+     * Set a recorder receiving the events of the measure and layout passes of this container
+     * (durations, measures, solver statistics), or null to stop recording.
+     *
+     * @param recorder the recorder, see {@link LayoutHistogram}
+     */
+    public void setLayoutRecorder(LayoutRecorder recorder) {
+        mRecorder = recorder;
+        mSystem.setRecorder(recorder);
+    }
+
+    public LayoutRecorder getLayoutRecorder() {
+        return mRecorder;
+    }
+
     protected LinearSystem mSystem = new LinearSystem();
 
+    // the cache given to setSolverCache(), null while the system has a cache of its own
+    private Cache mSolverCache = null;
+
+    // Internal use, see Optimizer.FLAG_*
+    private final boolean[] mFlags = new boolean[3];
+    private final ArrayList<LinearSystem> mGroupSystems = new ArrayList<>();
+
     int mPaddingLeft;
     int mPaddingTop;
     int mPaddingRight;
@@ -207,13 +245,21 @@ public class ConstraintWidgetContainer extends WidgetContainer {
     }
 
     /**
-     * Resolves the system directly when possible
+     * Resolves the system directly when possible.
+     * {@link Optimizer#OPTIMIZATION_INCREMENTAL_SOLVE} is ignored while the container uses a
+     * solver cache, see {@link #setSolverCache(Cache)}.
      *
      * @param value optimization level
      */
     public void setOptimizationLevel(int value) {
         mOptimizationLevel = value;
-        mSystem.USE_DEPENDENCY_ORDERING = optimizeFor(Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING);
+        if (mSystem.getConfig().useDependencyOrdering
+                != optimizeFor(Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING)) {
+            // only when it changes, setting the options resets the systems
+            setSolverConfig(mSystem.getConfig());
+        }
+        mSystem.setIncremental(mSolverCache == null
+                && optimizeFor(Optimizer.OPTIMIZATION_INCREMENTAL_SOLVE));
     }
 
     /**
@@ -392,7 +438,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
         }
 
-        if (LinearSystem.USE_DEPENDENCY_ORDERING) {
+        if (system.getConfig().useDependencyOrdering) {
             HashSet<ConstraintWidget> widgetsToAdd = new HashSet<>();
             for (int i = 0; i < count; i++) {
                 ConstraintWidget widget = mChildren.get(i);
@@ -650,6 +696,16 @@ public class ConstraintWidgetContainer extends WidgetContainer {
      */
     @Override
     public void layout() {
+        if (mRecorder == null) {
+            layoutContent();
+            return;
+        }
+        long start = System.nanoTime();
+        layoutContent();
+        mRecorder.record(LayoutRecorder.LAYOUT, System.nanoTime() - start);
+    }
+
+    private void layoutContent() {
         if (DEBUG) {
             System.out.println("\n#####################################");
             System.out.println("##          CL LAYOUT PASS           ##");
@@ -690,7 +746,11 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             if (FULL_DEBUG) {
                 System.out.println("Direct pass " + myCounter++);
             }
+            long start = mRecorder != null ? System.nanoTime() : 0;
             Direct.solvingPass(this, getMeasurer());
+            if (mRecorder != null) {
+                mRecorder.record(LayoutRecorder.DIRECT_RESOLUTION, System.nanoTime() - start);
+            }
             if (FULL_DEBUG) {
                 System.out.println("Direct pass done.");
             }
@@ -747,7 +807,12 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         if (count > 2 && (originalHorizontalDimensionBehaviour == WRAP_CONTENT
             || originalVerticalDimensionBehaviour == WRAP_CONTENT)
             && (Optimizer.enabled(mOptimizationLevel, Optimizer.OPTIMIZATION_GROUPING))) {
-            if (Grouping.simpleSolvingPass(this, getMeasurer())) {
+            long start = mRecorder != null ? System.nanoTime() : 0;
+            boolean solved = Grouping.simpleSolvingPass(this, getMeasurer());
+            if (mRecorder != null) {
+                mRecorder.record(LayoutRecorder.GROUPING, System.nanoTime() - start);
+            }
+            if (solved) {
                 if (originalHorizontalDimensionBehaviour == WRAP_CONTENT) {
                     if (preW < getWidth() && preW > 0) {
                         if (DEBUG_LAYOUT) {
@@ -811,43 +876,20 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         while (needsSolving) {
             countSolve++;
             try {
-                mSystem.reset();
-                resetChains();
-                if (DEBUG) {
-                    String debugName = getDebugName();
-                    if (debugName == null) {
-                        debugName = "root";
-                    }
-                    setDebugSolverName(mSystem, debugName);
-                    for (int i = 0; i < count; i++) {
-                        ConstraintWidget widget = mChildren.get(i);
-                        if (widget.getDebugName() != null) {
-                            widget.setDebugSolverName(mSystem, widget.getDebugName());
-                        }
-                    }
-                } else {
-                    createObjectVariables(mSystem);
-                    for (int i = 0; i < count; i++) {
-                        ConstraintWidget widget = mChildren.get(i);
-                        widget.createObjectVariables(mSystem);
+                boolean updated = false;
+                if (mSystem.beginUpdate()) {
+                    // same constraints as the previous solve, only their constants are kept
+                    saveSolverState(count);
+                    needsSolving = fillSystem(count);
+                    updated = mSystem.endUpdate();
+                    if (!updated) {
+                        // the widgets are added again to the rebuilt system
+                        restoreSolverState(count);
                     }
                 }
-                needsSolving = addChildrenToSolver(mSystem);
-                if (verticalWrapMin != null && verticalWrapMin.get() != null) {
-                    addMinWrap(verticalWrapMin.get(), mSystem.createObjectVariable(mTop));
-                    verticalWrapMin = null;
-                }
-                if (verticalWrapMax != null && verticalWrapMax.get() != null) {
-                    addMaxWrap(verticalWrapMax.get(), mSystem.createObjectVariable(mBottom));
-                    verticalWrapMax = null;
-                }
-                if (horizontalWrapMin != null && horizontalWrapMin.get() != null) {
-                    addMinWrap(horizontalWrapMin.get(), mSystem.createObjectVariable(mLeft));
-                    horizontalWrapMin = null;
-                }
-                if (horizontalWrapMax != null && horizontalWrapMax.get() != null) {
-                    addMaxWrap(horizontalWrapMax.get(), mSystem.createObjectVariable(mRight));
-                    horizontalWrapMax = null;
+                if (!updated) {
+                    mSystem.reset();
+                    needsSolving = fillSystem(count);
                 }
                 if (needsSolving) {
                     mSystem.minimize();
@@ -857,7 +899,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
                 System.out.println("EXCEPTION : " + e);
             }
             if (needsSolving) {
-                needsSolving = updateChildrenFromSolver(mSystem, Optimizer.flags);
+                needsSolving = updateChildrenFromSolver(mSystem, mFlags);
             } else {
                 updateFromSolver(mSystem, optimize);
                 for (int i = 0; i < count; i++) {
@@ -868,7 +910,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
 
             if (hasWrapContent && countSolve < MAX_ITERATIONS
-                    && Optimizer.flags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
+                    && mFlags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
                 // let's get the new bounds
                 int maxX = 0;
                 int maxY = 0;
@@ -979,7 +1021,69 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             mListDimensionBehaviors[DIMENSION_VERTICAL] = originalVerticalDimensionBehaviour;
         }
 
-        resetSolverVariables(mSystem.getCache());
+        if (!mSystem.isIncremental()) {
+            resetSolverVariables(mSystem.getCache());
+        }
+    }
+
+    /**
+     * Add the container and its children to the system
+     *
+     * @return true if the system needs to be solved
+     */
+    private boolean fillSystem(int count) {
+        resetChains();
+        if (DEBUG) {
+            String debugName = getDebugName();
+            if (debugName == null) {
+                debugName = "root";
+            }
+            setDebugSolverName(mSystem, debugName);
+            for (int i = 0; i < count; i++) {
+                ConstraintWidget widget = mChildren.get(i);
+                if (widget.getDebugName() != null) {
+                    widget.setDebugSolverName(mSystem, widget.getDebugName());
+                }
+            }
+        } else {
+            createObjectVariables(mSystem);
+            for (int i = 0; i < count; i++) {
+                ConstraintWidget widget = mChildren.get(i);
+                widget.createObjectVariables(mSystem);
+            }
+        }
+        boolean needsSolving = addChildrenToSolver(mSystem);
+        if (verticalWrapMin != null && verticalWrapMin.get() != null) {
+            addMinWrap(verticalWrapMin.get(), mSystem.createObjectVariable(mTop));
+        }
+        if (verticalWrapMax != null && verticalWrapMax.get() != null) {
+            addMaxWrap(verticalWrapMax.get(), mSystem.createObjectVariable(mBottom));
+        }
+        if (horizontalWrapMin != null && horizontalWrapMin.get() != null) {
+            addMinWrap(horizontalWrapMin.get(), mSystem.createObjectVariable(mLeft));
+        }
+        if (horizontalWrapMax != null && horizontalWrapMax.get() != null) {
+            addMaxWrap(horizontalWrapMax.get(), mSystem.createObjectVariable(mRight));
+        }
+        verticalWrapMin = null;
+        verticalWrapMax = null;
+        horizontalWrapMin = null;
+        horizontalWrapMax = null;
+        return needsSolving;
+    }
+
+    private void saveSolverState(int count) {
+        saveSolverState();
+        for (int i = 0; i < count; i++) {
+            mChildren.get(i).saveSolverState();
+        }
+    }
+
+    private void restoreSolverState(int count) {
+        restoreSolverState();
+        for (int i = 0; i < count; i++) {
+            mChildren.get(i).restoreSolverState();
+        }
     }
 
     /**
@@ -1037,6 +1141,53 @@ public class ConstraintWidgetContainer extends WidgetContainer {
         return mSystem;
     }
 
+    /**
+     * Set the options of the solver used by this container (and of its group systems).
+     * The optimization level still decides if dependency ordering is used.
+     *
+     * @param config the options, copied
+     */
+    public void setSolverConfig(SolverConfig config) {
+        SolverConfig copy = new SolverConfig(config);
+        copy.useDependencyOrdering = optimizeFor(Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING);
+        mSystem.setConfig(copy);
+        for (LinearSystem system : mGroupSystems) {
+            system.setConfig(copy);
+        }
+    }
+
+    public SolverConfig getSolverConfig() {
+        return mSystem.getConfig();
+    }
+
+    /**
+     * Share the pools of the solver with other containers measured on the same thread,
+     * so that a new container doesn't start with empty pools (see {@link Cache}).
+     * Incremental solving needs a cache of its own: once a cache is set, the container
+     * ignores {@link Optimizer#OPTIMIZATION_INCREMENTAL_SOLVE}, whichever is set first.
+     *
+     * @param cache the cache to use
+     */
+    public void setSolverCache(Cache cache) {
+        mSolverCache = cache;
+        mSystem.setIncremental(false);
+        mSystem.setCache(cache);
+    }
+
+    /**
+     * Returns the system used to measure the given widget group in parallel.
+     * Systems are kept around so that their pools are reused across layouts.
+     *
+     * @param index index of the group being measured
+     * @return a linear system owned by this container
+     */
+    public LinearSystem getGroupSystem(int index) {
+        while (mGroupSystems.size() <= index) {
+            mGroupSystems.add(new LinearSystem(mSystem.getConfig()));
+        }
+        return mGroupSystems.get(index);
+    }
+
     /*-----------------------------------------------------------------------*/
     // Chains
     /*-----------------------------------------------------------------------*/
@@ -42,6 +42,7 @@ public class Guideline extends ConstraintWidget {
     private int mOrientation = HORIZONTAL;
     private int mMinimumPosition = 0;
     private boolean resolved;
+    private boolean mSavedResolved;
 
     public Guideline() {
         mAnchors.clear();
@@ -203,6 +204,18 @@ public class Guideline extends ConstraintWidget {
         return resolved;
     }
 
+    @Override
+    void saveSolverState() {
+        super.saveSolverState();
+        mSavedResolved = resolved;
+    }
+
+    @Override
+    void restoreSolverState() {
+        super.restoreSolverState();
+        resolved = mSavedResolved;
+    }
+
 
     @Override
     public void addToSolver(LinearSystem system, boolean optimize) {
@@ -39,6 +39,10 @@ public class Optimizer {
     public static final int OPTIMIZATION_CACHE_MEASURES = 1 << 8;
     public static final int OPTIMIZATION_DEPENDENCY_ORDERING = 1 << 9;
     public static final int OPTIMIZATION_GROUPING = 1 << 10;
+    // solve independent groups concurrently (used with OPTIMIZATION_GROUPING)
+    public static final int OPTIMIZATION_GROUPING_PARALLEL = 1 << 11;
+    // keep the solved system and only update its constants when the constraints don't change
+    public static final int OPTIMIZATION_INCREMENTAL_SOLVE = 1 << 12;
     public static final int OPTIMIZATION_STANDARD = OPTIMIZATION_DIRECT
             /* | OPTIMIZATION_GROUPING */
             /* | OPTIMIZATION_DEPENDENCY_ORDERING */
@@ -49,7 +53,6 @@ public class Optimizer {
             ;
 
     // Internal use.
-    static boolean[] flags = new boolean[3];
     static final int FLAG_USE_OPTIMIZE = 0; // simple enough to use optimizer
     static final int FLAG_CHAIN_DANGLING = 1;
     static final int FLAG_RECOMPUTE_BOUNDS = 2;
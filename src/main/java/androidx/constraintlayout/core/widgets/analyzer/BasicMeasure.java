@@ -16,6 +16,7 @@
 
 package androidx.constraintlayout.core.widgets.analyzer;
 
+import androidx.constraintlayout.core.LayoutRecorder;
 import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.widgets.Barrier;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
@@ -51,6 +52,7 @@ public class BasicMeasure {
 
     private final ArrayList<ConstraintWidget> mVariableDimensionsWidgets = new ArrayList<>();
     private Measure mMeasure = new Measure();
+    private int mMeasureCount = 0;
 
     public void updateHierarchy(ConstraintWidgetContainer layout) {
         mVariableDimensionsWidgets.clear();
@@ -185,6 +187,12 @@ public class BasicMeasure {
                               int lastMeasureHeight) {
         Measurer measurer = layout.getMeasurer();
         long layoutTime = 0;
+        LayoutRecorder recorder = layout.getLayoutRecorder();
+        long measureStart = 0;
+        if (recorder != null) {
+            measureStart = System.nanoTime();
+            mMeasureCount = 0;
+        }
 
         final int childCount = layout.mChildren.size();
         int startingWidth = layout.getWidth();
@@ -219,8 +227,8 @@ public class BasicMeasure {
             }
         }
 
-        if (optimize && LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.measures++;
+        if (optimize && layout.mMetrics != null) {
+            layout.mMetrics.measures++;
         }
 
         boolean allSolved = false;
@@ -244,6 +252,7 @@ public class BasicMeasure {
                 layout.setHeight(heightSize);
                 layout.invalidateGraph();
             }
+            long graphStart = recorder != null ? System.nanoTime() : 0;
             if (widthMode == EXACTLY && heightMode == EXACTLY) {
                 allSolved = layout.directMeasure(optimizeWrap);
                 computations = 2;
@@ -261,6 +270,9 @@ public class BasicMeasure {
             if (allSolved) {
                 layout.updateFromRuns(widthMode == EXACTLY, heightMode == EXACTLY);
             }
+            if (recorder != null) {
+                recorder.record(LayoutRecorder.GRAPH_RESOLUTION, System.nanoTime() - graphStart);
+            }
         } else {
             if (false) {
                 layout.horizontalRun.clear();
@@ -428,6 +440,10 @@ public class BasicMeasure {
         if (LinearSystem.MEASURE) {
             layoutTime = (System.nanoTime() - layoutTime);
         }
+        if (recorder != null) {
+            recorder.record(LayoutRecorder.MEASURE, System.nanoTime() - measureStart);
+            recorder.record(LayoutRecorder.MEASURED_WIDGETS, mMeasureCount);
+        }
         return layoutTime;
     }
 
@@ -440,6 +456,7 @@ public class BasicMeasure {
      * @return true if needs another solver pass
      */
     private boolean measure(Measurer measurer, ConstraintWidget widget, int measureStrategy) {
+        mMeasureCount++;
         mMeasure.horizontalBehavior = widget.getHorizontalDimensionBehaviour();
         mMeasure.verticalBehavior = widget.getVerticalDimensionBehaviour();
         mMeasure.horizontalDimension = widget.getWidth();
@@ -112,6 +112,14 @@ public class ChainRun extends WidgetRun {
         }
     }
 
+    @Override
+    void setPropagation(Propagation propagation) {
+        super.setPropagation(propagation);
+        for (WidgetRun run : widgets) {
+            run.setPropagation(propagation);
+        }
+    }
+
     @Override
     void reset() {
         start.resolved = false;
@@ -508,6 +516,13 @@ public class ChainRun extends WidgetRun {
     }
 
 
+    @Override
+    void applyDimension() {
+        for (WidgetRun run : widgets) {
+            run.applyDimension();
+        }
+    }
+
     @Override
     void apply() {
         for (WidgetRun run : widgets) {
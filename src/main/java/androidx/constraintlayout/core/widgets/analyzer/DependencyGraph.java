@@ -16,14 +16,18 @@
 
 package androidx.constraintlayout.core.widgets.analyzer;
 
+import androidx.constraintlayout.core.SolverConfig;
 import androidx.constraintlayout.core.widgets.Barrier;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.Guideline;
 import androidx.constraintlayout.core.widgets.HelperWidget;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.FIXED;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT;
@@ -45,6 +49,20 @@ public class DependencyGraph {
     private boolean mNeedRedoMeasures = true;
     private ConstraintWidgetContainer mContainer;
     private ArrayList<WidgetRun> mRuns = new ArrayList<>();
+    private Propagation mPropagation = null;
+    private final ArrayList<DependencyNode> mGroupStack = new ArrayList<>();
+
+    // incremental updates, see SolverConfig#incrementalGraph
+    private boolean mNeedPatchGraph = false;
+    // the graph was built by a measure, with the widgets measured before or after
+    private boolean mPatchable = false;
+    private boolean mGraphMeasuredFirst = false;
+    private ConstraintWidget.DimensionBehaviour mGraphHorizontalBehaviour;
+    private ConstraintWidget.DimensionBehaviour mGraphVerticalBehaviour;
+    private final ArrayList<ConstraintWidget> mGraphChildren = new ArrayList<>();
+    private final HashSet<ConstraintWidget> mChangedWidgets = new HashSet<>();
+    private final HashSet<ConstraintWidget> mPatchedWidgets = new HashSet<>();
+    private final ArrayList<ConstraintWidget> mPatchQueue = new ArrayList<>();
 
     // TODO: Unused, should we delete?
     private ArrayList<RunGroup> runGroups = new ArrayList<>();
@@ -79,6 +97,10 @@ public class DependencyGraph {
      * @param verticalBehavior
      */
     public void defineTerminalWidgets(ConstraintWidget.DimensionBehaviour horizontalBehavior, ConstraintWidget.DimensionBehaviour verticalBehavior) {
+        if (mNeedPatchGraph) {
+            // terminal widgets are only defined on a full build
+            mNeedBuildGraph = true;
+        }
         if (mNeedBuildGraph) {
             buildGraph();
 
@@ -109,6 +131,7 @@ public class DependencyGraph {
     public boolean directMeasure(boolean optimizeWrap) {
         optimizeWrap &= USE_GROUPS;
 
+        checkPatch(true);
         if (mNeedBuildGraph || mNeedRedoMeasures) {
             for (ConstraintWidget widget : container.mChildren) {
                 widget.ensureWidgetRuns();
@@ -121,6 +144,8 @@ public class DependencyGraph {
             container.horizontalRun.reset();
             container.verticalRun.reset();
             mNeedRedoMeasures = false;
+        } else if (mNeedPatchGraph) {
+            resetNodes();
         }
 
         boolean avoid = basicMeasureWidgets(mContainer);
@@ -135,7 +160,9 @@ public class DependencyGraph {
         ConstraintWidget.DimensionBehaviour originalVerticalDimension = container.getDimensionBehaviour(VERTICAL);
 
         if (mNeedBuildGraph) {
-            buildGraph();
+            buildGraph(true);
+        } else if (mNeedPatchGraph) {
+            patchGraph();
         }
 
         int x1 = container.getX();
@@ -230,6 +257,7 @@ public class DependencyGraph {
     }
 
     public boolean directMeasureSetup(boolean optimizeWrap) {
+        checkPatch(false);
         if (mNeedBuildGraph) {
             for (ConstraintWidget widget : container.mChildren) {
                 widget.ensureWidgetRuns();
@@ -249,7 +277,10 @@ public class DependencyGraph {
             container.verticalRun.dimension.resolved = false;
             container.verticalRun.resolved = false;
             container.verticalRun.reset();
-            buildGraph();
+            buildGraph(false);
+        } else if (mNeedPatchGraph) {
+            resetNodes();
+            patchGraph();
         }
 
         boolean avoid = basicMeasureWidgets(mContainer);
@@ -613,7 +644,21 @@ public class DependencyGraph {
      * Invalidate the graph of constraints
      */
     public void invalidateGraph() {
-        mNeedBuildGraph = true;
+        if (mContainer.getSolverConfig().incrementalGraph) {
+            mNeedPatchGraph = true;
+        } else {
+            mNeedBuildGraph = true;
+        }
+    }
+
+    /**
+     * Invalidate the part of the graph of a widget, see {@link SolverConfig#incrementalGraph}
+     */
+    public void invalidateWidget(ConstraintWidget widget) {
+        if (mContainer.getSolverConfig().incrementalGraph) {
+            mChangedWidgets.add(widget);
+            mNeedPatchGraph = true;
+        }
     }
 
     /**
@@ -624,19 +669,38 @@ public class DependencyGraph {
     }
 
     ArrayList<RunGroup> mGroups = new ArrayList<>();
+    private int mGroupIndex = 0; // index of the next group
 
     public void buildGraph() {
         // First, let's identify the overall dependency graph
         buildGraph(mRuns);
 
         if (USE_GROUPS) {
-            mGroups.clear();
-            // Then get the horizontal and vertical groups
-            RunGroup.index = 0;
-            findGroup(container.horizontalRun, HORIZONTAL, mGroups);
-            findGroup(container.verticalRun, VERTICAL, mGroups);
+            findGroups();
         }
         mNeedBuildGraph = false;
+        mNeedPatchGraph = false;
+        mPatchable = false;
+        mChangedWidgets.clear();
+        mGraphChildren.clear();
+        mGraphChildren.addAll(container.mChildren);
+        mGraphHorizontalBehaviour = container.getHorizontalDimensionBehaviour();
+        mGraphVerticalBehaviour = container.getVerticalDimensionBehaviour();
+    }
+
+    private void buildGraph(boolean measuredFirst) {
+        buildGraph();
+        // the next measure of the same kind can patch it
+        mPatchable = true;
+        mGraphMeasuredFirst = measuredFirst;
+    }
+
+    private void findGroups() {
+        mGroups.clear();
+        // Then get the horizontal and vertical groups
+        mGroupIndex = 0;
+        findGroup(container.horizontalRun, HORIZONTAL, mGroups);
+        findGroup(container.verticalRun, VERTICAL, mGroups);
     }
 
     public void buildGraph(ArrayList<WidgetRun> runs) {
@@ -647,43 +711,15 @@ public class DependencyGraph {
         runs.add(mContainer.verticalRun);
         HashSet<ChainRun> chainRuns = null;
         for (ConstraintWidget widget : mContainer.mChildren) {
-            if (widget instanceof Guideline) {
-                runs.add(new GuidelineReference(widget));
-                continue;
-            }
-            if (widget.isInHorizontalChain()) {
-                if (widget.horizontalChainRun == null) {
-                    // build the horizontal chain
-                    widget.horizontalChainRun = new ChainRun(widget, HORIZONTAL);
-                }
-                if (chainRuns == null) {
-                    chainRuns = new HashSet<>();
-                }
-                chainRuns.add(widget.horizontalChainRun);
-            } else {
-                runs.add(widget.horizontalRun);
-            }
-            if (widget.isInVerticalChain()) {
-                if (widget.verticalChainRun == null) {
-                    // build the vertical chain
-                    widget.verticalChainRun = new ChainRun(widget, VERTICAL);
-                }
-                if (chainRuns == null) {
-                    chainRuns = new HashSet<>();
-                }
-                chainRuns.add(widget.verticalChainRun);
-            } else {
-                runs.add(widget.verticalRun);
-            }
-            if (widget instanceof HelperWidget) {
-                runs.add(new HelperReferences(widget));
-            }
+            chainRuns = addRuns(widget, runs, chainRuns);
         }
         if (chainRuns != null) {
             runs.addAll(chainRuns);
         }
+        Propagation propagation = getPropagation();
         for (WidgetRun run : runs) {
             run.clear();
+            run.setPropagation(propagation);
         }
         for (WidgetRun run : runs) {
             if (run.widget == mContainer) {
@@ -695,63 +731,395 @@ public class DependencyGraph {
 //        displayGraph();
     }
 
+    private Propagation getPropagation() {
+        if (!mContainer.getSolverConfig().worklistPropagation) {
+            return null;
+        }
+        if (mPropagation == null) {
+            mPropagation = new Propagation();
+        }
+        return mPropagation;
+    }
 
+    /**
+     * Add the runs of a widget, and collect the chains it is part of
+     */
+    private HashSet<ChainRun> addRuns(ConstraintWidget widget, ArrayList<WidgetRun> runs, HashSet<ChainRun> chainRuns) {
+        if (widget instanceof Guideline) {
+            runs.add(new GuidelineReference(widget));
+            return chainRuns;
+        }
+        if (widget.isInHorizontalChain()) {
+            if (widget.horizontalChainRun == null) {
+                // build the horizontal chain
+                widget.horizontalChainRun = new ChainRun(widget, HORIZONTAL);
+            }
+            if (chainRuns == null) {
+                chainRuns = new HashSet<>();
+            }
+            chainRuns.add(widget.horizontalChainRun);
+        } else {
+            runs.add(widget.horizontalRun);
+        }
+        if (widget.isInVerticalChain()) {
+            if (widget.verticalChainRun == null) {
+                // build the vertical chain
+                widget.verticalChainRun = new ChainRun(widget, VERTICAL);
+            }
+            if (chainRuns == null) {
+                chainRuns = new HashSet<>();
+            }
+            chainRuns.add(widget.verticalChainRun);
+        } else {
+            runs.add(widget.verticalRun);
+        }
+        if (widget instanceof HelperWidget) {
+            runs.add(new HelperReferences(widget));
+        }
+        return chainRuns;
+    }
 
-    private void displayGraph() {
-        String content = "digraph {\n";
+    /**
+     * Fall back to a full build if the pending patch cannot be applied: the graph was not built
+     * by the same kind of measure, or the children or the behaviours of the container changed
+     */
+    private void checkPatch(boolean measuredFirst) {
+        if (!mNeedPatchGraph || mNeedBuildGraph) {
+            return;
+        }
+        if (!mPatchable || mNeedRedoMeasures || measuredFirst != mGraphMeasuredFirst
+                || container.getHorizontalDimensionBehaviour() != mGraphHorizontalBehaviour
+                || container.getVerticalDimensionBehaviour() != mGraphVerticalBehaviour
+                || !container.mChildren.equals(mGraphChildren)) {
+            mNeedBuildGraph = true;
+        }
+    }
+
+    /**
+     * Forget the resolution of all the nodes, keeping their wiring
+     */
+    private void resetNodes() {
+        for (ConstraintWidget widget : container.mChildren) {
+            widget.ensureWidgetRuns();
+            widget.measured = false;
+            resetNodes(widget.horizontalRun);
+            resetNodes(widget.verticalRun);
+        }
+        container.ensureWidgetRuns();
+        container.measured = false;
+        resetNodes(container.horizontalRun);
+        resetNodes(container.verticalRun);
+        // chains, guidelines and helpers
         for (WidgetRun run : mRuns) {
-            content = generateDisplayGraph(run, content);
+            resetNodes(run);
         }
-        content += "\n}\n";
-        System.out.println("content:<<\n" + content + "\n>>");
     }
 
-    private void applyGroup(DependencyNode node, int orientation, int direction, DependencyNode end, ArrayList<RunGroup> groups, RunGroup group) {
-        WidgetRun run = node.run;
-        if (run.runGroup != null || run == container.horizontalRun || run == container.verticalRun) {
-            return;
+    private static void resetNodes(WidgetRun run) {
+        run.resolved = false;
+        run.start.reset();
+        run.end.reset();
+        run.dimension.reset();
+        if (run instanceof VerticalWidgetRun) {
+            VerticalWidgetRun verticalRun = (VerticalWidgetRun) run;
+            verticalRun.baseline.reset();
+            if (verticalRun.baselineDimension != null) {
+                verticalRun.baselineDimension.reset();
+            }
         }
+    }
 
-        if (group == null) {
-            group = new RunGroup(run, direction);
-            groups.add(group);
+    /**
+     * Update the graph after {@link #invalidateGraph()} in incremental mode. The runs of the
+     * widgets passed to {@link #invalidateWidget(ConstraintWidget)}, and of every widget
+     * connected to them other than through the container, are built again; the other runs keep
+     * their nodes and only resolve their dimension as {@link WidgetRun#apply()} would.
+     */
+    private void patchGraph() {
+        HashSet<ConstraintWidget> patched = mPatchedWidgets;
+        if (!mChangedWidgets.isEmpty() && !collectPatchedWidgets()) {
+            // most of the graph changes, it is cheaper to build it again
+            patched.clear();
+            buildGraph(mGraphMeasuredFirst);
+            return;
+        }
+        ArrayList<WidgetRun> runs = mRuns;
+        int kept = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            WidgetRun run = runs.get(i);
+            if (isPatched(run)) {
+                run.clear();
+            } else {
+                runs.set(kept++, run);
+            }
+        }
+        runs.subList(kept, runs.size()).clear();
+        for (int i = 0; i < kept; i++) {
+            runs.get(i).applyDimension();
+        }
+        if (!patched.isEmpty()) {
+            removePatched(container.horizontalRun);
+            removePatched(container.verticalRun);
+            HashSet<ChainRun> chainRuns = null;
+            for (ConstraintWidget widget : container.mChildren) {
+                if (patched.contains(widget)) {
+                    chainRuns = addRuns(widget, runs, chainRuns);
+                }
+            }
+            if (chainRuns != null) {
+                runs.addAll(chainRuns);
+            }
+            Propagation propagation = getPropagation();
+            for (int i = kept; i < runs.size(); i++) {
+                WidgetRun run = runs.get(i);
+                run.clear();
+                run.setPropagation(propagation);
+            }
+            for (int i = kept; i < runs.size(); i++) {
+                runs.get(i).apply();
+            }
+            if (USE_GROUPS) {
+                // a group only holds connected runs, so the other groups are unchanged and
+                // their runs are skipped when looking for the new groups
+                ArrayList<RunGroup> groups = mGroups;
+                int keptGroups = 0;
+                for (int i = 0; i < groups.size(); i++) {
+                    RunGroup group = groups.get(i);
+                    if (!isPatched(group.firstRun)) {
+                        groups.set(keptGroups++, group);
+                    }
+                }
+                groups.subList(keptGroups, groups.size()).clear();
+                findGroup(container.horizontalRun, HORIZONTAL, groups);
+                findGroup(container.verticalRun, VERTICAL, groups);
+            }
         }
+        mChangedWidgets.clear();
+        patched.clear();
+        mNeedPatchGraph = false;
+    }
 
-        run.runGroup = group;
-        group.add(run);
-        for (Dependency dependent : run.start.dependencies) {
-            if (dependent instanceof DependencyNode) {
-                applyGroup((DependencyNode) dependent, orientation, RunGroup.START, end, groups, group);
+    /**
+     * Collect the changed widgets with their neighbours and everything connected to them in the
+     * graph, so that no node outside of the patched widgets depends on one of theirs
+     *
+     * @return false if that is more than half of the widgets
+     */
+    private boolean collectPatchedWidgets() {
+        ArrayList<ConstraintWidget> queue = mPatchQueue;
+        final int limit = container.mChildren.size() / 2;
+        for (ConstraintWidget widget : mChangedWidgets) {
+            addPatched(widget);
+            // the anchors may have changed since the graph was built
+            for (ConstraintAnchor anchor : widget.mListAnchors) {
+                if (anchor.mTarget != null) {
+                    addPatched(anchor.mTarget.mOwner);
+                }
+                HashSet<ConstraintAnchor> dependents = anchor.getDependents();
+                if (dependents != null) {
+                    for (ConstraintAnchor dependent : dependents) {
+                        addPatched(dependent.mOwner);
+                    }
+                }
             }
         }
-        for (Dependency dependent : run.end.dependencies) {
-            if (dependent instanceof DependencyNode) {
-                applyGroup((DependencyNode) dependent, orientation, RunGroup.END, end, groups, group);
+        // helpers skip gone widgets, so they may not be connected to a widget becoming visible
+        for (ConstraintWidget child : container.mChildren) {
+            if (child instanceof HelperWidget) {
+                HelperWidget helper = (HelperWidget) child;
+                for (int i = 0; i < helper.mWidgetsCount; i++) {
+                    if (mChangedWidgets.contains(helper.mWidgets[i])) {
+                        addPatched(helper);
+                        break;
+                    }
+                }
             }
         }
-        if (orientation == VERTICAL && run instanceof VerticalWidgetRun) {
-            for (Dependency dependent : ((VerticalWidgetRun) run).baseline.dependencies) {
-                if (dependent instanceof DependencyNode) {
-                    applyGroup((DependencyNode) dependent, orientation, RunGroup.BASELINE, end, groups, group);
+        do {
+            while (!queue.isEmpty()) {
+                if (mPatchedWidgets.size() > limit) {
+                    queue.clear();
+                    return false;
                 }
+                ConstraintWidget widget = queue.remove(queue.size() - 1);
+                collectConnected(widget.horizontalRun);
+                collectConnected(widget.verticalRun);
+                collectConnected(widget.horizontalChainRun);
+                collectConnected(widget.verticalChainRun);
+            }
+            // guidelines and helpers have their own runs
+            for (WidgetRun run : mRuns) {
+                if ((run instanceof GuidelineReference || run instanceof HelperReferences)
+                        && mPatchedWidgets.contains(run.widget)) {
+                    collectConnected(run);
+                }
+            }
+        } while (!queue.isEmpty());
+        return mPatchedWidgets.size() <= limit;
+    }
+
+    private void collectConnected(WidgetRun run) {
+        if (run == null) {
+            return;
+        }
+        if (run instanceof ChainRun) {
+            for (WidgetRun chained : ((ChainRun) run).widgets) {
+                addPatched(chained.widget);
+            }
+        }
+        collectConnected(run.start);
+        collectConnected(run.end);
+        collectConnected(run.dimension);
+        if (run instanceof VerticalWidgetRun) {
+            VerticalWidgetRun verticalRun = (VerticalWidgetRun) run;
+            collectConnected(verticalRun.baseline);
+            if (verticalRun.baselineDimension != null) {
+                collectConnected(verticalRun.baselineDimension);
             }
         }
-        for (DependencyNode target : run.start.targets) {
-            if (target == end) {
-                group.dual = true;
+    }
+
+    private void collectConnected(DependencyNode node) {
+        for (int i = 0; i < node.targets.size(); i++) {
+            addPatched(node.targets.get(i).run);
+        }
+        for (int i = 0; i < node.dependencies.size(); i++) {
+            addPatched(getRun(node.dependencies.get(i)));
+        }
+    }
+
+    private void addPatched(WidgetRun run) {
+        if (run == null) {
+            return;
+        }
+        if (run instanceof ChainRun) {
+            for (WidgetRun chained : ((ChainRun) run).widgets) {
+                addPatched(chained.widget);
             }
-            applyGroup(target, orientation, RunGroup.START, end, groups, group);
         }
-        for (DependencyNode target : run.end.targets) {
-            if (target == end) {
-                group.dual = true;
+        addPatched(run.widget);
+    }
+
+    private void addPatched(ConstraintWidget widget) {
+        if (widget != null && widget.getParent() == container && mPatchedWidgets.add(widget)) {
+            mPatchQueue.add(widget);
+        }
+    }
+
+    private static WidgetRun getRun(Dependency dependency) {
+        if (dependency instanceof DependencyNode) {
+            return ((DependencyNode) dependency).run;
+        }
+        if (dependency instanceof WidgetRun) {
+            return (WidgetRun) dependency;
+        }
+        return null;
+    }
+
+    private boolean isPatched(WidgetRun run) {
+        if (run == null || run.widget == container) {
+            return false;
+        }
+        if (run instanceof ChainRun) {
+            for (WidgetRun chained : ((ChainRun) run).widgets) {
+                if (mPatchedWidgets.contains(chained.widget)) {
+                    return true;
+                }
             }
-            applyGroup(target, orientation, RunGroup.END, end, groups, group);
         }
-        if (orientation == VERTICAL && run instanceof VerticalWidgetRun) {
-            for (DependencyNode target : ((VerticalWidgetRun) run).baseline.targets) {
-                applyGroup(target, orientation, RunGroup.BASELINE, end, groups, group);
+        return mPatchedWidgets.contains(run.widget);
+    }
+
+    /**
+     * Remove the edges between the nodes of a container run and the patched widgets
+     */
+    private void removePatched(WidgetRun run) {
+        removePatched(run.start);
+        removePatched(run.end);
+        removePatched(run.dimension);
+        if (run instanceof VerticalWidgetRun) {
+            removePatched(((VerticalWidgetRun) run).baseline);
+        }
+    }
+
+    private void removePatched(DependencyNode node) {
+        removePatched(node.targets);
+        removePatched(node.dependencies);
+    }
+
+    private <T extends Dependency> void removePatched(List<T> list) {
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            T dependency = list.get(i);
+            if (!isPatched(getRun(dependency))) {
+                list.set(kept++, dependency);
+            }
+        }
+        list.subList(kept, list.size()).clear();
+    }
+
+    private void displayGraph() {
+        String content = "digraph {\n";
+        for (WidgetRun run : mRuns) {
+            content = generateDisplayGraph(run, content);
+        }
+        content += "\n}\n";
+        System.out.println("content:<<\n" + content + "\n>>");
+    }
+
+    private void applyGroup(DependencyNode node, int orientation, int direction, DependencyNode end, ArrayList<RunGroup> groups, RunGroup group) {
+        // depth first in the same order as a recursive walk, but with an explicit stack as
+        // chains of widgets can be long
+        ArrayList<DependencyNode> stack = mGroupStack;
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            WidgetRun run = stack.remove(stack.size() - 1).run;
+            if (run.runGroup != null || run == container.horizontalRun || run == container.verticalRun) {
+                continue;
+            }
+
+            if (group == null) {
+                group = new RunGroup(run, direction, mGroupIndex++);
+                groups.add(group);
+            }
+
+            run.runGroup = group;
+            group.add(run);
+            int first = stack.size();
+            for (Dependency dependent : run.start.dependencies) {
+                if (dependent instanceof DependencyNode) {
+                    stack.add((DependencyNode) dependent);
+                }
+            }
+            for (Dependency dependent : run.end.dependencies) {
+                if (dependent instanceof DependencyNode) {
+                    stack.add((DependencyNode) dependent);
+                }
+            }
+            if (orientation == VERTICAL && run instanceof VerticalWidgetRun) {
+                for (Dependency dependent : ((VerticalWidgetRun) run).baseline.dependencies) {
+                    if (dependent instanceof DependencyNode) {
+                        stack.add((DependencyNode) dependent);
+                    }
+                }
+            }
+            for (DependencyNode target : run.start.targets) {
+                if (target == end) {
+                    group.dual = true;
+                }
+                stack.add(target);
+            }
+            for (DependencyNode target : run.end.targets) {
+                if (target == end) {
+                    group.dual = true;
+                }
+                stack.add(target);
+            }
+            if (orientation == VERTICAL && run instanceof VerticalWidgetRun) {
+                stack.addAll(((VerticalWidgetRun) run).baseline.targets);
             }
+            // the first dependency is visited first
+            Collections.reverse(stack.subList(first, stack.size()));
         }
     }
 
@@ -862,7 +1230,7 @@ public class DependencyGraph {
             definition.append(" [");
             definition.append(runGroup.groupIndex + 1);
             definition.append("/");
-            definition.append(RunGroup.index);
+            definition.append(mGroupIndex);
             definition.append("]");
         }
         definition.append(" </TD>");
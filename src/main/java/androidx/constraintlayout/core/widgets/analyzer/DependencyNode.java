@@ -53,14 +53,21 @@ public class DependencyNode implements Dependency {
 
         this.resolved = true;
         this.value = value;
-        for (Dependency node : dependencies) {
+        Propagation propagation = run.propagation;
+        if (propagation != null) {
+            propagation.resolved(this);
+            return;
+        }
+        for (int i = 0; i < dependencies.size(); i++) {
+            Dependency node = dependencies.get(i);
             node.update(node);
-         }
+        }
     }
 
     public void update(Dependency node) {
-        for (DependencyNode target : targets) {
-            if (!target.resolved) {
+        final int count = targets.size();
+        for (int i = 0; i < count; i++) {
+            if (!targets.get(i).resolved) {
                 return;
             }
         }
@@ -74,7 +81,8 @@ public class DependencyNode implements Dependency {
         }
         DependencyNode target = null;
         int numTargets = 0;
-        for (DependencyNode t : targets) {
+        for (int i = 0; i < count; i++) {
+            DependencyNode t = targets.get(i);
             if (t instanceof DimensionDependency) {
                 continue;
             }
@@ -115,6 +123,15 @@ public class DependencyNode implements Dependency {
         return definition;
     }
 
+    /**
+     * Forget the resolution of the node, keeping its targets and dependencies
+     */
+    void reset() {
+        resolved = false;
+        value = 0;
+        readyToSolve = false;
+    }
+
     public void clear() {
         targets.clear();
         dependencies.clear();
@@ -29,15 +29,4 @@ class DimensionDependency extends DependencyNode {
         }
     }
 
-    public void resolve(int value) {
-        if (resolved) {
-            return;
-        }
-        this.resolved = true;
-        this.value = value;
-        for (Dependency node : dependencies) {
-            node.update(node);
-        }
-    }
-
 }
@@ -43,9 +43,9 @@ public class Direct {
 
     private static final boolean DEBUG = LinearSystem.FULL_DEBUG;
     private static final boolean APPLY_MATCH_PARENT = false;
-    private static BasicMeasure.Measure measure = new BasicMeasure.Measure();
     private static final boolean EARLY_TERMINATION = true; // feature flag -- remove after release.
 
+    // number of solving passes, only counted when debugging
     private static int hcount = 0;
     private static int vcount = 0;
 
@@ -58,10 +58,10 @@ public class Direct {
     public static void solvingPass(ConstraintWidgetContainer layout, BasicMeasure.Measurer measurer) {
         ConstraintWidget.DimensionBehaviour horizontal = layout.getHorizontalDimensionBehaviour();
         ConstraintWidget.DimensionBehaviour vertical = layout.getVerticalDimensionBehaviour();
-        hcount = 0;
-        vcount = 0;
         long time = 0;
         if (DEBUG) {
+            hcount = 0;
+            vcount = 0;
             time = System.nanoTime();
             System.out.println("#### SOLVING PASS (horiz " + horizontal + ", vert " + vertical + ") ####");
         }
@@ -243,6 +243,7 @@ public class Direct {
             System.out.println("\n#### LAST PASS ####");
         }
         // We can do a last pass to see any widget that could still be measured
+        BasicMeasure.Measure measure = new BasicMeasure.Measure();
         for (int i = 0; i < count; i++) {
             ConstraintWidget child = children.get(i);
             if (child.isMeasureRequested() && canMeasure(0, child)) {
@@ -313,8 +314,8 @@ public class Direct {
             }
             return;
         }
-        hcount++;
         if (DEBUG) {
+            hcount++;
             System.out.println(ls(level) + "HORIZONTAL SOLVING PASS ON " + layout.getDebugName());
         }
 
@@ -443,8 +444,8 @@ public class Direct {
             }
             return;
         }
-        vcount++;
         if (DEBUG) {
+            vcount++;
             System.out.println(ls(level) + "VERTICAL SOLVING PASS ON " + layout.getDebugName());
         }
 
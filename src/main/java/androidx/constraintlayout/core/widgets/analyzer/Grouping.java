@@ -22,8 +22,11 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.Flow;
 import androidx.constraintlayout.core.widgets.Guideline;
 import androidx.constraintlayout.core.widgets.HelperWidget;
+import androidx.constraintlayout.core.widgets.Optimizer;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.BOTH;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.FIXED;
@@ -293,16 +296,19 @@ public class Grouping {
 
         WidgetGroup horizontalPick = null;
         WidgetGroup verticalPick = null;
+        boolean parallel = layout.optimizeFor(Optimizer.OPTIMIZATION_GROUPING_PARALLEL);
 
         if (layout.getHorizontalDimensionBehaviour() == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT) {
             int maxWrap = 0;
             WidgetGroup picked = null;
-            for (WidgetGroup list : allDependencyLists) {
+            int[] parallelWraps = parallel ? measureWrapsInParallel(layout, allDependencyLists, HORIZONTAL) : null;
+            for (int i = 0; i < allDependencyLists.size(); i++) {
+                WidgetGroup list = allDependencyLists.get(i);
                 if (list.getOrientation() == VERTICAL) {
                     continue;
                 }
                 list.setAuthoritative(false);
-                int wrap = list.measureWrap(layout.getSystem(), HORIZONTAL);
+                int wrap = parallelWraps != null ? parallelWraps[i] : list.measureWrap(layout.getSystem(), HORIZONTAL);
                 if (wrap > maxWrap) {
                     picked = list;
                     maxWrap = wrap;
@@ -325,12 +331,14 @@ public class Grouping {
         if (layout.getVerticalDimensionBehaviour() == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT) {
             int maxWrap = 0;
             WidgetGroup picked = null;
-            for (WidgetGroup list : allDependencyLists) {
+            int[] parallelWraps = parallel ? measureWrapsInParallel(layout, allDependencyLists, VERTICAL) : null;
+            for (int i = 0; i < allDependencyLists.size(); i++) {
+                WidgetGroup list = allDependencyLists.get(i);
                 if (list.getOrientation() == HORIZONTAL) {
                     continue;
                 }
                 list.setAuthoritative(false);
-                int wrap = list.measureWrap(layout.getSystem(), VERTICAL);
+                int wrap = parallelWraps != null ? parallelWraps[i] : list.measureWrap(layout.getSystem(), VERTICAL);
                 if (wrap > maxWrap) {
                     picked = list;
                     maxWrap = wrap;
@@ -352,6 +360,61 @@ public class Grouping {
         return horizontalPick != null || verticalPick != null;
     }
 
+    /**
+     * Measure the groups of the given orientation concurrently. Each group is added to its
+     * own system on the calling thread, only the solves are run on the common ForkJoinPool;
+     * results are then collected in list order so that the picked group is the same as
+     * with a sequential measure.
+     *
+     * @return the wrap dimension of each group, or null if there isn't enough to parallelize
+     */
+    private static int[] measureWrapsInParallel(ConstraintWidgetContainer layout,
+                                                ArrayList<WidgetGroup> groups, int orientation) {
+        final int count = groups.size();
+        // indices of the groups to measure
+        int[] prepared = new int[count];
+        int preparedCount = 0;
+        for (int i = 0; i < count; i++) {
+            WidgetGroup group = groups.get(i);
+            if (group.getOrientation() != orientation && group.getOrientation() != BOTH) {
+                continue;
+            }
+            if (group.size() > 0) {
+                prepared[preparedCount++] = i;
+            }
+        }
+        if (preparedCount < 2) {
+            return null;
+        }
+        // a group can be listed more than once, it is only solved once
+        int[] solved = new int[preparedCount];
+        int solvedCount = 0;
+        for (int i = 0; i < preparedCount; i++) {
+            if (groups.get(prepared[i]).prepareMeasure(layout.getGroupSystem(solvedCount),
+                    orientation)) {
+                solved[solvedCount++] = prepared[i];
+            }
+        }
+        if (layout.mMetrics != null) {
+            layout.mMetrics.parallelGroupMeasures += solvedCount;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(solvedCount - 1);
+        for (int i = 1; i < solvedCount; i++) {
+            final WidgetGroup group = groups.get(solved[i]);
+            tasks.add(pool.submit(group::solvePrepared));
+        }
+        groups.get(solved[0]).solvePrepared();
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        int[] wraps = new int[count];
+        for (int i = 0; i < preparedCount; i++) {
+            wraps[prepared[i]] = groups.get(prepared[i]).finishMeasure(orientation);
+        }
+        return wraps;
+    }
+
     private static WidgetGroup findGroup(ArrayList<WidgetGroup> horizontalDependencyLists, int groupId) {
         final int count = horizontalDependencyLists.size();
         for (int i = 0; i < count; i++) {
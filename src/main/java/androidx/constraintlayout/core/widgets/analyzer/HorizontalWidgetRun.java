@@ -34,7 +34,7 @@ import static androidx.constraintlayout.core.widgets.analyzer.WidgetRun.RunType.
 
 public class HorizontalWidgetRun extends WidgetRun {
 
-    private static int[] tempDimensions = new int[2];
+    private int[] tempDimensions = new int[2];
 
     public HorizontalWidgetRun(ConstraintWidget widget) {
         super(widget);
@@ -55,6 +55,7 @@ public class HorizontalWidgetRun extends WidgetRun {
         end.clear();
         dimension.clear();
         resolved = false;
+        mRunType = RunType.NONE;
     }
 
     @Override
@@ -78,6 +79,29 @@ public class HorizontalWidgetRun extends WidgetRun {
         return true;
     }
 
+    @Override
+    void applyDimension() {
+        if (widget.measured) {
+            dimension.resolve(widget.getWidth());
+        }
+        if (dimension.resolved) {
+            return;
+        }
+        super.dimensionBehavior = widget.getHorizontalDimensionBehaviour();
+        if (dimensionBehavior == MATCH_PARENT) {
+            ConstraintWidget parent = widget.getParent();
+            if (parent != null
+                    && (parent.getHorizontalDimensionBehaviour() == FIXED
+                    || parent.getHorizontalDimensionBehaviour() == MATCH_PARENT)) {
+                dimension.resolve(parent.getWidth() - widget.mLeft.getMargin() - widget.mRight.getMargin());
+                return;
+            }
+        }
+        if (dimensionBehavior == FIXED) {
+            dimension.resolve(widget.getWidth());
+        }
+    }
+
     @Override
     void apply() {
         if (widget.measured) {
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.widgets.analyzer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Propagates the resolution of {@link DependencyNode}s to their dependencies without letting
+ * the Java stack grow with the length of a dependency path: on long chains of widgets a
+ * recursive propagation gets as deep as the chain.
+ *
+ * Dependencies are updated as soon as a node is resolved, as with the recursive propagation,
+ * so the code following a {@link DependencyNode#resolve(int)} in an update sees the
+ * dependencies of the node updated. Past {@link #MAX_DEPTH} nested resolutions the nodes are
+ * only recorded, and their dependencies are updated once the outermost resolution returns:
+ * depth first, the nodes resolved by the same update in the order they were resolved.
+ */
+class Propagation {
+    // nested resolutions updating their dependencies right away
+    static final int MAX_DEPTH = 100;
+
+    // the resolved nodes whose dependencies are still to be updated
+    private DependencyNode[] mNodes = new DependencyNode[16];
+    private int mSize = 0;
+    private int mDepth = 0;
+
+    /**
+     * Called when the node is resolved, updates its dependencies
+     */
+    void resolved(DependencyNode node) {
+        if (mDepth >= MAX_DEPTH) {
+            push(node);
+            return;
+        }
+        if (mDepth > 0) {
+            update(node);
+            return;
+        }
+        try {
+            update(node);
+            while (mSize > 0) {
+                DependencyNode next = mNodes[--mSize];
+                mNodes[mSize] = null;
+                int first = mSize;
+                update(next);
+                // the first node recorded is updated first
+                reverse(first, mSize);
+            }
+        } finally {
+            Arrays.fill(mNodes, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    private void update(DependencyNode node) {
+        List<Dependency> dependencies = node.dependencies;
+        mDepth++;
+        try {
+            for (int i = 0; i < dependencies.size(); i++) {
+                Dependency dependency = dependencies.get(i);
+                dependency.update(dependency);
+            }
+        } finally {
+            mDepth--;
+        }
+    }
+
+    private void push(DependencyNode node) {
+        if (mSize == mNodes.length) {
+            mNodes = Arrays.copyOf(mNodes, mSize * 2);
+        }
+        mNodes[mSize++] = node;
+    }
+
+    private void reverse(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            DependencyNode node = mNodes[i];
+            mNodes[i] = mNodes[j];
+            mNodes[j] = node;
+        }
+    }
+}
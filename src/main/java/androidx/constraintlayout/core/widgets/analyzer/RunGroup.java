@@ -28,8 +28,6 @@ class RunGroup {
     public final static int END = 1;
     public final static int BASELINE = 2;
 
-    public static int index;
-
     public int position = 0;
     public boolean dual = false;
 
@@ -40,9 +38,8 @@ class RunGroup {
     int groupIndex = 0;
     int direction;
 
-    public RunGroup(WidgetRun run, int dir) {
+    public RunGroup(WidgetRun run, int dir, int index) {
         groupIndex = index;
-        index++;
         firstRun = run;
         lastRun = run;
         direction = dir;
@@ -55,6 +55,7 @@ public class VerticalWidgetRun extends WidgetRun {
         baseline.clear();
         dimension.clear();
         resolved = false;
+        mRunType = RunType.NONE;
     }
 
     @Override
@@ -198,6 +199,27 @@ public class VerticalWidgetRun extends WidgetRun {
         }
     }
 
+    @Override
+    void applyDimension() {
+        if (widget.measured) {
+            dimension.resolve(widget.getHeight());
+        }
+        if (dimension.resolved) {
+            return;
+        }
+        super.dimensionBehavior = widget.getVerticalDimensionBehaviour();
+        if (dimensionBehavior == MATCH_PARENT) {
+            ConstraintWidget parent = widget.getParent();
+            if (parent != null && parent.getVerticalDimensionBehaviour() == FIXED) {
+                dimension.resolve(parent.getHeight() - widget.mTop.getMargin() - widget.mBottom.getMargin());
+                return;
+            }
+        }
+        if (dimensionBehavior == FIXED) {
+            dimension.resolve(widget.getHeight());
+        }
+    }
+
     @Override
     void apply() {
         if (widget.measured) {
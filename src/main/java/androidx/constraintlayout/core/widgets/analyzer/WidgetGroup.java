@@ -16,12 +16,16 @@
 package androidx.constraintlayout.core.widgets.analyzer;
 
 import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.SolverVariable;
 import androidx.constraintlayout.core.widgets.Chain;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.HelperWidget;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.BOTH;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.HORIZONTAL;
@@ -33,15 +37,18 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.VERTICAL;
 public class WidgetGroup {
     private static final boolean DEBUG = false;
     ArrayList<ConstraintWidget> widgets = new ArrayList<>();
-    static int count = 0;
+    private static final AtomicInteger count = new AtomicInteger();
     int id = -1;
     boolean authoritative = false;
     int orientation = HORIZONTAL;
     ArrayList<MeasureResult> results = null;
     private int moveTo = -1;
+    private LinearSystem mPreparedSystem = null;
+    private SolverVariable[] mPreparedVariables = null;
+    private int mPreparedWrap = 0;
 
     public WidgetGroup(int orientation) {
-        id = count++;
+        id = count.getAndIncrement();
         this.orientation = orientation;
     }
 
@@ -127,7 +134,37 @@ public class WidgetGroup {
     private int solverMeasure(LinearSystem system, ArrayList<ConstraintWidget> widgets, int orientation) {
         ConstraintWidgetContainer container = (ConstraintWidgetContainer) widgets.get(0).getParent();
         system.reset();
-        boolean prevDebug = LinearSystem.FULL_DEBUG;
+        addToSystem(system, container, widgets, orientation);
+
+        try {
+            system.minimize();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // save results
+        results = new ArrayList<>();
+        for (int i = 0; i < widgets.size(); i++) {
+            ConstraintWidget widget = widgets.get(i);
+            MeasureResult result = new MeasureResult(widget, system, orientation);
+            results.add(result);
+        }
+
+        if (orientation == HORIZONTAL) {
+            int left = system.getObjectVariableValue(container.mLeft);
+            int right = system.getObjectVariableValue(container.mRight);
+            system.reset();
+            return right - left;
+        } else {
+            int top = system.getObjectVariableValue(container.mTop);
+            int bottom = system.getObjectVariableValue(container.mBottom);
+            system.reset();
+            return bottom - top;
+        }
+    }
+
+    private static void addToSystem(LinearSystem system, ConstraintWidgetContainer container,
+                                    ArrayList<ConstraintWidget> widgets, int orientation) {
         container.addToSolver(system, false);
         for (int i = 0; i < widgets.size(); i++) {
             ConstraintWidget widget = widgets.get(i);
@@ -143,32 +180,132 @@ public class WidgetGroup {
                 Chain.applyChainConstraints(container, system, widgets, VERTICAL);
             }
         }
+    }
+
+    /**
+     * First step of a parallel measure: add the group to its own system.
+     * Must run on the layout thread, as adding widgets updates their state; the
+     * anchors get new solver variables so that no variable is shared between systems.
+     * A group can be listed more than once, it is only prepared the first time.
+     *
+     * @return false if the group was already prepared, and doesn't use the system
+     */
+    boolean prepareMeasure(LinearSystem system, int orientation) {
+        if (mPreparedSystem != null) {
+            return false;
+        }
+        ConstraintWidgetContainer container = (ConstraintWidgetContainer) widgets.get(0).getParent();
+        releaseSolverVariables(container);
+        system.reset();
+        addToSystem(system, container, widgets, orientation);
+
+        // keep the variables, the anchors will be rebound by the next group
+        mPreparedSystem = system;
+        mPreparedVariables = new SolverVariable[widgets.size() * 5 + 2];
+        for (int i = 0; i < widgets.size(); i++) {
+            ConstraintWidget widget = widgets.get(i);
+            mPreparedVariables[i * 5] = widget.mLeft.getSolverVariable();
+            mPreparedVariables[i * 5 + 1] = widget.mTop.getSolverVariable();
+            mPreparedVariables[i * 5 + 2] = widget.mRight.getSolverVariable();
+            mPreparedVariables[i * 5 + 3] = widget.mBottom.getSolverVariable();
+            mPreparedVariables[i * 5 + 4] = widget.mBaseline.getSolverVariable();
+        }
+        int last = widgets.size() * 5;
+        if (orientation == HORIZONTAL) {
+            mPreparedVariables[last] = container.mLeft.getSolverVariable();
+            mPreparedVariables[last + 1] = container.mRight.getSolverVariable();
+        } else {
+            mPreparedVariables[last] = container.mTop.getSolverVariable();
+            mPreparedVariables[last + 1] = container.mBottom.getSolverVariable();
+        }
+        return true;
+    }
+
+    /**
+     * Drop the solver variables of the anchors the group can add to a system: the ones of the
+     * container, of the widgets of the group, and of the widgets they are connected to or
+     * reference (as barriers do).
+     */
+    private void releaseSolverVariables(ConstraintWidgetContainer container) {
+        container.releaseSolverVariables();
+        for (int i = 0; i < widgets.size(); i++) {
+            ConstraintWidget widget = widgets.get(i);
+            widget.releaseSolverVariables();
+            ArrayList<ConstraintAnchor> anchors = widget.getAnchors();
+            for (int j = 0; j < anchors.size(); j++) {
+                ConstraintAnchor target = anchors.get(j).getTarget();
+                if (target != null) {
+                    target.getOwner().releaseSolverVariables();
+                }
+            }
+            if (widget instanceof HelperWidget) {
+                HelperWidget helper = (HelperWidget) widget;
+                for (int j = 0; j < helper.mWidgetsCount; j++) {
+                    helper.mWidgets[j].releaseSolverVariables();
+                }
+            }
+        }
+    }
 
+    /**
+     * Second step of a parallel measure: only touches the prepared system, safe to
+     * run concurrently with other groups.
+     */
+    void solvePrepared() {
         try {
-            system.minimize();
+            mPreparedSystem.minimize();
         } catch (Exception e) {
             e.printStackTrace();
         }
+    }
 
-        // save results
+    /**
+     * Last step of a parallel measure: save the results and release the system. For a group
+     * listed more than once, the next calls return the same wrap dimension.
+     *
+     * @return the wrap dimension of the group
+     */
+    int finishMeasure(int orientation) {
+        if (mPreparedSystem == null) {
+            return mPreparedWrap;
+        }
+        ConstraintWidgetContainer container = (ConstraintWidgetContainer) widgets.get(0).getParent();
         results = new ArrayList<>();
         for (int i = 0; i < widgets.size(); i++) {
             ConstraintWidget widget = widgets.get(i);
-            MeasureResult result = new MeasureResult(widget, system, orientation);
+            MeasureResult result = new MeasureResult(widget, mPreparedVariables, i * 5, orientation);
             results.add(result);
         }
-
+        int last = widgets.size() * 5;
+        int start;
+        int end;
         if (orientation == HORIZONTAL) {
-            int left = system.getObjectVariableValue(container.mLeft);
-            int right = system.getObjectVariableValue(container.mRight);
-            system.reset();
-            return right - left;
+            start = getValue(container.mLeft, mPreparedVariables[last]);
+            end = getValue(container.mRight, mPreparedVariables[last + 1]);
         } else {
-            int top = system.getObjectVariableValue(container.mTop);
-            int bottom = system.getObjectVariableValue(container.mBottom);
-            system.reset();
-            return bottom - top;
+            start = getValue(container.mTop, mPreparedVariables[last]);
+            end = getValue(container.mBottom, mPreparedVariables[last + 1]);
         }
+        mPreparedSystem.reset();
+        mPreparedSystem = null;
+        mPreparedVariables = null;
+        mPreparedWrap = end - start;
+        return mPreparedWrap;
+    }
+
+    /**
+     * Same as {@link LinearSystem#getObjectVariableValue(Object)}, using the given variable
+     */
+    private static int getValue(ConstraintAnchor anchor, SolverVariable variable) {
+        if (Chain.USE_CHAIN_OPTIMIZATION) {
+            if (anchor.hasFinalValue()) {
+                return anchor.getFinalValue();
+            }
+        }
+        if (variable != null) {
+            return (int) (variable.computedValue + 0.5f);
+        }
+        return 0;
     }
 
     public void setOrientation(int orientation) {
@@ -242,6 +379,16 @@ public class WidgetGroup {
             this.orientation = orientation;
         }
 
+        MeasureResult(ConstraintWidget widget, SolverVariable[] variables, int offset, int orientation) {
+            widgetRef = new WeakReference<>(widget);
+            left = getValue(widget.mLeft, variables[offset]);
+            top = getValue(widget.mTop, variables[offset + 1]);
+            right = getValue(widget.mRight, variables[offset + 2]);
+            bottom = getValue(widget.mBottom, variables[offset + 3]);
+            baseline = getValue(widget.mBaseline, variables[offset + 4]);
+            this.orientation = orientation;
+        }
+
         public void apply() {
             ConstraintWidget widget = widgetRef.get();
             if (widget != null) {
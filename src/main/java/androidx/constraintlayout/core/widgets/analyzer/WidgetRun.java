@@ -39,13 +39,26 @@ public abstract class WidgetRun implements Dependency {
     public DependencyNode end = new DependencyNode(this);
 
     protected RunType mRunType = RunType.NONE;
+    // propagates the resolution of the nodes, recursively if null
+    Propagation propagation;
 
     public WidgetRun(ConstraintWidget widget) {
         this.widget = widget;
     }
 
+    void setPropagation(Propagation propagation) {
+        this.propagation = propagation;
+    }
+
     abstract void clear();
     abstract void apply();
+
+    /**
+     * Resolve the dimension like {@link #apply()} does, on a run that is already wired
+     */
+    void applyDimension() {
+    }
+
     abstract void applyToWidget();
     abstract void reset();
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * Layouts solved with the rows of {@link LinearSystem#ENGINE_COMPACT} are the same as with
+ * the rows of the other engines.
+ */
+public class CompactRowVariablesTest {
+
+    private static final int[] OPTIMIZATION_LEVELS = {
+            Optimizer.OPTIMIZATION_NONE,
+            Optimizer.OPTIMIZATION_STANDARD,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH
+    };
+
+    /**
+     * Measures the layout with an exact and a wrap content height, and returns the bounds of
+     * its widgets
+     */
+    private static int[] layout(Hierarchies.Shape shape, int seed, int level, int engine,
+                                Metrics metrics) {
+        ConstraintWidgetContainer root = Hierarchies.create(shape, 20 + seed * 7, seed);
+        SolverConfig config = new SolverConfig();
+        config.engine = engine;
+        root.setSolverConfig(config);
+        root.fillMetrics(metrics);
+        root.setOptimizationLevel(level);
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] bounds = new int[children.size() * 8 + 2];
+        int position = 0;
+        for (boolean wrap : new boolean[]{false, true}) {
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(Hierarchies.WIDTH);
+            root.setVerticalDimensionBehaviour(wrap
+                    ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                    : ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setHeight(Hierarchies.HEIGHT);
+            root.measure(level, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                    wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                    wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+            for (ConstraintWidget child : children) {
+                bounds[position++] = child.getX();
+                bounds[position++] = child.getY();
+                bounds[position++] = child.getWidth();
+                bounds[position++] = child.getHeight();
+            }
+            bounds[position++] = root.getHeight();
+        }
+        return bounds;
+    }
+
+    @Test
+    public void testSameLayoutsAsOtherEngines() {
+        Metrics metrics = new Metrics();
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int level : OPTIMIZATION_LEVELS) {
+                for (int seed = 0; seed < 5; seed++) {
+                    String name = shape + " seed " + seed + " level " + level;
+                    int[] linked = layout(shape, seed, level, LinearSystem.ENGINE_LINKED,
+                            new Metrics());
+                    int[] values = layout(shape, seed, level, LinearSystem.ENGINE_VALUES,
+                            new Metrics());
+                    int[] compact = layout(shape, seed, level, LinearSystem.ENGINE_COMPACT,
+                            metrics);
+                    assertArrayEquals(name, linked, compact);
+                    assertArrayEquals(name, values, compact);
+                }
+            }
+        }
+        assertTrue("rows " + metrics.compactArrayRowCreations,
+                metrics.compactArrayRowCreations > 0);
+    }
+
+    /**
+     * The rows of an engine are only created by the systems using it
+     */
+    @Test
+    public void testRowCreationsCountedPerSystem() {
+        Metrics linked = new Metrics();
+        Metrics compact = new Metrics();
+        layout(Hierarchies.Shape.CHAINS, 1, Optimizer.OPTIMIZATION_NONE,
+                LinearSystem.ENGINE_LINKED, linked);
+        layout(Hierarchies.Shape.CHAINS, 1, Optimizer.OPTIMIZATION_NONE,
+                LinearSystem.ENGINE_COMPACT, compact);
+        assertEquals(0, linked.compactArrayRowCreations);
+        assertTrue(linked.arrayRowCreations > 0);
+        assertEquals(0, compact.arrayRowCreations);
+        assertEquals(0, compact.optimizedArrayRowCreations);
+        assertTrue(compact.compactArrayRowCreations > 0);
+    }
+}
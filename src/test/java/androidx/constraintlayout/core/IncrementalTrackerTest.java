@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Layouts solved incrementally (see {@link LinearSystem#setIncremental(boolean)}) are the same
+ * as layouts solved from scratch, across a sequence of edits.
+ */
+public class IncrementalTrackerTest {
+
+    private static final int[] OPTIMIZATION_LEVELS = {
+            Optimizer.OPTIMIZATION_NONE,
+            Optimizer.OPTIMIZATION_STANDARD,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH
+    };
+
+    private static final int RESIZE = 0;
+    private static final int MARGIN = 1;
+    private static final int SIZE = 2;
+    private static final int CONNECTION = 3;
+    private static final int VISIBILITY = 4;
+    private static final int WRAP = 5;
+
+    /**
+     * A container and the widgets we edit, with the same edits applied to
+     * an incremental and a regular container
+     */
+    private static class Layout {
+        final ConstraintWidgetContainer root;
+        final ArrayList<ConstraintWidget> widgets = new ArrayList<>();
+        final Metrics metrics = new Metrics();
+        final int level;
+        int width = Hierarchies.WIDTH;
+        boolean wrap = false;
+
+        Layout(Hierarchies.Shape shape, int count, int seed, int level) {
+            root = Hierarchies.create(shape, count, seed);
+            root.fillMetrics(metrics);
+            this.level = level;
+            for (ConstraintWidget child : root.getChildren()) {
+                if (child.getCompanionWidget() instanceof int[]) {
+                    widgets.add(child);
+                }
+            }
+        }
+
+        int[] measure() {
+            root.setOptimizationLevel(level);
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(width);
+            root.setVerticalDimensionBehaviour(wrap
+                    ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                    : ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setHeight(Hierarchies.HEIGHT);
+            root.measure(level, BasicMeasure.EXACTLY, width,
+                    wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                    wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+            ArrayList<ConstraintWidget> children = root.getChildren();
+            int[] bounds = new int[children.size() * 4 + 1];
+            int position = 0;
+            for (ConstraintWidget child : children) {
+                bounds[position++] = child.getLeft();
+                bounds[position++] = child.getTop();
+                bounds[position++] = child.getRight();
+                bounds[position++] = child.getBottom();
+            }
+            bounds[position] = root.getHeight();
+            return bounds;
+        }
+
+        void edit(int kind, Random random) {
+            ConstraintWidget widget = widgets.get(random.nextInt(widgets.size()));
+            switch (kind) {
+                case RESIZE:
+                    width = Hierarchies.WIDTH - random.nextInt(400);
+                    break;
+                case MARGIN: {
+                    ConstraintAnchor anchor = widget.getAnchor(random.nextBoolean()
+                            ? ConstraintAnchor.Type.LEFT : ConstraintAnchor.Type.TOP);
+                    if (anchor.isConnected()) {
+                        anchor.setMargin(random.nextInt(32));
+                    }
+                }
+                break;
+                case SIZE: {
+                    int[] intrinsic = (int[]) widget.getCompanionWidget();
+                    intrinsic[0] = 40 + random.nextInt(160);
+                    intrinsic[1] = 20 + random.nextInt(80);
+                }
+                break;
+                case CONNECTION:
+                    // to the parent, connections between widgets could make cycles, whose
+                    // position isn't defined
+                    widget.connect(ConstraintAnchor.Type.TOP, root,
+                            ConstraintAnchor.Type.TOP, random.nextInt(200));
+                    break;
+                case VISIBILITY:
+                    widget.setVisibility(widget.getVisibility() == ConstraintWidget.GONE
+                            ? ConstraintWidget.VISIBLE : ConstraintWidget.GONE);
+                    break;
+                case WRAP:
+                    wrap = !wrap;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * The tableau of an updated system is reached through other pivots than the one of a new
+     * system, the solutions are the same but with other rounding errors: an edge on a half
+     * pixel can be rounded either way.
+     */
+    private static void assertSameLayout(String name, int[] expected, int[] actual) {
+        assertEquals(name, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(name + " at " + i, expected[i], actual[i], 1);
+        }
+    }
+
+    /**
+     * Applies the same edits to an incremental container and a regular one, and checks that
+     * they give the same layouts. Returns the number of incremental updates.
+     */
+    private static long compare(Hierarchies.Shape shape, int seed, int level, int[] edits,
+                                int steps) {
+        Layout incremental = new Layout(shape, 30 + seed % 30, seed,
+                level | Optimizer.OPTIMIZATION_INCREMENTAL_SOLVE);
+        Layout regular = new Layout(shape, 30 + seed % 30, seed, level);
+        Random incrementalRandom = new Random(seed);
+        Random regularRandom = new Random(seed);
+        String name = shape + " seed " + seed + " level " + level;
+        assertSameLayout(name, regular.measure(), incremental.measure());
+        for (int step = 0; step < steps; step++) {
+            int kind = edits[step % edits.length];
+            incremental.edit(kind, incrementalRandom);
+            regular.edit(kind, regularRandom);
+            assertSameLayout(name + " step " + step, regular.measure(), incremental.measure());
+            // the same constraints, e.g. widgets resolved by the direct resolution are still
+            // added as resolved if an update is abandoned part way
+            assertEquals(name + " step " + step, regular.root.getSystem().getNumEquations(),
+                    incremental.root.getSystem().getNumEquations());
+        }
+        return incremental.metrics.incrementalUpdates;
+    }
+
+    @Test
+    public void testResizes() {
+        long updates = 0;
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int level : OPTIMIZATION_LEVELS) {
+                for (int seed = 0; seed < 3; seed++) {
+                    updates += compare(shape, seed, level, new int[]{RESIZE}, 30);
+                }
+            }
+        }
+        assertTrue("updates " + updates, updates > 0);
+    }
+
+    @Test
+    public void testConstantEdits() {
+        long updates = 0;
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int level : OPTIMIZATION_LEVELS) {
+                for (int seed = 0; seed < 3; seed++) {
+                    updates += compare(shape, seed, level,
+                            new int[]{RESIZE, MARGIN, SIZE, RESIZE, WRAP}, 30);
+                }
+            }
+        }
+        assertTrue("updates " + updates, updates > 0);
+    }
+
+    /**
+     * Edits changing the structure of the system make the update fail part way, the system
+     * is then rebuilt
+     */
+    @Test
+    public void testStructuralEdits() {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int level : OPTIMIZATION_LEVELS) {
+                for (int seed = 0; seed < 3; seed++) {
+                    compare(shape, seed, level,
+                            new int[]{RESIZE, CONNECTION, MARGIN, VISIBILITY, SIZE, RESIZE}, 30);
+                }
+            }
+        }
+    }
+
+    /**
+     * Many updates in a row, the recorded operations are compacted instead of growing. The
+     * container stays wide enough for the chains: the cost of an overflowing spread chain is
+     * the same wherever it is placed between its ends, which has several solutions.
+     */
+    @Test
+    public void testLongResize() {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            Layout incremental = new Layout(shape, 60, 3,
+                    Optimizer.OPTIMIZATION_INCREMENTAL_SOLVE);
+            Layout regular = new Layout(shape, 60, 3, Optimizer.OPTIMIZATION_NONE);
+            for (int step = 0; step < 500; step++) {
+                int width = Hierarchies.WIDTH - (step * 7) % 300;
+                incremental.width = width;
+                regular.width = width;
+                assertSameLayout(shape + " step " + step, regular.measure(),
+                        incremental.measure());
+            }
+            // almost every layout is an update
+            assertTrue(shape + " updates " + incremental.metrics.incrementalUpdates,
+                    incremental.metrics.incrementalUpdates > 450);
+        }
+    }
+
+    /**
+     * A container given a shared solver cache ignores the incremental optimization, whether
+     * the cache or the optimization level is set first
+     */
+    @Test
+    public void testSharedSolverCache() {
+        int level = Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_INCREMENTAL_SOLVE;
+        Cache cache = new Cache();
+        Layout regular = new Layout(Hierarchies.Shape.CARDS, 40, 5,
+                Optimizer.OPTIMIZATION_STANDARD);
+
+        // the cache first
+        Layout cacheFirst = new Layout(Hierarchies.Shape.CARDS, 40, 5, level);
+        cacheFirst.root.setSolverCache(cache);
+        cacheFirst.root.setOptimizationLevel(level);
+        assertFalse(cacheFirst.root.getSystem().isIncremental());
+
+        // the optimization level first, with a cache already used by another container
+        Layout levelFirst = new Layout(Hierarchies.Shape.CARDS, 40, 5, level);
+        levelFirst.root.setOptimizationLevel(level);
+        assertTrue(levelFirst.root.getSystem().isIncremental());
+        levelFirst.root.setSolverCache(cache);
+        assertFalse(levelFirst.root.getSystem().isIncremental());
+        levelFirst.root.setOptimizationLevel(level);
+        assertFalse(levelFirst.root.getSystem().isIncremental());
+
+        for (int step = 0; step < 20; step++) {
+            int width = Hierarchies.WIDTH - step * 13;
+            regular.width = width;
+            cacheFirst.width = width;
+            levelFirst.width = width;
+            int[] expected = regular.measure();
+            assertSameLayout("cache first step " + step, expected, cacheFirst.measure());
+            assertSameLayout("level first step " + step, expected, levelFirst.measure());
+        }
+        assertEquals(0, cacheFirst.metrics.incrementalUpdates);
+        assertEquals(0, levelFirst.metrics.incrementalUpdates);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LayoutHistogramTest {
+
+    private static final int EVENT = LayoutRecorder.MINIMIZE;
+
+    /**
+     * The value is in its bucket, whose upper bound is within 12.5% of it
+     */
+    private static void assertBucket(long value) {
+        int bucket = LayoutHistogram.bucket(value);
+        assertTrue(value + " in " + bucket, bucket >= 0 && bucket < LayoutHistogram.BUCKETS);
+        long upperBound = LayoutHistogram.upperBound(bucket);
+        assertTrue(value + " above " + upperBound, value <= upperBound);
+        assertTrue(value + " far from " + upperBound, upperBound - value <= value / 8);
+        if (bucket > 0) {
+            assertTrue(value + " in the bucket before",
+                    value > LayoutHistogram.upperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testBuckets() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LayoutHistogram.bucket(value));
+            assertEquals(value, LayoutHistogram.upperBound(value));
+        }
+        int previous = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            assertBucket(value);
+            int bucket = LayoutHistogram.bucket(value);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            previous = bucket;
+        }
+        Random random = new Random(8);
+        for (int i = 0; i < 100000; i++) {
+            assertBucket((random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(63));
+        }
+        for (int shift = 4; shift < 63; shift++) {
+            assertBucket(1L << shift);
+            assertBucket((1L << shift) - 1);
+            assertBucket((1L << shift) + 1);
+        }
+        assertBucket(Long.MAX_VALUE);
+        assertEquals(LayoutHistogram.BUCKETS - 1, LayoutHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE,
+                LayoutHistogram.upperBound(LayoutHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LayoutHistogram histogram = new LayoutHistogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(EVENT, value);
+        }
+        assertEquals(10, histogram.getCount(EVENT));
+        assertEquals(55, histogram.getSum(EVENT));
+        assertEquals(1, histogram.getMin(EVENT));
+        assertEquals(10, histogram.getMax(EVENT));
+        assertEquals(5.5, histogram.getMean(EVENT), 0);
+        assertEquals(5, histogram.getPercentile(EVENT, 50));
+        assertEquals(9, histogram.getPercentile(EVENT, 90));
+        assertEquals(10, histogram.getPercentile(EVENT, 99));
+        assertEquals(10, histogram.getPercentile(EVENT, 100));
+        assertEquals(1, histogram.getPercentile(EVENT, 0));
+
+        // negative values count as 0
+        histogram.record(EVENT, -5);
+        assertEquals(0, histogram.getMin(EVENT));
+
+        // nothing recorded
+        assertEquals(0, histogram.getCount(LayoutRecorder.PIVOTS));
+        assertEquals(0, histogram.getPercentile(LayoutRecorder.PIVOTS, 50));
+        assertEquals(0, histogram.getMin(LayoutRecorder.PIVOTS));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LayoutHistogram histogram = new LayoutHistogram();
+        // recorded in a random order
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i + 1) * 1000L;
+        }
+        Random random = new Random(50);
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        for (long value : values) {
+            histogram.record(EVENT, value);
+        }
+        // the upper bound of the bucket holding the percentile, within 12.5%
+        long p50 = histogram.getPercentile(EVENT, 50);
+        long p99 = histogram.getPercentile(EVENT, 99);
+        assertTrue("p50 " + p50, p50 >= 50000000L && p50 <= 50000000L * 9 / 8);
+        assertTrue("p99 " + p99, p99 >= 99000000L && p99 <= 99000000L * 9 / 8);
+        // never beyond the values recorded
+        assertEquals(100000000L, histogram.getPercentile(EVENT, 100));
+        long p0 = histogram.getPercentile(EVENT, 0);
+        assertTrue("p0 " + p0, p0 >= 1000 && p0 <= 1000 * 9 / 8);
+        assertTrue(histogram.getPercentile(EVENT, 99.99) <= histogram.getMax(EVENT));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount(EVENT));
+        assertEquals(0, histogram.getPercentile(EVENT, 50));
+    }
+
+    @Test
+    public void testAdd() {
+        LayoutHistogram all = new LayoutHistogram();
+        LayoutHistogram first = new LayoutHistogram();
+        LayoutHistogram second = new LayoutHistogram();
+        Random random = new Random(99);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextInt(1 << random.nextInt(30));
+            int event = random.nextInt(3);
+            all.record(event, value);
+            // the first one has small values, the second one large values
+            (value < 4096 ? first : second).record(event, value);
+        }
+        second.record(LayoutRecorder.PIVOTS, 7);
+        all.record(LayoutRecorder.PIVOTS, 7);
+
+        LayoutHistogram merged = new LayoutHistogram();
+        merged.add(first);
+        merged.add(new LayoutHistogram());
+        merged.add(second);
+        for (int event = 0; event < LayoutRecorder.EVENT_COUNT; event++) {
+            String name = LayoutHistogram.getEventName(event);
+            assertEquals(name, all.getCount(event), merged.getCount(event));
+            assertEquals(name, all.getSum(event), merged.getSum(event));
+            assertEquals(name, all.getMin(event), merged.getMin(event));
+            assertEquals(name, all.getMax(event), merged.getMax(event));
+            for (double percentile : new double[]{0, 10, 50, 90, 99, 100}) {
+                assertEquals(name + " p" + percentile, all.getPercentile(event, percentile),
+                        merged.getPercentile(event, percentile));
+            }
+        }
+        assertEquals(all.toString(), merged.toString());
+    }
+
+    /**
+     * Counts the events received
+     */
+    private static class CountingRecorder implements LayoutRecorder {
+        final long[] counts = new long[EVENT_COUNT];
+
+        @Override
+        public void record(int event, long value) {
+            assertTrue(LayoutHistogram.getEventName(event) + " " + value, value >= 0);
+            counts[event]++;
+        }
+    }
+
+    private static void measure(ConstraintWidgetContainer root, int level, boolean wrap) {
+        root.setOptimizationLevel(level);
+        ConstraintWidget.DimensionBehaviour behaviour = wrap
+                ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                : ConstraintWidget.DimensionBehaviour.FIXED;
+        root.setHorizontalDimensionBehaviour(behaviour);
+        root.setVerticalDimensionBehaviour(behaviour);
+        root.setWidth(Hierarchies.WIDTH);
+        root.setHeight(Hierarchies.HEIGHT);
+        int mode = wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY;
+        root.measure(level, mode, wrap ? 0 : Hierarchies.WIDTH, mode,
+                wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testRecorderReceivesEvents() {
+        CountingRecorder recorder = new CountingRecorder();
+        ConstraintWidgetContainer solved = Hierarchies.create(Hierarchies.Shape.CHAINS, 20, 3);
+        solved.setLayoutRecorder(recorder);
+        measure(solved, Optimizer.OPTIMIZATION_NONE, false);
+        assertTrue(recorder.counts[LayoutRecorder.LAYOUT] > 0);
+        assertTrue(recorder.counts[LayoutRecorder.MINIMIZE] > 0);
+        assertEquals(recorder.counts[LayoutRecorder.MINIMIZE],
+                recorder.counts[LayoutRecorder.PIVOTS]);
+        assertEquals(1, recorder.counts[LayoutRecorder.MEASURE]);
+        assertEquals(0, recorder.counts[LayoutRecorder.GROUPING]);
+
+        ConstraintWidgetContainer grouped = Hierarchies.create(Hierarchies.Shape.CARDS, 20, 3);
+        grouped.setLayoutRecorder(recorder);
+        measure(grouped, Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GROUPING,
+                true);
+        assertTrue(recorder.counts[LayoutRecorder.GROUPING] > 0);
+
+        // nothing once the recorder is removed
+        long[] counts = recorder.counts.clone();
+        solved.setLayoutRecorder(null);
+        grouped.setLayoutRecorder(null);
+        measure(solved, Optimizer.OPTIMIZATION_NONE, false);
+        measure(grouped, Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GROUPING,
+                true);
+        for (int event = 0; event < LayoutRecorder.EVENT_COUNT; event++) {
+            assertEquals(LayoutHistogram.getEventName(event), counts[event],
+                    recorder.counts[event]);
+        }
+
+        // a histogram as the recorder
+        LayoutHistogram histogram = new LayoutHistogram();
+        solved.setLayoutRecorder(histogram);
+        measure(solved, Optimizer.OPTIMIZATION_NONE, false);
+        assertTrue(histogram.getCount(LayoutRecorder.LAYOUT) > 0);
+        assertTrue(histogram.getCount(LayoutRecorder.MINIMIZE) > 0);
+        assertTrue(histogram.getMax(LayoutRecorder.TABLE_ROWS) > 0);
+    }
+}
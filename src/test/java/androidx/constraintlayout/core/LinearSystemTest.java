@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class LinearSystemTest {
+
+    private static final int STANDARD_GRAPH = Optimizer.OPTIMIZATION_STANDARD
+            | Optimizer.OPTIMIZATION_GRAPH;
+
+    static int[] measure(ConstraintWidgetContainer root, int optimizationLevel) {
+        root.setOptimizationLevel(optimizationLevel);
+        root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        root.setWidth(Hierarchies.WIDTH);
+        root.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        root.setHeight(Hierarchies.HEIGHT);
+        root.measure(optimizationLevel, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                BasicMeasure.EXACTLY, Hierarchies.HEIGHT, 0, 0, 0, 0);
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] bounds = new int[children.size() * 4];
+        int position = 0;
+        for (ConstraintWidget child : children) {
+            bounds[position++] = child.getX();
+            bounds[position++] = child.getY();
+            bounds[position++] = child.getWidth();
+            bounds[position++] = child.getHeight();
+        }
+        return bounds;
+    }
+
+    private static void setFixed(ConstraintWidget widget) {
+        widget.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        widget.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        widget.setDimension(120, 80);
+    }
+
+    /**
+     * Rows turned into final values by addRow() are released once, and not added again
+     */
+    @Test
+    public void testResizeToFixedAfterLayout() {
+        for (int index : new int[]{5, 0, 17, 42}) {
+            ConstraintWidgetContainer resized = Hierarchies.create(Hierarchies.Shape.RATIOS, 60, 7);
+            measure(resized, STANDARD_GRAPH);
+            setFixed(resized.getChildren().get(index));
+            int[] bounds = measure(resized, STANDARD_GRAPH);
+            // the pools must still be sound
+            int[] again = measure(resized, STANDARD_GRAPH);
+
+            ConstraintWidgetContainer fresh = Hierarchies.create(Hierarchies.Shape.RATIOS, 60, 7);
+            setFixed(fresh.getChildren().get(index));
+            int[] expected = measure(fresh, STANDARD_GRAPH);
+            assertArrayEquals("w" + index, expected, bounds);
+            assertArrayEquals("w" + index, expected, again);
+        }
+    }
+
+    /**
+     * Edited layouts can be solved again and again without corrupting the row pools
+     */
+    @Test
+    public void testRepeatedLayoutsAfterResize() {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int seed = 0; seed < 10; seed++) {
+                ConstraintWidgetContainer root = Hierarchies.create(shape, 60, seed);
+                measure(root, STANDARD_GRAPH);
+                setFixed(root.getChildren().get(seed * 5));
+                for (int level : new int[]{STANDARD_GRAPH, Optimizer.OPTIMIZATION_NONE}) {
+                    int[] expected = measure(root, level);
+                    assertArrayEquals(shape + " " + seed, expected, measure(root, level));
+                }
+            }
+        }
+    }
+
+    /**
+     * Each system reports into its own metrics; the deprecated static ones follow the metrics
+     * last given to a system
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testMetricsPerSystem() {
+        ConstraintWidgetContainer first = Hierarchies.create(Hierarchies.Shape.CHAINS, 20, 1);
+        ConstraintWidgetContainer second = Hierarchies.create(Hierarchies.Shape.CHAINS, 20, 1);
+        ConstraintWidgetContainer none = Hierarchies.create(Hierarchies.Shape.CHAINS, 20, 1);
+        Metrics firstMetrics = new Metrics();
+        Metrics secondMetrics = new Metrics();
+        first.fillMetrics(firstMetrics);
+        second.fillMetrics(secondMetrics);
+        assertSame(firstMetrics, first.getSystem().getSystemMetrics());
+        assertSame(secondMetrics, second.getSystem().getSystemMetrics());
+        assertNull(none.getSystem().getSystemMetrics());
+        assertSame(secondMetrics, LinearSystem.getMetrics());
+        assertSame(secondMetrics, LinearSystem.sMetrics);
+
+        measure(first, Optimizer.OPTIMIZATION_NONE);
+        long minimize = firstMetrics.minimize;
+        assertTrue(minimize > 0);
+        assertEquals(0, secondMetrics.minimize);
+        measure(none, Optimizer.OPTIMIZATION_NONE);
+        measure(second, Optimizer.OPTIMIZATION_NONE);
+        assertEquals(minimize, firstMetrics.minimize);
+        assertEquals(minimize, secondMetrics.minimize);
+    }
+
+    /**
+     * The pivot rows found through the rows of the pivot candidate are the ones a scan of all
+     * the rows finds
+     */
+    @Test
+    public void testPivotRowsMatchFullScan() {
+        int checks = 0;
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int seed = 0; seed < 4; seed++) {
+                for (int level : new int[]{Optimizer.OPTIMIZATION_NONE,
+                        Optimizer.OPTIMIZATION_STANDARD, STANDARD_GRAPH}) {
+                    ConstraintWidgetContainer root = Hierarchies.create(shape, 20 + seed * 20,
+                            seed);
+                    LinearSystem system = root.getSystem();
+                    system.mCheckPivotRows = true;
+                    measure(root, level);
+                    // solved again after an edit
+                    setFixed(root.getChildren().get(seed * 3));
+                    measure(root, level);
+                    assertEquals(shape + " seed " + seed + " level " + level, 0,
+                            system.mPivotRowMismatches);
+                    checks += system.mPivotRowChecks;
+                }
+            }
+        }
+        assertTrue(checks > 0);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * The goal row finds its pivot candidate in a heap: it must be the one the linear scan of the
+ * goals (in the order they were added) found.
+ */
+public class PriorityGoalRowTest {
+
+    private static final float EPSILON = 0.0001f;
+    private static final float[] VALUES = {1, -1, 2, -2, 0.5f, -0.5f, 0.00001f};
+
+    /**
+     * The goals kept as a list in the order they were added, with their strengths, as the
+     * goal row did before the heap
+     */
+    private static class Model {
+        final ArrayList<SolverVariable> goals = new ArrayList<>();
+        final HashMap<SolverVariable, float[]> strengths = new HashMap<>();
+
+        float[] strengths(SolverVariable variable) {
+            float[] vector = strengths.get(variable);
+            if (vector == null) {
+                vector = new float[SolverVariable.MAX_STRENGTH];
+                strengths.put(variable, vector);
+            }
+            return vector;
+        }
+
+        void addError(SolverVariable error) {
+            float[] vector = strengths(error);
+            Arrays.fill(vector, 0);
+            vector[error.strength] = 1;
+            if (!goals.contains(error)) {
+                goals.add(error);
+            }
+        }
+
+        void updateFromRow(SolverVariable goal, SolverVariable[] variables, float[] values) {
+            float[] goalVector = strengths(goal);
+            for (int i = 0; i < variables.length; i++) {
+                float[] vector = strengths(variables[i]);
+                if (goals.contains(variables[i])) {
+                    boolean empty = true;
+                    for (int j = 0; j < vector.length; j++) {
+                        vector[j] += goalVector[j] * values[i];
+                        if (Math.abs(vector[j]) < EPSILON) {
+                            vector[j] = 0;
+                        } else {
+                            empty = false;
+                        }
+                    }
+                    if (empty) {
+                        goals.remove(variables[i]);
+                    }
+                } else {
+                    for (int j = 0; j < vector.length; j++) {
+                        float v = goalVector[j] * values[i];
+                        vector[j] = Math.abs(v) < EPSILON ? 0 : v;
+                    }
+                    goals.add(variables[i]);
+                }
+            }
+            goals.remove(goal);
+        }
+
+        boolean isNegative(SolverVariable variable) {
+            float[] vector = strengths(variable);
+            for (int i = vector.length - 1; i >= 0; i--) {
+                if (vector[i] > 0) {
+                    return false;
+                }
+                if (vector[i] < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isSmallerThan(SolverVariable variable, SolverVariable other) {
+            float[] vector = strengths(variable);
+            float[] otherVector = strengths(other);
+            for (int i = vector.length - 1; i >= 0; i--) {
+                if (vector[i] != otherVector[i]) {
+                    return vector[i] < otherVector[i];
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The previous getPivotCandidate()
+         */
+        SolverVariable getPivotCandidate(boolean[] avoid) {
+            SolverVariable pivot = null;
+            for (SolverVariable variable : goals) {
+                if (avoid[variable.id]) {
+                    continue;
+                }
+                if (pivot == null) {
+                    if (isNegative(variable)) {
+                        pivot = variable;
+                    }
+                } else if (isSmallerThan(variable, pivot)) {
+                    pivot = variable;
+                }
+            }
+            return pivot;
+        }
+    }
+
+    private static void assertSameCandidates(String name, PriorityGoalRow row, Model model,
+                                             int count, Random random) {
+        assertEquals(name, model.goals.isEmpty(), row.isEmpty());
+        boolean[] avoid = new boolean[count + 1];
+        for (int test = 0; test < 8; test++) {
+            for (int i = 0; i < avoid.length; i++) {
+                avoid[i] = test > 0 && random.nextInt(4) == 0;
+            }
+            // avoid the candidates one after the other
+            for (int i = 0; i < 4; i++) {
+                SolverVariable expected = model.getPivotCandidate(avoid);
+                assertSame(name + " avoiding " + Arrays.toString(avoid), expected,
+                        row.getPivotCandidate(null, avoid));
+                if (expected == null) {
+                    break;
+                }
+                avoid[expected.id] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testCandidatesMatchLinearScan() {
+        Random random = new Random(19);
+        for (int test = 0; test < 200; test++) {
+            LinearSystem system = new LinearSystem();
+            int count = 2 + random.nextInt(test < 100 ? 12 : 200);
+            SolverVariable[] variables = new SolverVariable[count];
+            for (int i = 0; i < count; i++) {
+                // not an error variable, which would be added to the goal of the system
+                variables[i] = system.createExtraVariable();
+                variables[i].strength = random.nextInt(SolverVariable.MAX_STRENGTH);
+            }
+            PriorityGoalRow row = new PriorityGoalRow(system.mCache);
+            Model model = new Model();
+            for (int step = 0; step < 60; step++) {
+                String name = "test " + test + " step " + step;
+                if (model.goals.isEmpty() || random.nextInt(3) == 0) {
+                    SolverVariable error = variables[random.nextInt(count)];
+                    if (random.nextInt(4) == 0) {
+                        // same variable, another strength
+                        error.strength = random.nextInt(SolverVariable.MAX_STRENGTH);
+                    }
+                    row.addError(error);
+                    model.addError(error);
+                } else {
+                    // substitute a goal by a row of other variables, which changes their
+                    // strengths, adds them as goals or removes them
+                    SolverVariable goal = model.goals.get(random.nextInt(model.goals.size()));
+                    ArrayList<SolverVariable> others = new ArrayList<>();
+                    for (SolverVariable variable : variables) {
+                        if (variable != goal && random.nextInt(3) == 0) {
+                            others.add(variable);
+                        }
+                    }
+                    SolverVariable[] rowVariables = others.toArray(new SolverVariable[0]);
+                    float[] values = new float[rowVariables.length];
+                    ArrayRow definition = new ArrayRow(system.mCache);
+                    definition.variable = goal;
+                    for (int i = 0; i < rowVariables.length; i++) {
+                        values[i] = VALUES[random.nextInt(VALUES.length)];
+                        definition.variables.put(rowVariables[i], values[i]);
+                    }
+                    // the order of the row variables is the one of the row
+                    for (int i = 0; i < rowVariables.length; i++) {
+                        rowVariables[i] = definition.variables.getVariable(i);
+                        values[i] = definition.variables.getVariableValue(i);
+                    }
+                    row.updateFromRow(system, definition, false);
+                    model.updateFromRow(goal, rowVariables, values);
+                }
+                for (SolverVariable variable : variables) {
+                    assertEquals(name, model.goals.contains(variable), variable.inGoal);
+                }
+                assertSameCandidates(name, row, model, count, random);
+            }
+            row.clear();
+            assertTrue(row.isEmpty());
+            assertNull(row.getPivotCandidate(null, new boolean[count + 1]));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Optimizer;
+
+import org.junit.Test;
+
+public class SolverConfigTest {
+
+    private static final int ORDERING = Optimizer.OPTIMIZATION_STANDARD
+            | Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING;
+
+    @Test
+    public void testOptimizationLevelSetOnGroupSystems() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 1000);
+        root.setOptimizationLevel(Optimizer.OPTIMIZATION_STANDARD);
+        LinearSystem group = root.getGroupSystem(0);
+        assertFalse(group.getConfig().useDependencyOrdering);
+
+        root.setOptimizationLevel(ORDERING);
+        assertTrue(root.getSystem().getConfig().useDependencyOrdering);
+        assertTrue(group.getConfig().useDependencyOrdering);
+        assertTrue(root.getGroupSystem(1).getConfig().useDependencyOrdering);
+
+        root.setOptimizationLevel(Optimizer.OPTIMIZATION_STANDARD);
+        assertFalse(root.getSystem().getConfig().useDependencyOrdering);
+        assertFalse(group.getConfig().useDependencyOrdering);
+        assertFalse(root.getGroupSystem(1).getConfig().useDependencyOrdering);
+    }
+
+    @Test
+    public void testOptimizationLevelKeepsOtherOptions() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 1000);
+        SolverConfig config = new SolverConfig();
+        config.engine = LinearSystem.ENGINE_COMPACT;
+        config.skipColumns = true;
+        root.setSolverConfig(config);
+        LinearSystem group = root.getGroupSystem(0);
+
+        root.setOptimizationLevel(ORDERING);
+        for (LinearSystem system : new LinearSystem[]{root.getSystem(), group}) {
+            assertEquals(LinearSystem.ENGINE_COMPACT, system.getConfig().engine);
+            assertTrue(system.getConfig().skipColumns);
+            assertTrue(system.getConfig().useDependencyOrdering);
+        }
+        // the given options are copied
+        assertFalse(config.useDependencyOrdering);
+        assertNotSame(config, root.getSolverConfig());
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The segment lookup of the curve fits starts from the segment of the previous lookup: the
+ * results must not depend on the lookups made before.
+ */
+public class CurveFitTest {
+
+    private static final int SWEEP = 0;
+    private static final int BACKWARD = 1;
+    private static final int RANDOM = 2;
+    private static final int KNOTS = 3;
+
+    /**
+     * The segment found by scanning the time points from the start, as the curve fits did
+     */
+    private static int linearScan(double[] time, double t, boolean inclusive) {
+        for (int i = 0; i < time.length - 1; i++) {
+            if (inclusive ? t <= time[i + 1] : t < time[i + 1]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Increasing time points, with some repeated if duplicates is set
+     */
+    private static double[] time(Random random, int count, boolean duplicates) {
+        double[] time = new double[count];
+        time[0] = random.nextDouble() * 0.1;
+        for (int i = 1; i < count; i++) {
+            time[i] = time[i - 1];
+            if (!duplicates || random.nextInt(4) != 0) {
+                time[i] += 0.01 + random.nextDouble() * 0.2;
+            }
+        }
+        return time;
+    }
+
+    private static double[][] values(Random random, int count, int dimensions) {
+        double[][] values = new double[count][dimensions];
+        for (double[] value : values) {
+            for (int j = 0; j < dimensions; j++) {
+                value[j] = random.nextDouble() * 200 - 100;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The positions to look up: a forward sweep, a backward sweep, random positions, or the
+     * time points themselves in random order. All of them go out of range on both sides.
+     */
+    private static double[] positions(Random random, double[] time, int order) {
+        double first = time[0];
+        double last = time[time.length - 1];
+        double[] positions = new double[200];
+        for (int i = 0; i < positions.length; i++) {
+            double t;
+            switch (order) {
+                case SWEEP:
+                    t = first - 0.1 + (last - first + 0.2) * i / (positions.length - 1);
+                    break;
+                case BACKWARD:
+                    t = last + 0.1 - (last - first + 0.2) * i / (positions.length - 1);
+                    break;
+                case KNOTS:
+                    t = i % 10 == 0 ? last + 1 : time[random.nextInt(time.length)];
+                    break;
+                default:
+                    t = first - 0.5 + (last - first + 1) * random.nextDouble();
+            }
+            positions[i] = t;
+        }
+        return positions;
+    }
+
+    @Test
+    public void testFindSegmentMatchesLinearScan() {
+        Random random = new Random(11);
+        for (int test = 0; test < 400; test++) {
+            int count = 2 + random.nextInt(40);
+            double[] time = time(random, count, test % 2 == 1);
+            CurveFit fit = new LinearCurveFit(time, values(random, count, 1));
+            for (int pass = 0; pass < 8; pass++) {
+                int order = random.nextInt(4);
+                boolean inclusive = random.nextBoolean();
+                for (double t : positions(random, time, order)) {
+                    assertEquals(Arrays.toString(time) + " at " + t,
+                            linearScan(time, t, inclusive),
+                            fit.findSegment(time, t, inclusive));
+                }
+            }
+            assertEquals(-1, fit.findSegment(time, Double.NaN, true));
+            assertEquals(-1, fit.findSegment(time, Double.NaN, false));
+        }
+    }
+
+    @Test
+    public void testLinearMatchesLinearScan() {
+        Random random = new Random(12);
+        for (int test = 0; test < 200; test++) {
+            int count = 2 + random.nextInt(20);
+            double[] time = time(random, count, test % 2 == 1);
+            double[][] y = values(random, count, 2);
+            CurveFit fit = new LinearCurveFit(time, y);
+            for (int order = 0; order < 4; order++) {
+                for (double t : positions(random, time, order)) {
+                    if (t <= time[0] || t >= time[count - 1]) {
+                        // extrapolated, without a lookup
+                        continue;
+                    }
+                    for (int j = 0; j < 2; j++) {
+                        assertEquals(t + " " + j, linearPos(time, y, t, j), fit.getPos(t, j), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * LinearCurveFit.getPos(t, j) between the first and last time points as it was, with the
+     * linear scan: the first key frame at t wins when several share the same time.
+     */
+    private static double linearPos(double[] time, double[][] y, double t, int j) {
+        for (int i = 0; i < time.length - 1; i++) {
+            if (t == time[i]) {
+                return y[i][j];
+            }
+            if (t < time[i + 1]) {
+                double x = (t - time[i]) / (time[i + 1] - time[i]);
+                return y[i][j] * (1 - x) + y[i + 1][j] * x;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A new curve fit of the same kind and key frames, with no previous lookup
+     */
+    private interface Factory {
+        CurveFit create();
+    }
+
+    private static void assertSameAsFresh(String name, Factory factory, double[] positions) {
+        CurveFit shared = factory.create();
+        int dimensions = shared instanceof ArcCurveFit ? 2 : 3;
+        double[] expected = new double[dimensions];
+        double[] actual = new double[dimensions];
+        float[] expectedFloats = new float[dimensions];
+        float[] actualFloats = new float[dimensions];
+        for (double t : positions) {
+            String at = name + " at " + t;
+            // looked up at t only
+            CurveFit fresh = factory.create();
+            fresh.getPos(t, expected);
+            shared.getPos(t, actual);
+            assertBits(at, expected, actual);
+
+            fresh.getPos(t, expectedFloats);
+            shared.getPos(t, actualFloats);
+            for (int j = 0; j < dimensions; j++) {
+                assertEquals(at, Float.floatToIntBits(expectedFloats[j]),
+                        Float.floatToIntBits(actualFloats[j]));
+            }
+
+            fresh.getSlope(t, expected);
+            shared.getSlope(t, actual);
+            assertBits(at, expected, actual);
+
+            for (int j = 0; j < dimensions; j++) {
+                assertEquals(at, Double.doubleToLongBits(fresh.getPos(t, j)),
+                        Double.doubleToLongBits(shared.getPos(t, j)));
+                assertEquals(at, Double.doubleToLongBits(fresh.getSlope(t, j)),
+                        Double.doubleToLongBits(shared.getSlope(t, j)));
+            }
+        }
+    }
+
+    private static void assertBits(String message, double[] expected, double[] actual) {
+        for (int j = 0; j < expected.length; j++) {
+            assertEquals(message, Double.doubleToLongBits(expected[j]),
+                    Double.doubleToLongBits(actual[j]));
+        }
+    }
+
+    @Test
+    public void testResultsIndependentOfPreviousLookups() {
+        Random random = new Random(13);
+        for (int test = 0; test < 40; test++) {
+            int count = 2 + random.nextInt(16);
+            double[] time = time(random, count, test % 3 == 2);
+            double[][] y3 = values(random, count, 3);
+            double[][] y2 = values(random, count, 2);
+            int[] modes = new int[count];
+            for (int i = 0; i < count; i++) {
+                modes[i] = random.nextInt(4);
+            }
+            double[] positions = new double[0];
+            for (int order = 0; order < 4; order++) {
+                double[] next = positions(random, time, order);
+                positions = Arrays.copyOf(positions, positions.length + next.length);
+                System.arraycopy(next, 0, positions, positions.length - next.length,
+                        next.length);
+            }
+            String name = Arrays.toString(time);
+            assertSameAsFresh("spline " + name,
+                    () -> new MonotonicCurveFit(time, y3), positions);
+            assertSameAsFresh("linear " + name,
+                    () -> new LinearCurveFit(time, y3), positions);
+            assertSameAsFresh("arc " + name,
+                    () -> new ArcCurveFit(modes, time, y2), positions);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EasingTest {
+
+    private static final String[] CUBICS = {
+            "standard", "accelerate", "decelerate", "linear", "anticipate", "overshoot",
+            "cubic(0.0, 0.0, 1.0, 1.0)", "cubic(0.1, 0.9, 0.9, 0.1)", "cubic(0.0, 1.0, 0.0, 1.0)"
+    };
+    private static final int SAMPLES = 10000;
+
+    private static double bezier(double p1, double p2, double t) {
+        double t1 = 1 - t;
+        return 3 * t1 * t1 * t * p1 + 3 * t1 * t * t * p2 + t * t * t;
+    }
+
+    private static double bezierDiff(double p1, double p2, double t) {
+        double t1 = 1 - t;
+        return 3 * t1 * t1 * p1 + 6 * t1 * t * (p2 - p1) + 3 * t * t * (1 - p2);
+    }
+
+    private static double solve(Easing.CubicEasing easing, double x) {
+        double low = 0;
+        double high = 1;
+        for (int i = 0; i < 60; i++) {
+            double t = (low + high) / 2;
+            if (bezier(easing.x1, easing.x2, t) < x) {
+                low = t;
+            } else {
+                high = t;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private static Easing.CubicEasing cubic(String config, boolean useLookupTable) {
+        Easing.CubicEasing easing = (Easing.CubicEasing) Easing.getInterpolator(config);
+        easing.setUseLookupTable(useLookupTable);
+        return easing;
+    }
+
+    @Test
+    public void testLookupTableAccuracy() {
+        for (String config : CUBICS) {
+            Easing.CubicEasing bisection = cubic(config, false);
+            Easing.CubicEasing table = cubic(config, true);
+            double bisectionError = 0;
+            double tableError = 0;
+            double bisectionDiffError = 0;
+            double tableDiffError = 0;
+            for (int i = 1; i < SAMPLES; i++) {
+                double x = i / (double) SAMPLES;
+                double t = solve(table, x);
+                double y = bezier(table.y1, table.y2, t);
+                bisectionError = Math.max(bisectionError, Math.abs(bisection.get(x) - y));
+                tableError = Math.max(tableError, Math.abs(table.get(x) - y));
+                double diffX = bezierDiff(table.x1, table.x2, t);
+                if (diffX > 1e-3) { // away from vertical tangents
+                    double diff = bezierDiff(table.y1, table.y2, t) / diffX;
+                    // relative to the slope where it is steep
+                    double scale = Math.max(1, Math.abs(diff));
+                    bisectionDiffError = Math.max(bisectionDiffError,
+                            Math.abs(bisection.getDiff(x) - diff) / scale);
+                    tableDiffError = Math.max(tableDiffError,
+                            Math.abs(table.getDiff(x) - diff) / scale);
+                }
+            }
+            assertTrue(config + " get error " + tableError, tableError < 1e-5);
+            assertTrue(config + " getDiff error " + tableDiffError, tableDiffError < 5e-4);
+            // at least as precise as the binary search
+            assertTrue(config, tableError <= Math.max(bisectionError, 1e-6));
+            assertTrue(config, tableDiffError <= Math.max(bisectionDiffError, 1e-6));
+        }
+    }
+
+    @Test
+    public void testLookupTableBounds() {
+        for (String config : CUBICS) {
+            Easing.CubicEasing table = cubic(config, true);
+            assertEquals(config, 0, table.get(0), 0);
+            assertEquals(config, 1, table.get(1), 0);
+            assertEquals(config, 0, table.get(-0.5), 0);
+            assertEquals(config, 1, table.get(1.5), 0);
+            assertTrue(config, Double.isFinite(table.getDiff(0)));
+            assertTrue(config, Double.isFinite(table.getDiff(1)));
+        }
+    }
+
+    @Test
+    public void testLookupTableOff() {
+        for (String config : CUBICS) {
+            Easing.CubicEasing bisection = cubic(config, false);
+            Easing.CubicEasing toggled = cubic(config, true);
+            toggled.setUseLookupTable(false);
+            for (int i = 0; i <= 100; i++) {
+                double x = i / 100.0;
+                assertEquals(config, bisection.get(x), toggled.get(x), 0);
+                assertEquals(config, bisection.getDiff(x), toggled.getDiff(x), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+public class KeyCacheTest {
+
+    @Test
+    public void testSetGet() {
+        KeyCache cache = new KeyCache();
+        Object view = new Object();
+        assertTrue(Float.isNaN(cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 0)));
+        cache.setFloatValue(view, TypedValues.Attributes.S_ALPHA, 0, 0.5f);
+        cache.setFloatValue(view, TypedValues.Attributes.S_ALPHA, 2, 0.7f);
+        assertEquals(0.5f, cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 0), 0f);
+        assertEquals(0.7f, cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 2), 0f);
+        assertTrue(Float.isNaN(cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 1)));
+        // the String and int keys are the same
+        assertEquals(0.5f, cache.getFloatValue(view, TypedValues.Attributes.TYPE_ALPHA, 0), 0f);
+        cache.setFloatValue(view, TypedValues.Attributes.TYPE_ALPHA, 0, 0.25f);
+        assertEquals(0.25f, cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 0), 0f);
+
+        // views are compared by identity
+        assertTrue(Float.isNaN(cache.getFloatValue(new Object(), TypedValues.Attributes.S_ALPHA, 0)));
+
+        cache.clear();
+        assertTrue(Float.isNaN(cache.getFloatValue(view, TypedValues.Attributes.S_ALPHA, 0)));
+    }
+
+    @Test
+    public void testNullView() {
+        KeyCache cache = new KeyCache();
+        cache.setFloatValue(null, TypedValues.Attributes.TYPE_ALPHA, 0, 0.5f);
+        assertEquals(0.5f, cache.getFloatValue(null, TypedValues.Attributes.TYPE_ALPHA, 0), 0f);
+        assertTrue(Float.isNaN(cache.getFloatValue(new Object(), TypedValues.Attributes.TYPE_ALPHA, 0)));
+    }
+
+    @Test
+    public void testCustomTypes() {
+        int id = KeyCache.getAttributeId("myCustomColor");
+        assertEquals(id, KeyCache.getAttributeId("myCustomColor"));
+        assertNotEquals(id, KeyCache.getAttributeId("myOtherCustomColor"));
+        assertNotEquals(-1, id);
+        assertEquals(TypedValues.Attributes.TYPE_ALPHA,
+                KeyCache.getAttributeId(TypedValues.Attributes.S_ALPHA));
+
+        // the ids are the same for every cache
+        KeyCache cache = new KeyCache();
+        KeyCache other = new KeyCache();
+        Object view = new Object();
+        assertTrue(Float.isNaN(cache.getFloatValue(view, "neverSetCustom", 0)));
+        cache.setFloatValue(view, "myCustomColor", 0, 3f);
+        other.setFloatValue(view, id, 0, 4f);
+        assertEquals(3f, cache.getFloatValue(view, id, 0), 0f);
+        assertEquals(4f, other.getFloatValue(view, "myCustomColor", 0), 0f);
+        assertTrue(Float.isNaN(cache.getFloatValue(view, "myOtherCustomColor", 0)));
+    }
+
+    @Test
+    public void testGrowth() {
+        KeyCache cache = new KeyCache();
+        HashMap<String, Float> expected = new HashMap<>();
+        Object[] views = new Object[200];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new Object();
+        }
+        String[] types = {TypedValues.Attributes.S_ALPHA, TypedValues.Attributes.S_ROTATION_Z,
+                TypedValues.Attributes.S_SCALE_X, "customA", "customB"};
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int view = random.nextInt(views.length);
+            String type = types[random.nextInt(types.length)];
+            int element = random.nextInt(3);
+            String key = view + "/" + type + "/" + element;
+            if (random.nextBoolean()) {
+                float value = random.nextFloat();
+                cache.setFloatValue(views[view], type, element, value);
+                expected.put(key, value);
+            } else {
+                float value = cache.getFloatValue(views[view], type, element);
+                Float model = expected.get(key);
+                if (model == null) {
+                    assertTrue(key, Float.isNaN(value));
+                } else {
+                    assertEquals(key, model, value, 0f);
+                }
+            }
+        }
+        // every value is still there after the table grew
+        for (int view = 0; view < views.length; view++) {
+            for (String type : types) {
+                for (int element = 0; element < 3; element++) {
+                    Float model = expected.get(view + "/" + type + "/" + element);
+                    float value = cache.getFloatValue(views[view], type, element);
+                    if (model == null) {
+                        assertTrue(Float.isNaN(value));
+                    } else {
+                        assertEquals(model, value, 0f);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CLBinaryTest {
+
+    private static final String SCENE = "{\n"
+            + "  ConstraintSets: {\n"
+            + "    start: {\n"
+            + "      box: { width: 'spread', height: 64, start: ['parent', 'start', 16],\n"
+            + "             top: ['parent', 'top', 16.5], custom: { background: '#FF0000' } },\n"
+            + "      title: { start: ['box', 'end'], baseline: ['box', 'baseline'],\n"
+            + "               visibility: 'gone', alpha: -0.25 }\n"
+            + "    },\n"
+            + "    end: {\n"
+            + "      Extends: 'start',\n"
+            + "      box: { end: ['parent', 'end', 16], bottom: ['parent', 'bottom', 16] }\n"
+            + "    }\n"
+            + "  },\n"
+            + "  Transitions: {\n"
+            + "    default: { from: 'start', to: 'end', pathMotionArc: 'startVertical',\n"
+            + "               KeyFrames: { KeyPositions: [ { target: ['box'], frames: [25, 50],\n"
+            + "                 percentX: [0.2, 0.8], percentY: [0.3, 0.7] } ] },\n"
+            + "               enabled: true, reversed: false, extra: null }\n"
+            + "  }\n"
+            + "}";
+
+    private static byte[] compiled() throws CLParsingException {
+        return CLBinary.encode(CLParser.parse(SCENE));
+    }
+
+    /**
+     * Decodes the bytes, which may be corrupt: the only failure allowed is a
+     * {@link CLParsingException}
+     */
+    private static void decode(byte[] bytes, String name) {
+        try {
+            CLBinary.decode(ByteBuffer.wrap(bytes));
+        } catch (CLParsingException e) {
+            // expected
+        } catch (Throwable e) {
+            throw new AssertionError(name + ": " + e, e);
+        }
+    }
+
+    @Test
+    public void testDecodesEncodedDocument() throws CLParsingException {
+        CLObject parsed = CLParser.parse(SCENE);
+        CLObject decoded = CLBinary.decode(ByteBuffer.wrap(compiled()));
+        assertEquals(parsed.toJSON(), decoded.toJSON());
+    }
+
+    @Test
+    public void testTruncatedDocuments() throws CLParsingException {
+        byte[] bytes = compiled();
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                CLBinary.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+                fail("decoded " + length + " of " + bytes.length + " bytes");
+            } catch (CLParsingException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptDocuments() throws CLParsingException {
+        byte[] bytes = compiled();
+        for (int position = 0; position < bytes.length; position++) {
+            for (int value : new int[]{0x00, 0x01, 0x7F, 0x80, 0xFF}) {
+                byte[] corrupt = bytes.clone();
+                corrupt[position] = (byte) value;
+                decode(corrupt, position + " = " + value);
+            }
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            byte[] corrupt = bytes.clone();
+            for (int j = 0; j < 4; j++) {
+                corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+            }
+            decode(corrupt, "random " + i);
+        }
+    }
+
+    /**
+     * Counts that can't fit in the rest of the buffer are rejected before anything is
+     * allocated for them
+     */
+    @Test
+    public void testHugeCounts() throws CLParsingException {
+        byte[] bytes = compiled();
+        // the count of strings follows the magic, the version and the fingerprint
+        int header = 4 + 2 + 4;
+        byte[][] counts = {
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}, // Integer.MAX_VALUE
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, // -1
+                {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08}, // Integer.MIN_VALUE
+        };
+        for (byte[] count : counts) {
+            byte[] corrupt = new byte[bytes.length + count.length];
+            System.arraycopy(bytes, 0, corrupt, 0, header);
+            System.arraycopy(count, 0, corrupt, header, count.length);
+            System.arraycopy(bytes, header, corrupt, header + count.length,
+                    bytes.length - header);
+            try {
+                CLBinary.decode(ByteBuffer.wrap(corrupt));
+                fail("decoded count " + Arrays.toString(count));
+            } catch (CLParsingException e) {
+                // expected
+            }
+        }
+
+        // an object or an array as big as the buffer allows is rejected too
+        for (int tag : new int[]{1, 2}) {
+            byte[] corrupt = Arrays.copyOf(bytes, header + 1 + 1 + 5);
+            corrupt[header] = 0; // no strings
+            corrupt[header + 1] = (byte) tag;
+            System.arraycopy(counts[0], 0, corrupt, header + 2, 5);
+            try {
+                CLBinary.decode(ByteBuffer.wrap(corrupt));
+                fail("decoded element " + tag);
+            } catch (CLParsingException e) {
+                // expected
+            }
+        }
+    }
+}
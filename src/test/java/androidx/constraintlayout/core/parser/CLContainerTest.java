@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CLContainerTest {
+
+    private static final String[] NAMES = {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j",
+            "k", "l", "width", "height", "ab", "missing"};
+
+    /**
+     * The value of the first key with the given name, scanning the elements in order
+     */
+    private static CLElement linearGet(CLObject object, String name) throws CLParsingException {
+        for (int i = 0; i < object.size(); i++) {
+            CLKey key = (CLKey) object.get(i);
+            if (key.content().equals(name)) {
+                return key.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void assertSameLookups(String message, CLObject object)
+            throws CLParsingException {
+        for (String name : NAMES) {
+            CLElement expected = linearGet(object, name);
+            assertSame(message + " " + name, expected, object.getOrNull(name));
+            assertEquals(message + " " + name, expected != null, object.has(name));
+            if (expected != null) {
+                assertSame(message + " " + name, expected, object.get(name));
+            }
+        }
+    }
+
+    @Test
+    public void testKeyIndexMatchesLinearScan() throws CLParsingException {
+        Random random = new Random(2);
+        for (int test = 0; test < 200; test++) {
+            // below and above the size from which the keys are indexed, with duplicates
+            StringBuilder content = new StringBuilder("{");
+            int count = random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                content.append(i == 0 ? " " : ", ").append(NAMES[random.nextInt(14)])
+                        .append(": ").append(i);
+            }
+            content.append(" }");
+            CLObject object = CLParser.parse(content.toString());
+            assertSameLookups(content.toString(), object);
+            for (int step = 0; step < 40; step++) {
+                String name = NAMES[random.nextInt(NAMES.length - 1)];
+                String message = content + " step " + step;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        // replaces the value of the first key, or adds a key
+                        object.put(name, new CLNumber(step));
+                        message += " put " + name;
+                        assertEquals(message, step, object.getInt(name));
+                        break;
+                    case 1:
+                        // every key with that name
+                        object.remove(name);
+                        message += " remove " + name;
+                        assertFalse(message, object.has(name));
+                        break;
+                    case 2:
+                        // a duplicate key after the first one doesn't change the lookups
+                        object.add(CLKey.allocate(name, new CLNumber(-step)));
+                        message += " add " + name;
+                        break;
+                    default:
+                        // lookups only
+                        break;
+                }
+                assertSameLookups(message, object);
+            }
+        }
+    }
+
+    @Test
+    public void testContentCache() throws CLParsingException {
+        String source = "{ alpha: 1, beta: 'text', gamma: [1, 2], delta: { x: 3 } }";
+        CLObject object = CLParser.parse(source);
+        CLKey alpha = (CLKey) object.get(0);
+        String content = alpha.content();
+        assertEquals("alpha", content);
+        assertSame(content, alpha.content());
+        assertEquals("text", object.getString("beta"));
+
+        // the content of an element is its source, the same as before it was cached
+        String objectContent = source.substring((int) object.getStart(),
+                (int) object.getEnd() + 1);
+        assertEquals(objectContent, object.content());
+        assertEquals(objectContent, object.content());
+
+        // changing the range of an element drops its content
+        alpha.setStart(alpha.getStart() + 1);
+        assertEquals("lpha", alpha.content());
+        assertTrue(object.has("lpha"));
+        assertFalse(object.has("alpha"));
+
+        // the changes of a container are in its JSON, not in the content of its source
+        object.put("beta", new CLNumber(2));
+        object.remove("gamma");
+        object.put("epsilon", new CLNumber(5));
+        assertEquals(objectContent, object.content());
+        assertEquals("{ lpha: 1, beta: 2, delta: { x: 3 }, epsilon: 5 }", object.toJSON());
+        assertEquals("[lpha, beta, delta, epsilon]", object.names().toString());
+    }
+
+    @Test
+    public void testKeyIndexAcrossMutations() throws CLParsingException {
+        // large enough to be indexed on the first lookup, and still after the changes
+        CLObject object = CLParser.parse("{ a: 1, b: 2, c: 3, d: 4, e: 5, f: 6, g: 7, h: 8 }");
+        assertEquals(1, object.getInt("a"));
+        object.put("i", new CLNumber(9));
+        assertEquals(9, object.getInt("i"));
+        assertEquals(1, object.getInt("a"));
+        object.remove("a");
+        assertNull(object.getOrNull("a"));
+        assertEquals(8, object.getInt("h"));
+    }
+
+    @Test
+    public void testClone() throws CLParsingException {
+        String source = "{ a: 1, b: 2, c: 3, d: 4, e: 5, f: 6, g: 7, h: 8,"
+                + " box: { width: 10, start: ['parent', 'start'] } }";
+        CLObject object = CLParser.parse(source);
+        // the lookups of the original go through its index, built before the copy
+        assertEquals(8, object.getInt("h"));
+        String json = object.toJSON();
+
+        CLObject clone = (CLObject) object.clone();
+        assertEquals(json, clone.toJSON());
+        assertNotSame(object.getObject("box"), clone.getObject("box"));
+        assertNotSame(object.getObject("box").getArray("start"),
+                clone.getObject("box").getArray("start"));
+        for (int i = 0; i < clone.size(); i++) {
+            CLKey key = (CLKey) clone.get(i);
+            assertNotSame(object.get(i), key);
+            assertSame(clone, key.getContainer());
+            assertSame(key, key.getValue().getContainer());
+            assertSame(object, object.get(i).getContainer());
+        }
+
+        clone.put("a", new CLNumber(10));
+        clone.remove("b");
+        clone.put("z", new CLNumber(26));
+        clone.getObject("box").put("width", new CLNumber(20));
+        clone.getObject("box").remove("start");
+        clone.getObject("box").put("height", new CLNumber(30));
+        assertEquals(10, clone.getInt("a"));
+        assertFalse(clone.has("b"));
+        assertEquals(26, clone.getInt("z"));
+        assertEquals(20, clone.getObject("box").getInt("width"));
+
+        // the original is unchanged
+        assertEquals(json, object.toJSON());
+        assertEquals(1, object.getInt("a"));
+        assertEquals(2, object.getInt("b"));
+        assertFalse(object.has("z"));
+        assertEquals(10, object.getObject("box").getInt("width"));
+        assertTrue(object.getObject("box").has("start"));
+        assertFalse(object.getObject("box").has("height"));
+
+        // and a change of the original doesn't show in the copy
+        object.put("c", new CLNumber(30));
+        assertEquals(3, clone.getInt("c"));
+    }
+}
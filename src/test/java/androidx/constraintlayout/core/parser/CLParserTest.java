@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CLParserTest {
+
+    private static final String DOCUMENT = "// a comment before the root\n"
+            + "{\n"
+            + "  box: { width: 64, alpha: -0.25, scale: 1.5e2, start: ['parent', 'start', -16] },\n"
+            + "  'quoted': \"text\", // a trailing comment\n"
+            + "  grid: [[1, 2.5], [-3, [4e-1, -5E+1]], []],\n"
+            + "  flags: { visible: true, gone: false, tag: null },\n"
+            + "  empty: {}\n"
+            + "}";
+
+    /**
+     * Records the events as strings, numbers as their exact bits
+     */
+    private static class Recorder implements CLEventHandler {
+        final ArrayList<String> events = new ArrayList<>();
+
+        @Override
+        public void startObject() {
+            events.add("{");
+        }
+
+        @Override
+        public void endObject() {
+            events.add("}");
+        }
+
+        @Override
+        public void startArray() {
+            events.add("[");
+        }
+
+        @Override
+        public void endArray() {
+            events.add("]");
+        }
+
+        @Override
+        public void onKey(char[] content, int start, int length) {
+            events.add("key " + new String(content, start, length));
+        }
+
+        @Override
+        public void onString(char[] content, int start, int length) {
+            events.add("string " + new String(content, start, length));
+        }
+
+        @Override
+        public void onNumber(float value) {
+            events.add(number(value));
+        }
+
+        @Override
+        public void onBoolean(boolean value) {
+            events.add(String.valueOf(value));
+        }
+
+        @Override
+        public void onNull() {
+            events.add("null");
+        }
+    }
+
+    private static String number(float value) {
+        return "number " + value + " " + Integer.toHexString(Float.floatToRawIntBits(value));
+    }
+
+    private static List<String> events(String content) throws CLParsingException {
+        Recorder recorder = new Recorder();
+        CLParser.parse(content, recorder);
+        return recorder.events;
+    }
+
+    /**
+     * The events a walk of the tree parsed from the same content gives
+     */
+    private static List<String> treeEvents(String content) throws CLParsingException {
+        ArrayList<String> events = new ArrayList<>();
+        walk(CLParser.parse(content), events);
+        return events;
+    }
+
+    private static void walk(CLElement element, List<String> events) throws CLParsingException {
+        if (element instanceof CLObject) {
+            events.add("{");
+            CLObject object = (CLObject) element;
+            for (int i = 0; i < object.size(); i++) {
+                CLKey key = (CLKey) object.get(i);
+                events.add("key " + key.getName());
+                walk(key.getValue(), events);
+            }
+            events.add("}");
+        } else if (element instanceof CLArray) {
+            events.add("[");
+            CLArray array = (CLArray) element;
+            for (int i = 0; i < array.size(); i++) {
+                walk(array.get(i), events);
+            }
+            events.add("]");
+        } else if (element instanceof CLString) {
+            events.add("string " + element.content());
+        } else if (element instanceof CLNumber) {
+            events.add(number(element.getFloat()));
+        } else if (element instanceof CLToken) {
+            CLToken token = (CLToken) element;
+            if (token.getType() == CLToken.Type.NULL) {
+                events.add("null");
+            } else {
+                events.add(String.valueOf(token.getBoolean()));
+            }
+        } else {
+            fail("unexpected element " + element);
+        }
+    }
+
+    @Test
+    public void testEventOrder() throws CLParsingException {
+        List<String> expected = Arrays.asList(
+                "{",
+                "key a", "{", "key b", "[", number(1), "string x", "]", "}",
+                "key c", "true",
+                "key d", "null",
+                "}");
+        assertEquals(expected, events("{ a: { b: [1, 'x'] }, c: true, d: null }"));
+        assertEquals(expected, treeEvents("{ a: { b: [1, 'x'] }, c: true, d: null }"));
+    }
+
+    @Test
+    public void testEventsMatchTree() throws CLParsingException {
+        List<String> events = events(DOCUMENT);
+        assertEquals(treeEvents(DOCUMENT), events);
+        // quoted and unquoted keys, nested arrays and every number form
+        assertTrue(events.contains("key quoted"));
+        assertTrue(events.contains("key width"));
+        assertTrue(events.contains(number(-0.25f)));
+        assertTrue(events.contains(number(150f)));
+        assertTrue(events.contains(number(-16f)));
+        assertTrue(events.contains(number(0.4f)));
+        assertTrue(events.contains(number(-50f)));
+        assertEquals(Arrays.asList("key grid", "[", "[", number(1f), number(2.5f), "]",
+                "[", number(-3f), "[", number(0.4f), number(-50f), "]", "]", "[", "]", "]"),
+                events.subList(events.indexOf("key grid"), events.indexOf("key flags")));
+    }
+
+    @Test
+    public void testUnclosedContent() throws CLParsingException {
+        // the containers still open at the end are closed, in both modes
+        String content = "{ a: [1, { b: 2 }";
+        assertEquals(Arrays.asList("{", "key a", "[", number(1), "{", "key b", number(2),
+                "}", "]", "}"), events(content));
+        assertEquals(events(content), treeEvents(content));
+    }
+
+    @Test
+    public void testNumbers() throws CLParsingException {
+        String[] numbers = {"0", "-0", "7", "-7", "+7", "16777216", "16777217", "-2147483648",
+                "0.5", "-0.25", ".5", "-.5", "1.", "3.14159265", "0.1", "0.30000001",
+                "123456.789", "0.0000000001", "0.00000000001", "1e3", "-1E3", "2.5e-3",
+                "-4.5E+2", "1e-45", "3.4028235e38"};
+        for (String text : numbers) {
+            CLObject object = CLParser.parse("{ value: " + text + " }");
+            float expected = Float.parseFloat(text);
+            CLElement element = object.get("value");
+            assertTrue(text, element instanceof CLNumber);
+            assertEquals(text, Float.floatToRawIntBits(expected),
+                    Float.floatToRawIntBits(element.getFloat()));
+            assertEquals(text, Arrays.asList("{", "key value", number(expected), "}"),
+                    events("{ value: " + text + " }"));
+        }
+    }
+
+    @Test
+    public void testIntsAndFloats() throws CLParsingException {
+        CLObject object = CLParser.parse("{ a: 12, b: -12, c: 12.0, d: 12.5, e: -0.5, f: 1e2 }");
+        assertTrue(((CLNumber) object.get("a")).isInt());
+        assertTrue(((CLNumber) object.get("b")).isInt());
+        assertTrue(((CLNumber) object.get("c")).isInt());
+        assertFalse(((CLNumber) object.get("d")).isInt());
+        assertFalse(((CLNumber) object.get("e")).isInt());
+        assertTrue(((CLNumber) object.get("f")).isInt());
+        assertEquals(12, object.getInt("a"));
+        assertEquals(-12, object.getInt("b"));
+        assertEquals(12, object.getInt("c"));
+        assertEquals(12.5f, object.getFloat("d"), 0f);
+        assertEquals(100, object.getInt("f"));
+        assertEquals("{ a: 12, b: -12, c: 12, d: 12.5, e: -0.5, f: 100 }", object.toJSON());
+    }
+
+    @Test
+    public void testRandomDecimals() throws CLParsingException {
+        Random random = new Random(22);
+        StringBuilder content = new StringBuilder("{ values: [");
+        ArrayList<String> texts = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            text.append(random.nextInt(1 << random.nextInt(26)));
+            if (random.nextBoolean()) {
+                text.append('.');
+                int digits = random.nextInt(12);
+                for (int j = 0; j < digits; j++) {
+                    text.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            texts.add(text.toString());
+            content.append(i == 0 ? "" : ", ").append(text);
+        }
+        content.append("] }");
+        CLArray values = CLParser.parse(content.toString()).getArray("values");
+        List<String> events = events(content.toString());
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            float expected = Float.parseFloat(text);
+            assertEquals(text, Float.floatToRawIntBits(expected),
+                    Float.floatToRawIntBits(values.getFloat(i)));
+            // the events start with "{", "key values", "["
+            assertEquals(text, number(expected), events.get(i + 3));
+        }
+    }
+
+    @Test
+    public void testParseDecimal() {
+        char[] content = "x-12.5,+3,1.2.3,--1,-,.,12a,0.12345678901".toCharArray();
+        assertEquals(-12.5f, CLNumber.parseDecimal(content, 1, 5), 0f);
+        assertEquals(3f, CLNumber.parseDecimal(content, 7, 8), 0f);
+        // not plain decimals, or too many digits: left to Float.parseFloat
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 10, 14)));
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 16, 18)));
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 20, 20)));
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 22, 22)));
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 24, 26)));
+        assertTrue(Float.isNaN(CLNumber.parseDecimal(content, 28, 40)));
+    }
+
+    @Test
+    public void testInvalidNumber() {
+        try {
+            events("{ a: 1.2.3 }");
+            fail("invalid number accepted");
+        } catch (CLParsingException e) {
+            // expected
+        }
+        try {
+            CLParser.parse("{ a: 1.2.3 }").getFloat("a");
+            fail("invalid number accepted");
+        } catch (CLParsingException | NumberFormatException e) {
+            // expected, the tree parser fails on access
+        }
+    }
+}
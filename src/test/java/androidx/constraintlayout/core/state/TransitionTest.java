@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.utils.Easing;
+import androidx.constraintlayout.core.motion.utils.TypedBundle;
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+public class TransitionTest {
+
+    private static final int WIDGETS = 40;
+    private static final int FRAMES = 60;
+
+    private static ConstraintWidgetContainer layout(boolean end) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 1000);
+        for (int i = 0; i < WIDGETS; i++) {
+            ConstraintWidget widget = new ConstraintWidget(100, 20);
+            widget.stringId = "w" + i;
+            widget.setOrigin(end ? 800 - i * 10 : i * 10, end ? i * 20 : 900 - i * 20);
+            root.add(widget);
+        }
+        return root;
+    }
+
+    private static Transition createTransition() {
+        Transition transition = new Transition();
+        transition.updateFrom(layout(false), Transition.START);
+        transition.updateFrom(layout(true), Transition.END);
+        transition.addKeyPosition("w0", 50, 0, 0.2f, 0.8f);
+        transition.addCustomFloat(Transition.START, "w1", "alpha", 0f);
+        transition.addCustomFloat(Transition.END, "w1", "alpha", 1f);
+        return transition;
+    }
+
+    private static void sweep(Transition transition, int width, int height) {
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            transition.interpolate(width, height, frame / (float) FRAMES);
+        }
+    }
+
+    private static int setupCount(Transition transition, String id) {
+        return transition.getWidgetState(id).mSetupCount;
+    }
+
+    @Test
+    public void testNoSplineRebuildAcrossFrames() {
+        Transition transition = createTransition();
+        sweep(transition, 1000, 1000);
+        for (int i = 0; i < WIDGETS; i++) {
+            assertEquals("w" + i, 1, setupCount(transition, "w" + i));
+        }
+        sweep(transition, 1000, 1000);
+        for (int i = 0; i < WIDGETS; i++) {
+            assertEquals("w" + i, 1, setupCount(transition, "w" + i));
+        }
+    }
+
+    @Test
+    public void testSplinesRebuiltOnChange() {
+        Transition transition = createTransition();
+        sweep(transition, 1000, 1000);
+
+        // parent size
+        sweep(transition, 1200, 1000);
+        assertEquals(2, setupCount(transition, "w2"));
+
+        // keyframe
+        transition.addKeyPosition("w2", 25, 0, 0.5f, 0.5f);
+        sweep(transition, 1200, 1000);
+        assertEquals(3, setupCount(transition, "w2"));
+        assertEquals(2, setupCount(transition, "w3"));
+
+        // custom attribute
+        transition.addCustomFloat(Transition.END, "w3", "alpha", 0.5f);
+        sweep(transition, 1200, 1000);
+        assertEquals(3, setupCount(transition, "w3"));
+
+        // start and end frames
+        transition.updateFrom(layout(true), Transition.START);
+        sweep(transition, 1200, 1000);
+        assertEquals(4, setupCount(transition, "w3"));
+    }
+
+    @Test
+    public void testCachedSplinesMatchRebuiltOnes() {
+        Transition cached = createTransition();
+        Transition rebuilt = createTransition();
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            float progress = frame / (float) FRAMES;
+            cached.interpolate(1000, 1000, progress);
+            for (int i = 0; i < WIDGETS; i++) {
+                rebuilt.getWidgetState("w" + i).invalidate();
+            }
+            rebuilt.interpolate(1000, 1000, progress);
+            for (int i = 0; i < WIDGETS; i++) {
+                WidgetFrame a = cached.getInterpolated("w" + i);
+                WidgetFrame b = rebuilt.getInterpolated("w" + i);
+                String id = "w" + i + " @" + progress;
+                assertEquals(id, b.left, a.left);
+                assertEquals(id, b.top, a.top);
+                assertEquals(id, b.right, a.right);
+                assertEquals(id, b.bottom, a.bottom);
+                assertEquals(id, b.alpha, a.alpha, 0f);
+            }
+        }
+        assertNotEquals(1, setupCount(rebuilt, "w0"));
+    }
+
+    @Test
+    public void testInterpolatorsCachedByEasing() {
+        assertSame(Transition.getInterpolator(0, null), Transition.getInterpolator(0, null));
+        String spline = "cubic(0.1, 0.2, 0.3, 0.4)";
+        assertSame(Transition.getInterpolator(-1, spline), Transition.getInterpolator(-1, spline));
+        assertNotSame(Transition.getInterpolator(0, null), Transition.getInterpolator(1, null));
+        assertNotSame(Transition.getInterpolator(0, null),
+                Transition.getInterpolator(0, null, true));
+        assertSame(Transition.getInterpolator(0, null, true),
+                Transition.getInterpolator(0, null, true));
+    }
+
+    @Test
+    public void testInterpolatorLookupTableIsOptIn() {
+        Transition transition = new Transition();
+        Easing bisection = Easing.getInterpolator("standard");
+        Interpolator interpolator = transition.getInterpolator();
+        for (int i = 0; i <= 100; i++) {
+            float x = i / 100f;
+            assertEquals("@" + x, (float) bisection.get(x), interpolator.getInterpolation(x), 0f);
+        }
+        transition.setUseInterpolatorLookupTable(true);
+        Interpolator table = transition.getInterpolator();
+        assertNotSame(interpolator, table);
+        for (int i = 0; i <= 100; i++) {
+            float x = i / 100f;
+            assertEquals("@" + x, (float) bisection.get(x), table.getInterpolation(x), 5e-4f);
+        }
+    }
+
+    /**
+     * A transition with key positions, key cycles and custom attributes
+     */
+    private static Transition createAnimatedTransition() {
+        ConstraintWidgetContainer start = layout(false);
+        ConstraintWidgetContainer end = layout(true);
+        // custom attributes are read from the frames of the widgets
+        for (int i = 7; i < 10; i++) {
+            start.getChildren().get(i).frame.addCustomFloat("textSize", 12f + i);
+            end.getChildren().get(i).frame.addCustomFloat("textSize", 24f - i);
+            start.getChildren().get(i).frame.addCustomColor("textColor", 0xFF0000FF + i);
+            end.getChildren().get(i).frame.addCustomColor("textColor", 0xFFFF0000 + i);
+        }
+        Transition transition = new Transition();
+        transition.updateFrom(start, Transition.START);
+        transition.updateFrom(end, Transition.END);
+        transition.addKeyPosition("w0", 50, 0, 0.2f, 0.8f);
+        transition.addKeyPosition("w6", 30, 0, 0.6f, 0.1f);
+        transition.addKeyPosition("w6", 70, 0, 0.3f, 0.9f);
+        for (int i = 2; i < 10; i++) {
+            TypedBundle cycle = new TypedBundle();
+            // not on a sample, the cycles are discontinuous at their own frame
+            cycle.add(TypedValues.TYPE_FRAME_POSITION, 37);
+            cycle.add(TypedValues.Cycle.TYPE_WAVE_PERIOD, 1f);
+            cycle.add(TypedValues.Cycle.TYPE_ROTATION_Z, 15f + i);
+            transition.addKeyCycle("w" + i, cycle);
+        }
+        return transition;
+    }
+
+    @Test
+    public void testBakedFramesMatchLive() {
+        // a pixel for the bounds, which are rounded, a degree for the rotations of the key
+        // cycles and a percent for alpha, between the samples; none at the samples
+        final int steps = 128;
+        final float tolerance = 1f;
+        Transition baked = createAnimatedTransition();
+        Transition live = createAnimatedTransition();
+        assertTrue(baked.bake(1000, 1000, steps, tolerance));
+        assertTrue(baked.isBaked());
+        // every sample, including the first and last ones, and the progress between them
+        for (int frame = 0; frame <= steps * 4; frame++) {
+            float progress = frame / (steps * 4f);
+            baked.interpolate(1000, 1000, progress);
+            live.interpolate(1000, 1000, progress);
+            boolean sample = frame % 4 == 0;
+            for (int i = 0; i < WIDGETS; i++) {
+                WidgetFrame a = baked.getInterpolated("w" + i);
+                WidgetFrame b = live.getInterpolated("w" + i);
+                String id = "w" + i + " @" + progress;
+                assertEquals(id, b.left, a.left, sample ? 0 : tolerance);
+                assertEquals(id, b.top, a.top, sample ? 0 : tolerance);
+                assertEquals(id, b.right, a.right, sample ? 0 : tolerance);
+                assertEquals(id, b.bottom, a.bottom, sample ? 0 : tolerance);
+                assertEquals(id, b.rotationZ, a.rotationZ, sample ? 1e-3f : tolerance);
+                assertEquals(id, b.alpha, a.alpha, sample ? 1e-5f : tolerance / 100);
+                assertEquals(id, b.visibility, a.visibility);
+            }
+            // custom attributes are not baked
+            for (int i = 7; i < 10; i++) {
+                WidgetFrame a = baked.getInterpolated("w" + i);
+                WidgetFrame b = live.getInterpolated("w" + i);
+                assertEquals(b.getCustomFloat("textSize"), a.getCustomFloat("textSize"), 0f);
+                assertEquals(b.getCustomColor("textColor"), a.getCustomColor("textColor"));
+            }
+        }
+        assertTrue(baked.isBaked());
+    }
+
+    @Test
+    public void testBakeRejectedAboveTolerance() {
+        Transition transition = createAnimatedTransition();
+        // two samples can't follow the key cycles
+        assertEquals(false, transition.bake(1000, 1000, 1, 1f));
+        assertEquals(false, transition.isBaked());
+    }
+
+    @Test
+    public void testBatchFramesMatchWidgetFrames() {
+        Transition batch = createAnimatedTransition();
+        Transition perWidget = createAnimatedTransition();
+        TransitionFrames frames = new TransitionFrames();
+        WidgetFrame copy = new WidgetFrame();
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            float progress = frame / (float) FRAMES;
+            batch.interpolate(1000, 1000, progress, frames);
+            perWidget.interpolate(1000, 1000, progress);
+            assertEquals(WIDGETS, frames.count);
+            assertEquals(progress, frames.progress, 0f);
+            for (int i = 0; i < frames.count; i++) {
+                String widgetId = batch.getWidgetId(i);
+                assertEquals(i, batch.getWidgetIndex(widgetId));
+                WidgetFrame b = perWidget.getInterpolated(widgetId);
+                String id = widgetId + " @" + progress;
+                assertEquals(id, b.left, frames.left[i], 0f);
+                assertEquals(id, b.top, frames.top[i], 0f);
+                assertEquals(id, b.right, frames.right[i], 0f);
+                assertEquals(id, b.bottom, frames.bottom[i], 0f);
+                assertEquals(id, b.pivotX, frames.pivotX[i], 0f);
+                assertEquals(id, b.pivotY, frames.pivotY[i], 0f);
+                assertEquals(id, b.rotationX, frames.rotationX[i], 0f);
+                assertEquals(id, b.rotationY, frames.rotationY[i], 0f);
+                assertEquals(id, b.rotationZ, frames.rotationZ[i], 0f);
+                assertEquals(id, b.translationX, frames.translationX[i], 0f);
+                assertEquals(id, b.translationY, frames.translationY[i], 0f);
+                assertEquals(id, b.translationZ, frames.translationZ[i], 0f);
+                assertEquals(id, b.scaleX, frames.scaleX[i], 0f);
+                assertEquals(id, b.scaleY, frames.scaleY[i], 0f);
+                assertEquals(id, b.alpha, frames.alpha[i], 0f);
+                assertEquals(id, b.visibility, frames.visibility[i]);
+                frames.get(i, copy);
+                assertEquals(id, b.left, copy.left);
+                assertEquals(id, b.bottom, copy.bottom);
+                assertEquals(id, b.rotationZ, copy.rotationZ, 0f);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchInterpolateDoesNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Transition transition = createAnimatedTransition();
+        TransitionFrames frames = new TransitionFrames();
+        // the first sweep sets up the splines and sizes the arrays, the JIT may allocate
+        // during a few of the next ones
+        long smallest = Long.MAX_VALUE;
+        for (int sweep = 0; sweep < 10; sweep++) {
+            long before = bean.getThreadAllocatedBytes(thread);
+            for (int frame = 0; frame <= FRAMES; frame++) {
+                transition.interpolate(1000, 1000, frame / (float) FRAMES, frames);
+            }
+            long allocated = bean.getThreadAllocatedBytes(thread) - before;
+            if (sweep > 0) {
+                smallest = Math.min(smallest, allocated);
+            }
+        }
+        assertEquals(0, smallest);
+    }
+
+    private static final String[] CUSTOM_FLOATS = {
+            "textSize", "letterSpacing", "lineHeight", "elevation", "progress"};
+    private static final String[] CUSTOM_COLORS = {"textColor", "background"};
+    private static final int[] CYCLES = {TypedValues.Cycle.TYPE_ROTATION_Z,
+            TypedValues.Cycle.TYPE_SCALE_X, TypedValues.Cycle.TYPE_TRANSLATION_Y,
+            TypedValues.Cycle.TYPE_TRANSLATION_X};
+
+    /**
+     * Three widgets with the custom attributes and key cycles given, on all of them
+     */
+    private static Transition createCustomTransition(String[] floats, String[] colors,
+                                                     int[] cycles) {
+        ConstraintWidgetContainer[] layouts = {layout(false), layout(true)};
+        for (int state = 0; state < 2; state++) {
+            boolean end = state == 1;
+            for (int i = 0; i < 3; i++) {
+                WidgetFrame frame = layouts[state].getChildren().get(i).frame;
+                for (String name : floats) {
+                    int j = Arrays.asList(CUSTOM_FLOATS).indexOf(name);
+                    frame.addCustomFloat(name, end ? 40f - j * 3 - i : j * 2f + i);
+                }
+                for (String name : colors) {
+                    frame.addCustomColor(name, name.equals("textColor")
+                            ? (end ? 0xFFFF0000 + i : 0xFF0000FF + i)
+                            : (end ? 0x80204060 : 0xFF608040 + i));
+                }
+            }
+        }
+        Transition transition = new Transition();
+        transition.updateFrom(layouts[0], Transition.START);
+        transition.updateFrom(layouts[1], Transition.END);
+        for (int i = 0; i < 3 && cycles.length > 0; i++) {
+            for (int frame : new int[]{25, 60}) {
+                TypedBundle cycle = new TypedBundle();
+                cycle.add(TypedValues.TYPE_FRAME_POSITION, frame);
+                cycle.add(TypedValues.Cycle.TYPE_WAVE_PERIOD, 1.5f + i);
+                for (int type : cycles) {
+                    int t = 0;
+                    while (CYCLES[t] != type) {
+                        t++;
+                    }
+                    cycle.add(type, (t + 1) * (frame == 25 ? 0.3f : 0.2f) + i);
+                }
+                transition.addKeyCycle("w" + i, cycle);
+            }
+        }
+        return transition;
+    }
+
+    private static Transition createCustomTransition() {
+        return createCustomTransition(CUSTOM_FLOATS, CUSTOM_COLORS, CYCLES);
+    }
+
+    @Test
+    public void testCustomAttributesMatchMapBasedFrames() {
+        // w1 as interpolated when the attributes were looked up by name in maps, with
+        // rotationZ, scaleX, translationY, translationX then the custom floats and colors
+        float[][] expected = {
+                {1.1779947f, 1.4740684f, 1.7701421f, 2.0662155f,
+                        5.75f, 7.125f, 8.5f, 9.875f, 11.25f},
+                {-0.12392167f, -0.1498262f, -0.17573074f, -0.20163526f,
+                        15.25f, 15.375f, 15.5f, 15.625f, 15.75f},
+                {-0.9559273f, -1.1104784f, -1.2650295f, -1.4195806f,
+                        24.75f, 23.625f, 22.5f, 21.375f, 20.25f},
+                {1.023822f, 1.1346816f, 1.2455412f, 1.3564008f,
+                        34.25f, 31.875f, 29.5f, 27.125f, 24.75f},
+        };
+        int[][] expectedColors = {
+                {0xFF630000, 0xEF5A7A45},
+                {0xFFA30000, 0xCF4F6D4E},
+                {0xFFCD0000, 0xAF415E55},
+                {0xFFEF0000, 0x8F2E4B5C},
+        };
+        Transition transition = createCustomTransition();
+        for (int row = 0; row < expected.length; row++) {
+            float progress = (row * 2 + 1) / 8f;
+            transition.interpolate(1000, 1000, progress);
+            WidgetFrame frame = transition.getInterpolated("w1");
+            String id = "@" + progress;
+            assertEquals(id, expected[row][0], frame.rotationZ, 0f);
+            assertEquals(id, expected[row][1], frame.scaleX, 0f);
+            assertEquals(id, expected[row][2], frame.translationY, 0f);
+            assertEquals(id, expected[row][3], frame.translationX, 0f);
+            for (int j = 0; j < CUSTOM_FLOATS.length; j++) {
+                assertEquals(id + " " + CUSTOM_FLOATS[j], expected[row][4 + j],
+                        frame.getCustomFloat(CUSTOM_FLOATS[j]), 0f);
+            }
+            for (int j = 0; j < CUSTOM_COLORS.length; j++) {
+                assertEquals(id + " " + CUSTOM_COLORS[j], expectedColors[row][j],
+                        frame.getCustomColor(CUSTOM_COLORS[j]));
+            }
+        }
+    }
+
+    @Test
+    public void testCustomAttributesMatchSeparateTransitions() {
+        // each attribute is applied to its own value, whatever the others are
+        Transition all = createCustomTransition();
+        Transition[] floats = new Transition[CUSTOM_FLOATS.length];
+        for (int j = 0; j < floats.length; j++) {
+            floats[j] = createCustomTransition(new String[]{CUSTOM_FLOATS[j]}, new String[0],
+                    new int[0]);
+        }
+        Transition[] colors = new Transition[CUSTOM_COLORS.length];
+        for (int j = 0; j < colors.length; j++) {
+            colors[j] = createCustomTransition(new String[0], new String[]{CUSTOM_COLORS[j]},
+                    new int[0]);
+        }
+        Transition[] cycles = new Transition[CYCLES.length];
+        for (int j = 0; j < cycles.length; j++) {
+            cycles[j] = createCustomTransition(new String[0], new String[0],
+                    new int[]{CYCLES[j]});
+        }
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            float progress = frame / (float) FRAMES;
+            all.interpolate(1000, 1000, progress);
+            for (Transition transition : floats) {
+                transition.interpolate(1000, 1000, progress);
+            }
+            for (Transition transition : colors) {
+                transition.interpolate(1000, 1000, progress);
+            }
+            for (Transition transition : cycles) {
+                transition.interpolate(1000, 1000, progress);
+            }
+            for (int i = 0; i < 3; i++) {
+                String widgetId = "w" + i;
+                String id = widgetId + " @" + progress;
+                WidgetFrame frameAll = all.getInterpolated(widgetId);
+                for (int j = 0; j < CUSTOM_FLOATS.length; j++) {
+                    assertEquals(id + " " + CUSTOM_FLOATS[j],
+                            floats[j].getInterpolated(widgetId).getCustomFloat(CUSTOM_FLOATS[j]),
+                            frameAll.getCustomFloat(CUSTOM_FLOATS[j]), 0f);
+                }
+                for (int j = 0; j < CUSTOM_COLORS.length; j++) {
+                    assertEquals(id + " " + CUSTOM_COLORS[j],
+                            colors[j].getInterpolated(widgetId).getCustomColor(CUSTOM_COLORS[j]),
+                            frameAll.getCustomColor(CUSTOM_COLORS[j]));
+                }
+                assertEquals(id, cycles[0].getInterpolated(widgetId).rotationZ,
+                        frameAll.rotationZ, 0f);
+                assertEquals(id, cycles[1].getInterpolated(widgetId).scaleX,
+                        frameAll.scaleX, 0f);
+                assertEquals(id, cycles[2].getInterpolated(widgetId).translationY,
+                        frameAll.translationY, 0f);
+                assertEquals(id, cycles[3].getInterpolated(widgetId).translationX,
+                        frameAll.translationX, 0f);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Containers measured on several threads at once give the same layouts as measured one after
+ * the other.
+ */
+public class ConcurrentLayoutTest {
+
+    private static final int LAYOUTS = 300;
+    private static final int THREADS = 8;
+    private static final int[] OPTIMIZATION_LEVELS = {
+            Optimizer.OPTIMIZATION_NONE,
+            Optimizer.OPTIMIZATION_STANDARD,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH
+    };
+
+    /**
+     * Measures the given layout with both exact and wrap content height, and returns the
+     * bounds of its widgets
+     */
+    static int[] layout(int index) {
+        Hierarchies.Shape[] shapes = Hierarchies.Shape.values();
+        Hierarchies.Shape shape = shapes[index % shapes.length];
+        int optimizationLevel = OPTIMIZATION_LEVELS[(index / shapes.length)
+                % OPTIMIZATION_LEVELS.length];
+        ConstraintWidgetContainer root = Hierarchies.create(shape, 20 + index % 40, index);
+        root.setOptimizationLevel(optimizationLevel);
+        root.updateHierarchy();
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] bounds = new int[children.size() * 8 + 2];
+        int position = 0;
+        for (boolean wrap : new boolean[]{false, true}) {
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(Hierarchies.WIDTH);
+            root.setVerticalDimensionBehaviour(wrap
+                    ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                    : ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setHeight(Hierarchies.HEIGHT);
+            root.measure(optimizationLevel, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                    wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                    wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+            for (ConstraintWidget child : children) {
+                bounds[position++] = child.getX();
+                bounds[position++] = child.getY();
+                bounds[position++] = child.getWidth();
+                bounds[position++] = child.getHeight();
+            }
+            bounds[position++] = root.getHeight();
+        }
+        return bounds;
+    }
+
+    @Test
+    public void testParallelLayoutsMatchSequential() throws Exception {
+        int[][] expected = new int[LAYOUTS][];
+        for (int i = 0; i < LAYOUTS; i++) {
+            expected[i] = layout(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int pass = 0; pass < 3; pass++) {
+                ArrayList<Future<int[]>> results = new ArrayList<>();
+                for (int i = 0; i < LAYOUTS; i++) {
+                    final int index = i;
+                    results.add(executor.submit(() -> layout(index)));
+                }
+                for (int i = 0; i < LAYOUTS; i++) {
+                    assertArrayEquals("layout " + i, expected[i], results.get(i).get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import java.util.Random;
+
+import static androidx.constraintlayout.core.widgets.ConstraintAnchor.Type.BOTTOM;
+import static androidx.constraintlayout.core.widgets.ConstraintAnchor.Type.LEFT;
+import static androidx.constraintlayout.core.widgets.ConstraintAnchor.Type.RIGHT;
+import static androidx.constraintlayout.core.widgets.ConstraintAnchor.Type.TOP;
+import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT;
+import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionBehaviour.WRAP_CONTENT;
+
+/**
+ * Generates the widget hierarchies used by the tests and the benchmarks. The hierarchies only
+ * depend on their shape, size and seed, so that results can be compared between runs.
+ */
+public final class Hierarchies {
+
+    public static final int WIDTH = 1080;
+    public static final int HEIGHT = 1920;
+
+    public enum Shape {
+        CHAINS,
+        BARRIERS,
+        FLOWS,
+        RATIOS,
+        DEEP_TREE,
+        CARDS
+    }
+
+    private Hierarchies() {
+    }
+
+    /**
+     * Measures the widgets at the intrinsic size given when they were created, and the
+     * virtual layouts (flows) with their own measure. Helpers such as barriers have no
+     * intrinsic size and keep their current one.
+     */
+    public static final BasicMeasure.Measurer MEASURER = new BasicMeasure.Measurer() {
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            if (widget instanceof VirtualLayout) {
+                VirtualLayout layout = (VirtualLayout) widget;
+                int parentWidth = widget.getParent() != null ? widget.getParent().getWidth() : WIDTH;
+                int parentHeight = widget.getParent() != null ? widget.getParent().getHeight() : HEIGHT;
+                layout.measure(mode(measure.horizontalBehavior), size(measure.horizontalBehavior,
+                                measure.horizontalDimension, parentWidth),
+                        mode(measure.verticalBehavior), size(measure.verticalBehavior,
+                                measure.verticalDimension, parentHeight));
+                measure.measuredWidth = layout.getMeasuredWidth();
+                measure.measuredHeight = layout.getMeasuredHeight();
+                return;
+            }
+            int[] intrinsic = (int[]) widget.getCompanionWidget();
+            measure.measuredWidth = dimension(measure.horizontalBehavior,
+                    measure.horizontalDimension,
+                    intrinsic != null ? intrinsic[0] : widget.getWidth());
+            measure.measuredHeight = dimension(measure.verticalBehavior,
+                    measure.verticalDimension,
+                    intrinsic != null ? intrinsic[1] : widget.getHeight());
+            measure.measuredBaseline = 0;
+            measure.measuredHasBaseline = false;
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    };
+
+    private static int mode(ConstraintWidget.DimensionBehaviour behaviour) {
+        switch (behaviour) {
+            case FIXED:
+            case MATCH_CONSTRAINT:
+            case MATCH_PARENT:
+                return BasicMeasure.EXACTLY;
+            default:
+                return BasicMeasure.AT_MOST;
+        }
+    }
+
+    private static int size(ConstraintWidget.DimensionBehaviour behaviour, int dimension, int parent) {
+        if (behaviour == ConstraintWidget.DimensionBehaviour.FIXED
+                || (behaviour == MATCH_CONSTRAINT && dimension > 0)) {
+            return dimension;
+        }
+        return parent;
+    }
+
+    private static int dimension(ConstraintWidget.DimensionBehaviour behaviour, int dimension,
+                                 int intrinsic) {
+        if (behaviour == WRAP_CONTENT) {
+            return intrinsic;
+        }
+        return dimension;
+    }
+
+    /**
+     * Creates a container of the given shape with about count widgets
+     */
+    public static ConstraintWidgetContainer create(Shape shape, int count, long seed) {
+        Random random = new Random(seed);
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, WIDTH, HEIGHT);
+        root.setDebugName("root");
+        root.setMeasurer(MEASURER);
+        switch (shape) {
+            case CHAINS:
+                createChains(root, count, random);
+                break;
+            case BARRIERS:
+                createBarriers(root, count, random);
+                break;
+            case FLOWS:
+                createFlows(root, count, random);
+                break;
+            case RATIOS:
+                createRatios(root, count, random);
+                break;
+            case DEEP_TREE:
+                createDeepTree(root, count, random);
+                break;
+            case CARDS:
+                createCards(root, count, random);
+                break;
+        }
+        return root;
+    }
+
+    private static ConstraintWidget widget(ConstraintWidgetContainer root, Random random, int index) {
+        int width = 40 + random.nextInt(160);
+        int height = 20 + random.nextInt(80);
+        ConstraintWidget widget = new ConstraintWidget(width, height);
+        widget.setDebugName("w" + index);
+        widget.setCompanionWidget(new int[]{width, height});
+        widget.setHorizontalDimensionBehaviour(WRAP_CONTENT);
+        widget.setVerticalDimensionBehaviour(WRAP_CONTENT);
+        root.add(widget);
+        return widget;
+    }
+
+    /**
+     * Rows of horizontal spread chains, stacked vertically
+     */
+    private static void createChains(ConstraintWidgetContainer root, int count, Random random) {
+        final int perChain = 5;
+        ConstraintWidget above = root;
+        ConstraintAnchor.Type aboveAnchor = TOP;
+        for (int i = 0; i < count; i += perChain) {
+            ConstraintWidget previous = null;
+            ConstraintWidget first = null;
+            int size = Math.min(perChain, count - i);
+            for (int j = 0; j < size; j++) {
+                ConstraintWidget widget = widget(root, random, i + j);
+                if (previous == null) {
+                    widget.connect(LEFT, root, LEFT, 8);
+                    first = widget;
+                } else {
+                    widget.connect(LEFT, previous, RIGHT, 0);
+                    previous.connect(RIGHT, widget, LEFT, 0);
+                }
+                widget.connect(TOP, above, aboveAnchor, 8);
+                if (random.nextInt(3) == 0) {
+                    widget.setHorizontalDimensionBehaviour(MATCH_CONSTRAINT);
+                    widget.setHorizontalWeight(1 + random.nextInt(3));
+                }
+                previous = widget;
+            }
+            previous.connect(RIGHT, root, RIGHT, 8);
+            first.setHorizontalChainStyle(random.nextInt(3));
+            above = first;
+            aboveAnchor = BOTTOM;
+        }
+    }
+
+    /**
+     * Columns of labels and values separated by barriers
+     */
+    private static void createBarriers(ConstraintWidgetContainer root, int count, Random random) {
+        final int perBarrier = 8;
+        ConstraintWidget start = root;
+        ConstraintAnchor.Type startAnchor = LEFT;
+        for (int i = 0; i < count; i += perBarrier) {
+            Barrier barrier = new Barrier();
+            barrier.setDebugName("barrier" + i);
+            barrier.setBarrierType(Barrier.RIGHT);
+            int size = Math.min(perBarrier, count - i);
+            ConstraintWidget above = root;
+            ConstraintAnchor.Type aboveAnchor = TOP;
+            for (int j = 0; j < size; j++) {
+                ConstraintWidget widget = widget(root, random, i + j);
+                widget.connect(LEFT, start, startAnchor, 8);
+                widget.connect(TOP, above, aboveAnchor, 4);
+                barrier.add(widget);
+                above = widget;
+                aboveAnchor = BOTTOM;
+            }
+            root.add(barrier);
+            start = barrier;
+            startAnchor = RIGHT;
+        }
+    }
+
+    /**
+     * Wrapping flows of widgets, stacked vertically
+     */
+    private static void createFlows(ConstraintWidgetContainer root, int count, Random random) {
+        final int perFlow = 20;
+        ConstraintWidget above = root;
+        ConstraintAnchor.Type aboveAnchor = TOP;
+        for (int i = 0; i < count; i += perFlow) {
+            Flow flow = new Flow();
+            flow.setDebugName("flow" + i);
+            flow.setWrapMode(Flow.WRAP_CHAIN);
+            flow.setHorizontalGap(8);
+            flow.setVerticalGap(8);
+            flow.setHorizontalDimensionBehaviour(MATCH_CONSTRAINT);
+            flow.setVerticalDimensionBehaviour(WRAP_CONTENT);
+            flow.connect(LEFT, root, LEFT, 0);
+            flow.connect(RIGHT, root, RIGHT, 0);
+            flow.connect(TOP, above, aboveAnchor, 8);
+            int size = Math.min(perFlow, count - i);
+            for (int j = 0; j < size; j++) {
+                flow.add(widget(root, random, i + j));
+            }
+            root.add(flow);
+            above = flow;
+            aboveAnchor = BOTTOM;
+        }
+    }
+
+    /**
+     * A grid of widgets with a dimension ratio, each constrained to its neighbours
+     */
+    private static void createRatios(ConstraintWidgetContainer root, int count, Random random) {
+        final int columns = 4;
+        ConstraintWidget[] previousRow = new ConstraintWidget[columns];
+        for (int i = 0; i < count; i++) {
+            int column = i % columns;
+            ConstraintWidget widget = widget(root, random, i);
+            widget.setHorizontalDimensionBehaviour(MATCH_CONSTRAINT);
+            widget.setVerticalDimensionBehaviour(MATCH_CONSTRAINT);
+            widget.setDimensionRatio(random.nextBoolean() ? "1:1" : "16:9");
+            widget.connect(LEFT, root, LEFT, column * (WIDTH / columns));
+            widget.connect(RIGHT, root, RIGHT, (columns - column - 1) * (WIDTH / columns));
+            if (previousRow[column] == null) {
+                widget.connect(TOP, root, TOP, 0);
+            } else {
+                widget.connect(TOP, previousRow[column], BOTTOM, 4);
+            }
+            previousRow[column] = widget;
+        }
+    }
+
+    /**
+     * Each widget depends on a random previous one, giving long dependency paths
+     */
+    private static void createDeepTree(ConstraintWidgetContainer root, int count, Random random) {
+        ConstraintWidget[] widgets = new ConstraintWidget[count];
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget widget = widget(root, random, i);
+            if (i == 0) {
+                widget.connect(LEFT, root, LEFT, 8);
+                widget.connect(TOP, root, TOP, 8);
+            } else {
+                // mostly depend on the last widgets, to keep the tree deep
+                ConstraintWidget parent = widgets[Math.max(0, i - 1 - random.nextInt(3))];
+                if (random.nextInt(4) == 0) {
+                    widget.connect(LEFT, parent, LEFT, 0);
+                    widget.connect(RIGHT, parent, RIGHT, 0);
+                } else {
+                    widget.connect(LEFT, parent, LEFT, random.nextInt(16));
+                }
+                widget.connect(TOP, parent, BOTTOM, random.nextInt(8));
+            }
+            widgets[i] = widget;
+        }
+    }
+
+    /**
+     * A grid of independent cards placed from the parent, each a title with a subtitle below
+     * and an icon on its right
+     */
+    private static void createCards(ConstraintWidgetContainer root, int count, Random random) {
+        final int perCard = 3;
+        final int columns = 4;
+        for (int i = 0; i < count; i += perCard) {
+            int card = i / perCard;
+            ConstraintWidget title = widget(root, random, i);
+            title.connect(LEFT, root, LEFT, 8 + (card % columns) * WIDTH / columns);
+            title.connect(TOP, root, TOP, 8 + (card / columns) * 240);
+            if (i + 1 < count) {
+                ConstraintWidget subtitle = widget(root, random, i + 1);
+                subtitle.connect(LEFT, title, LEFT, 0);
+                subtitle.connect(TOP, title, BOTTOM, 4);
+            }
+            if (i + 2 < count) {
+                ConstraintWidget icon = widget(root, random, i + 2);
+                icon.connect(LEFT, title, RIGHT, 8);
+                icon.connect(TOP, title, TOP, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets.analyzer;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.constraintlayout.core.SolverConfig;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.HelperWidget;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A dependency graph patched after edits (see {@link SolverConfig#incrementalGraph}) gives the
+ * same layouts as a graph built again from scratch.
+ */
+public class DependencyGraphTest {
+
+    private static final int[] OPTIMIZATION_LEVELS = {
+            Optimizer.OPTIMIZATION_GRAPH,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GRAPH
+                    | Optimizer.OPTIMIZATION_GRAPH_WRAP
+    };
+
+    private static final int MARGIN = 0;
+    private static final int CONNECT = 1;
+    private static final int RESET = 2;
+    private static final int DIMENSION = 3;
+    private static final int BEHAVIOUR = 4;
+    private static final int VISIBILITY = 5;
+
+    private static final ConstraintAnchor.Type[] SIDES = {
+            ConstraintAnchor.Type.LEFT, ConstraintAnchor.Type.TOP,
+            ConstraintAnchor.Type.RIGHT, ConstraintAnchor.Type.BOTTOM
+    };
+
+    /**
+     * A container and the widgets we edit, with the same edits applied to a patched and a
+     * rebuilt container
+     */
+    private static class Layout {
+        final ConstraintWidgetContainer root;
+        final ArrayList<ConstraintWidget> widgets = new ArrayList<>();
+        final int level;
+        boolean wrap = false;
+
+        Layout(Hierarchies.Shape shape, int count, int seed, int level, boolean incremental) {
+            root = Hierarchies.create(shape, count, seed);
+            SolverConfig config = new SolverConfig(root.getSolverConfig());
+            config.incrementalGraph = incremental;
+            root.setSolverConfig(config);
+            this.level = level;
+            for (ConstraintWidget child : root.getChildren()) {
+                if (!(child instanceof HelperWidget)) {
+                    widgets.add(child);
+                }
+            }
+        }
+
+        int[] measure() {
+            // as a layout pass does, the graph is invalidated
+            root.updateHierarchy();
+            root.setOptimizationLevel(level);
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(Hierarchies.WIDTH);
+            root.setVerticalDimensionBehaviour(wrap
+                    ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                    : ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setHeight(Hierarchies.HEIGHT);
+            root.measure(level, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                    wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                    wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+            ArrayList<ConstraintWidget> children = root.getChildren();
+            int[] bounds = new int[children.size() * 4 + 1];
+            int position = 0;
+            for (ConstraintWidget child : children) {
+                bounds[position++] = child.getX();
+                bounds[position++] = child.getY();
+                bounds[position++] = child.getWidth();
+                bounds[position++] = child.getHeight();
+            }
+            bounds[position] = root.getHeight();
+            return bounds;
+        }
+
+        void edit(int kind, Random random) {
+            ConstraintWidget widget = widgets.get(random.nextInt(widgets.size()));
+            ConstraintAnchor anchor = widget.getAnchor(SIDES[random.nextInt(SIDES.length)]);
+            switch (kind) {
+                case MARGIN:
+                    anchor.setMargin(random.nextInt(32));
+                    break;
+                case CONNECT:
+                    // to the parent, connections between widgets could make cycles
+                    widget.connect(anchor.getType(), root, anchor.getType(),
+                            random.nextInt(100));
+                    break;
+                case RESET:
+                    anchor.reset();
+                    break;
+                case DIMENSION:
+                    widget.setHorizontalDimensionBehaviour(
+                            ConstraintWidget.DimensionBehaviour.FIXED);
+                    widget.setVerticalDimensionBehaviour(
+                            ConstraintWidget.DimensionBehaviour.FIXED);
+                    widget.setDimension(20 + random.nextInt(200), 20 + random.nextInt(100));
+                    break;
+                case BEHAVIOUR: {
+                    // match constraint needs both sides
+                    boolean match = widget.mLeft.isConnected() && widget.mRight.isConnected();
+                    switch (widget.getHorizontalDimensionBehaviour()) {
+                        case FIXED:
+                            widget.setHorizontalDimensionBehaviour(
+                                    ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+                            break;
+                        case WRAP_CONTENT:
+                            widget.setHorizontalDimensionBehaviour(match
+                                    ? ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT
+                                    : ConstraintWidget.DimensionBehaviour.FIXED);
+                            break;
+                        default:
+                            widget.setHorizontalDimensionBehaviour(
+                                    ConstraintWidget.DimensionBehaviour.FIXED);
+                            break;
+                    }
+                }
+                break;
+                case VISIBILITY:
+                    widget.setVisibility(widget.getVisibility() == ConstraintWidget.GONE
+                            ? ConstraintWidget.VISIBLE : ConstraintWidget.GONE);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * The dependents of an anchor are kept in a set ordered by identity, so two identical
+     * hierarchies add their constraints in other orders, and an edge on a half pixel can be
+     * rounded either way
+     */
+    private static void assertSameLayout(String name, int[] expected, int[] actual) {
+        assertEquals(name, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(name + " at " + i, expected[i], actual[i], 1);
+        }
+    }
+
+    private static void compare(int kind) {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int level : OPTIMIZATION_LEVELS) {
+                for (int seed = 0; seed < 2; seed++) {
+                    int count = 40 + seed * 20;
+                    Layout patched = new Layout(shape, count, seed, level, true);
+                    Layout rebuilt = new Layout(shape, count, seed, level, false);
+                    Random patchedRandom = new Random(seed);
+                    Random rebuiltRandom = new Random(seed);
+                    String name = shape + " seed " + seed + " level " + level;
+                    assertSameLayout(name, rebuilt.measure(), patched.measure());
+                    for (int step = 0; step < 15; step++) {
+                        patched.edit(kind, patchedRandom);
+                        rebuilt.edit(kind, rebuiltRandom);
+                        if (step % 5 == 4) {
+                            patched.wrap = !patched.wrap;
+                            rebuilt.wrap = !rebuilt.wrap;
+                        }
+                        assertSameLayout(name + " step " + step, rebuilt.measure(),
+                                patched.measure());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMargins() {
+        compare(MARGIN);
+    }
+
+    @Test
+    public void testConnections() {
+        compare(CONNECT);
+    }
+
+    @Test
+    public void testResets() {
+        compare(RESET);
+    }
+
+    @Test
+    public void testDimensions() {
+        compare(DIMENSION);
+    }
+
+    @Test
+    public void testDimensionBehaviours() {
+        compare(BEHAVIOUR);
+    }
+
+    @Test
+    public void testVisibility() {
+        compare(VISIBILITY);
+    }
+}
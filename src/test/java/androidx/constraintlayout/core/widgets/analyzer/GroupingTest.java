@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets.analyzer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.Metrics;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * The groups of a wrap content container measured concurrently (see
+ * {@link Optimizer#OPTIMIZATION_GROUPING_PARALLEL}) give the same layouts as measured one after
+ * the other.
+ */
+public class GroupingTest {
+
+    private static final int SEQUENTIAL = Optimizer.OPTIMIZATION_STANDARD
+            | Optimizer.OPTIMIZATION_GROUPING;
+    private static final int PARALLEL = SEQUENTIAL | Optimizer.OPTIMIZATION_GROUPING_PARALLEL;
+
+    /**
+     * Measures the container with a wrap content width and height, and returns the bounds of
+     * its widgets and its size
+     */
+    private static int[] layout(ConstraintWidgetContainer root, int level, Metrics metrics) {
+        root.fillMetrics(metrics);
+        root.setOptimizationLevel(level);
+        root.updateHierarchy();
+        root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        root.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        root.measure(level, BasicMeasure.UNSPECIFIED, 0, BasicMeasure.UNSPECIFIED, 0,
+                0, 0, 0, 0);
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] bounds = new int[children.size() * 4 + 2];
+        int position = 0;
+        for (ConstraintWidget child : children) {
+            bounds[position++] = child.getX();
+            bounds[position++] = child.getY();
+            bounds[position++] = child.getWidth();
+            bounds[position++] = child.getHeight();
+        }
+        bounds[position++] = root.getWidth();
+        bounds[position] = root.getHeight();
+        return bounds;
+    }
+
+    @Test
+    public void testParallelWrapsMatchSequential() {
+        Metrics metrics = new Metrics();
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int seed = 0; seed < 3; seed++) {
+                int count = 10 + seed * 15;
+                String name = shape + " seed " + seed;
+                int[] sequential = layout(Hierarchies.create(shape, count, seed), SEQUENTIAL,
+                        new Metrics());
+                int[] parallel = layout(Hierarchies.create(shape, count, seed), PARALLEL,
+                        metrics);
+                assertArrayEquals(name, sequential, parallel);
+            }
+        }
+        // make sure some of the layouts went through the concurrent measure
+        assertTrue(metrics.parallelGroupMeasures > 0);
+    }
+
+    @Test
+    public void testParallelWrapsDeterministic() {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            ConstraintWidgetContainer root = Hierarchies.create(shape, 30, 7);
+            int[] first = layout(root, PARALLEL, new Metrics());
+            for (int i = 0; i < 10; i++) {
+                // the same container measured again, and a new one
+                assertArrayEquals(shape + " pass " + i, first,
+                        layout(root, PARALLEL, new Metrics()));
+                assertArrayEquals(shape + " copy " + i, first,
+                        layout(Hierarchies.create(shape, 30, 7), PARALLEL, new Metrics()));
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets.analyzer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import androidx.constraintlayout.core.Metrics;
+import androidx.constraintlayout.core.SolverConfig;
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Hierarchies;
+import androidx.constraintlayout.core.widgets.Optimizer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+/**
+ * The worklist propagation of {@link SolverConfig#worklistPropagation} resolves the same
+ * layouts as the recursive one, without its stack depth.
+ */
+public class PropagationTest {
+
+    private static final int LEVEL = Optimizer.OPTIMIZATION_STANDARD
+            | Optimizer.OPTIMIZATION_GRAPH;
+    private static final int CHAIN_LENGTH = 10000;
+    private static final int WIDGET_SIZE = 10;
+    // enough for the worklist, far too small for a recursion as deep as the chain
+    private static final long SMALL_STACK = 256 * 1024;
+    private static final long LARGE_STACK = 512 * 1024 * 1024;
+
+    private static void setPropagation(ConstraintWidgetContainer root, boolean worklist) {
+        SolverConfig config = new SolverConfig(root.getSolverConfig());
+        config.worklistPropagation = worklist;
+        root.setSolverConfig(config);
+    }
+
+    /**
+     * Measures the layout with each of the given heights (wrap content or exact), and returns
+     * the bounds of its widgets
+     */
+    private static int[] measure(ConstraintWidgetContainer root, boolean... heights) {
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] bounds = new int[(children.size() * 4 + 1) * heights.length];
+        int position = 0;
+        for (boolean wrap : heights) {
+            root.setOptimizationLevel(LEVEL);
+            root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setWidth(Hierarchies.WIDTH);
+            root.setVerticalDimensionBehaviour(wrap
+                    ? ConstraintWidget.DimensionBehaviour.WRAP_CONTENT
+                    : ConstraintWidget.DimensionBehaviour.FIXED);
+            root.setHeight(Hierarchies.HEIGHT);
+            root.measure(LEVEL, BasicMeasure.EXACTLY, Hierarchies.WIDTH,
+                    wrap ? BasicMeasure.UNSPECIFIED : BasicMeasure.EXACTLY,
+                    wrap ? 0 : Hierarchies.HEIGHT, 0, 0, 0, 0);
+            for (ConstraintWidget child : children) {
+                bounds[position++] = child.getX();
+                bounds[position++] = child.getY();
+                bounds[position++] = child.getWidth();
+                bounds[position++] = child.getHeight();
+            }
+            bounds[position++] = root.getHeight();
+        }
+        return bounds;
+    }
+
+    /**
+     * Runs the layout on a thread with the given stack size
+     */
+    private static int[] run(long stackSize, Callable<int[]> layout) throws Exception {
+        Object[] result = new Object[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                result[0] = layout.call();
+            } catch (Throwable e) {
+                result[0] = e;
+            }
+        }, "layout", stackSize);
+        thread.start();
+        thread.join();
+        if (result[0] instanceof Throwable) {
+            throw new AssertionError("layout failed", (Throwable) result[0]);
+        }
+        return (int[]) result[0];
+    }
+
+    /**
+     * A vertical list of widgets, each one below the previous one
+     */
+    private static ConstraintWidgetContainer createList(int count, Metrics metrics) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0,
+                Hierarchies.WIDTH, Hierarchies.HEIGHT);
+        root.setMeasurer(Hierarchies.MEASURER);
+        root.fillMetrics(metrics);
+        ConstraintWidget previous = root;
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget widget = new ConstraintWidget(WIDGET_SIZE, WIDGET_SIZE);
+            widget.setDebugName("w" + i);
+            widget.setCompanionWidget(new int[]{WIDGET_SIZE, WIDGET_SIZE});
+            widget.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT);
+            widget.connect(ConstraintAnchor.Type.TOP, previous, previous == root
+                    ? ConstraintAnchor.Type.TOP : ConstraintAnchor.Type.BOTTOM);
+            root.add(widget);
+            previous = widget;
+        }
+        return root;
+    }
+
+    @Test
+    public void testDeepChain() throws Exception {
+        Metrics metrics = new Metrics();
+        int[] worklist = run(SMALL_STACK, () -> {
+            ConstraintWidgetContainer root = createList(CHAIN_LENGTH, metrics);
+            setPropagation(root, true);
+            return measure(root, false);
+        });
+        // resolved by the dependency graph, without a layout by the solver
+        assertEquals(0, metrics.layouts);
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            assertEquals("w" + i, i * WIDGET_SIZE, worklist[i * 4 + 1]);
+        }
+
+        int[] recursive = run(LARGE_STACK, () -> {
+            ConstraintWidgetContainer root = createList(CHAIN_LENGTH, new Metrics());
+            setPropagation(root, false);
+            return measure(root, false);
+        });
+        assertArrayEquals(recursive, worklist);
+    }
+
+    /**
+     * The layouts are the same with both propagations, including on hierarchies deep enough
+     * for the worklist to defer the updates of some nodes
+     */
+    @Test
+    public void testSameLayoutsAsRecursive() throws Exception {
+        for (Hierarchies.Shape shape : Hierarchies.Shape.values()) {
+            for (int count : new int[]{20, 500}) {
+                for (int seed = 0; seed < 2; seed++) {
+                    final int size = count + seed;
+                    final int layoutSeed = seed;
+                    int[] expected = run(LARGE_STACK, () -> {
+                        ConstraintWidgetContainer root = Hierarchies.create(shape, size,
+                                layoutSeed);
+                        setPropagation(root, false);
+                        return measure(root, false, true);
+                    });
+                    ConstraintWidgetContainer root = Hierarchies.create(shape, size, seed);
+                    setPropagation(root, true);
+                    assertArrayEquals(shape + " " + size + " seed " + seed, expected,
+                            measure(root, false, true));
+                }
+            }
+        }
+    }
+}
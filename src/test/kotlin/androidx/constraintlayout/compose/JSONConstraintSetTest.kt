@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.compose
+
+import androidx.compose.ui.unit.Density
+import androidx.constraintlayout.core.parser.CLParser
+import androidx.constraintlayout.core.state.Transition
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class JSONConstraintSetTest {
+
+    private val content = """
+        {
+          Variables: { margin: 16, ids: { from: 0, step: 10 } },
+          box: {
+            width: 40, height: 'wrap', start: ['parent', 'start', 'margin'],
+            top: ['parent', 'top'], custom: { level: 0.5, tint: '#FF0000' }
+          },
+          title: { start: ['box', 'end', 8], baseline: ['box', 'baseline'] }
+        }
+        """.trimIndent()
+
+    @Test
+    fun testContentParsedOnce() {
+        val constraintSet = JSONConstraintSet(content)
+        val parsed = constraintSet.getParsedContent()
+        val json = parsed.toJSON()
+
+        val transition = Transition()
+        constraintSet.applyTo(transition, Transition.START)
+        assertEquals(0.5f, transition.getStart("box").getCustomFloat("level"), 0f)
+        constraintSet.applyTo(transition, Transition.END)
+        constraintSet.applyTo(State(Density(1f)), emptyList())
+        constraintSet.applyTo(State(Density(2f)), emptyList())
+
+        // the same tree, left as parsed
+        assertSame(parsed, constraintSet.getParsedContent())
+        assertEquals(json, parsed.toJSON())
+        assertEquals(CLParser.parse(content).toJSON(), parsed.toJSON())
+    }
+
+    @Test
+    fun testNewContentParsedAgain() {
+        val constraintSet = JSONConstraintSet(content)
+        val parsed = constraintSet.getParsedContent()
+
+        // an equal string keeps the tree
+        constraintSet.setCurrentContent(StringBuilder(content).toString())
+        assertSame(parsed, constraintSet.getParsedContent())
+
+        // live edit
+        val edited = content.replace("level: 0.5", "level: 0.75")
+        constraintSet.setCurrentContent(edited)
+        val reparsed = constraintSet.getParsedContent()
+        assertNotSame(parsed, reparsed)
+        val transition = Transition()
+        constraintSet.applyTo(transition, Transition.START)
+        assertEquals(0.75f, transition.getStart("box").getCustomFloat("level"), 0f)
+        assertSame(reparsed, constraintSet.getParsedContent())
+
+        // invalid content is ignored when applied, and parsed again once fixed
+        constraintSet.setCurrentContent("{ box: ")
+        constraintSet.applyTo(Transition(), Transition.START)
+        constraintSet.applyTo(State(Density(1f)), emptyList())
+        constraintSet.setCurrentContent(content)
+        assertEquals(parsed.toJSON(), constraintSet.getParsedContent().toJSON())
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.compose
+
+import androidx.compose.runtime.MutableState
+import androidx.constraintlayout.core.parser.CLParser
+import androidx.constraintlayout.core.parser.CLParsingException
+import androidx.constraintlayout.core.state.Transition
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+class JSONMotionSceneTest {
+
+    private val scene = """
+        {
+          ConstraintSets: {
+            end: {
+              Extends: 'middle',
+              box: { height: 30, clear: ['constraints'] }
+            },
+            start: {
+              box: { width: 10, height: 10, start: ['parent', 'start', 16] },
+              title: { width: 'wrap' }
+            },
+            middle: {
+              Extends: 'start',
+              box: { width: 20 },
+              label: { width: 5 }
+            },
+            loopA: { Extends: 'loopB', box: { width: 1 } },
+            loopB: { Extends: 'loopA', box: { height: 2 } }
+          },
+          Transitions: {
+            default: { from: 'start', to: 'end' }
+          }
+        }
+        """.trimIndent()
+
+    @Test
+    fun testSetContentKeepsPreviousOnInvalidContent() {
+        val motionScene = JSONMotionScene(scene)
+        motionScene.setConstraintSetContent("start", "{ box: { width: 40 } }")
+        val start = motionScene.getConstraintSetObject("start")
+        assertEquals(40, start!!.getObject("box").getInt("width"))
+
+        // not JSON: ignored without throwing, as before
+        motionScene.setConstraintSetContent("start", "not json")
+        assertSame(start, motionScene.getConstraintSetObject("start"))
+        motionScene.setTransitionContent("default", "not json")
+        assertEquals("start", motionScene.getTransitionObject("default")!!.getString("from"))
+
+        motionScene.setTransitionContent("default", "{ from: 'end', to: 'start' }")
+        assertEquals("end", motionScene.getTransitionObject("default")!!.getString("from"))
+    }
+
+    @Test
+    fun testSetContentOrThrow() {
+        val motionScene = JSONMotionScene(scene)
+        val start = motionScene.getConstraintSetObject("start")
+        try {
+            motionScene.setConstraintSetContentOrThrow("start", "not json")
+            fail("invalid content accepted")
+        } catch (e: CLParsingException) {
+            // expected
+        }
+        assertSame(start, motionScene.getConstraintSetObject("start"))
+        try {
+            motionScene.setTransitionContentOrThrow("default", "not json")
+            fail("invalid content accepted")
+        } catch (e: CLParsingException) {
+            // expected
+        }
+        assertEquals("start", motionScene.getTransitionObject("default")!!.getString("from"))
+
+        motionScene.setConstraintSetContentOrThrow("start", "{ box: { width: 40 } }")
+        assertEquals(40, motionScene.getConstraintSetObject("start")!!
+            .getObject("box").getInt("width"))
+        motionScene.setTransitionContentOrThrow("default", "{ from: 'end', to: 'start' }")
+        assertEquals("end", motionScene.getTransitionObject("default")!!.getString("from"))
+    }
+
+    @Test
+    fun testExtends() {
+        val motionScene = JSONMotionScene(scene)
+        val start = motionScene.getConstraintSetObject("start")!!
+        val middle = motionScene.getConstraintSetObject("middle")!!
+        val end = motionScene.getConstraintSetObject("end")!!
+
+        // the base is left as declared
+        assertEquals(10, start.getObject("box").getInt("width"))
+        assertEquals(10, start.getObject("box").getInt("height"))
+        assertFalse(start.has("label"))
+
+        // its widgets are merged, overridden or added
+        assertEquals(20, middle.getObject("box").getInt("width"))
+        assertEquals(10, middle.getObject("box").getInt("height"))
+        assertTrue(middle.getObject("box").has("start"))
+        assertEquals("wrap", middle.getObject("title").getString("width"))
+        assertEquals(5, middle.getObject("label").getInt("width"))
+
+        // declared before its base, which extends another one
+        assertEquals(20, end.getObject("box").getInt("width"))
+        assertEquals(30, end.getObject("box").getInt("height"))
+        assertFalse(end.getObject("box").has("start"))
+        assertEquals(5, end.getObject("label").getInt("width"))
+        assertEquals("wrap", end.getObject("title").getString("width"))
+        assertTrue(middle.getObject("box").has("start"))
+
+        // a cycle stops
+        assertNotNull(motionScene.getConstraintSetObject("loopA"))
+        assertNotNull(motionScene.getConstraintSetObject("loopB"))
+    }
+
+    @Test
+    fun testExtendsBaseFromScene() {
+        val motionScene = JSONMotionScene(scene)
+        // the base isn't in the new content: the one of the scene is used
+        parseConstraintSets(
+            motionScene,
+            CLParser.parse("{ other: { Extends: 'start', box: { width: 50 } } }")
+        )
+        val other = motionScene.getConstraintSetObject("other")!!
+        assertEquals(50, other.getObject("box").getInt("width"))
+        assertEquals(10, other.getObject("box").getInt("height"))
+        assertEquals(10, motionScene.getConstraintSetObject("start")!!
+            .getObject("box").getInt("width"))
+    }
+
+    @Test
+    fun testDefaultAccessorsParseOnce() {
+        val motionScene = StringMotionScene()
+        motionScene.setConstraintSetContent("start", "{ box: { width: 10 } }")
+        val first = motionScene.getConstraintSetObject("start")
+        assertNotNull(first)
+        assertSame(first, motionScene.getConstraintSetObject("start"))
+        assertSame(first, motionScene.getConstraintSetObject(0))
+
+        motionScene.setConstraintSetContent("start", "{ box: { width: 20 } }")
+        val second = motionScene.getConstraintSetObject("start")!!
+        assertEquals(20, second.getObject("box").getInt("width"))
+        assertSame(second, motionScene.getConstraintSetObject("start"))
+
+        motionScene.setConstraintSetContent("broken", "not json")
+        assertNull(motionScene.getConstraintSetObject("broken"))
+        assertNull(motionScene.getTransitionObject("default"))
+    }
+
+    @Test
+    fun testExtendsLeavesParsedBaseUnchanged() {
+        val motionScene = StringMotionScene()
+        motionScene.setConstraintSetContent(
+            "start",
+            "{ box: { width: 10, start: ['parent', 'start'] }, title: { width: 'wrap' } }"
+        )
+        val start = motionScene.getConstraintSetObject("start")!!
+        val json = start.toJSON()
+
+        // the base is the tree cached for the content of "start"
+        parseConstraintSets(
+            motionScene,
+            CLParser.parse(
+                "{ other: { Extends: 'start', box: { width: 50, clear: ['constraints'] }," +
+                    " label: { width: 5 } } }"
+            )
+        )
+        val other = CLParser.parse(motionScene.getConstraintSet("other")!!)
+        assertEquals(50, other.getObject("box").getInt("width"))
+        assertFalse(other.getObject("box").has("start"))
+        assertTrue(other.has("label"))
+
+        assertSame(start, motionScene.getConstraintSetObject("start"))
+        assertEquals(json, start.toJSON())
+        assertFalse(start.has("label"))
+    }
+
+    @Test
+    fun testExtendsLeavesSceneTreesUnchanged() {
+        val motionScene = JSONMotionScene(scene)
+        val constraintSets = CLParser.parse(scene).getObject("ConstraintSets")
+        // the ConstraintSets without Extends are kept as declared
+        assertEquals(
+            constraintSets.getObject("start").toJSON(),
+            motionScene.getConstraintSetObject("start")!!.toJSON()
+        )
+        // and applying them doesn't change them
+        val start = motionScene.getConstraintSetObject("start")!!
+        val json = start.toJSON()
+        ParsedConstraintSet(start).applyTo(Transition(), Transition.START)
+        assertEquals(json, start.toJSON())
+        assertSame(start, motionScene.getConstraintSetObject("start"))
+    }
+
+    /**
+     * A [MotionScene] with the String accessors only
+     */
+    private class StringMotionScene : MotionScene {
+        private val constraintSets = LinkedHashMap<String, String>()
+        private val transitions = LinkedHashMap<String, String>()
+
+        override fun setConstraintSetContent(name: String, content: String) {
+            constraintSets[name] = content
+        }
+
+        override fun setTransitionContent(name: String, content: String) {
+            transitions[name] = content
+        }
+
+        override fun getConstraintSet(name: String): String? = constraintSets[name]
+
+        override fun getConstraintSet(index: Int): String? =
+            constraintSets.values.elementAtOrNull(index)
+
+        override fun getTransition(name: String): String? = transitions[name]
+
+        override fun setUpdateFlag(needsUpdate: MutableState<Long>) {
+            // nothing
+        }
+
+        override fun setDebugName(name: String?) {
+            // nothing
+        }
+
+        override fun getForcedProgress(): Float = Float.NaN
+
+        override fun resetForcedProgress() {
+            // nothing
+        }
+
+        override fun getForcedDrawDebug(): MotionLayoutDebugFlags = MotionLayoutDebugFlags.UNKNOWN
+    }
+}
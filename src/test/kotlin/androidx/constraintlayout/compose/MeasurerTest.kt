@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.compose
+
+import androidx.compose.ui.graphics.GraphicsLayerScope
+import androidx.compose.ui.layout.AlignmentLine
+import androidx.compose.ui.layout.LayoutIdParentData
+import androidx.compose.ui.layout.Measurable
+import androidx.compose.ui.layout.MeasureScope
+import androidx.compose.ui.layout.Placeable
+import androidx.compose.ui.unit.Constraints
+import androidx.compose.ui.unit.IntOffset
+import androidx.compose.ui.unit.IntSize
+import androidx.compose.ui.unit.LayoutDirection
+import androidx.constraintlayout.core.widgets.Optimizer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MeasurerTest {
+
+    private val constraintSet = ConstraintSet {
+        val box = createRefFor("box")
+        constrain(box) {
+            start.linkTo(parent.start)
+            top.linkTo(parent.top)
+        }
+    }
+
+    @Test
+    fun testContentChangedWithParentConstraints() {
+        val measurer = Measurer()
+        val box = FakeMeasurable("box", 10, 10)
+        var size = measure(measurer, box, Constraints(0, 300, 0, 300))
+        assertEquals(IntSize(10, 10), size)
+
+        // the box is measured with the same constraints in the next pass, as only the minimum
+        // size of the parent changed, but its content is larger now
+        box.contentWidth = 30
+        box.contentHeight = 20
+        size = measure(measurer, box, Constraints(5, 300, 5, 300))
+        assertEquals(IntSize(30, 20), size)
+
+        box.contentWidth = 40
+        size = measure(measurer, box, Constraints(5, 300, 5, 300))
+        assertEquals(IntSize(40, 20), size)
+    }
+
+    @Test
+    fun testMeasuresNotReusedAcrossPasses() {
+        val measurer = Measurer()
+        val box = FakeMeasurable("box", 10, 10)
+        measure(measurer, box, Constraints(0, 300, 0, 300))
+        val measures = box.measures
+        measure(measurer, box, Constraints(0, 300, 0, 300))
+        // the second pass measures the box again even though nothing changed
+        assertTrue(box.measures > measures)
+        // every request that was not a hit measured the box
+        assertEquals(
+            box.measures.toLong(),
+            measurer.measureRequests - measurer.measureCacheHits
+        )
+    }
+
+    private fun measure(
+        measurer: Measurer,
+        box: FakeMeasurable,
+        constraints: Constraints
+    ): IntSize = measurer.performMeasure(
+        constraints,
+        LayoutDirection.Ltr,
+        constraintSet,
+        listOf(box),
+        Optimizer.OPTIMIZATION_STANDARD,
+        TestMeasureScope
+    )
+
+    private object TestMeasureScope : MeasureScope {
+        override val density = 1f
+        override val fontScale = 1f
+        override val layoutDirection = LayoutDirection.Ltr
+    }
+
+    private class FakeMeasurable(
+        id: String,
+        var contentWidth: Int,
+        var contentHeight: Int
+    ) : Measurable {
+        var measures = 0
+
+        override val parentData: Any = object : LayoutIdParentData {
+            override val layoutId: Any = id
+        }
+
+        override fun measure(constraints: Constraints): Placeable {
+            measures++
+            return FakePlaceable(
+                contentWidth.coerceIn(constraints.minWidth, constraints.maxWidth),
+                contentHeight.coerceIn(constraints.minHeight, constraints.maxHeight)
+            )
+        }
+
+        override fun minIntrinsicWidth(height: Int) = contentWidth
+        override fun maxIntrinsicWidth(height: Int) = contentWidth
+        override fun minIntrinsicHeight(width: Int) = contentHeight
+        override fun maxIntrinsicHeight(width: Int) = contentHeight
+    }
+
+    private class FakePlaceable(width: Int, height: Int) : Placeable() {
+        init {
+            measuredSize = IntSize(width, height)
+        }
+
+        override fun get(alignmentLine: AlignmentLine) = AlignmentLine.Unspecified
+
+        override fun placeAt(
+            position: IntOffset,
+            zIndex: Float,
+            layerBlock: (GraphicsLayerScope.() -> Unit)?
+        ) {
+            // nothing to place
+        }
+    }
+}